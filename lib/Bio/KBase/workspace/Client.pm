@@ -4282,6 +4282,7 @@ ListObjectsParams is a reference to a hash where the following keys are defined:
 	before_epoch has a value which is a Workspace.epoch
 	minObjectID has a value which is a Workspace.obj_id
 	maxObjectID has a value which is a Workspace.obj_id
+	startafter has a value which is a Workspace.obj_ref
 	showDeleted has a value which is a Workspace.boolean
 	showOnlyDeleted has a value which is a Workspace.boolean
 	showHidden has a value which is a Workspace.boolean
@@ -4298,6 +4299,7 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 timestamp is a string
 epoch is an int
 obj_id is an int
+obj_ref is a string
 boolean is an int
 object_info is a reference to a list containing 11 items:
 	0: (objid) a Workspace.obj_id
@@ -4334,6 +4336,7 @@ ListObjectsParams is a reference to a hash where the following keys are defined:
 	before_epoch has a value which is a Workspace.epoch
 	minObjectID has a value which is a Workspace.obj_id
 	maxObjectID has a value which is a Workspace.obj_id
+	startafter has a value which is a Workspace.obj_ref
 	showDeleted has a value which is a Workspace.boolean
 	showOnlyDeleted has a value which is a Workspace.boolean
 	showHidden has a value which is a Workspace.boolean
@@ -4350,6 +4353,7 @@ usermeta is a reference to a hash where the key is a string and the value is a s
 timestamp is a string
 epoch is an int
 obj_id is an int
+obj_ref is a string
 boolean is an int
 object_info is a reference to a list containing 11 items:
 	0: (objid) a Workspace.obj_id
@@ -4424,6 +4428,153 @@ List objects in one or more workspaces.
  
 
 
+=head2 list_recent_objects
+
+  $results = $obj->list_recent_objects($params)
+
+=over 4
+
+=item Parameter and return types
+
+=begin html
+
+<pre>
+$params is a Workspace.ListRecentObjectsParams
+$results is a Workspace.ListRecentObjectsResults
+ListRecentObjectsParams is a reference to a hash where the following keys are defined:
+	startafter has a value which is a string
+	includeMetadata has a value which is a Workspace.boolean
+	excludeGlobal has a value which is a Workspace.boolean
+	limit has a value which is an int
+boolean is an int
+ListRecentObjectsResults is a reference to a hash where the following keys are defined:
+	objects has a value which is a reference to a list where each element is a Workspace.object_info
+	next has a value which is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+obj_id is an int
+obj_name is a string
+type_string is a string
+timestamp is a string
+username is a string
+ws_id is an int
+ws_name is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+</pre>
+
+=end html
+
+=begin text
+
+$params is a Workspace.ListRecentObjectsParams
+$results is a Workspace.ListRecentObjectsResults
+ListRecentObjectsParams is a reference to a hash where the following keys are defined:
+	startafter has a value which is a string
+	includeMetadata has a value which is a Workspace.boolean
+	excludeGlobal has a value which is a Workspace.boolean
+	limit has a value which is an int
+boolean is an int
+ListRecentObjectsResults is a reference to a hash where the following keys are defined:
+	objects has a value which is a reference to a list where each element is a Workspace.object_info
+	next has a value which is a string
+object_info is a reference to a list containing 11 items:
+	0: (objid) a Workspace.obj_id
+	1: (name) a Workspace.obj_name
+	2: (type) a Workspace.type_string
+	3: (save_date) a Workspace.timestamp
+	4: (version) an int
+	5: (saved_by) a Workspace.username
+	6: (wsid) a Workspace.ws_id
+	7: (workspace) a Workspace.ws_name
+	8: (chsum) a string
+	9: (size) an int
+	10: (meta) a Workspace.usermeta
+obj_id is an int
+obj_name is a string
+type_string is a string
+timestamp is a string
+username is a string
+ws_id is an int
+ws_name is a string
+usermeta is a reference to a hash where the key is a string and the value is a string
+
+=end text
+
+=item Description
+
+List the most recently modified objects in the workspaces the user can
+read, newest first. Saving, copying, reverting, renaming, deleting, or
+undeleting an object changes its modification date. Deleted and hidden
+objects are not listed.
+
+At most 10000 objects are examined per call, so a page may contain
+fewer objects than the limit, or none, even when more objects are
+available. Continue calling with the next value until it is null to
+see all the objects. An object that is modified while paging may be
+listed twice.
+
+=back
+
+=cut
+
+ sub list_recent_objects
+{
+    my($self, @args) = @_;
+
+# Authentication: optional
+
+    if ((my $n = @args) != 1)
+    {
+	Bio::KBase::Exceptions::ArgumentValidationError->throw(error =>
+							       "Invalid argument count for function list_recent_objects (received $n, expecting 1)");
+    }
+    {
+	my($params) = @args;
+
+	my @_bad_arguments;
+        (ref($params) eq 'HASH') or push(@_bad_arguments, "Invalid type for argument 1 \"params\" (value was \"$params\")");
+        if (@_bad_arguments) {
+	    my $msg = "Invalid arguments passed to list_recent_objects:\n" . join("", map { "\t$_\n" } @_bad_arguments);
+	    Bio::KBase::Exceptions::ArgumentValidationError->throw(error => $msg,
+								   method_name => 'list_recent_objects');
+	}
+    }
+
+    my $url = $self->{url};
+    my $result = $self->{client}->call($url, $self->{headers}, {
+	    method => "Workspace.list_recent_objects",
+	    params => \@args,
+    });
+    if ($result) {
+	if ($result->is_error) {
+	    Bio::KBase::Exceptions::JSONRPC->throw(error => $result->error_message,
+					       code => $result->content->{error}->{code},
+					       method_name => 'list_recent_objects',
+					       data => $result->content->{error}->{error} # JSON::RPC::ReturnObject only supports JSONRPC 1.1 or 1.O
+					      );
+	} else {
+	    return wantarray ? @{$result->result} : $result->result->[0];
+	}
+    } else {
+        Bio::KBase::Exceptions::HTTP->throw(error => "Error invoking method list_recent_objects",
+					    status_line => $self->{client}->status_line,
+					    method_name => 'list_recent_objects',
+				       );
+    }
+}
+ 
+
+
 =head2 get_objectmeta
 
   $metadata = $obj->get_objectmeta($params)
@@ -5711,8 +5862,9 @@ obj_name is a string
 =item Description
 
 Get object names matching a prefix. At most 1000 names are returned.
-No particular ordering is guaranteed, nor is which names will be
-returned if more than 1000 are found.
+Names are sorted within each workspace. If more names are found than
+the limit, the first names in order of workspace ID and then name are
+returned.
 
 This function is intended for use as an autocomplete helper function.
 
@@ -10702,10 +10854,9 @@ Optional parameters:
 permission perm - filter workspaces by minimum permission level. 'None'
         and 'readable' are ignored.
 list<username> owners - filter workspaces by owner.
-usermeta meta - filter workspaces by the user supplied metadata. NOTE:
-        only one key/value pair is supported at this time. A full map
-        is provided as input for the possibility for expansion in the
-        future.
+usermeta meta - filter workspaces by the user supplied metadata.
+        All of the key/value pairs must match. At most 10 pairs are
+        allowed.
 timestamp after - only return workspaces that were modified after this
         date.
 timestamp before - only return workspaces that were modified before
@@ -10938,10 +11089,9 @@ Parameters for the 'list_objects' function.
                         and 'readable' are ignored.
                 list<username> savedby - filter objects by the user that saved or
                         copied the object.
-                usermeta meta - filter objects by the user supplied metadata. NOTE:
-                        only one key/value pair is supported at this time. A full map
-                        is provided as input for the possibility for expansion in the
-                        future.
+                usermeta meta - filter objects by the user supplied metadata.
+                        All of the key/value pairs must match. At most 10 pairs are
+                        allowed.
                 timestamp after - only return objects that were created after this
                         date.
                 timestamp before - only return objects that were created before this
@@ -10954,6 +11104,12 @@ Parameters for the 'list_objects' function.
                         equal to this value.
                 obj_id maxObjectID - only return objects with an object id less than or
                         equal to this value.
+                obj_ref startafter - only return objects after this object. Results are
+                        sorted by workspace ID, object ID, and descending version, so
+                        passing the reference of the last object returned from a call
+                        retrieves the next page of results. Must be an absolute reference
+                        of the form X/Y/Z, where X, Y, and Z are the numerical IDs of the
+                        workspace, object, and version.
                 boolean showDeleted - show deleted objects in workspaces to which the
                         user has write access.
                 boolean showOnlyDeleted - only show deleted objects in workspaces to
@@ -10988,6 +11144,7 @@ after_epoch has a value which is a Workspace.epoch
 before_epoch has a value which is a Workspace.epoch
 minObjectID has a value which is a Workspace.obj_id
 maxObjectID has a value which is a Workspace.obj_id
+startafter has a value which is a Workspace.obj_ref
 showDeleted has a value which is a Workspace.boolean
 showOnlyDeleted has a value which is a Workspace.boolean
 showHidden has a value which is a Workspace.boolean
@@ -11015,6 +11172,7 @@ after_epoch has a value which is a Workspace.epoch
 before_epoch has a value which is a Workspace.epoch
 minObjectID has a value which is a Workspace.obj_id
 maxObjectID has a value which is a Workspace.obj_id
+startafter has a value which is a Workspace.obj_ref
 showDeleted has a value which is a Workspace.boolean
 showOnlyDeleted has a value which is a Workspace.boolean
 showHidden has a value which is a Workspace.boolean
@@ -11030,6 +11188,100 @@ limit has a value which is an int
 
 
 
+=head2 ListRecentObjectsParams
+
+=over 4
+
+
+
+=item Description
+
+Parameters for the 'list_recent_objects' function.
+
+        Optional arguments:
+        string startafter - only return objects after this position. Pass the
+                next value from the results of the previous call to retrieve the
+                next page of results.
+        boolean includeMetadata - include the user provided metadata in the
+                returned object_info. If false (0 or null), the default, the
+                metadata will be null.
+        boolean excludeGlobal - exclude objects in global workspaces.
+        int limit - limit the output to X objects. Default and maximum value
+                is 1000. Limit values < 1 are treated as 1000, the default.
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+startafter has a value which is a string
+includeMetadata has a value which is a Workspace.boolean
+excludeGlobal has a value which is a Workspace.boolean
+limit has a value which is an int
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+startafter has a value which is a string
+includeMetadata has a value which is a Workspace.boolean
+excludeGlobal has a value which is a Workspace.boolean
+limit has a value which is an int
+
+
+=end text
+
+=back
+
+
+
+=head2 ListRecentObjectsResults
+
+=over 4
+
+
+
+=item Description
+
+Results of the 'list_recent_objects' function.
+
+        list<object_info> objects - the objects, sorted by descending
+                modification date, then workspace ID, and then object ID.
+        string next - the position at which the next page of results starts.
+                Null if there are no more results.
+
+
+=item Definition
+
+=begin html
+
+<pre>
+a reference to a hash where the following keys are defined:
+objects has a value which is a reference to a list where each element is a Workspace.object_info
+next has a value which is a string
+
+</pre>
+
+=end html
+
+=begin text
+
+a reference to a hash where the following keys are defined:
+objects has a value which is a reference to a list where each element is a Workspace.object_info
+next has a value which is a string
+
+
+=end text
+
+=back
+
+
+
 =head2 get_objectmeta_params
 
 =over 4
@@ -2837,9 +2837,8 @@ class Workspace(object):
            permission perm - filter workspaces by minimum permission level.
            'None' and 'readable' are ignored. list<username> owners - filter
            workspaces by owner. usermeta meta - filter workspaces by the user
-           supplied metadata. NOTE: only one key/value pair is supported at
-           this time. A full map is provided as input for the possibility for
-           expansion in the future. timestamp after - only return workspaces
+           supplied metadata. All of the key/value pairs must match. At most
+           10 pairs are allowed. timestamp after - only return workspaces
            that were modified after this date. timestamp before - only return
            workspaces that were modified before this date. epoch after_epoch
            - only return workspaces that were modified after this date. epoch
@@ -3051,9 +3050,8 @@ class Workspace(object):
            permission perm - filter objects by minimum permission level.
            'None' and 'readable' are ignored. list<username> savedby - filter
            objects by the user that saved or copied the object. usermeta meta
-           - filter objects by the user supplied metadata. NOTE: only one
-           key/value pair is supported at this time. A full map is provided
-           as input for the possibility for expansion in the future.
+           - filter objects by the user supplied metadata. All of the
+           key/value pairs must match. At most 10 pairs are allowed.
            timestamp after - only return objects that were created after this
            date. timestamp before - only return objects that were created
            before this date. epoch after_epoch - only return objects that
@@ -3061,38 +3059,43 @@ class Workspace(object):
            objects that were created before this date. obj_id minObjectID -
            only return objects with an object id greater or equal to this
            value. obj_id maxObjectID - only return objects with an object id
-           less than or equal to this value. boolean showDeleted - show
-           deleted objects in workspaces to which the user has write access.
-           boolean showOnlyDeleted - only show deleted objects in workspaces
-           to which the user has write access. boolean showHidden - show
-           hidden objects. boolean showAllVersions - show all versions of
-           each object that match the filters rather than only the most
-           recent version. boolean includeMetadata - include the user
-           provided metadata in the returned object_info. If false (0 or
-           null), the default, the metadata will be null. boolean
-           excludeGlobal - exclude objects in global workspaces. This
-           parameter only has an effect when filtering by types alone. int
-           limit - limit the output to X objects. Default and maximum value
-           is 10000. Limit values < 1 are treated as 10000, the default.) ->
-           structure: parameter "workspaces" of list of type "ws_name" (A
-           string used as a name for a workspace. Any string consisting of
-           alphanumeric characters and "_", ".", or "-" that is not an
-           integer is acceptable. The name may optionally be prefixed with
-           the workspace owner's user name and a colon, e.g.
-           kbasetest:my_workspace.), parameter "ids" of list of type "ws_id"
-           (The unique, permanent numerical ID of a workspace.), parameter
-           "type" of type "type_string" (A type string. Specifies the type
-           and its version in a single string in the format
-           [module].[typename]-[major].[minor]: module - a string. The module
-           name of the typespec containing the type. typename - a string. The
-           name of the type as assigned by the typedef statement. major - an
-           integer. The major version of the type. A change in the major
-           version implies the type has changed in a non-backwards compatible
-           way. minor - an integer. The minor version of the type. A change
-           in the minor version implies that the type has changed in a way
-           that is backwards compatible with previous type definitions. In
-           many cases, the major and minor versions are optional, and if not
-           provided the most recent version will be used. Example:
+           less than or equal to this value. obj_ref startafter - only return
+           objects after this object. Results are sorted by workspace ID,
+           object ID, and descending version, so passing the reference of the
+           last object returned from a call retrieves the next page of
+           results. Must be an absolute reference of the form X/Y/Z, where X,
+           Y, and Z are the numerical IDs of the workspace, object, and
+           version. boolean showDeleted - show deleted objects in workspaces
+           to which the user has write access. boolean showOnlyDeleted - only
+           show deleted objects in workspaces to which the user has write
+           access. boolean showHidden - show hidden objects. boolean
+           showAllVersions - show all versions of each object that match the
+           filters rather than only the most recent version. boolean
+           includeMetadata - include the user provided metadata in the
+           returned object_info. If false (0 or null), the default, the
+           metadata will be null. boolean excludeGlobal - exclude objects in
+           global workspaces. This parameter only has an effect when
+           filtering by types alone. int limit - limit the output to X
+           objects. Default and maximum value is 10000. Limit values < 1 are
+           treated as 10000, the default.) -> structure: parameter
+           "workspaces" of list of type "ws_name" (A string used as a name
+           for a workspace. Any string consisting of alphanumeric characters
+           and "_", ".", or "-" that is not an integer is acceptable. The
+           name may optionally be prefixed with the workspace owner's user
+           name and a colon, e.g. kbasetest:my_workspace.), parameter "ids"
+           of list of type "ws_id" (The unique, permanent numerical ID of a
+           workspace.), parameter "type" of type "type_string" (A type
+           string. Specifies the type and its version in a single string in
+           the format [module].[typename]-[major].[minor]: module - a string.
+           The module name of the typespec containing the type. typename - a
+           string. The name of the type as assigned by the typedef statement.
+           major - an integer. The major version of the type. A change in the
+           major version implies the type has changed in a non-backwards
+           compatible way. minor - an integer. The minor version of the type.
+           A change in the minor version implies that the type has changed in
+           a way that is backwards compatible with previous type definitions.
+           In many cases, the major and minor versions are optional, and if
+           not provided the most recent version will be used. Example:
            MyModule.MyType-3.1), parameter "perm" of type "permission"
            (Represents the permissions a user or users have to a workspace:
            'a' - administrator. All operations allowed. 'w' - read/write. 'r'
@@ -3116,8 +3119,17 @@ class Workspace(object):
            00:00:00 1/1/1970 UTC) in milliseconds.), parameter "minObjectID"
            of type "obj_id" (The unique, permanent numerical ID of an
            object.), parameter "maxObjectID" of type "obj_id" (The unique,
-           permanent numerical ID of an object.), parameter "showDeleted" of
-           type "boolean" (A boolean. 0 = false, other = true.), parameter
+           permanent numerical ID of an object.), parameter "startafter" of
+           type "obj_ref" (A string that uniquely identifies an object in the
+           workspace service. The format is [ws_name or id]/[obj_name or
+           id]/[obj_ver]. For example, MyFirstWorkspace/MyFirstObject/3 would
+           identify the third version of an object called MyFirstObject in
+           the workspace called MyFirstWorkspace. 42/Panic/1 would identify
+           the first version of the object name Panic in workspace with id
+           42. Towel/1/6 would identify the 6th version of the object with id
+           1 in the Towel workspace.If the version number is omitted, the
+           latest version of the object is assumed.), parameter "showDeleted"
+           of type "boolean" (A boolean. 0 = false, other = true.), parameter
            "showOnlyDeleted" of type "boolean" (A boolean. 0 = false, other =
            true.), parameter "showHidden" of type "boolean" (A boolean. 0 =
            false, other = true.), parameter "showAllVersions" of type
@@ -3173,6 +3185,85 @@ class Workspace(object):
         return self._client.call_method('Workspace.list_objects',
                                         [params], self._service_ver, context)
 
+    def list_recent_objects(self, params, context=None):
+        """
+        List the most recently modified objects in the workspaces the user can
+        read, newest first. Saving, copying, reverting, renaming, deleting, or
+        undeleting an object changes its modification date. Deleted and hidden
+        objects are not listed.
+        At most 10000 objects are examined per call, so a page may contain
+        fewer objects than the limit, or none, even when more objects are
+        available. Continue calling with the next value until it is null to
+        see all the objects. An object that is modified while paging may be
+        listed twice.
+        :param params: instance of type "ListRecentObjectsParams" (Parameters
+           for the 'list_recent_objects' function. Optional arguments: string
+           startafter - only return objects after this position. Pass the
+           next value from the results of the previous call to retrieve the
+           next page of results. boolean includeMetadata - include the user
+           provided metadata in the returned object_info. If false (0 or
+           null), the default, the metadata will be null. boolean
+           excludeGlobal - exclude objects in global workspaces. int limit -
+           limit the output to X objects. Default and maximum value is 1000.
+           Limit values < 1 are treated as 1000, the default.) -> structure:
+           parameter "startafter" of String, parameter "includeMetadata" of
+           type "boolean" (A boolean. 0 = false, other = true.), parameter
+           "excludeGlobal" of type "boolean" (A boolean. 0 = false, other =
+           true.), parameter "limit" of Long
+        :returns: instance of type "ListRecentObjectsResults" (Results of the
+           'list_recent_objects' function. list<object_info> objects - the
+           objects, sorted by descending modification date, then workspace
+           ID, and then object ID. string next - the position at which the
+           next page of results starts. Null if there are no more results.)
+           -> structure: parameter "objects" of list of type "object_info"
+           (Information about an object, including user provided metadata.
+           obj_id objid - the numerical id of the object. obj_name name - the
+           name of the object. type_string type - the type of the object.
+           timestamp save_date - the save date of the object. obj_ver ver -
+           the version of the object. username saved_by - the user that saved
+           or copied the object. ws_id wsid - the workspace containing the
+           object. ws_name workspace - the workspace containing the object.
+           string chsum - the md5 checksum of the object. int size - the size
+           of the object in bytes. usermeta meta - arbitrary user-supplied
+           metadata about the object.) -> tuple of size 11: parameter "objid"
+           of type "obj_id" (The unique, permanent numerical ID of an
+           object.), parameter "name" of type "obj_name" (A string used as a
+           name for an object. Any string consisting of alphanumeric
+           characters and the characters |._- that is not an integer is
+           acceptable.), parameter "type" of type "type_string" (A type
+           string. Specifies the type and its version in a single string in
+           the format [module].[typename]-[major].[minor]: module - a string.
+           The module name of the typespec containing the type. typename - a
+           string. The name of the type as assigned by the typedef statement.
+           major - an integer. The major version of the type. A change in the
+           major version implies the type has changed in a non-backwards
+           compatible way. minor - an integer. The minor version of the type.
+           A change in the minor version implies that the type has changed in
+           a way that is backwards compatible with previous type definitions.
+           In many cases, the major and minor versions are optional, and if
+           not provided the most recent version will be used. Example:
+           MyModule.MyType-3.1), parameter "save_date" of type "timestamp" (A
+           time in the format YYYY-MM-DDThh:mm:ssZ, where Z is either the
+           character Z (representing the UTC timezone) or the difference in
+           time to UTC in the format +/-HHMM, eg: 2012-12-17T23:24:06-0500
+           (EST time) 2013-04-03T08:56:32+0000 (UTC time)
+           2013-04-03T08:56:32Z (UTC time)), parameter "version" of Long,
+           parameter "saved_by" of type "username" (Login name of a KBase
+           user account.), parameter "wsid" of type "ws_id" (The unique,
+           permanent numerical ID of a workspace.), parameter "workspace" of
+           type "ws_name" (A string used as a name for a workspace. Any
+           string consisting of alphanumeric characters and "_", ".", or "-"
+           that is not an integer is acceptable. The name may optionally be
+           prefixed with the workspace owner's user name and a colon, e.g.
+           kbasetest:my_workspace.), parameter "chsum" of String, parameter
+           "size" of Long, parameter "meta" of type "usermeta" (User provided
+           metadata about an object. Arbitrary key-value pairs provided by
+           the user.) -> mapping from String to String, parameter "next" of
+           String
+        """
+        return self._client.call_method('Workspace.list_recent_objects',
+                                        [params], self._service_ver, context)
+
     def get_objectmeta(self, params, context=None):
         """
         Retrieves the metadata for a specified object from the specified
@@ -4206,8 +4297,9 @@ class Workspace(object):
     def get_names_by_prefix(self, params, context=None):
         """
         Get object names matching a prefix. At most 1000 names are returned.
-        No particular ordering is guaranteed, nor is which names will be
-        returned if more than 1000 are found.
+        Names are sorted within each workspace. If more names are found than
+        the limit, the first names in order of workspace ID and then name are
+        returned.
         This function is intended for use as an autocomplete helper function.
         :param params: instance of type "GetNamesByPrefixParams" (Input
            parameters for the get_names_by_prefix function. Required
@@ -55,6 +55,16 @@ public class JsonTokenStreamWriter {
 		JsonToken t = src.nextToken();
 		if (src.isComplete() || jgen == null)
 			return t;
+		writeToken(t, src, jgen);
+		return t;
+	}
+	
+	/**
+	 * Write a single token to a generator. The token must be the current
+	 * token of the source, which is queried for the token's value.
+	 */
+	static void writeToken(JsonToken t, TokenSequenceProvider src,
+			JsonGenerator jgen) throws IOException {
 		if (t == JsonToken.START_ARRAY) {
 			jgen.writeStartArray();
 		} else if (t == JsonToken.START_OBJECT) {
@@ -101,6 +111,5 @@ public class JsonTokenStreamWriter {
 		} else {
 			throw new IOException("Unexpected token type: " + t);
 		}
-		return t;
 	}
 }
@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -53,6 +54,8 @@ public class JsonTokenValidationSchema {
 	private static final String VALID_TYPEDEF_NAMES = "valid-typedef-names";
 	private static final String ATTRIBUTES = "attributes";
 	
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	
 	private JsonTokenValidationSchema() {}
 	
 	@SuppressWarnings("unchecked")
@@ -61,7 +64,7 @@ public class JsonTokenValidationSchema {
 			throws TypedObjectSchemaException {
 		final Map<String, Object> data;
 		try {
-			data = new ObjectMapper().readValue(document, Map.class);
+			data = MAPPER.readValue(document, Map.class);
 		} catch (Exception e) {
 			throw new TypedObjectSchemaException(
 					"Could not parse type schema document: "
@@ -114,7 +117,7 @@ public class JsonTokenValidationSchema {
 			}
 			
 			ret.idReference = new IdRefDescr(new IdReferenceType(idType),
-					attributes);
+					Collections.unmodifiableList(attributes));
 		}
 		if (ret.type == Type.object) {
 			if (data.containsKey("metadata-ws"))
@@ -144,6 +147,8 @@ public class JsonTokenValidationSchema {
 				for (String reqItem : reqList)
 					ret.objectRequired.put(reqItem, ret.objectRequired.size());
 			}
+			ret.objectProperties = Collections.unmodifiableMap(ret.objectProperties);
+			ret.objectRequired = Collections.unmodifiableMap(ret.objectRequired);
 		} else if (ret.type == Type.array) {
 			Object items = data.get("items");
 			if (items instanceof Map) {
@@ -153,6 +158,7 @@ public class JsonTokenValidationSchema {
 				ret.arrayItemList = new ArrayList<JsonTokenValidationSchema>();
 				for (Map<String, Object> item : itemList)
 					ret.arrayItemList.add(parseJsonSchema(item));
+				ret.arrayItemList = Collections.unmodifiableList(ret.arrayItemList);
 			}
 			if (data.get("minItems") != null)
 				ret.arrayMinItems = Integer.parseInt("" + data.get("minItems"));
@@ -5,11 +5,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import us.kbase.common.service.JsonTokenStream;
 import us.kbase.common.service.UObject;
@@ -70,12 +74,20 @@ public class TypedObjectValidator {
 	
 	private static final int maxErrorCount = 10;
 	
+	/** The default maximum number of parsed type schemas held in the schema cache. */
+	public static final int DEFAULT_SCHEMA_CACHE_SIZE = 1000;
+	
 	/**
 	 * This object is used to fetch the typed object Json Schema documents and
 	 * JsonSchema objects which are used for validation
 	 */
 	protected TypeProvider typeProvider;
 	
+	/* The schema for an absolute type ID never changes, and parsed schemas are never modified
+	 * after construction, so they can be shared between threads.
+	 */
+	private final LoadingCache<AbsoluteTypeDefId, JsonTokenValidationSchema> schemaCache;
+	
 	
 	/**
 	 * Get the type provider the validator validates typed object instances against.
@@ -90,7 +102,55 @@ public class TypedObjectValidator {
 	 * Construct a TypedObjectValidator set to the specified Typed Provider
 	 */
 	public TypedObjectValidator(TypeProvider typeProvider) {
+		this(typeProvider, DEFAULT_SCHEMA_CACHE_SIZE);
+	}
+	
+	/**
+	 * Construct a TypedObjectValidator set to the specified Typed Provider.
+	 * @param typeProvider the type provider.
+	 * @param schemaCacheSize the maximum number of parsed type schemas to cache.
+	 */
+	public TypedObjectValidator(final TypeProvider typeProvider, final int schemaCacheSize) {
+		if (schemaCacheSize < 1) {
+			throw new IllegalArgumentException("schemaCacheSize must be at least 1");
+		}
 		this.typeProvider = typeProvider;
+		schemaCache = CacheBuilder.newBuilder().maximumSize(schemaCacheSize).build(
+				new CacheLoader<AbsoluteTypeDefId, JsonTokenValidationSchema>() {
+					@Override
+					public JsonTokenValidationSchema load(final AbsoluteTypeDefId typeDefId)
+							throws NoSuchTypeException, NoSuchModuleException,
+							TypeStorageException, TypedObjectSchemaException {
+						return JsonTokenValidationSchema.parseJsonSchema(
+								TypedObjectValidator.this.typeProvider.getTypeJsonSchema(
+										typeDefId));
+					}
+				});
+	}
+	
+	private JsonTokenValidationSchema getSchema(final AbsoluteTypeDefId typeDefId)
+			throws NoSuchTypeException, NoSuchModuleException, TypeStorageException,
+			TypedObjectSchemaException {
+		try {
+			return schemaCache.get(typeDefId);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof NoSuchTypeException) {
+				throw (NoSuchTypeException) cause;
+			} else if (cause instanceof NoSuchModuleException) {
+				throw (NoSuchModuleException) cause;
+			} else if (cause instanceof TypeStorageException) {
+				throw (TypeStorageException) cause;
+			} else if (cause instanceof TypedObjectSchemaException) {
+				throw (TypedObjectSchemaException) cause;
+			}
+			throw new TypeStorageException(cause.getMessage(), cause);
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 	
 	
@@ -117,18 +177,15 @@ public class TypedObjectValidator {
 			TypedObjectSchemaException,
 			TooManyIdsException, IdReferenceHandlerException,
 			JsonParseException, IOException {
-		// parse the instance document into a JsonNode
-		ObjectMapper mapper = new ObjectMapper();
-		final JsonNode instanceRootNode;
+		/* validate directly from the token stream rather than parsing the instance into a
+		 * JsonNode tree first, which can require many times the memory of the instance.
+		 */
 		try {
-			instanceRootNode = mapper.readTree(instance);
-		} catch (Exception e) {
+			return validate(new UObject(new JsonTokenStream(instance), null), type, handlers);
+		} catch (JsonParseException e) {
 			throw new TypedObjectValidationException(
-					"instance was not a valid or readable JSON document",e);
+					"instance was not a valid or readable JSON document", e);
 		}
-		
-		// validate and return the report
-		return validate(instanceRootNode, type, handlers);
 	}
 	
 	/**
@@ -177,9 +234,7 @@ public class TypedObjectValidator {
 		
 		// Actually perform the validation and return the report
 		final List<String> errors = new ArrayList<String>();
-		String schemaText = typeProvider.getTypeJsonSchema(absoluteTypeDefId);
-		final JsonTokenValidationSchema schema =
-				JsonTokenValidationSchema.parseJsonSchema(schemaText);
+		final JsonTokenValidationSchema schema = getSchema(absoluteTypeDefId);
 		
 		// these must be arrays to get the inner class def override to work
 		final JsonNode [] metadataSelection = new JsonNode[] {null};
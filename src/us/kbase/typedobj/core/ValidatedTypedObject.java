@@ -1,6 +1,7 @@
 package us.kbase.typedobj.core;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -16,6 +17,7 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
 
 import us.kbase.common.service.JsonTokenStream;
 import us.kbase.common.service.UObject;
@@ -42,6 +44,11 @@ import com.fasterxml.jackson.databind.JsonNode;
  * {@link ValidatedTypedObject#sort(UTF8JsonSorterFactory)} or
  * {@link ValidatedTypedObject#sort(UTF8JsonSorterFactory, TempFilesManager)} method must be
  * called.
+ * 
+ * To minimize the number of passes over the object data, call
+ * {@link ValidatedTypedObject#relabelAndCache(TempFilesManager, long, long)} prior to sorting.
+ * That method calculates the relabeled size, checks the sort order, extracts metadata and keeps
+ * a copy of the relabeled data in one pass, so that sorting requires at most one further pass.
  *
  * @author msneddon
  * @author rsutormin
@@ -89,6 +96,18 @@ public class ValidatedTypedObject implements Restreamable {
 	
 	private File fileCache = null;
 	
+	// true if the caches contain relabeled data that has not yet been through sort().
+	private boolean cacheIsRelabeledOnly = false;
+	// the temp files manager used for the relabeled data cache, if any.
+	private TempFilesManager relabelTFM = null;
+	// the MD5 of the relabeled data. Only set if the data is naturally sorted.
+	private MD5 relabeledMD5 = null;
+	// metadata extracted while relabeling, without any size limit applied.
+	private ExtractedMetadata relabeledMetadata = null;
+	
+	// the number of passes made over the object data. Starts at 1 for the validation pass.
+	private int passCount = 1;
+	
 	private final JsonTokenValidationSchema schema;
 	
 	/**
@@ -159,7 +178,7 @@ public class ValidatedTypedObject implements Restreamable {
 	 */
 	@Override
 	public InputStream getInputStream() {
-		if (byteCache == null && fileCache == null) {
+		if ((byteCache == null && fileCache == null) || cacheIsRelabeledOnly) {
 			throw new IllegalStateException(
 					"You must call sort() prior to accessing the object data.");
 		}
@@ -192,10 +211,171 @@ public class ValidatedTypedObject implements Restreamable {
 		final JsonGenerator jgen = new JsonFactory().createGenerator(cos);
 		naturallySorted = relabelWsIdReferencesIntoGeneratorAndCheckOrder(jgen);
 		jgen.close();
+		passCount++;
 		this.size = cos.getSize();
 		return this.size;
 	}
 	
+	/** Relabel ids and keep a copy of the relabeled data, calculating the relabeled size,
+	 * checking whether the relabeled object is naturally sorted, extracting the object metadata
+	 * and, if the object is sorted, calculating the MD5, all in a single pass over the data.
+	 * 
+	 * After calling this method, {@link #getRelabeledSize()} may be called, and
+	 * {@link #sort(UTF8JsonSorterFactory, TempFilesManager)} and
+	 * {@link #extractMetadata(long)} will use the results of this pass rather than
+	 * processing the object again. A naturally sorted object will need no further passes.
+	 * 
+	 * If the relabeled data is larger than the maximum size, it is discarded and only the
+	 * size is calculated, as for {@link #calculateRelabeledSize()}.
+	 * @param tfm the temporary file manager to use if the data exceeds the memory limit. If
+	 * null, all data is kept in memory.
+	 * @param maxMemory the maximum number of bytes of relabeled data to keep in memory before
+	 * writing the data to a temporary file. Ignored if tfm is null.
+	 * @param maxSize the maximum size of relabeled data to keep.
+	 * @return the size of the object after id remapping.
+	 * @throws IOException if an IO error occurs.
+	 */
+	public long relabelAndCache(
+			final TempFilesManager tfm,
+			final long maxMemory,
+			final long maxSize)
+			throws IOException {
+		if (!idHandler.wereIdsProcessed()) {
+			throw new IllegalStateException(
+					"Must process IDs in handler prior to relabling");
+		}
+		destroyCachedResources();
+		final MessageDigest digest = getMD5Digest();
+		final RelabelSpool spool = new RelabelSpool(tfm, maxMemory, maxSize);
+		final IdRefTokenSequenceProvider idSubst = new IdRefTokenSequenceProvider(
+				tokenStreamProvider.getPlacedStream(), schema, idHandler);
+		final ExtractedMetadata meta;
+		boolean success = false;
+		try {
+			final JsonGenerator jgen = new JsonFactory().createGenerator(
+					new DigestOutputStream(spool, digest));
+			final WritingTokenSequenceProvider tsp =
+					new WritingTokenSequenceProvider(idSubst, jgen);
+			// the size limit is applied in extractMetadata()
+			meta = MetadataExtractor.extractFields(tsp, new MetadataExtractionHandler(
+					wsMetadataSelection, Long.MAX_VALUE));
+			// if no metadata was selected, the extractor reads nothing
+			tsp.writeRemaining();
+			jgen.close();
+			success = true;
+		} catch (ExceededMaxMetadataSizeException e) {
+			throw new IllegalStateException("Unlimited metadata size exceeded", e);
+		} finally {
+			idSubst.close();
+			if (!success) {
+				spool.discard();
+			}
+		}
+		passCount++;
+		naturallySorted = idSubst.isSorted();
+		size = spool.size;
+		relabeledMetadata = meta;
+		if (!spool.discarded) {
+			byteCache = spool.buffer == null ? null : spool.buffer.toByteArray();
+			fileCache = spool.file;
+			relabelTFM = tfm;
+			cacheIsRelabeledOnly = true;
+			relabeledMD5 = naturallySorted ? getMD5fromDigest(digest) : null;
+		}
+		return size;
+	}
+	
+	/* Keeps relabeled data in memory until the memory limit is reached, at which point the data
+	 * is moved to a temporary file. If the data exceeds the maximum size it is thrown away and
+	 * only the size is tracked.
+	 */
+	private static class RelabelSpool extends OutputStream {
+		
+		private final TempFilesManager tfm;
+		private final long maxMemory;
+		private final long maxSize;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private File file = null;
+		private OutputStream fileOut = null;
+		private long size = 0;
+		private boolean discarded = false;
+		
+		private RelabelSpool(
+				final TempFilesManager tfm,
+				final long maxMemory,
+				final long maxSize) {
+			this.tfm = tfm;
+			this.maxMemory = maxMemory;
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+		
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			size += len;
+			if (discarded) {
+				return;
+			}
+			if (size > maxSize) {
+				discard();
+				return;
+			}
+			if (fileOut == null && tfm != null && size > maxMemory) {
+				file = tfm.generateTempFile("relabel", "json");
+				fileOut = new BufferedOutputStream(new FileOutputStream(file));
+				buffer.writeTo(fileOut);
+				buffer = null;
+			}
+			if (fileOut != null) {
+				fileOut.write(b, off, len);
+			} else {
+				buffer.write(b, off, len);
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if (fileOut != null) {
+				fileOut.close();
+			}
+		}
+		
+		private void discard() {
+			discarded = true;
+			buffer = null;
+			if (fileOut != null) {
+				try {
+					fileOut.close();
+				} catch (IOException e) {
+					// nothing to be done, the file is deleted below
+				}
+			}
+			if (file != null) {
+				file.delete();
+				file = null;
+			}
+		}
+	}
+	
+	
+	/** Returns whether the object is sorted once ids have been remapped, in which case
+	 * sorting the object requires no sorter memory.
+	 * calculateRelabeledSize() must have been called previously, either directly or indirectly
+	 * via sort() or relabelAndCache().
+	 * @return true if the object is sorted after id remapping.
+	 */
+	public boolean isNaturallySorted() {
+		if (size < 0) {
+			throw new IllegalStateException(
+					"Must call calculateRelabeledSize() " +
+					"before checking the sort order");
+		}
+		return naturallySorted;
+	}
 	
 	/** Get the size of the object, in bytes, when ids have been remapped.
 	 * calculateRelabledSize() must have been called previously, either
@@ -217,6 +397,14 @@ public class ValidatedTypedObject implements Restreamable {
 		return getRelabeledSize();
 	}
 
+	/** Get the number of passes that have been made over the object data so far, including the
+	 * validation pass. Used to track the cost of processing an object.
+	 * @return the number of passes.
+	 */
+	public int getPassCount() {
+		return passCount;
+	}
+
 	/** Get the MD5 of the sorted, relabeled object.
 	 * sort() must have been called previously.
 	 * @return the object's MD5
@@ -264,6 +452,8 @@ public class ValidatedTypedObject implements Restreamable {
 	
 	/** Relabel ids, sort the object if necessary and keep a copy.
 	 * You must call this method prior to calling getInputStream().
+	 * If the sort fails it may be retried, for example with a sorter factory that allows more
+	 * memory.
 	 * @param fac the sorter factory to use when generating a sorter.
 	 * @param tfm the temporary file manager to use for managing temporary
 	 * files. All data is kept in memory if tfm is null.
@@ -278,6 +468,10 @@ public class ValidatedTypedObject implements Restreamable {
 		if (fac == null) {
 			throw new NullPointerException("Sorter factory cannot be null");
 		}
+		if (cacheIsRelabeledOnly) {
+			sortRelabeledCache(fac);
+			return;
+		}
 		if (size < 0) {
 			calculateRelabeledSize();
 		}
@@ -296,6 +490,7 @@ public class ValidatedTypedObject implements Restreamable {
 				baos = new ByteArrayOutputStream();
 				fac.getSorter(byteCache).writeIntoStream(
 						new DigestOutputStream(baos, digest));
+				passCount++;
 				byteCache = baos.toByteArray();
 			}
 		} else {
@@ -329,6 +524,7 @@ public class ValidatedTypedObject implements Restreamable {
 						destroyCachedResources();
 						throw e;
 					}
+					passCount++;
 				} finally {
 					f1.delete();
 				}
@@ -337,6 +533,40 @@ public class ValidatedTypedObject implements Restreamable {
 		md5 = getMD5fromDigest(digest);
 	}
 	
+	// sorts the data cached by relabelAndCache(), if necessary.
+	private void sortRelabeledCache(final UTF8JsonSorterFactory fac)
+			throws IOException, KeyDuplicationException, TooManyKeysException {
+		if (naturallySorted) {
+			cacheIsRelabeledOnly = false;
+			md5 = relabeledMD5;
+			return;
+		}
+		final MessageDigest digest = getMD5Digest();
+		if (byteCache != null) {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			fac.getSorter(byteCache).writeIntoStream(
+					new DigestOutputStream(baos, digest));
+			byteCache = baos.toByteArray();
+		} else {
+			// keep the relabeled data until the sort succeeds so the sort can be retried
+			final File sorted = relabelTFM.generateTempFile("sortout", "json");
+			try (final OutputStream os = new FileOutputStream(sorted)) {
+				fac.getSorter(fileCache).writeIntoStream(
+						new DigestOutputStream(os, digest));
+			} catch (IOException | KeyDuplicationException |
+					TooManyKeysException | RuntimeException |
+					Error e) {
+				sorted.delete();
+				throw e;
+			}
+			fileCache.delete();
+			fileCache = sorted;
+		}
+		passCount++;
+		cacheIsRelabeledOnly = false;
+		md5 = getMD5fromDigest(digest);
+	}
+	
 	/** Destroy any cached resources created by this class and allow garbage
 	 * collection of in-memory caches. This method must be called before
 	 * program exit or temporary files may be left on disk. The caches will be
@@ -348,12 +578,14 @@ public class ValidatedTypedObject implements Restreamable {
 			this.fileCache.delete();
 			this.fileCache = null;
 		}
+		cacheIsRelabeledOnly = false;
 	}
 	
 	private void relabelWsIdReferencesIntoWriter(final OutputStream os)
 			throws IOException {
 		relabelWsIdReferencesIntoGenerator(
 				new JsonFactory().createGenerator(os));
+		passCount++;
 	}
 
 	private void relabelWsIdReferencesIntoGenerator(final JsonGenerator jgen)
@@ -467,6 +699,15 @@ public class ValidatedTypedObject implements Restreamable {
 		final MetadataExtractionHandler handler =
 				new MetadataExtractionHandler(wsMetadataSelection,
 						maxMetadataSize);
+		if (relabeledMetadata != null) {
+			// already extracted by relabelAndCache(), just apply the size limit
+			for (final Entry<String, String> e:
+					relabeledMetadata.getMetadata().entrySet()) {
+				handler.saveMetadata(e.getKey(), e.getValue());
+			}
+			return new ExtractedMetadata(handler.getSavedMetadata());
+		}
+		passCount++;
 		// Identify what we need to extract
 		TokenSequenceProvider tsp = null;
 		try {
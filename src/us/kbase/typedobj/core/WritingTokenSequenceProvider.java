@@ -0,0 +1,84 @@
+package us.kbase.typedobj.core;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Wraps a token sequence provider and writes every token that is read from
+ * it to a JSON generator. This allows a consumer of the tokens, for example
+ * the {@link MetadataExtractor}, to share a single pass over the data with
+ * the writer.
+ */
+class WritingTokenSequenceProvider implements TokenSequenceProvider {
+	
+	private final TokenSequenceProvider source;
+	private final JsonGenerator jgen;
+	private int depth = 0;
+	private boolean started = false;
+	
+	WritingTokenSequenceProvider(
+			final TokenSequenceProvider source,
+			final JsonGenerator jgen) {
+		if (source == null) {
+			throw new NullPointerException("source");
+		}
+		if (jgen == null) {
+			throw new NullPointerException("jgen");
+		}
+		this.source = source;
+		this.jgen = jgen;
+	}
+
+	@Override
+	public JsonToken nextToken() throws IOException, JsonParseException {
+		final JsonToken t = source.nextToken();
+		if (t == null) {
+			return t;
+		}
+		started = true;
+		JsonTokenStreamWriter.writeToken(t, source, jgen);
+		if (t == JsonToken.START_ARRAY || t == JsonToken.START_OBJECT) {
+			depth++;
+		} else if (t == JsonToken.END_ARRAY || t == JsonToken.END_OBJECT) {
+			depth--;
+		}
+		return t;
+	}
+
+	@Override
+	public String getText() throws IOException, JsonParseException {
+		return source.getText();
+	}
+
+	@Override
+	public Number getNumberValue() throws IOException, JsonParseException {
+		return source.getNumberValue();
+	}
+
+	@Override
+	public void close() throws IOException {
+		source.close();
+	}
+
+	@Override
+	public boolean isComplete() {
+		return source.isComplete();
+	}
+	
+	/** Read and write any tokens remaining in the root JSON value. If the
+	 * consumer of this provider has already read the entire value, this
+	 * method does nothing.
+	 * @throws IOException if an IO error occurs or the data ends before the
+	 * root value is closed.
+	 */
+	void writeRemaining() throws IOException {
+		while (!started || depth > 0) {
+			if (nextToken() == null) {
+				throw new IOException("Unexpected end of JSON data");
+			}
+		}
+	}
+}
@@ -20,6 +20,21 @@ public class IdReferenceHandlerSet<T> {
 	
 	private final Map<IdReferenceType, IdReferenceHandler<T>> handlers;
 	
+	// only non-null for collectors
+	private final List<CollectedId<T>> collected;
+	private IdReferenceHandlerSet<T> mergedInto = null;
+	
+	private static class CollectedId<T> {
+		
+		private final T associatedObject;
+		private final IdReference<String> id;
+		
+		private CollectedId(final T associatedObject, final IdReference<String> id) {
+			this.associatedObject = associatedObject;
+			this.id = id;
+		}
+	}
+	
 	/** A handler for typed object IDs. Responsible for checking the
 	 * syntax of the id and its attributes, and remapping IDs if necessary.
 	 *
@@ -162,9 +177,23 @@ public class IdReferenceHandlerSet<T> {
 	protected IdReferenceHandlerSet(
 			final int maxUniqueIdCount,
 			final Map<IdReferenceType, IdReferenceHandler<T>> handlers) {
+		this(maxUniqueIdCount, handlers, false);
+	}
+	
+	/** Create a handler set.
+	 * @param maxUniqueIdCount the maximum number of unique IDs allowed in the handler set.
+	 * @param handlers the ID handlers.
+	 * @param collector true to record the IDs added to the handler set so they can later be
+	 * merged into another handler set via {@link #merge(IdReferenceHandlerSet)}.
+	 */
+	protected IdReferenceHandlerSet(
+			final int maxUniqueIdCount,
+			final Map<IdReferenceType, IdReferenceHandler<T>> handlers,
+			final boolean collector) {
 		this.maxUniqueIdCount = maxUniqueIdCount;
 		this.handlers = new HashMap<IdReferenceType, IdReferenceHandler<T>>(
 				handlers);
+		this.collected = collector ? new LinkedList<>() : null;
 	}
 
 	/** Returns true if this handler set contains a handler for the ID type
@@ -174,6 +203,9 @@ public class IdReferenceHandlerSet<T> {
 	 * specified.
 	 */
 	public boolean hasHandler(final IdReferenceType idType) {
+		if (mergedInto != null) {
+			return mergedInto.hasHandler(idType);
+		}
 		return handlers.containsKey(idType);
 	}
 	
@@ -217,6 +249,61 @@ public class IdReferenceHandlerSet<T> {
 		checkIdRefValidity(id);
 		updateIdCount(handlers.get(id.getType()).addId(associated, 
 				id.getId(), id.getAttributes()));
+		if (collected != null) {
+			collected.add(new CollectedId<>(associated, id));
+		}
+	}
+	
+	/** Returns true if this handler set records the IDs added to it for later merging into
+	 * another handler set.
+	 * @return true if this handler set is a collector.
+	 */
+	public boolean isCollector() {
+		return collected != null;
+	}
+	
+	/** Add the IDs recorded by a collector to this handler set, associated with the same
+	 * objects they were associated with in the collector, in the order they were added to the
+	 * collector.
+	 * 
+	 * This allows checking the IDs in a set of objects independently, for example in parallel,
+	 * and then processing the IDs from all the objects as one batch.
+	 * 
+	 * Once merged, the collector releases its handlers and any further ID queries on the
+	 * collector (e.g. {@link #getRemappedId(IdReferenceType, String)} or
+	 * {@link #wereIdsProcessed()}) are answered by this handler set, although {@link #size()}
+	 * still reports the number of unique IDs collected. No more IDs may be added to the
+	 * collector.
+	 * After the merge, the object associated with this handler set is the object associated
+	 * with the last ID merged, if any.
+	 * @param collector the collector to merge into this handler set.
+	 * @return this.
+	 * @throws TooManyIdsException if the merged IDs exceed the maximum ID count for this
+	 * handler set.
+	 * @throws IdReferenceHandlerException if an ID could not be handled.
+	 */
+	public IdReferenceHandlerSet<T> merge(final IdReferenceHandlerSet<T> collector)
+			throws TooManyIdsException, IdReferenceHandlerException {
+		if (collector == null) {
+			throw new NullPointerException("collector cannot be null");
+		}
+		if (!collector.isCollector()) {
+			throw new IllegalArgumentException("The handler set to merge is not a collector");
+		}
+		if (collector.mergedInto != null) {
+			throw new IllegalStateException("The collector has already been merged");
+		}
+		if (collector == this) {
+			throw new IllegalArgumentException("Cannot merge a handler set into itself");
+		}
+		for (final CollectedId<T> id: collector.collected) {
+			associateObject(id.associatedObject);
+			addStringId(id.id);
+		}
+		collector.collected.clear();
+		collector.handlers.clear();
+		collector.mergedInto = this;
+		return this;
 	}
 
 	private void updateIdCount(final boolean newId)
@@ -233,6 +320,11 @@ public class IdReferenceHandlerSet<T> {
 			throw new IllegalStateException(
 					"This ID handler set instance's IDs have been processed and no more can be added");
 		}
+		if (mergedInto != null) {
+			throw new IllegalStateException(
+					"This ID handler set instance's IDs have been merged into another " +
+					"handler set and no more can be added");
+		}
 		if (associated == null) {
 			throw new IllegalStateException(
 					"Must add an object to associate IDs with prior to adding IDs");
@@ -271,6 +363,9 @@ public class IdReferenceHandlerSet<T> {
 	 * @return true if processIds() has been called.
 	 */
 	public boolean wereIdsProcessed() {
+		if (mergedInto != null) {
+			return mergedInto.wereIdsProcessed();
+		}
 		return processed;
 	}
 	
@@ -279,6 +374,9 @@ public class IdReferenceHandlerSet<T> {
 	 * set.
 	 */
 	public Set<IdReferenceType> getIDTypes() {
+		if (mergedInto != null) {
+			return mergedInto.getIDTypes();
+		}
 		return handlers.keySet();
 	}
 	
@@ -293,6 +391,9 @@ public class IdReferenceHandlerSet<T> {
 		if (idType == null || oldId == null) {
 			throw new NullPointerException("idType and oldId can't be null");
 		}
+		if (mergedInto != null) {
+			return mergedInto.getRemappedId(idType, oldId);
+		}
 		if (!handlers.containsKey(idType)) {
 			throw new NoSuchIdReferenceHandlerException(
 					"There is no handler registered for the ID type " + 
@@ -313,6 +414,9 @@ public class IdReferenceHandlerSet<T> {
 			throw new NullPointerException(
 					"idType and associatedObject can't be null");
 		}
+		if (mergedInto != null) {
+			return mergedInto.getRemappedIds(idType, associatedObject);
+		}
 		if (!handlers.containsKey(idType)) {
 			throw new NoSuchIdReferenceHandlerException(
 					"There is no handler registered for the ID type " + 
@@ -114,12 +114,27 @@ public class IdReferenceHandlerSetFactory {
 	 * @return the set of ID handlers.
 	 */
 	public <T> IdReferenceHandlerSet<T> createHandlers(final Class<T> clazz) {
+		return new IdReferenceHandlerSet<T>(maxUniqueIdCount, createHandlerMap(clazz));
+	}
+	
+	/** Create a set of ID handlers that records the IDs added to it so they can be merged
+	 * into another set of handlers created by this factory set.
+	 * @param clazz the class of object to associate with IDs.
+	 * @return the set of ID handlers.
+	 * @see IdReferenceHandlerSet#merge(IdReferenceHandlerSet)
+	 */
+	public <T> IdReferenceHandlerSet<T> createCollector(final Class<T> clazz) {
+		return new IdReferenceHandlerSet<T>(maxUniqueIdCount, createHandlerMap(clazz), true);
+	}
+
+	private <T> Map<IdReferenceType, IdReferenceHandler<T>> createHandlerMap(
+			final Class<T> clazz) {
 		final Map<IdReferenceType, IdReferenceHandler<T>> handlers =
 				new HashMap<IdReferenceType, IdReferenceHandler<T>>();
 		for (final Entry<IdReferenceType, IdReferenceHandlerFactory> e: factories.entrySet()) {
 			handlers.put(e.getKey(), e.getValue().createHandler(clazz, userToken));
 		}
-		return new IdReferenceHandlerSet<T>(maxUniqueIdCount, handlers);
+		return handlers;
 	}
 	
 }
@@ -15,7 +15,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.AfterClass;
@@ -33,10 +35,15 @@ import us.kbase.typedobj.core.LocalTypeProvider;
 import us.kbase.typedobj.core.MD5;
 import us.kbase.typedobj.core.TempFilesManager;
 import us.kbase.typedobj.core.TypeDefId;
+import us.kbase.typedobj.core.TypeProvider;
 import us.kbase.typedobj.core.ValidatedTypedObject;
 import us.kbase.typedobj.core.TypedObjectValidator;
 import us.kbase.typedobj.db.FileTypeStorage;
 import us.kbase.typedobj.db.TypeDefinitionDB;
+import us.kbase.typedobj.exceptions.NoSuchModuleException;
+import us.kbase.typedobj.exceptions.NoSuchTypeException;
+import us.kbase.typedobj.exceptions.TypeStorageException;
+import us.kbase.typedobj.exceptions.TypedObjectValidationException;
 import us.kbase.typedobj.idref.IdReference;
 import us.kbase.typedobj.idref.IdReferenceHandlerSet;
 import us.kbase.typedobj.idref.IdReferenceHandlerSetFactory;
@@ -470,6 +477,142 @@ public class TypedObjectValidationReportTest {
 		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
 	}
 
+	@Test
+	public void relabelAndCache() throws Exception {
+		final String json = "{\"m\": {\"z\": \"a\", \"b\": \"d\"}}";
+		final String expectedJson = "{\"m\":{\"b\":\"whoop\",\"y\":\"a\"}}";
+		final MD5 expectedMD5 = new MD5("920d54af26c56df84e4c4df358952138");
+		final TempFilesManager tfm = new TempFilesManager(
+				new File(TestCommon.getTempDir()));
+		tfm.cleanup();
+		
+		// in memory
+		ValidatedTypedObject tovr = getRelabelingVTO(json);
+		assertThat("incorrect passes", tovr.getPassCount(), is(1));
+		assertThat("incorrect size", tovr.relabelAndCache(tfm, 27, 27), is(27L));
+		assertThat("incorrect size", tovr.getRelabeledSize(), is(27L));
+		assertThat("incorrect passes", tovr.getPassCount(), is(2));
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		failGetInputStream(tovr);
+		failGetMD5(tovr);
+		tovr.sort(SORT_FAC, tfm);
+		assertThat("incorrect passes", tovr.getPassCount(), is(3));
+		assertThat("incorrect md5", tovr.getMD5(), is(expectedMD5));
+		assertThat("incorrect json", IOUtils.toString(tovr.getInputStream(), "UTF-8"),
+				is(expectedJson));
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		
+		// in a file
+		tovr = getRelabelingVTO(json);
+		assertThat("incorrect size", tovr.relabelAndCache(tfm, 26, 27), is(27L));
+		assertThat("incorrect passes", tovr.getPassCount(), is(2));
+		assertThat("TFM has one file", tfm.getTempFileList().size(), is(1));
+		failGetInputStream(tovr);
+		tovr.sort(SORT_FAC, null);
+		assertThat("incorrect passes", tovr.getPassCount(), is(3));
+		assertThat("TFM has one file", tfm.getTempFileList().size(), is(1));
+		assertThat("incorrect md5", tovr.getMD5(), is(expectedMD5));
+		assertThat("incorrect json", IOUtils.toString(tovr.getInputStream(), "UTF-8"),
+				is(expectedJson));
+		tovr.destroyCachedResources();
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		
+		// naturally sorted objects need no more passes
+		tovr = getRelabelingVTO("{\"m\": {\"b\": \"d\"}}");
+		assertThat("incorrect size", tovr.relabelAndCache(tfm, 0, 100), is(19L));
+		tovr.sort(SORT_FAC, tfm);
+		assertThat("incorrect passes", tovr.getPassCount(), is(2));
+		assertThat("incorrect json", IOUtils.toString(tovr.getInputStream(), "UTF-8"),
+				is("{\"m\":{\"b\":\"whoop\"}}"));
+		assertThat("incorrect md5", tovr.getMD5(), is(new MD5(DigestUtils.md5Hex(
+				"{\"m\":{\"b\":\"whoop\"}}"))));
+		tovr.destroyCachedResources();
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		
+		// too big to keep
+		tovr = getRelabelingVTO(json);
+		assertThat("incorrect size", tovr.relabelAndCache(tfm, 0, 26), is(27L));
+		assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		failGetInputStream(tovr);
+		tovr.sort(SORT_FAC);
+		assertThat("incorrect passes", tovr.getPassCount(), is(4));
+		assertThat("incorrect md5", tovr.getMD5(), is(expectedMD5));
+	}
+	
+	@Test
+	public void relabelAndCacheRetrySort() throws Exception {
+		final String json = "{\"m\": {\"z\": \"a\", \"b\": \"d\"}}";
+		final String expectedJson = "{\"m\":{\"b\":\"whoop\",\"y\":\"a\"}}";
+		final TempFilesManager tfm = new TempFilesManager(
+				new File(TestCommon.getTempDir()));
+		tfm.cleanup();
+		
+		// in memory and in a file
+		for (final long maxMem: Arrays.asList(27L, 0L)) {
+			final ValidatedTypedObject tovr = getRelabelingVTO(json);
+			tovr.relabelAndCache(tfm, maxMem, 27);
+			assertThat("incorrect sorted", tovr.isNaturallySorted(), is(false));
+			try {
+				tovr.sort(new UTF8JsonSorterFactory(10), tfm);
+				fail("sorted with too little memory");
+			} catch (TooManyKeysException e) {
+				// expected
+			}
+			failGetInputStream(tovr);
+			tovr.sort(SORT_FAC, tfm);
+			assertThat("incorrect md5", tovr.getMD5(),
+					is(new MD5("920d54af26c56df84e4c4df358952138")));
+			assertThat("incorrect json", IOUtils.toString(tovr.getInputStream(), "UTF-8"),
+					is(expectedJson));
+			tovr.destroyCachedResources();
+			assertThat("Temp files manager is empty", tfm.isEmpty(), is(true));
+		}
+		
+		final ValidatedTypedObject tovr = getRelabelingVTO("{\"m\": {\"b\": \"d\"}}");
+		tovr.relabelAndCache(tfm, 100, 100);
+		assertThat("incorrect sorted", tovr.isNaturallySorted(), is(true));
+	}
+	
+	@Test
+	public void validateStringFailBadJson() throws Exception {
+		final IdReferenceHandlerSet<String> handlers =
+				getFac(100).createHandlers(String.class).associateObject("foo");
+		try {
+			validator.validate("{\"m\": {\"z\": \"a\",", new TypeDefId("TestIDMap.IDMap"),
+					handlers);
+			fail("validated bad json");
+		} catch (TypedObjectValidationException e) {
+			assertThat("incorrect exception", e.getMessage(),
+					is("instance was not a valid or readable JSON document"));
+		}
+	}
+	
+	private ValidatedTypedObject getRelabelingVTO(final String json) throws Exception {
+		final Map<String, String> refmap = new HashMap<String, String>();
+		refmap.put("z", "y");
+		refmap.put("d", "whoop");
+		refmap.put("a", "a");
+		refmap.put("b", "b");
+		final IdReferenceHandlerSetFactory fac = getFac(100);
+		fac.addFactory(new DummyIdHandlerFactory(new IdReferenceType("ws"), refmap));
+		final IdReferenceHandlerSet<String> handlers =
+				fac.createHandlers(String.class).associateObject("foo");
+		final ValidatedTypedObject tovr = validator.validate(json,
+				new TypeDefId("TestIDMap.IDMap"), handlers);
+		handlers.processIDs();
+		return tovr;
+	}
+	
+	private void failGetInputStream(final ValidatedTypedObject tovr) {
+		try {
+			tovr.getInputStream();
+			fail("got input stream before sort");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception", e.getMessage(),
+					is("You must call sort() prior to accessing the object data."));
+		}
+	}
+
 	private void failGetRelabeledSize(ValidatedTypedObject tovr) {
 		try {
 			tovr.getRelabeledSize();
@@ -536,4 +679,46 @@ public class TypedObjectValidationReportTest {
 					(maxmem - filelength) + " bytes at /"));
 		}
 	}
+	
+	@Test
+	public void schemaCache() throws Exception {
+		final LocalTypeProvider ltp = new LocalTypeProvider(db);
+		final AtomicInteger schemaFetches = new AtomicInteger();
+		final TypedObjectValidator val = new TypedObjectValidator(new TypeProvider() {
+			
+			@Override
+			public AbsoluteTypeDefId resolveTypeDef(final TypeDefId typeDefId)
+					throws NoSuchTypeException, NoSuchModuleException, TypeStorageException {
+				return ltp.resolveTypeDef(typeDefId);
+			}
+			
+			@Override
+			public String getTypeJsonSchema(final AbsoluteTypeDefId typeDefId)
+					throws NoSuchTypeException, NoSuchModuleException, TypeStorageException {
+				schemaFetches.incrementAndGet();
+				return ltp.getTypeJsonSchema(typeDefId);
+			}
+		});
+		final IdReferenceHandlerSetFactory fac = getFac(100);
+		
+		for (int i = 0; i < 3; i++) {
+			final ValidatedTypedObject tovr = val.validate("{\"m\": {\"z\": \"d\"}}",
+					new TypeDefId("TestIDMap.IDMap"),
+					fac.createHandlers(String.class).associateObject("foo"));
+			assertThat("incorrect errors", tovr.getErrorMessages(),
+					is(Collections.emptyList()));
+		}
+		assertThat("incorrect schema fetch count", schemaFetches.get(), is(1));
+	}
+	
+	@Test
+	public void constructFailBadSchemaCacheSize() throws Exception {
+		try {
+			new TypedObjectValidator(new LocalTypeProvider(db), 0);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"schemaCacheSize must be at least 1"));
+		}
+	}
 }
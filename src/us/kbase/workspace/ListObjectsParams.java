@@ -33,10 +33,9 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *                         and 'readable' are ignored.
  *                 list<username> savedby - filter objects by the user that saved or
  *                         copied the object.
- *                 usermeta meta - filter objects by the user supplied metadata. NOTE:
- *                         only one key/value pair is supported at this time. A full map
- *                         is provided as input for the possibility for expansion in the
- *                         future.
+ *                 usermeta meta - filter objects by the user supplied metadata.
+ *                         All of the key/value pairs must match. At most 10 pairs are
+ *                         allowed.
  *                 timestamp after - only return objects that were created after this
  *                         date.
  *                 timestamp before - only return objects that were created before this
@@ -49,6 +48,12 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  *                         equal to this value.
  *                 obj_id maxObjectID - only return objects with an object id less than or
  *                         equal to this value.
+ *                 obj_ref startafter - only return objects after this object. Results are
+ *                         sorted by workspace ID, object ID, and descending version, so
+ *                         passing the reference of the last object returned from a call
+ *                         retrieves the next page of results. Must be an absolute reference
+ *                         of the form X/Y/Z, where X, Y, and Z are the numerical IDs of the
+ *                         workspace, object, and version.
  *                 boolean showDeleted - show deleted objects in workspaces to which the
  *                         user has write access.
  *                 boolean showOnlyDeleted - only show deleted objects in workspaces to
@@ -81,6 +86,7 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "before_epoch",
     "minObjectID",
     "maxObjectID",
+    "startafter",
     "showDeleted",
     "showOnlyDeleted",
     "showHidden",
@@ -115,6 +121,8 @@ public class ListObjectsParams {
     private java.lang.Long minObjectID;
     @JsonProperty("maxObjectID")
     private java.lang.Long maxObjectID;
+    @JsonProperty("startafter")
+    private java.lang.String startafter;
     @JsonProperty("showDeleted")
     private java.lang.Long showDeleted;
     @JsonProperty("showOnlyDeleted")
@@ -311,6 +319,21 @@ public class ListObjectsParams {
         return this;
     }
 
+    @JsonProperty("startafter")
+    public java.lang.String getStartafter() {
+        return startafter;
+    }
+
+    @JsonProperty("startafter")
+    public void setStartafter(java.lang.String startafter) {
+        this.startafter = startafter;
+    }
+
+    public ListObjectsParams withStartafter(java.lang.String startafter) {
+        this.startafter = startafter;
+        return this;
+    }
+
     @JsonProperty("showDeleted")
     public java.lang.Long getShowDeleted() {
         return showDeleted;
@@ -428,7 +451,7 @@ public class ListObjectsParams {
 
     @Override
     public java.lang.String toString() {
-        return ((((((((((((((((((((((((((((((((((((((((("ListObjectsParams"+" [workspaces=")+ workspaces)+", ids=")+ ids)+", type=")+ type)+", perm=")+ perm)+", savedby=")+ savedby)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", minObjectID=")+ minObjectID)+", maxObjectID=")+ maxObjectID)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", showHidden=")+ showHidden)+", showAllVersions=")+ showAllVersions)+", includeMetadata=")+ includeMetadata)+", excludeGlobal=")+ excludeGlobal)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
+        return ((((((((((((((((((((((((((((((((((((((((((("ListObjectsParams"+" [workspaces=")+ workspaces)+", ids=")+ ids)+", type=")+ type)+", perm=")+ perm)+", savedby=")+ savedby)+", meta=")+ meta)+", after=")+ after)+", before=")+ before)+", afterEpoch=")+ afterEpoch)+", beforeEpoch=")+ beforeEpoch)+", minObjectID=")+ minObjectID)+", maxObjectID=")+ maxObjectID)+", startafter=")+ startafter)+", showDeleted=")+ showDeleted)+", showOnlyDeleted=")+ showOnlyDeleted)+", showHidden=")+ showHidden)+", showAllVersions=")+ showAllVersions)+", includeMetadata=")+ includeMetadata)+", excludeGlobal=")+ excludeGlobal)+", limit=")+ limit)+", additionalProperties=")+ additionalProperties)+"]");
     }
 
 }
@@ -21,10 +21,9 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
  * permission perm - filter workspaces by minimum permission level. 'None'
  *         and 'readable' are ignored.
  * list<username> owners - filter workspaces by owner.
- * usermeta meta - filter workspaces by the user supplied metadata. NOTE:
- *         only one key/value pair is supported at this time. A full map
- *         is provided as input for the possibility for expansion in the
- *         future.
+ * usermeta meta - filter workspaces by the user supplied metadata.
+ *         All of the key/value pairs must match. At most 10 pairs are
+ *         allowed.
  * timestamp after - only return workspaces that were modified after this
  *         date.
  * timestamp before - only return workspaces that were modified before
@@ -789,6 +789,32 @@ public class WorkspaceClient {
         return res.get(0);
     }
 
+    /**
+     * <p>Original spec-file function name: list_recent_objects</p>
+     * <pre>
+     * List the most recently modified objects in the workspaces the user can
+     * read, newest first. Saving, copying, reverting, renaming, deleting, or
+     * undeleting an object changes its modification date. Deleted and hidden
+     * objects are not listed.
+     * At most 10000 objects are examined per call, so a page may contain
+     * fewer objects than the limit, or none, even when more objects are
+     * available. Continue calling with the next value until it is null to
+     * see all the objects. An object that is modified while paging may be
+     * listed twice.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.workspace.ListRecentObjectsParams ListRecentObjectsParams}
+     * @return   parameter "results" of type {@link us.kbase.workspace.ListRecentObjectsResults ListRecentObjectsResults}
+     * @throws IOException if an IO exception occurs
+     * @throws JsonClientException if a JSON RPC exception occurs
+     */
+    public ListRecentObjectsResults listRecentObjects(ListRecentObjectsParams params, RpcContext... jsonRpcContext) throws IOException, JsonClientException {
+        List<Object> args = new ArrayList<Object>();
+        args.add(params);
+        TypeReference<List<ListRecentObjectsResults>> retType = new TypeReference<List<ListRecentObjectsResults>>() {};
+        List<ListRecentObjectsResults> res = caller.jsonrpcCall("Workspace.list_recent_objects", args, retType, true, false, jsonRpcContext, this.serviceVersion);
+        return res.get(0);
+    }
+
     /**
      * <p>Original spec-file function name: get_objectmeta</p>
      * <pre>
@@ -949,8 +975,9 @@ public class WorkspaceClient {
      * <p>Original spec-file function name: get_names_by_prefix</p>
      * <pre>
      * Get object names matching a prefix. At most 1000 names are returned.
-     * No particular ordering is guaranteed, nor is which names will be
-     * returned if more than 1000 are found.
+     * Names are sorted within each workspace. If more names are found than
+     * the limit, the first names in order of workspace ID and then name are
+     * returned.
      * This function is intended for use as an autocomplete helper function.
      * </pre>
      * @param   params   instance of type {@link us.kbase.workspace.GetNamesByPrefixParams GetNamesByPrefixParams}
@@ -110,7 +110,6 @@ public class WorkspaceServer extends JsonServerServlet {
 	private static final String GIT = "https://github.com/kbase/workspace_deluxe";
 
 	private static final long MAX_RPC_PACKAGE_SIZE = 1005000000;
-	private static final int MAX_RPC_PACKAGE_MEM_USE = 100000000;
 	
 	private static Map<String, String> wsConfig = null;
 	
@@ -202,7 +201,6 @@ public class WorkspaceServer extends JsonServerServlet {
         //BEGIN_CONSTRUCTOR
 		setUpLogger();
 		setMaxRPCPackageSize(MAX_RPC_PACKAGE_SIZE);
-		setMaxRpcMemoryCacheSize(MAX_RPC_PACKAGE_MEM_USE);
 		//assign config once per jvm, otherwise you could wind up with
 		//different threads talking to different mongo instances
 		//E.g. first thread's config applies to all threads.
@@ -212,6 +210,11 @@ public class WorkspaceServer extends JsonServerServlet {
 		}
 		
 		final KBaseWorkspaceConfig cfg = new KBaseWorkspaceConfig(wsConfig);
+		/* requests larger than this are spooled to disk in the temp directory, and the
+		 * object data in a save is then validated from the spooled file
+		 */
+		setMaxRpcMemoryCacheSize((int) Math.min(
+				Integer.MAX_VALUE, cfg.getRpcMemoryCacheMB() * KBaseWorkspaceConfig.BYTES_PER_MB));
 		for (final String info: cfg.getInfoMessages()) {
 			logInfo(info);
 			System.out.println(info);
@@ -950,6 +953,31 @@ public class WorkspaceServer extends JsonServerServlet {
         return returnVal;
     }
 
+    /**
+     * <p>Original spec-file function name: list_recent_objects</p>
+     * <pre>
+     * List the most recently modified objects in the workspaces the user can
+     * read, newest first. Saving, copying, reverting, renaming, deleting, or
+     * undeleting an object changes its modification date. Deleted and hidden
+     * objects are not listed.
+     * At most 10000 objects are examined per call, so a page may contain
+     * fewer objects than the limit, or none, even when more objects are
+     * available. Continue calling with the next value until it is null to
+     * see all the objects. An object that is modified while paging may be
+     * listed twice.
+     * </pre>
+     * @param   params   instance of type {@link us.kbase.workspace.ListRecentObjectsParams ListRecentObjectsParams}
+     * @return   parameter "results" of type {@link us.kbase.workspace.ListRecentObjectsResults ListRecentObjectsResults}
+     */
+    @JsonServerMethod(rpc = "Workspace.list_recent_objects", authOptional=true, async=true)
+    public ListRecentObjectsResults listRecentObjects(ListRecentObjectsParams params, AuthToken authPart, RpcContext jsonRpcContext) throws Exception {
+        ListRecentObjectsResults returnVal = null;
+        //BEGIN list_recent_objects
+		returnVal = wsmeth.listRecentObjects(params, wsmeth.getUser(authPart));
+        //END list_recent_objects
+        return returnVal;
+    }
+
     /**
      * <p>Original spec-file function name: get_objectmeta</p>
      * <pre>
@@ -1128,8 +1156,9 @@ public class WorkspaceServer extends JsonServerServlet {
      * <p>Original spec-file function name: get_names_by_prefix</p>
      * <pre>
      * Get object names matching a prefix. At most 1000 names are returned.
-     * No particular ordering is guaranteed, nor is which names will be
-     * returned if more than 1000 are found.
+     * Names are sorted within each workspace. If more names are found than
+     * the limit, the first names in order of workspace ID and then name are
+     * returned.
      * This function is intended for use as an autocomplete helper function.
      * </pre>
      * @param   params   instance of type {@link us.kbase.workspace.GetNamesByPrefixParams GetNamesByPrefixParams}
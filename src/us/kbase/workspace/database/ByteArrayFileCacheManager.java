@@ -1,8 +1,10 @@
 package us.kbase.workspace.database;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -43,7 +45,7 @@ public class ByteArrayFileCacheManager {
 		this.tfm = tfm;
 	}
 	
-	public int getSizeInMem() {
+	public synchronized int getSizeInMem() {
 		return sizeInMem;
 	}
 
@@ -51,7 +53,7 @@ public class ByteArrayFileCacheManager {
 		return maxSizeInMem;
 	}
 
-	public long getSizeOnDisk() {
+	public synchronized long getSizeOnDisk() {
 		return sizeOnDisk;
 	}
 
@@ -59,6 +61,8 @@ public class ByteArrayFileCacheManager {
 		return maxSizeOnDisk;
 	}
 
+	// not synchronized so blob stores can fetch data concurrently. Only updates to the size
+	// counters are synchronized - space is reserved as data is read.
 	@SuppressWarnings("resource")
 	public ByteArrayFileCache createBAFC(
 			final InputStream input,
@@ -67,27 +71,28 @@ public class ByteArrayFileCacheManager {
 			throws FileCacheIOException, FileCacheLimitExceededException {
 		byte[] buf = new byte[100000];
 		ByteArrayOutputStream bufOs = new ByteArrayOutputStream();
-		int maxInMemorySize = maxSizeInMem - sizeInMem;
 		long size = 0;
-		while (size < maxInMemorySize + 1) {
-			int count;
-			try {
-				count = input.read(buf, 0, Math.min(
-						buf.length, maxInMemorySize + 1 - (int)size));
-			} catch (IOException ioe) {
-				throw new FileCacheIOException(ioe.getLocalizedMessage(), ioe);
-			}
-			if (count < 0)
-				break;
-			bufOs.write(buf, 0, count);
-			size += count;
-		}
+		boolean inMemory = true;
 		try {
-			bufOs.close();
+			while (true) {
+				final int count = input.read(buf, 0, buf.length);
+				if (count < 0)
+					break;
+				bufOs.write(buf, 0, count);
+				size += count;
+				if (!reserveMemory(count)) {
+					releaseMemory(size - count);
+					inMemory = false;
+					break;
+				}
+			}
 		} catch (IOException ioe) {
+			releaseMemory(size);
 			throw new FileCacheIOException(ioe.getLocalizedMessage(), ioe);
 		}
-		if (size > maxInMemorySize) {
+		if (!inMemory) {
+			reserveDisk(size);
+			long reserved = size;
 			File tempFile = null;
 			OutputStream os = null;
 			try {
@@ -98,37 +103,34 @@ public class ByteArrayFileCacheManager {
 					os.write(bufOs.toByteArray());
 					bufOs = null;
 					while (true) {
-						if (sizeOnDisk + size > maxSizeOnDisk) {
-							cleanUp(tempFile, os);
-							throw new FileCacheLimitExceededException(
-									"Disk limit exceeded for file cache: " +
-											maxSizeOnDisk);
-						}
 						int count = input.read(buf, 0, buf.length);
 						if (count < 0)
 							break;
+						reserveDisk(count);
+						reserved += count;
 						os.write(buf, 0, count);
 						size += count;
 					}
 				} finally {
 					try { os.close(); } catch (Exception ignore) {}
 				}
-				sizeOnDisk += size;
-				return new ByteArrayFileCache(null, tempFile,
+				return new ByteArrayFileCache(null, tempFile, null,
 						new JsonTokenStream(tempFile)
 							.setTrustedWholeJson(trustedJson), sorted, size);
 			} catch (IOException ioe) {
 				cleanUp(tempFile, os);
+				releaseDisk(reserved);
 				throw new FileCacheIOException(ioe.getLocalizedMessage(), ioe);
-			} catch (RuntimeException re) {
+			} catch (FileCacheLimitExceededException | RuntimeException e) {
 				cleanUp(tempFile, os);
-				throw re;
+				releaseDisk(reserved);
+				throw e;
 			}
 		} else {
-			sizeInMem += (int)size;
+			final byte[] data = bufOs.toByteArray();
 			try {
-				return new ByteArrayFileCache(null, null,
-						new JsonTokenStream(bufOs.toByteArray())
+				return new ByteArrayFileCache(null, null, data,
+						new JsonTokenStream(data)
 							.setTrustedWholeJson(trustedJson), sorted, size);
 			} catch (IOException ioe) {
 				throw new FileCacheIOException(
@@ -136,6 +138,31 @@ public class ByteArrayFileCacheManager {
 			}
 		}
 	}
+	
+	private synchronized boolean reserveMemory(final int size) {
+		if (sizeInMem + size > maxSizeInMem) {
+			return false;
+		}
+		sizeInMem += size;
+		return true;
+	}
+	
+	private synchronized void releaseMemory(final long size) {
+		sizeInMem -= size;
+	}
+	
+	private synchronized void reserveDisk(final long size)
+			throws FileCacheLimitExceededException {
+		if (sizeOnDisk + size > maxSizeOnDisk) {
+			throw new FileCacheLimitExceededException(
+					"Disk limit exceeded for file cache: " + maxSizeOnDisk);
+		}
+		sizeOnDisk += size;
+	}
+	
+	private synchronized void releaseDisk(final long size) {
+		sizeOnDisk -= size;
+	}
 
 	private void cleanUp(File tempFile, OutputStream os) {
 		if (os != null)
@@ -147,7 +174,7 @@ public class ByteArrayFileCacheManager {
 	}
 
 	@SuppressWarnings("resource")
-	public ByteArrayFileCache getSubdataExtraction(
+	public synchronized ByteArrayFileCache getSubdataExtraction(
 			final ByteArrayFileCache parent, final SubsetSelection paths)
 			throws TypedObjectExtractionException,
 			FileCacheLimitExceededException, FileCacheIOException {
@@ -190,14 +217,14 @@ public class ByteArrayFileCacheManager {
 			parent.getSubdataExtractionAsStream(paths, os);
 			if (tempFile[0] != null) {
 				sizeOnDisk += size[0];
-				return new ByteArrayFileCache(parent, tempFile[0],
+				return new ByteArrayFileCache(parent, tempFile[0], null,
 						new JsonTokenStream(tempFile[0])
 						.setTrustedWholeJson(parent.containsTrustedJson()),
 						parent.isSorted(), size[0]); 
 			} else {
 				sizeInMem += (int)size[0];
 				byte[] arr = ((ByteArrayOutputStream)origin[0]).toByteArray();
-				return new ByteArrayFileCache(parent, null,
+				return new ByteArrayFileCache(parent, null, arr,
 						new JsonTokenStream(arr)
 						.setTrustedWholeJson(parent.containsTrustedJson()),
 						parent.isSorted(), size[0]);
@@ -235,6 +262,7 @@ public class ByteArrayFileCacheManager {
 	
 	public class ByteArrayFileCache {
 		private File tempFile = null;
+		private byte[] data = null;
 		private JsonTokenStream jts;
 		private ByteArrayFileCache parent = null;
 		private boolean destroyed = false;
@@ -245,11 +273,13 @@ public class ByteArrayFileCacheManager {
 		private ByteArrayFileCache(
 				final ByteArrayFileCache parent,
 				final File tempFile,
+				final byte[] data,
 				final JsonTokenStream jts,
 				final boolean sorted,
 				final long size) {
 			this.parent = parent;
 			this.tempFile = tempFile;
+			this.data = data;
 			this.jts = jts;
 			if (parent != null) {
 				this.sorted = parent.isSorted();
@@ -284,6 +314,19 @@ public class ByteArrayFileCacheManager {
 			return jts.createDataReader();
 		}
 		
+		/** Get the raw bytes stored in this cache, e.g. for copying the data elsewhere.
+		 * The caller is responsible for closing the stream.
+		 * @return a stream of the stored bytes.
+		 * @throws IOException if the backing file could not be opened.
+		 */
+		public InputStream getInputStream() throws IOException {
+			checkIfDestroyed();
+			if (tempFile != null) {
+				return new FileInputStream(tempFile);
+			}
+			return new ByteArrayInputStream(data);
+		}
+		
 		/** True if this BAFC was marked as containing known good JSON.
 		 * @return true if the this BAFC was marked as containing known good
 		 * JSON, false otherwise.
@@ -340,6 +383,7 @@ public class ByteArrayFileCacheManager {
 				parent.destroy();
 			}
 			parent = null;
+			data = null;
 			jts = null;
 			tempFile = null;
 			destroyed = true;
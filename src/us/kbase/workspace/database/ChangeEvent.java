@@ -0,0 +1,230 @@
+package us.kbase.workspace.database;
+
+import static us.kbase.workspace.database.Util.noNulls;
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Optional;
+
+/** An event in the workspace change feed.
+ *
+ */
+public class ChangeEvent {
+
+	private final long sequence;
+	private final String type;
+	private final Instant time;
+	private final Optional<WorkspaceUser> user;
+	private final long workspaceID;
+	private final Optional<Long> objectID;
+	private final Optional<Integer> version;
+	private final Optional<String> objectType;
+	private final Optional<Permission> permission;
+	private final List<WorkspaceUser> permissionUsers;
+
+	/** Create an event.
+	 * @param sequence the sequence number of the event in the feed.
+	 * @param type the type of the event.
+	 * @param time the time the event occurred.
+	 * @param user the user that triggered the event, or null if the user was an administrator.
+	 * @param workspaceID the ID of the workspace involved in the event.
+	 * @param objectID the ID of the object involved in the event, if any.
+	 * @param version the version of the object involved in the event, if any.
+	 * @param objectType the type of the object version involved in the event, if any.
+	 * @param permission the permission set by the event, if any.
+	 * @param permissionUsers the users whose permissions were set by the event. Empty for
+	 * events that do not set user permissions.
+	 */
+	public ChangeEvent(
+			final long sequence,
+			final String type,
+			final Instant time,
+			final WorkspaceUser user,
+			final long workspaceID,
+			final Long objectID,
+			final Integer version,
+			final String objectType,
+			final Permission permission,
+			final List<WorkspaceUser> permissionUsers) {
+		if (sequence < 1) {
+			throw new IllegalArgumentException("sequence must be > 0");
+		}
+		nonNull(type, "type");
+		nonNull(time, "time");
+		nonNull(permissionUsers, "permissionUsers");
+		noNulls(permissionUsers, "null item in permissionUsers");
+		this.sequence = sequence;
+		this.type = type;
+		this.time = time;
+		this.user = Optional.fromNullable(user);
+		this.workspaceID = workspaceID;
+		this.objectID = Optional.fromNullable(objectID);
+		this.version = Optional.fromNullable(version);
+		this.objectType = Optional.fromNullable(objectType);
+		this.permission = Optional.fromNullable(permission);
+		this.permissionUsers = Collections.unmodifiableList(permissionUsers);
+	}
+
+	/** Get the sequence number of the event. Sequence numbers increase in the order events
+	 * are recorded.
+	 * @return the sequence number.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/** Get the type of the event.
+	 * @return the event type.
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/** Get the time the event occurred.
+	 * @return the event time.
+	 */
+	public Instant getTime() {
+		return time;
+	}
+
+	/** Get the user that triggered the event, or absent if the user was an administrator.
+	 * @return the user.
+	 */
+	public Optional<WorkspaceUser> getUser() {
+		return user;
+	}
+
+	/** Get the ID of the workspace involved in the event.
+	 * @return the workspace ID.
+	 */
+	public long getWorkspaceID() {
+		return workspaceID;
+	}
+
+	/** Get the ID of the object involved in the event, if any.
+	 * @return the object ID.
+	 */
+	public Optional<Long> getObjectID() {
+		return objectID;
+	}
+
+	/** Get the version of the object involved in the event, if any.
+	 * @return the version.
+	 */
+	public Optional<Integer> getVersion() {
+		return version;
+	}
+
+	/** Get the type of the object version involved in the event, if any.
+	 * @return the object type.
+	 */
+	public Optional<String> getObjectType() {
+		return objectType;
+	}
+
+	/** Get the permission set by the event, if any.
+	 * @return the permission.
+	 */
+	public Optional<Permission> getPermission() {
+		return permission;
+	}
+
+	/** Get the users whose permissions were set by the event.
+	 * @return the users.
+	 */
+	public List<WorkspaceUser> getPermissionUsers() {
+		return permissionUsers;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("ChangeEvent [sequence=");
+		builder.append(sequence);
+		builder.append(", type=");
+		builder.append(type);
+		builder.append(", time=");
+		builder.append(time);
+		builder.append(", user=");
+		builder.append(user);
+		builder.append(", workspaceID=");
+		builder.append(workspaceID);
+		builder.append(", objectID=");
+		builder.append(objectID);
+		builder.append(", version=");
+		builder.append(version);
+		builder.append(", objectType=");
+		builder.append(objectType);
+		builder.append(", permission=");
+		builder.append(permission);
+		builder.append(", permissionUsers=");
+		builder.append(permissionUsers);
+		builder.append("]");
+		return builder.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + objectID.hashCode();
+		result = prime * result + objectType.hashCode();
+		result = prime * result + permission.hashCode();
+		result = prime * result + permissionUsers.hashCode();
+		result = prime * result + (int) (sequence ^ (sequence >>> 32));
+		result = prime * result + time.hashCode();
+		result = prime * result + type.hashCode();
+		result = prime * result + user.hashCode();
+		result = prime * result + version.hashCode();
+		result = prime * result + (int) (workspaceID ^ (workspaceID >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		ChangeEvent other = (ChangeEvent) obj;
+		if (!objectID.equals(other.objectID)) {
+			return false;
+		}
+		if (!objectType.equals(other.objectType)) {
+			return false;
+		}
+		if (!permission.equals(other.permission)) {
+			return false;
+		}
+		if (!permissionUsers.equals(other.permissionUsers)) {
+			return false;
+		}
+		if (sequence != other.sequence) {
+			return false;
+		}
+		if (!time.equals(other.time)) {
+			return false;
+		}
+		if (!type.equals(other.type)) {
+			return false;
+		}
+		if (!user.equals(other.user)) {
+			return false;
+		}
+		if (!version.equals(other.version)) {
+			return false;
+		}
+		if (workspaceID != other.workspaceID) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -21,6 +21,7 @@ public class GetObjectInformationParameters {
 	final private Date before;
 	final private long minObjectID;
 	final private long maxObjectID;
+	final private Reference startAfter;
 	final private boolean showHidden;
 	final private boolean showDeleted;
 	final private boolean showOnlyDeleted;
@@ -38,6 +39,7 @@ public class GetObjectInformationParameters {
 			final Date before,
 			final long minObjectID,
 			final long maxObjectID,
+			final Reference startAfter,
 			final boolean showHidden,
 			final boolean showDeleted,
 			final boolean showOnlyDeleted,
@@ -54,6 +56,7 @@ public class GetObjectInformationParameters {
 		this.before = before;
 		this.minObjectID = minObjectID;
 		this.maxObjectID = maxObjectID;
+		this.startAfter = startAfter;
 		this.showHidden = showHidden;
 		this.showDeleted = showDeleted;
 		this.showOnlyDeleted = showOnlyDeleted;
@@ -122,6 +125,14 @@ public class GetObjectInformationParameters {
 	public long getMaxObjectID() {
 		return maxObjectID;
 	}
+	
+	/** Get the reference after which objects should be listed, in the order of workspace ID,
+	 * object ID, and descending version.
+	 * @return the reference, or null if objects should be listed from the start.
+	 */
+	public Reference getStartAfter() {
+		return startAfter;
+	}
 
 	/** Returns whether hidden objects should be listed
 	 * @return true if hidden objects should be listed.
@@ -171,20 +182,4 @@ public class GetObjectInformationParameters {
 	public boolean asAdmin() {
 		return asAdmin;
 	}
-	
-	/** Check if there are no filters set other than the object ID filters. The object ID filters
-	 * may or may not be set.
-	 * The other filters are the two date filters, the metadata filter, the savers filter, and
-	 * the type filter.
-	 * @return true if no filters other than the object ID filters are set.
-	 */
-	public boolean isObjectIDFiltersOnly() {
-		// be really careful about modifying this function. See notes in {@link ObjectInfoUtils}.
-		boolean oidFiltersOnly = after == null;
-		oidFiltersOnly = oidFiltersOnly && before == null;
-		oidFiltersOnly = oidFiltersOnly && meta.isEmpty();
-		oidFiltersOnly = oidFiltersOnly && savers.isEmpty();
-		oidFiltersOnly = oidFiltersOnly && type == null; // must have workspaces specified
-		return oidFiltersOnly;
-	}
 }
@@ -34,6 +34,7 @@ public class ListObjectsParameters {
 	private Date before = null;
 	private long minObjectID = -1;
 	private long maxObjectID = -1;
+	private Reference startAfter = null;
 	private boolean showHidden = false;
 	private boolean showDeleted = false;
 	private boolean showOnlyDeleted = false;
@@ -211,17 +212,17 @@ public class ListObjectsParameters {
 		return meta;
 	}
 
-	/** Set the metadata by which the object list should be filtered.
-	 * Only one key/value pair is currently allowed.
+	/** Set the metadata by which the object list should be filtered. Objects must match all
+	 * of the key/value pairs, of which at most {@link Workspace#MAX_META_FILTER} are allowed.
 	 * @param meta the metadata. If null, set to an empty map.
 	 * @return this ListObjectsParameters instance.
 	 */
 	public ListObjectsParameters withMetadata(
 			final WorkspaceUserMetadata meta) {
 		if (meta != null) {
-			if (meta.size() > 1) {
-				throw new IllegalArgumentException(
-						"Only one metadata spec allowed");
+			if (meta.size() > Workspace.MAX_META_FILTER) {
+				throw new IllegalArgumentException(String.format(
+						"At most %s metadata specs allowed", Workspace.MAX_META_FILTER));
 			}
 			this.meta = meta;
 		} else {
@@ -299,6 +300,25 @@ public class ListObjectsParameters {
 		this.maxObjectID = maxObjectID;
 		return this;
 	}
+	
+	/** Get the reference after which objects should be listed.
+	 * @return the reference, or null if objects should be listed from the start.
+	 */
+	public Reference getStartAfter() {
+		return startAfter;
+	}
+	
+	/** Only list objects after this reference, in the order of workspace ID, object ID, and
+	 * descending version. Passing the reference of the last object returned from a call to
+	 * list objects returns the next page of results.
+	 * @param startAfter the reference after which objects should be listed, or null to list
+	 * objects from the start.
+	 * @return this ListObjectsParameters instance.
+	 */
+	public ListObjectsParameters withStartAfter(final Reference startAfter) {
+		this.startAfter = startAfter;
+		return this;
+	}
 
 	/** Returns whether hidden objects should be listed
 	 * @return true if hidden objects should be listed.
@@ -440,7 +460,7 @@ public class ListObjectsParameters {
 		}
 		return new GetObjectInformationParameters(
 				perms, type, savers, meta, after, before, minObjectID,
-				maxObjectID, showHidden, showDeleted, showOnlyDeleted,
+				maxObjectID, startAfter, showHidden, showDeleted, showOnlyDeleted,
 				showAllVers, includeMetaData, limit, asAdmin);
 		
 	}
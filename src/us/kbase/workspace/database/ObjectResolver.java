@@ -13,7 +13,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 import us.kbase.workspace.database.exceptions.CorruptWorkspaceDBException;
 import us.kbase.workspace.database.exceptions.InaccessibleObjectException;
@@ -229,21 +228,16 @@ public class ObjectResolver {
 	}
 	
 
-	private Set<Long> getReadableWorkspaces()
+	private WorkspaceIDSet getReadableWorkspaces()
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
-		//could make a method to just get IDs of workspace with specific permission to save mem
-		final PermissionSet pset = db.getPermissions(user, Permission.READ, false);
-		return pset.getWorkspaces().stream()
-				.filter(ws -> !ws.isDeleted())
-				.map(ws -> ws.getID())
-				.collect(Collectors.toSet());
+		return db.getPermissions(user, Permission.READ, false).getReadableWorkspaceIDs();
 	}
 	
 	private class TopoProvider implements ReferenceGraphTopologyProvider {
 			
-		private final Set<Long> readableWorkspaceIDs;
+		private final WorkspaceIDSet readableWorkspaceIDs;
 		
-		private TopoProvider(final Set<Long> readableWorkspaceIDs) {
+		private TopoProvider(final WorkspaceIDSet readableWorkspaceIDs) {
 			this.readableWorkspaceIDs = readableWorkspaceIDs;
 		}
 
@@ -287,7 +281,8 @@ public class ObjectResolver {
 		if (lookup.isEmpty()) {
 			return;
 		}
-		final Set<Long> readableWorkspaceIDs = asAdmin? new HashSet<>() : getReadableWorkspaces();
+		final WorkspaceIDSet readableWorkspaceIDs = asAdmin ?
+				WorkspaceIDSet.EMPTY : getReadableWorkspaces();
 		final Map<ObjectIdentifier, ObjectIDResolvedWS> resobjs = permissionsFactory
 				.getObjectChecker(lookup, Permission.NONE)
 				.withIncludeDeletedWorkspaces().check();
@@ -327,7 +322,7 @@ public class ObjectResolver {
 	}
 
 	private Set<Reference> searchObjectDAGGetStartingRefs(
-			final Set<Long> readableWorkspaceIDs,
+			final WorkspaceIDSet readableWorkspaceIDs,
 			final Set<ObjectIdentifier> lookup,
 			final Map<ObjectIdentifier, ObjectIDResolvedWS> resobjs,
 			final Map<ObjectIDResolvedWS, Reference> objrefs)
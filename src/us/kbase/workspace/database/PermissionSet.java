@@ -48,6 +48,9 @@ public class PermissionSet {
 	private final WorkspaceUser user;
 	private final AllUsers globalUser;
 	private final Map<ResolvedWorkspaceID, Perms> perms;
+	// built on first use. Permission sets may be cached, so these are shared across requests
+	private volatile WorkspaceIDSet workspaceIDs = null;
+	private volatile WorkspaceIDSet readableIDs = null;
 	
 	private PermissionSet(
 			final WorkspaceUser user,
@@ -138,6 +141,37 @@ public class PermissionSet {
 		return Collections.unmodifiableSet(perms.keySet());
 	}
 	
+	/** Returns the IDs of the workspaces in this permission set. Workspaces may be deleted.
+	 * @return the workspace IDs.
+	 */
+	public WorkspaceIDSet getWorkspaceIDs() {
+		if (workspaceIDs == null) {
+			final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+			for (final ResolvedWorkspaceID ws: perms.keySet()) {
+				b.withID(ws.getID());
+			}
+			workspaceIDs = b.build();
+		}
+		return workspaceIDs;
+	}
+	
+	/** Returns the IDs of the workspaces in this permission set that are readable by the user,
+	 * either explicitly or because the workspace is world readable, and are not deleted.
+	 * @return the readable workspace IDs.
+	 */
+	public WorkspaceIDSet getReadableWorkspaceIDs() {
+		if (readableIDs == null) {
+			final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+			for (final ResolvedWorkspaceID ws: perms.keySet()) {
+				if (!ws.isDeleted() && hasPermission(ws, Permission.READ)) {
+					b.withID(ws.getID());
+				}
+			}
+			readableIDs = b.build();
+		}
+		return readableIDs;
+	}
+	
 	/** Returns true if a particular workspace is in this permission set.
 	 * @param ws the workspace to check.
 	 * @return true if the workspace exists in this permission set.
@@ -0,0 +1,133 @@
+package us.kbase.workspace.database;
+
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.time.Instant;
+
+/** A position in the list of recently modified objects, which is sorted by descending
+ * modification date, then workspace ID, and then object ID.
+ *
+ * The position can be converted to and from a token of the form T:X:Y where
+ *
+ * T is the modification date in milliseconds since the epoch
+ * X is the workspace ID
+ * Y is the object ID
+ *
+ */
+public class RecentObjectPosition {
+
+	private final Instant modificationDate;
+	private final long workspaceID;
+	private final long objectID;
+
+	/** Create a position.
+	 * @param modificationDate the modification date of the object at the position.
+	 * @param workspaceID the workspace ID of the object at the position.
+	 * @param objectID the ID of the object at the position.
+	 */
+	public RecentObjectPosition(
+			final Instant modificationDate,
+			final long workspaceID,
+			final long objectID) {
+		nonNull(modificationDate, "modificationDate");
+		if (workspaceID < 1 || objectID < 1) {
+			throw new IllegalArgumentException("IDs must be > 0");
+		}
+		this.modificationDate = modificationDate;
+		this.workspaceID = workspaceID;
+		this.objectID = objectID;
+	}
+
+	/** Create a position from a token in the format T:X:Y as defined above.
+	 * @param token the token.
+	 * @return the position.
+	 */
+	public static RecentObjectPosition fromToken(final String token) {
+		nonNull(token, "token");
+		final String[] parts = token.split(":");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Illegal position token: " + token);
+		}
+		try {
+			return new RecentObjectPosition(Instant.ofEpochMilli(Long.parseLong(parts[0])),
+					Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal position token: " + token);
+		}
+	}
+
+	/** Get the modification date of the object at this position.
+	 * @return the modification date.
+	 */
+	public Instant getModificationDate() {
+		return modificationDate;
+	}
+
+	/** Get the workspace ID of the object at this position.
+	 * @return the workspace ID.
+	 */
+	public long getWorkspaceID() {
+		return workspaceID;
+	}
+
+	/** Get the ID of the object at this position.
+	 * @return the object ID.
+	 */
+	public long getObjectID() {
+		return objectID;
+	}
+
+	/** Get the token for this position in the format T:X:Y as defined above.
+	 * @return the token.
+	 */
+	public String toToken() {
+		return modificationDate.toEpochMilli() + ":" + workspaceID + ":" + objectID;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("RecentObjectPosition [modificationDate=");
+		builder.append(modificationDate);
+		builder.append(", workspaceID=");
+		builder.append(workspaceID);
+		builder.append(", objectID=");
+		builder.append(objectID);
+		builder.append("]");
+		return builder.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + modificationDate.hashCode();
+		result = prime * result + (int) (objectID ^ (objectID >>> 32));
+		result = prime * result + (int) (workspaceID ^ (workspaceID >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		RecentObjectPosition other = (RecentObjectPosition) obj;
+		if (!modificationDate.equals(other.modificationDate)) {
+			return false;
+		}
+		if (objectID != other.objectID) {
+			return false;
+		}
+		if (workspaceID != other.workspaceID) {
+			return false;
+		}
+		return true;
+	}
+}
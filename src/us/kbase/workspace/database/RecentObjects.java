@@ -0,0 +1,89 @@
+package us.kbase.workspace.database;
+
+import static us.kbase.workspace.database.Util.noNulls;
+import static us.kbase.workspace.database.Util.nonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Optional;
+
+/** A page of recently modified objects.
+ *
+ */
+public class RecentObjects {
+
+	private final List<ObjectInformation> objects;
+	private final Optional<RecentObjectPosition> next;
+
+	/** Create a page of recently modified objects.
+	 * @param objects the objects, sorted by descending modification date.
+	 * @param next the position at which the next page starts, or null if there are no more
+	 * objects.
+	 */
+	public RecentObjects(
+			final List<ObjectInformation> objects,
+			final RecentObjectPosition next) {
+		nonNull(objects, "objects");
+		noNulls(objects, "null item in objects");
+		this.objects = Collections.unmodifiableList(objects);
+		this.next = Optional.fromNullable(next);
+	}
+
+	/** Get the objects, sorted by descending modification date.
+	 * @return the objects.
+	 */
+	public List<ObjectInformation> getObjects() {
+		return objects;
+	}
+
+	/** Get the position after which the next page of objects starts, or absent if there are
+	 * no more objects. Note that a page may contain fewer objects than requested, or even no
+	 * objects, and still have a next position if the scan limit was reached.
+	 * @return the next position.
+	 */
+	public Optional<RecentObjectPosition> getNext() {
+		return next;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("RecentObjects [objects=");
+		builder.append(objects);
+		builder.append(", next=");
+		builder.append(next);
+		builder.append("]");
+		return builder.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + next.hashCode();
+		result = prime * result + objects.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		RecentObjects other = (RecentObjects) obj;
+		if (!next.equals(other.next)) {
+			return false;
+		}
+		if (!objects.equals(other.objects)) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -14,12 +14,32 @@ public class ResourceUsageConfigurationBuilder {
 			200000000; // must be at least 1x max data
 	final public static int DEFAULT_MAX_RETURNED_DATA_MEMORY_USAGE = 300000000;
 	final public static long DEFAULT_MAX_RETURNED_DATA_SIZE = 1000000000L;
+	final public static int DEFAULT_VALIDATION_PARALLELISM = 1;
+	final public static int DEFAULT_SORT_PARALLELISM = 1;
+	final public static int DEFAULT_MODIFICATION_DATE_WINDOW_MS = 0;
+	final public static int DEFAULT_WORKSPACE_CACHE_SIZE = 0;
+	final public static int DEFAULT_WORKSPACE_CACHE_POLL_MS = 1000;
+	final public static int DEFAULT_PERMISSION_CACHE_SIZE = 0;
+	final public static int DEFAULT_PERMISSION_CACHE_TTL_MS = 10000;
+	final public static int DEFAULT_VERSION_CACHE_SIZE = 0;
+	final public static int DEFAULT_REFERENCE_INDEX_POLL_MS = 0;
+	final public static int DEFAULT_REFERENCE_INDEX_POLL_OVERLAP_MS = 60000;
 	
 	private int maxObjectSize;
 	private int maxIncomingDataMemoryUsage;
 	private int maxRelabelAndSortMemoryUsage;
 	private int maxReturnedDataMemoryUsage;
 	private long maxReturnedDataSize;
+	private int validationParallelism;
+	private int sortParallelism;
+	private int modificationDateWindowMS;
+	private int workspaceCacheSize;
+	private int workspaceCachePollMS;
+	private int permissionCacheSize;
+	private int permissionCacheTTLMS;
+	private int versionCacheSize;
+	private int referenceIndexPollMS;
+	private int referenceIndexPollOverlapMS;
 	
 	public ResourceUsageConfigurationBuilder() {
 		maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
@@ -27,6 +47,16 @@ public class ResourceUsageConfigurationBuilder {
 		maxRelabelAndSortMemoryUsage = DEFAULT_MAX_RELABEL_AND_SORT_MEMORY_USAGE;
 		maxReturnedDataMemoryUsage = DEFAULT_MAX_RETURNED_DATA_MEMORY_USAGE;
 		maxReturnedDataSize = DEFAULT_MAX_RETURNED_DATA_SIZE;
+		validationParallelism = DEFAULT_VALIDATION_PARALLELISM;
+		sortParallelism = DEFAULT_SORT_PARALLELISM;
+		modificationDateWindowMS = DEFAULT_MODIFICATION_DATE_WINDOW_MS;
+		workspaceCacheSize = DEFAULT_WORKSPACE_CACHE_SIZE;
+		workspaceCachePollMS = DEFAULT_WORKSPACE_CACHE_POLL_MS;
+		permissionCacheSize = DEFAULT_PERMISSION_CACHE_SIZE;
+		permissionCacheTTLMS = DEFAULT_PERMISSION_CACHE_TTL_MS;
+		versionCacheSize = DEFAULT_VERSION_CACHE_SIZE;
+		referenceIndexPollMS = DEFAULT_REFERENCE_INDEX_POLL_MS;
+		referenceIndexPollOverlapMS = DEFAULT_REFERENCE_INDEX_POLL_OVERLAP_MS;
 	}
 	
 	public ResourceUsageConfigurationBuilder(ResourceUsageConfiguration cfg) {
@@ -35,6 +65,16 @@ public class ResourceUsageConfigurationBuilder {
 		maxRelabelAndSortMemoryUsage = cfg.getMaxRelabelAndSortMemoryUsage();
 		maxReturnedDataMemoryUsage = cfg.getMaxReturnedDataMemoryUsage();
 		maxReturnedDataSize = cfg.getMaxReturnedDataSize();
+		validationParallelism = cfg.getValidationParallelism();
+		sortParallelism = cfg.getSortParallelism();
+		modificationDateWindowMS = cfg.getModificationDateWindowMS();
+		workspaceCacheSize = cfg.getWorkspaceCacheSize();
+		workspaceCachePollMS = cfg.getWorkspaceCachePollMS();
+		permissionCacheSize = cfg.getPermissionCacheSize();
+		permissionCacheTTLMS = cfg.getPermissionCacheTTLMS();
+		versionCacheSize = cfg.getVersionCacheSize();
+		referenceIndexPollMS = cfg.getReferenceIndexPollMS();
+		referenceIndexPollOverlapMS = cfg.getReferenceIndexPollOverlapMS();
 	}
 	
 	public ResourceUsageConfigurationBuilder withMaxObjectSize(int maxObjectSize) {
@@ -66,10 +106,66 @@ public class ResourceUsageConfigurationBuilder {
 		return this;
 	}
 
+	public ResourceUsageConfigurationBuilder withValidationParallelism(
+			int validationParallelism) {
+		this.validationParallelism = validationParallelism;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withSortParallelism(int sortParallelism) {
+		this.sortParallelism = sortParallelism;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withModificationDateWindowMS(
+			int modificationDateWindowMS) {
+		this.modificationDateWindowMS = modificationDateWindowMS;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withWorkspaceCacheSize(int workspaceCacheSize) {
+		this.workspaceCacheSize = workspaceCacheSize;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withWorkspaceCachePollMS(int workspaceCachePollMS) {
+		this.workspaceCachePollMS = workspaceCachePollMS;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withPermissionCacheSize(int permissionCacheSize) {
+		this.permissionCacheSize = permissionCacheSize;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withPermissionCacheTTLMS(int permissionCacheTTLMS) {
+		this.permissionCacheTTLMS = permissionCacheTTLMS;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withVersionCacheSize(int versionCacheSize) {
+		this.versionCacheSize = versionCacheSize;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withReferenceIndexPollMS(int referenceIndexPollMS) {
+		this.referenceIndexPollMS = referenceIndexPollMS;
+		return this;
+	}
+
+	public ResourceUsageConfigurationBuilder withReferenceIndexPollOverlapMS(
+			int referenceIndexPollOverlapMS) {
+		this.referenceIndexPollOverlapMS = referenceIndexPollOverlapMS;
+		return this;
+	}
+
 	public ResourceUsageConfiguration build() {
 		return new ResourceUsageConfiguration(maxObjectSize, 
 				maxIncomingDataMemoryUsage, maxRelabelAndSortMemoryUsage,
-				maxReturnedDataMemoryUsage, maxReturnedDataSize);
+				maxReturnedDataMemoryUsage, maxReturnedDataSize, validationParallelism,
+				sortParallelism, modificationDateWindowMS, workspaceCacheSize,
+				workspaceCachePollMS, permissionCacheSize, permissionCacheTTLMS,
+				versionCacheSize, referenceIndexPollMS, referenceIndexPollOverlapMS);
 	}
 
 	public class ResourceUsageConfiguration {
@@ -79,17 +175,62 @@ public class ResourceUsageConfigurationBuilder {
 		final private int maxRelabelAndSortMemoryUsage;
 		final private int maxReturnedDataMemoryUsage;
 		final private long maxReturnedDataSize;
+		final private int validationParallelism;
+		final private int sortParallelism;
+		final private int modificationDateWindowMS;
+		final private int workspaceCacheSize;
+		final private int workspaceCachePollMS;
+		final private int permissionCacheSize;
+		final private int permissionCacheTTLMS;
+		final private int versionCacheSize;
+		final private int referenceIndexPollMS;
+		final private int referenceIndexPollOverlapMS;
 
 		private ResourceUsageConfiguration(final int maxObjectSize,
 				final int maxIncomingDataMemoryUsage,
 				final int maxRelabelAndSortMemoryUsage,
 				final int maxReturnedDataMemoryUsage,
-				final long maxReturnedDataSize) {
+				final long maxReturnedDataSize,
+				final int validationParallelism,
+				final int sortParallelism,
+				final int modificationDateWindowMS,
+				final int workspaceCacheSize,
+				final int workspaceCachePollMS,
+				final int permissionCacheSize,
+				final int permissionCacheTTLMS,
+				final int versionCacheSize,
+				final int referenceIndexPollMS,
+				final int referenceIndexPollOverlapMS) {
 			checkGTZero(maxObjectSize, "Maximum object size");
 			checkGTZero(maxIncomingDataMemoryUsage, "Maximum incoming data memory usage ");
 			checkGTZero(maxRelabelAndSortMemoryUsage, "Relabel and sort memory usage");
 			checkGTZero(maxReturnedDataMemoryUsage, "Returned data memory usage");
 			checkGTZero(maxReturnedDataSize, "Returned data size");
+			checkGTZero(validationParallelism, "Validation parallelism");
+			checkGTZero(sortParallelism, "Sort parallelism");
+			if (modificationDateWindowMS < 0) {
+				throw new IllegalArgumentException(
+						"Modification date window must be at least zero");
+			}
+			if (workspaceCacheSize < 0) {
+				throw new IllegalArgumentException("Workspace cache size must be at least zero");
+			}
+			checkGTZero(workspaceCachePollMS, "Workspace cache poll interval");
+			if (permissionCacheSize < 0) {
+				throw new IllegalArgumentException("Permission cache size must be at least zero");
+			}
+			checkGTZero(permissionCacheTTLMS, "Permission cache TTL");
+			if (versionCacheSize < 0) {
+				throw new IllegalArgumentException("Version cache size must be at least zero");
+			}
+			if (referenceIndexPollMS < 0) {
+				throw new IllegalArgumentException(
+						"Reference index poll interval must be at least zero");
+			}
+			if (referenceIndexPollOverlapMS < 0) {
+				throw new IllegalArgumentException(
+						"Reference index poll overlap must be at least zero");
+			}
 			
 			this.maxObjectSize = maxObjectSize;
 			this.maxIncomingDataMemoryUsage = maxIncomingDataMemoryUsage;
@@ -104,6 +245,16 @@ public class ResourceUsageConfigurationBuilder {
 						"Max returned data size must be greater than the max object size");
 			}
 			this.maxReturnedDataSize = maxReturnedDataSize;
+			this.validationParallelism = validationParallelism;
+			this.sortParallelism = sortParallelism;
+			this.modificationDateWindowMS = modificationDateWindowMS;
+			this.workspaceCacheSize = workspaceCacheSize;
+			this.workspaceCachePollMS = workspaceCachePollMS;
+			this.permissionCacheSize = permissionCacheSize;
+			this.permissionCacheTTLMS = permissionCacheTTLMS;
+			this.versionCacheSize = versionCacheSize;
+			this.referenceIndexPollMS = referenceIndexPollMS;
+			this.referenceIndexPollOverlapMS = referenceIndexPollOverlapMS;
 		}
 
 		private void checkGTZero(long maxReturnedDataDiskUsage, String name) {
@@ -164,6 +315,93 @@ public class ResourceUsageConfigurationBuilder {
 		public long getMaxReturnedDataSize() {
 			return maxReturnedDataSize;
 		}
+		
+		/** The maximum number of objects to validate concurrently per call when saving
+		 * objects. If 1, objects are validated serially in the calling thread.
+		 * @return the maximum number of objects to validate concurrently.
+		 */
+		public int getValidationParallelism() {
+			return validationParallelism;
+		}
+		
+		/** The maximum number of objects to sort concurrently per call when saving objects.
+		 * The sorters share the memory allowance from
+		 * {@link #getMaxRelabelAndSortMemoryUsage()}. If 1, objects are sorted serially in the
+		 * calling thread.
+		 * @return the maximum number of objects to sort concurrently.
+		 */
+		public int getSortParallelism() {
+			return sortParallelism;
+		}
+		
+		/** The window in milliseconds within which updates to a workspace's modification date
+		 * are coalesced. The first update in a window is applied immediately, and the last
+		 * update is applied when the window closes. If 0, every update is applied immediately.
+		 * @return the modification date coalescing window.
+		 */
+		public int getModificationDateWindowMS() {
+			return modificationDateWindowMS;
+		}
+		
+		/** The maximum number of workspaces for which resolved workspace IDs are cached. If 0,
+		 * workspaces are resolved against the database every time.
+		 * @return the workspace cache size.
+		 */
+		public int getWorkspaceCacheSize() {
+			return workspaceCacheSize;
+		}
+		
+		/** The interval in milliseconds at which the workspace cache checks for workspaces
+		 * changed by other servers. Cached workspaces may be stale for up to approximately this
+		 * interval.
+		 * @return the workspace cache poll interval.
+		 */
+		public int getWorkspaceCachePollMS() {
+			return workspaceCachePollMS;
+		}
+		
+		/** The maximum number of permission sets to cache, where a permission set lists every
+		 * workspace a user can access at a given permission level. If 0, permission sets are
+		 * retrieved from the database every time.
+		 * @return the permission cache size.
+		 */
+		public int getPermissionCacheSize() {
+			return permissionCacheSize;
+		}
+		
+		/** The time in milliseconds for which a permission set is cached. Changes to
+		 * permissions made by other servers are not seen until a cached set expires.
+		 * @return the permission cache time to live.
+		 */
+		public int getPermissionCacheTTLMS() {
+			return permissionCacheTTLMS;
+		}
+		
+		/** The maximum number of object versions for which the type and outgoing references
+		 * are cached. If 0, they are retrieved from the database every time.
+		 * @return the version cache size.
+		 */
+		public int getVersionCacheSize() {
+			return versionCacheSize;
+		}
+		
+		/** The interval in milliseconds at which the in-memory index of incoming references
+		 * polls for references saved by other servers. If 0, the index is disabled and incoming
+		 * references are always retrieved from the database.
+		 * @return the reference index poll interval.
+		 */
+		public int getReferenceIndexPollMS() {
+			return referenceIndexPollMS;
+		}
+		
+		/** The time in milliseconds before the latest save date seen by the in-memory index of
+		 * incoming references from which each poll re-reads versions, in case of differences
+		 * between servers' clocks or saves that become visible out of order.
+		 * @return the reference index poll overlap.
+		 */
+		public int getReferenceIndexPollOverlapMS() {
+			return referenceIndexPollOverlapMS;
+		}
 
 		@Override
 		public int hashCode() {
@@ -175,6 +413,16 @@ public class ResourceUsageConfigurationBuilder {
 			result = prime * result + maxRelabelAndSortMemoryUsage;
 			result = prime * result + maxReturnedDataMemoryUsage;
 			result = prime * result + (int) (maxReturnedDataSize ^ (maxReturnedDataSize >>> 32));
+			result = prime * result + validationParallelism;
+			result = prime * result + sortParallelism;
+			result = prime * result + modificationDateWindowMS;
+			result = prime * result + workspaceCacheSize;
+			result = prime * result + workspaceCachePollMS;
+			result = prime * result + permissionCacheSize;
+			result = prime * result + permissionCacheTTLMS;
+			result = prime * result + versionCacheSize;
+			result = prime * result + referenceIndexPollMS;
+			result = prime * result + referenceIndexPollOverlapMS;
 			return result;
 		}
 
@@ -208,6 +456,36 @@ public class ResourceUsageConfigurationBuilder {
 			if (maxReturnedDataSize != other.maxReturnedDataSize) {
 				return false;
 			}
+			if (validationParallelism != other.validationParallelism) {
+				return false;
+			}
+			if (sortParallelism != other.sortParallelism) {
+				return false;
+			}
+			if (modificationDateWindowMS != other.modificationDateWindowMS) {
+				return false;
+			}
+			if (workspaceCacheSize != other.workspaceCacheSize) {
+				return false;
+			}
+			if (workspaceCachePollMS != other.workspaceCachePollMS) {
+				return false;
+			}
+			if (permissionCacheSize != other.permissionCacheSize) {
+				return false;
+			}
+			if (permissionCacheTTLMS != other.permissionCacheTTLMS) {
+				return false;
+			}
+			if (versionCacheSize != other.versionCacheSize) {
+				return false;
+			}
+			if (referenceIndexPollMS != other.referenceIndexPollMS) {
+				return false;
+			}
+			if (referenceIndexPollOverlapMS != other.referenceIndexPollOverlapMS) {
+				return false;
+			}
 			return true;
 		}
 
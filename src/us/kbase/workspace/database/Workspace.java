@@ -18,11 +18,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.LoggerFactory;
 
 import us.kbase.auth.AuthToken;
 import us.kbase.common.utils.sortjson.KeyDuplicationException;
@@ -83,10 +93,24 @@ public class Workspace {
 	private final static int MAX_WS_DESCRIPTION = 1000;
 	private final static int MAX_WS_COUNT = 1000;
 	private final static int NAME_LIMIT = 1000;
+	/** The maximum number of metadata key / value pairs that may be used to filter workspaces
+	 * and objects.
+	 */
+	public final static int MAX_META_FILTER = 10;
+	private final static int RECENT_OBJECT_LIMIT = 1000;
+	/* bounds the work done per call for users that can read few of the recently modified
+	 * objects. Index entries are small, so this is cheap compared to the object lookups.
+	 */
+	private final static int RECENT_OBJECT_SCAN_LIMIT = 10000;
 	/* may need to calculate memory for search tree and modify, or add a separate limit. 
 	 * for now this is low enough it's not really a concern.
 	 */
 	private final static int MAX_OBJECT_SEARCH_COUNT_DEFAULT = 10000;
+	/* the sorter uses ~72 bytes per map key and a key requires at least 4 bytes of data, so
+	 * this is an approximate upper bound for sorter memory use per byte of data.
+	 */
+	private final static int SORT_MEMORY_PER_DATA_BYTE = 20;
+	private final static int EXECUTOR_IDLE_TIMEOUT_SEC = 60;
 	
 	private final static IdReferenceType WS_ID_TYPE = new IdReferenceType("ws");
 	
@@ -95,6 +119,11 @@ public class Workspace {
 	private final TypedObjectValidator validator;
 	private final List<WorkspaceEventListener> listeners;
 	private int maximumObjectSearchCount;
+	/* shared between calls so that the total number of threads validating and sorting objects
+	 * is limited by the parallelism settings, rather than by the parallelism settings times the
+	 * number of concurrent saves. Excess work waits in the queue.
+	 */
+	private final ThreadPoolExecutor executor;
 	
 	public Workspace(
 			final WorkspaceDatabase db,
@@ -124,6 +153,11 @@ public class Workspace {
 		this.validator = validator;
 		rescfg = cfg;
 		this.listeners = Collections.unmodifiableList(listeners);
+		final int threads = getExecutorSize(cfg);
+		executor = new ThreadPoolExecutor(threads, threads,
+				EXECUTOR_IDLE_TIMEOUT_SEC, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ws-save-%d").build());
+		executor.allowCoreThreadTimeOut(true);
 		db.setResourceUsageConfiguration(rescfg);
 		this.maximumObjectSearchCount = MAX_OBJECT_SEARCH_COUNT_DEFAULT;
 	}
@@ -149,9 +183,22 @@ public class Workspace {
 			throw new NullPointerException("rescfg cannot be null");
 		}
 		this.rescfg = rescfg;
+		final int threads = getExecutorSize(rescfg);
+		// the core size may not exceed the maximum size
+		if (threads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(threads);
+			executor.setCorePoolSize(threads);
+		} else {
+			executor.setCorePoolSize(threads);
+			executor.setMaximumPoolSize(threads);
+		}
 		db.setResourceUsageConfiguration(rescfg);
 	}
 	
+	private static int getExecutorSize(final ResourceUsageConfiguration cfg) {
+		return Math.max(cfg.getValidationParallelism(), cfg.getSortParallelism());
+	}
+	
 	public TempFilesManager getTempFilesManager() {
 		return db.getTempFilesManager();
 	}
@@ -694,12 +741,37 @@ public class Workspace {
 				idHandlerFac.createHandlers(IDAssociation.class);
 		
 		final Map<WorkspaceSaveObject, ValidatedTypedObject> reports = 
-				validateObjectsAndExtractReferences(objects, idhandler);
+				validateObjectsAndExtractReferences(objects, idHandlerFac, idhandler);
 		
 		processIds(objects, idhandler, reports);
 		
 		//handle references and calculate size with new references
 		final List<ResolvedSaveObject> saveobjs = new ArrayList<ResolvedSaveObject>();
+		try {
+			return saveObjects(user, rwsi, objects, idhandler, reports, saveobjs);
+		} finally {
+			for (final ResolvedSaveObject wo: saveobjs) {
+				try {
+					wo.getRep().destroyCachedResources();
+				} catch (RuntimeException | Error e) {
+					//damn the torpedoes full speed ahead
+				}
+			}
+		}
+	}
+	
+	// the caller is responsible for destroying the cached resources of the saved objects
+	private List<ObjectInformation> saveObjects(
+			final WorkspaceUser user,
+			final ResolvedWorkspaceID rwsi,
+			final List<WorkspaceSaveObject> objects,
+			final IdReferenceHandlerSet<IDAssociation> idhandler,
+			final Map<WorkspaceSaveObject, ValidatedTypedObject> reports,
+			final List<ResolvedSaveObject> saveobjs)
+			throws WorkspaceCommunicationException, NoSuchObjectException,
+			CorruptWorkspaceDBException, NoSuchWorkspaceException,
+			TypedObjectValidationException, IOException {
+		final TempFilesManager tfm = getTempFilesManager();
 		long ttlObjSize = 0;
 		int objcount = 1;
 		for (WorkspaceSaveObject wo: objects) {
@@ -731,7 +803,14 @@ public class Workspace {
 			
 			final ValidatedTypedObject rep = reports.get(wo);
 			saveobjs.add(wo.resolve(rep, refs, provrefs, extractedIDs));
-			ttlObjSize += rep.calculateRelabeledSize();
+			/* relabels, sizes, checks order and extracts metadata in one pass. The relabeled
+			 * data is kept in memory up to the memory limit for the call and written to disk
+			 * thereafter.
+			 */
+			ttlObjSize += rep.relabelAndCache(
+					tfm,
+					Math.max(0, rescfg.getMaxIncomingDataMemoryUsage() - ttlObjSize),
+					rescfg.getMaxObjectSize());
 			if (rep.getRelabeledSize() > rescfg.getMaxObjectSize()) {
 				throw new IllegalArgumentException(String.format(
 						"Object %s data size %s exceeds limit of %s",
@@ -741,102 +820,295 @@ public class Workspace {
 			}
 			objcount++;
 		}
-		objects = null;
 		reports.clear();
 		
-		final WorkspaceInformation wsinfo = db.getWorkspaceInformation(user, rwsi);
-		
-		try {
-			sortObjects(saveobjs, ttlObjSize);
-			final List<ObjectInformation> ret = db.saveObjects(user, rwsi, saveobjs);
+		sortObjects(saveobjs, ttlObjSize);
+		final List<ObjectInformation> ret = db.saveObjects(user, rwsi, saveobjs);
+		if (!listeners.isEmpty()) {
+			// usually served from the permission cache, if any, since the save checked them
+			final boolean isPublic = db.getPermissions(user, rwsi).isWorldReadable(rwsi);
 			for (final WorkspaceEventListener l: listeners) {
-				for (final ObjectInformation oi: ret) {
-					l.saveObject(oi, wsinfo.isGloballyReadable());
-				}
-			}
-			return ret;
-		} finally {
-			for (final ResolvedSaveObject wo: saveobjs) {
-				try {
-					wo.getRep().destroyCachedResources();
-				} catch (RuntimeException | Error e) {
-					//damn the torpedoes full speed ahead
-				}
+				l.saveObjects(ret, isPublic);
 			}
 		}
+		return ret;
 	}
 
 	private void sortObjects(
 			final List<ResolvedSaveObject> saveobjs,
 			final long ttlObjSize)
 			throws IOException, TypedObjectValidationException {
-		int objcount = 1;
 		final TempFilesManager tempTFM;
 		if (ttlObjSize > rescfg.getMaxIncomingDataMemoryUsage()) {
 			tempTFM = getTempFilesManager();
 		} else {
 			tempTFM = null;
 		}
+		final int parallelism = Math.min(rescfg.getSortParallelism(), saveobjs.size());
+		if (parallelism > 1) {
+			sortObjectsConcurrently(saveobjs, tempTFM, parallelism);
+			return;
+		}
+		int objcount = 1;
 		final UTF8JsonSorterFactory fac = new UTF8JsonSorterFactory(
 				rescfg.getMaxRelabelAndSortMemoryUsage());
 		for (final ResolvedSaveObject ro: saveobjs) {
 			try {
 				//modifies object in place
 				ro.getRep().sort(fac, tempTFM);
-			} catch (KeyDuplicationException kde) {
-				/* this occurs when two references in the same hash resolve
-				 * to the same reference, so one value would be lost
-				 */
-				throw new TypedObjectValidationException(String.format(
-						"Object %s: Two references in a single hash are identical when resolved, resulting in a loss of data: ",
-						getObjectErrorId(ro.getObjectIdentifier(), objcount))
-						+ kde.getLocalizedMessage(), kde);
-			} catch (TooManyKeysException tmke) {
-				throw new TypedObjectValidationException(String.format(
-						"Object %s: ",
-						getObjectErrorId(ro.getObjectIdentifier(), objcount))
-						+ tmke.getLocalizedMessage(), tmke);
+			} catch (KeyDuplicationException | TooManyKeysException e) {
+				throw wrapSortException(ro, objcount, e);
 			}
+			logSort(ro, objcount);
 			objcount++;
 		}
 	}
+	
+	/* The sort memory limit is shared between the workers. Each object reserves an estimate of
+	 * the memory it needs from the limit and is sorted with that much memory. If the estimate
+	 * is too low, the sort is retried with the full limit, so an object fails to sort only if it
+	 * would fail when sorted serially. Error ordering is maintained as for validation.
+	 */
+	private void sortObjectsConcurrently(
+			final List<ResolvedSaveObject> saveobjs,
+			final TempFilesManager tempTFM,
+			final int parallelism)
+			throws IOException, TypedObjectValidationException {
+		final int maxMem = rescfg.getMaxRelabelAndSortMemoryUsage();
+		final Semaphore memory = new Semaphore(maxMem, true);
+		final int count = saveobjs.size();
+		final Exception[] errors = new Exception[count];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger firstError = new AtomicInteger(count);
+		final List<Callable<Void>> workers = new LinkedList<>();
+		for (int w = 0; w < parallelism; w++) {
+			workers.add(() -> {
+				for (int i = next.getAndIncrement(); i < firstError.get();
+						i = next.getAndIncrement()) {
+					final ResolvedSaveObject ro = saveobjs.get(i);
+					try {
+						sortWithSharedMemory(ro.getRep(), tempTFM, memory, maxMem);
+						logSort(ro, i + 1);
+					} catch (KeyDuplicationException | TooManyKeysException e) {
+						errors[i] = wrapSortException(ro, i + 1, e);
+						firstError.accumulateAndGet(i, Math::min);
+					} catch (IOException | RuntimeException e) {
+						errors[i] = e;
+						firstError.accumulateAndGet(i, Math::min);
+					}
+				}
+				return null;
+			});
+		}
+		runConcurrently(workers, "sorting objects");
+		for (final Exception err: errors) {
+			if (err instanceof IOException) {
+				throw (IOException) err;
+			} else if (err instanceof TypedObjectValidationException) {
+				throw (TypedObjectValidationException) err;
+			} else if (err != null) {
+				throw (RuntimeException) err;
+			}
+		}
+	}
+	
+	private void sortWithSharedMemory(
+			final ValidatedTypedObject rep,
+			final TempFilesManager tfm,
+			final Semaphore memory,
+			final int maxMem)
+			throws IOException, KeyDuplicationException, TooManyKeysException,
+				InterruptedException {
+		if (rep.isNaturallySorted()) { // no sorter memory required
+			rep.sort(new UTF8JsonSorterFactory(maxMem), tfm);
+			return;
+		}
+		final int estimate = (int) Math.min(maxMem,
+				Math.max(1, rep.getRelabeledSize() * SORT_MEMORY_PER_DATA_BYTE));
+		if (estimate < maxMem) {
+			memory.acquire(estimate);
+			try {
+				rep.sort(new UTF8JsonSorterFactory(estimate), tfm);
+				return;
+			} catch (TooManyKeysException e) {
+				// underestimated, retry below with the full limit
+			} finally {
+				memory.release(estimate);
+			}
+		}
+		memory.acquire(maxMem);
+		try {
+			rep.sort(new UTF8JsonSorterFactory(maxMem), tfm);
+		} finally {
+			memory.release(maxMem);
+		}
+	}
+	
+	private TypedObjectValidationException wrapSortException(
+			final ResolvedSaveObject ro,
+			final int objcount,
+			final Exception e) {
+		if (e instanceof KeyDuplicationException) {
+			/* this occurs when two references in the same hash resolve
+			 * to the same reference, so one value would be lost
+			 */
+			return new TypedObjectValidationException(String.format(
+					"Object %s: Two references in a single hash are identical when resolved, resulting in a loss of data: ",
+					getObjectErrorId(ro.getObjectIdentifier(), objcount))
+					+ e.getLocalizedMessage(), e);
+		}
+		return new TypedObjectValidationException(String.format(
+				"Object %s: ",
+				getObjectErrorId(ro.getObjectIdentifier(), objcount))
+				+ e.getLocalizedMessage(), e);
+	}
+	
+	private void logSort(final ResolvedSaveObject ro, final int objcount) {
+		LoggerFactory.getLogger(getClass()).debug(
+				"Object {} of type {} with size {} required {} passes over the data",
+				getObjectErrorId(ro.getObjectIdentifier(), objcount),
+				ro.getRep().getValidationTypeDefId().getTypeString(),
+				ro.getRep().getRelabeledSize(),
+				ro.getRep().getPassCount());
+	}
+	
+	// runs the workers on the executor and waits for them to complete. The workers are
+	// expected to catch and record any exceptions.
+	private void runConcurrently(final List<Callable<Void>> workers, final String operation) {
+		try {
+			for (final Future<Void> f: executor.invokeAll(workers)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while " + operation, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(String.format("Unexpected error while %s: %s",
+					operation, e.getCause().getMessage()), e.getCause());
+		}
+	}
 
 	private Map<WorkspaceSaveObject, ValidatedTypedObject>
 			validateObjectsAndExtractReferences(
 			final List<WorkspaceSaveObject> objects,
+			final IdReferenceHandlerSetFactory idHandlerFac,
 			final IdReferenceHandlerSet<IDAssociation> idhandler)
 			throws TypeStorageException, TypedObjectSchemaException,
 			TypedObjectValidationException {
+		final int parallelism = Math.min(rescfg.getValidationParallelism(), objects.size());
+		if (parallelism > 1) {
+			return validateObjectsConcurrently(objects, idHandlerFac, idhandler, parallelism);
+		}
 		final Map<WorkspaceSaveObject, ValidatedTypedObject> reports = 
 				new HashMap<WorkspaceSaveObject, ValidatedTypedObject>();
 		int objcount = 1;
 		for (final WorkspaceSaveObject wo: objects) {
-			idhandler.associateObject(new IDAssociation(objcount, false));
-			final ValidatedTypedObject rep = validate(wo, idhandler, objcount);
-			reports.put(wo, rep);
-			idhandler.associateObject(new IDAssociation(objcount, true));
-			try {
-				for (final Provenance.ProvenanceAction action: wo.getProvenance().getActions()) {
-					for (final String pref: action.getWorkspaceObjects()) {
-						if (pref == null) {
-							throw new TypedObjectValidationException(String.format(
-									"Object %s has a null provenance reference",
-									getObjectErrorId(wo, objcount)));
-						}
-						idhandler.addStringId(new IdReference<String>(WS_ID_TYPE, pref, null));
+			reports.put(wo, validateAndExtractReferences(wo, objcount, idhandler));
+			objcount++;
+		}
+		return reports;
+	}
+	
+	/* Each object is validated against its own ID collector, and the collectors are merged into
+	 * the main ID handler in object order afterwards. Objects are claimed by the workers in order
+	 * and no objects past a failed object are claimed, so the error reported is always the error
+	 * for the first failed object, as for serial validation.
+	 */
+	private Map<WorkspaceSaveObject, ValidatedTypedObject> validateObjectsConcurrently(
+			final List<WorkspaceSaveObject> objects,
+			final IdReferenceHandlerSetFactory idHandlerFac,
+			final IdReferenceHandlerSet<IDAssociation> idhandler,
+			final int parallelism)
+			throws TypeStorageException, TypedObjectSchemaException,
+			TypedObjectValidationException {
+		final int count = objects.size();
+		final List<IdReferenceHandlerSet<IDAssociation>> collectors = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			collectors.add(idHandlerFac.createCollector(IDAssociation.class));
+		}
+		final ValidatedTypedObject[] reps = new ValidatedTypedObject[count];
+		final Exception[] errors = new Exception[count];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger firstError = new AtomicInteger(count);
+		final List<Callable<Void>> workers = new LinkedList<>();
+		for (int w = 0; w < parallelism; w++) {
+			workers.add(() -> {
+				for (int i = next.getAndIncrement(); i < firstError.get();
+						i = next.getAndIncrement()) {
+					try {
+						reps[i] = validateAndExtractReferences(
+								objects.get(i), i + 1, collectors.get(i));
+					} catch (TypeStorageException | TypedObjectSchemaException |
+							TypedObjectValidationException | RuntimeException e) {
+						errors[i] = e;
+						firstError.accumulateAndGet(i, Math::min);
 					}
 				}
+				return null;
+			});
+		}
+		runConcurrently(workers, "validating objects");
+		final Map<WorkspaceSaveObject, ValidatedTypedObject> reports = 
+				new HashMap<WorkspaceSaveObject, ValidatedTypedObject>();
+		for (int i = 0; i < count; i++) {
+			final WorkspaceSaveObject wo = objects.get(i);
+			final Exception err = errors[i];
+			if (err instanceof TypeStorageException) {
+				throw (TypeStorageException) err;
+			} else if (err instanceof TypedObjectSchemaException) {
+				throw (TypedObjectSchemaException) err;
+			} else if (err instanceof TypedObjectValidationException) {
+				throw (TypedObjectValidationException) err;
+			} else if (err != null) {
+				throw (RuntimeException) err;
+			}
+			reports.put(wo, reps[i]);
+			try {
+				idhandler.merge(collectors.get(i));
+			} catch (TooManyIdsException tmie) {
+				throw wrapTooManyIDsException(i + 1, idhandler, tmie);
 			} catch (IdReferenceHandlerException ihre) {
+				// the IDs were already accepted by the collector's handlers
 				throw new TypedObjectValidationException(String.format(
-						"Object %s has invalid provenance reference: ",
-						getObjectErrorId(wo, objcount)) + ihre.getMessage(), ihre);
-			} catch (TooManyIdsException tmie) {
-				throw wrapTooManyIDsException(objcount, idhandler, tmie);
+						"Object %s has an invalid reference: ",
+						getObjectErrorId(wo, i + 1)) + ihre.getMessage(), ihre);
 			}
-			objcount++;
 		}
 		return reports;
 	}
+	
+	private ValidatedTypedObject validateAndExtractReferences(
+			final WorkspaceSaveObject wo,
+			final int objcount,
+			final IdReferenceHandlerSet<IDAssociation> idhandler)
+			throws TypeStorageException, TypedObjectSchemaException,
+			TypedObjectValidationException {
+		idhandler.associateObject(new IDAssociation(objcount, false));
+		final ValidatedTypedObject rep = validate(wo, idhandler, objcount);
+		idhandler.associateObject(new IDAssociation(objcount, true));
+		try {
+			for (final Provenance.ProvenanceAction action: wo.getProvenance().getActions()) {
+				for (final String pref: action.getWorkspaceObjects()) {
+					if (pref == null) {
+						throw new TypedObjectValidationException(String.format(
+								"Object %s has a null provenance reference",
+								getObjectErrorId(wo, objcount)));
+					}
+					idhandler.addStringId(new IdReference<String>(WS_ID_TYPE, pref, null));
+				}
+			}
+		} catch (IdReferenceHandlerException ihre) {
+			throw new TypedObjectValidationException(String.format(
+					"Object %s has invalid provenance reference: ",
+					getObjectErrorId(wo, objcount)) + ihre.getMessage(), ihre);
+		} catch (TooManyIdsException tmie) {
+			throw wrapTooManyIDsException(objcount, idhandler, tmie);
+		}
+		return rep;
+	}
 
 	private void processIds(
 			final List<WorkspaceSaveObject> objects,
@@ -967,8 +1239,9 @@ public class Workspace {
 		if (minPerm == null || Permission.READ.compareTo(minPerm) > 0) {
 			minPerm = Permission.READ;
 		}
-		if (meta != null && meta.size() > 1) {
-			throw new IllegalArgumentException("Only one metadata spec allowed");
+		if (meta != null && meta.size() > MAX_META_FILTER) {
+			throw new IllegalArgumentException(String.format(
+					"At most %s metadata specs allowed", MAX_META_FILTER));
 		}
 		final PermissionSet perms = db.getPermissions(user, minPerm, excludeGlobal);
 		return db.getWorkspaceInformation(perms, users, meta, after, before,
@@ -1030,6 +1303,40 @@ public class Workspace {
 		return db.getObjectInformation(params.generateParameters(pset));
 	}
 	
+	/** List the most recently modified objects in the workspaces a user can read, sorted by
+	 * descending modification date, workspace ID, and object ID. Deleted and hidden objects
+	 * are not included.
+	 * 
+	 * At most 10000 objects are examined per call, so a page may contain fewer objects than
+	 * the limit even when more objects are available. Continue from the next position of the
+	 * returned page until it is absent to see all the objects.
+	 * @param user the user listing the objects, or null for an anonymous user.
+	 * @param excludeGlobal exclude objects in world readable workspaces.
+	 * @param includeMetadata include the user metadata in the object information.
+	 * @param limit the maximum number of objects to return. Values < 1 are treated as 1000,
+	 * which is also the maximum.
+	 * @param startAfter return objects after this position, or null to start from the most
+	 * recently modified object.
+	 * @return the objects and the position of the next page.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 * @throws CorruptWorkspaceDBException if corrupt data is found in the database.
+	 */
+	public RecentObjects listRecentObjects(
+			final WorkspaceUser user,
+			final boolean excludeGlobal,
+			final boolean includeMetadata,
+			final int limit,
+			final RecentObjectPosition startAfter)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		if (limit > RECENT_OBJECT_LIMIT) {
+			throw new IllegalArgumentException(
+					"limit cannot be greater than " + RECENT_OBJECT_LIMIT);
+		}
+		final PermissionSet pset = db.getPermissions(user, Permission.READ, excludeGlobal);
+		return db.getRecentObjects(pset, includeMetadata, limit < 1 ? RECENT_OBJECT_LIMIT : limit,
+				RECENT_OBJECT_SCAN_LIMIT, startAfter);
+	}
+	
 	public List<WorkspaceObjectData> getObjects(
 			final WorkspaceUser user,
 			final List<ObjectIdentifier> loi)
@@ -1416,8 +1723,9 @@ public class Workspace {
 	}
 
 	/** Get object names based on a provided prefix. Returns at most 1000
-	 * names in no particular order. Intended for use as an auto-completion
-	 * method.
+	 * names, sorted within each workspace. If there are more names than the limit, the first
+	 * names in order of workspace ID and then name are returned. Intended for use as an
+	 * auto-completion method.
 	 * @param user the user requesting names.
 	 * @param wsis the workspaces in which to look for names.
 	 * @param prefix the prefix returned names must have.
@@ -483,8 +483,9 @@ public interface WorkspaceDatabase {
 			throws NoSuchObjectException, WorkspaceCommunicationException;
 	
 	/** Get object names based on a provided name prefix. Returns at most 1000
-	 * names in no particular order. Intended for use as an auto-completion
-	 * method.
+	 * names, sorted within each workspace. If there are more names than the limit, the first
+	 * names in order of workspace ID and then name are returned. Intended for use as an
+	 * auto-completion method.
 	 * @param rwsis the workspaces in which to look for names.
 	 * @param prefix the prefix returned names must have.
 	 * @param includeHidden include hidden objects in the output.
@@ -552,6 +553,29 @@ public interface WorkspaceDatabase {
 			GetObjectInformationParameters perms)
 			throws WorkspaceCommunicationException;
 
+	/** Get the most recently modified objects in a set of workspaces, sorted by descending
+	 * modification date, workspace ID, and object ID. Deleted and hidden objects are not
+	 * included. Objects are scanned in modification order regardless of workspace and
+	 * filtered by the permission set, so the number of objects scanned is limited to bound the
+	 * cost of a call when few of the scanned objects are accessible.
+	 * @param pset the permission set. Objects in workspaces that are readable and not deleted
+	 * are included.
+	 * @param includeMetadata include the user metadata in the object information.
+	 * @param limit the maximum number of objects to return.
+	 * @param scanLimit the maximum number of objects to scan.
+	 * @param startAfter return objects after this position, or null to start at the most
+	 * recently modified object.
+	 * @return the objects and the position at which to continue.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public RecentObjects getRecentObjects(
+			PermissionSet pset,
+			boolean includeMetadata,
+			int limit,
+			int scanLimit,
+			RecentObjectPosition startAfter)
+			throws WorkspaceCommunicationException;
+
 	/** Verify that a set of objects exist in the database and are not in
 	 * the deleted state.
 	 * @param objectIDs the objects to check.
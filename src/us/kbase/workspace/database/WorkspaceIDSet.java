@@ -0,0 +1,198 @@
+package us.kbase.workspace.database;
+
+import java.util.Arrays;
+
+/** An immutable, compact set of workspace IDs.
+ *
+ * The set is stored in the same way as a Roaring bitmap - IDs are partitioned by their upper
+ * 48 bits, and the lower 16 bits of the IDs in each partition are stored either as a sorted
+ * array, for sparse partitions, or as a bitmap, for dense partitions. Since workspace IDs are
+ * allocated sequentially, large sets are usually a few dense partitions, and membership checks
+ * are a binary search over the partitions followed by a bit test with no boxing.
+ */
+public class WorkspaceIDSet {
+
+	// a partition with more IDs than this is stored as a bitmap, which is always 8KB
+	private static final int MAX_ARRAY_SIZE = 4096;
+	private static final int BITMAP_WORDS = 1 << 10;
+
+	/** An empty set. */
+	public static final WorkspaceIDSet EMPTY = new WorkspaceIDSet(new long[0]);
+
+	private final long[] keys; // the upper 48 bits of the IDs in each partition, sorted
+	private final Object[] partitions; // either a sorted char[] or a long[] bitmap
+	private final int size;
+
+	// ids must be sorted and unique
+	private WorkspaceIDSet(final long[] ids) {
+		size = ids.length;
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i == 0 || ids[i] >>> 16 != ids[i - 1] >>> 16) {
+				count++;
+			}
+		}
+		keys = new long[count];
+		partitions = new Object[count];
+		int start = 0;
+		for (int p = 0; p < count; p++) {
+			final long key = ids[start] >>> 16;
+			int end = start;
+			while (end < ids.length && ids[end] >>> 16 == key) {
+				end++;
+			}
+			keys[p] = key;
+			partitions[p] = end - start > MAX_ARRAY_SIZE ?
+					toBitmap(ids, start, end) : toArray(ids, start, end);
+			start = end;
+		}
+	}
+
+	private static char[] toArray(final long[] ids, final int start, final int end) {
+		final char[] array = new char[end - start];
+		for (int i = start; i < end; i++) {
+			array[i - start] = (char) ids[i];
+		}
+		return array;
+	}
+
+	private static long[] toBitmap(final long[] ids, final int start, final int end) {
+		final long[] bitmap = new long[BITMAP_WORDS];
+		for (int i = start; i < end; i++) {
+			final char low = (char) ids[i];
+			bitmap[low >>> 6] |= 1L << low;
+		}
+		return bitmap;
+	}
+
+	/** Check whether the set contains a workspace ID.
+	 * @param id the ID to check.
+	 * @return true if the set contains the ID.
+	 */
+	public boolean contains(final long id) {
+		final int p = Arrays.binarySearch(keys, id >>> 16);
+		if (p < 0) {
+			return false;
+		}
+		final char low = (char) id;
+		final Object partition = partitions[p];
+		if (partition instanceof long[]) {
+			return (((long[]) partition)[low >>> 6] & (1L << low)) != 0;
+		}
+		return Arrays.binarySearch((char[]) partition, low) >= 0;
+	}
+
+	/** Get the number of IDs in the set.
+	 * @return the size of the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if the set contains no IDs.
+	 * @return true if the set is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Get the IDs in the set in ascending order. The array is a copy and may be modified.
+	 * @return the IDs.
+	 */
+	public long[] toArray() {
+		final long[] ids = new long[size];
+		int i = 0;
+		for (int p = 0; p < keys.length; p++) {
+			final long high = keys[p] << 16;
+			if (partitions[p] instanceof long[]) {
+				final long[] bitmap = (long[]) partitions[p];
+				for (int w = 0; w < bitmap.length; w++) {
+					long word = bitmap[w];
+					while (word != 0) {
+						ids[i++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+						word &= word - 1;
+					}
+				}
+			} else {
+				for (final char low: (char[]) partitions[p]) {
+					ids[i++] = high | low;
+				}
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkspaceIDSet [ids=" + Arrays.toString(toArray()) + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toArray());
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final WorkspaceIDSet other = (WorkspaceIDSet) obj;
+		return size == other.size && Arrays.equals(toArray(), other.toArray());
+	}
+
+	/** Create a new workspace ID set builder.
+	 * @return a new builder.
+	 */
+	public static Builder getBuilder() {
+		return new Builder();
+	}
+
+	/** A workspace ID set builder. */
+	public static class Builder {
+
+		private long[] ids = new long[16];
+		private int count = 0;
+
+		private Builder() {}
+
+		/** Add a workspace ID to the set. Adding an ID more than once has no effect.
+		 * @param id the workspace ID.
+		 * @return this builder.
+		 */
+		public Builder withID(final long id) {
+			if (id < 1) {
+				throw new IllegalArgumentException("Workspace IDs must be > 0");
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			ids[count++] = id;
+			return this;
+		}
+
+		/** Build the set.
+		 * @return the new set.
+		 */
+		public WorkspaceIDSet build() {
+			if (count == 0) {
+				return EMPTY;
+			}
+			final long[] sorted = Arrays.copyOf(ids, count);
+			Arrays.sort(sorted);
+			int unique = 1;
+			for (int i = 1; i < sorted.length; i++) {
+				if (sorted[i] != sorted[unique - 1]) {
+					sorted[unique++] = sorted[i];
+				}
+			}
+			return new WorkspaceIDSet(Arrays.copyOf(sorted, unique));
+		}
+	}
+}
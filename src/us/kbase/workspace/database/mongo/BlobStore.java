@@ -1,6 +1,8 @@
 package us.kbase.workspace.database.mongo;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import us.kbase.typedobj.core.MD5;
 import us.kbase.typedobj.core.Restreamable;
@@ -30,6 +32,20 @@ public interface BlobStore {
 			throws BlobStoreAuthorizationException,
 			BlobStoreCommunicationException;
 	
+	/** Save multiple blobs to the Blob Store. Implementations should check which blobs
+	 * already exist and save the remaining blobs in as few round trips to the backend as
+	 * possible. Note that the blob store is not guaranteed to call close() on the input streams.
+	 * @param data the blobs, mapped by their md5s.
+	 * @param sorted true if the data is sorted, false otherwise.
+	 * @throws BlobStoreAuthorizationException if the blobstore is not
+	 * authorized to write to the blob store backend. 
+	 * @throws BlobStoreCommunicationException if a communication error with
+	 * the blob store backend occurs.
+	 */
+	public void saveBlobs(Map<MD5, Restreamable> data, boolean sorted)
+			throws BlobStoreAuthorizationException,
+			BlobStoreCommunicationException;
+	
 	/** Get a blob.
 	 * @param md5 the md5 of the blob.
 	 * @param bafcMan a data manager to manage the blob data.
@@ -50,6 +66,29 @@ public interface BlobStore {
 			BlobStoreCommunicationException, NoSuchBlobException,
 			FileCacheLimitExceededException, FileCacheIOException;
 	
+	/** Get multiple blobs. Implementations should retrieve the blobs in as few round trips to
+	 * the backend as possible. If an exception is thrown, any blob data already retrieved is
+	 * destroyed.
+	 * @param md5s the md5s of the blobs.
+	 * @param bafcMan a data manager to manage the blob data.
+	 * @return the blob data, mapped by md5.
+	 * @throws BlobStoreAuthorizationException if the blobstore is not
+	 * authorized to write to the blob store backend. 
+	 * @throws BlobStoreCommunicationException if a communication error with
+	 * the blob store backend occurs. 
+	 * @throws NoSuchBlobException if there is no blob matching one of the md5s. The exception
+	 * will contain the missing md5.
+	 * @throws FileCacheLimitExceededException if the data manager's data limit
+	 * is exceeded.
+	 * @throws FileCacheIOException if the data manager throws an IO exception.
+	 */
+	public Map<MD5, ByteArrayFileCache> getBlobs(
+			Set<MD5> md5s,
+			ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException,
+			BlobStoreCommunicationException, NoSuchBlobException,
+			FileCacheLimitExceededException, FileCacheIOException;
+	
 	/**
 	 * Do not call removeBlob when saveBlob could be run by other threads or
 	 * applications. Doing so could result in an inconsistent state in the
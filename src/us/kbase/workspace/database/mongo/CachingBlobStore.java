@@ -0,0 +1,560 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+import static us.kbase.workspace.database.Util.noNulls;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.Restreamable;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.DependencyStatus;
+import us.kbase.workspace.database.exceptions.FileCacheIOException;
+import us.kbase.workspace.database.exceptions.FileCacheLimitExceededException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
+import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+
+/** A blob store that caches blob data in front of another blob store. Since blobs are
+ * addressed by the MD5 of their content and never change, cached data never needs to be
+ * invalidated other than when a blob is removed.
+ *
+ * The cache is shared between all requests to the server and has two tiers - a memory tier and
+ * an optional disk tier. Blobs that are evicted from the memory tier are moved to the disk tier
+ * if it is enabled. Blobs are only admitted to the cache once they have been requested a
+ * minimum number of times, so that a one-off request for a large object does not flush
+ * frequently requested objects from the cache.
+ *
+ * Cached data returned from {@link #getBlob(MD5, ByteArrayFileCacheManager)} is still copied
+ * into the provided data manager, and so counts against the per request data limits.
+ */
+public class CachingBlobStore implements BlobStore {
+
+	// a single blob may take up at most 1 / this fraction of a cache tier. Guava splits the
+	// maximum weight between cache segments, so without a limit a large blob would be evicted
+	// immediately after insertion, possibly along with most of the segment.
+	private static final int MAX_BLOB_FRACTION = 16;
+
+	private static final int DEFAULT_REQUEST_COUNT_CACHE_SIZE = 100000;
+
+	private final BlobStore blobs;
+	private final long maxMemorySize;
+	private final long maxDiskSize;
+	private final File diskDir;
+	private final int minRequests;
+	private final Cache<MD5, CachedBlob> memory;
+	private final Cache<MD5, CachedBlob> disk;
+	private final Cache<MD5, AtomicInteger> requestCounts;
+
+	private final AtomicLong memoryHits = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private static class CachedBlob {
+
+		private final byte[] data;
+		private final File file;
+		private final long size;
+		private final boolean sorted;
+
+		private CachedBlob(final byte[] data, final boolean sorted) {
+			this.data = data;
+			this.file = null;
+			this.size = data.length;
+			this.sorted = sorted;
+		}
+
+		private CachedBlob(final File file, final long size, final boolean sorted) {
+			this.data = null;
+			this.file = file;
+			this.size = size;
+			this.sorted = sorted;
+		}
+
+		private InputStream open() throws FileNotFoundException {
+			if (data != null) {
+				return new ByteArrayInputStream(data);
+			}
+			return new FileInputStream(file);
+		}
+	}
+
+	private static final Weigher<MD5, CachedBlob> WEIGHER = new Weigher<MD5, CachedBlob>() {
+
+		@Override
+		public int weigh(final MD5 key, final CachedBlob value) {
+			// max blob size is well under 2GB
+			return (int) Math.min(value.size, Integer.MAX_VALUE);
+		}
+	};
+
+	private CachingBlobStore(
+			final BlobStore blobs,
+			final long maxMemorySize,
+			final File diskDir,
+			final long maxDiskSize,
+			final int minRequests) {
+		this.blobs = blobs;
+		this.maxMemorySize = maxMemorySize;
+		this.diskDir = diskDir;
+		this.maxDiskSize = diskDir == null ? 0 : maxDiskSize;
+		this.minRequests = minRequests;
+		requestCounts = CacheBuilder.newBuilder()
+				.maximumSize(DEFAULT_REQUEST_COUNT_CACHE_SIZE).build();
+		disk = CacheBuilder.newBuilder()
+				.maximumWeight(Math.max(this.maxDiskSize, 1))
+				.weigher(WEIGHER)
+				.removalListener(new RemovalListener<MD5, CachedBlob>() {
+
+					@Override
+					public void onRemoval(final RemovalNotification<MD5, CachedBlob> n) {
+						if (n.wasEvicted()) {
+							evictions.incrementAndGet();
+						}
+						// on *nix readers with an open stream can still read the file
+						n.getValue().file.delete();
+					}
+				})
+				.build();
+		memory = CacheBuilder.newBuilder()
+				.maximumWeight(Math.max(maxMemorySize, 1))
+				.weigher(WEIGHER)
+				.removalListener(new RemovalListener<MD5, CachedBlob>() {
+
+					@Override
+					public void onRemoval(final RemovalNotification<MD5, CachedBlob> n) {
+						if (n.wasEvicted()) {
+							if (!demoteToDisk(n.getKey(), n.getValue())) {
+								evictions.incrementAndGet();
+							}
+						}
+					}
+				})
+				.build();
+	}
+
+	/** Get the blob store that this cache wraps.
+	 * @return the wrapped blob store.
+	 */
+	public BlobStore getWrappedBlobStore() {
+		return blobs;
+	}
+
+	/** Get the maximum size of the memory tier of the cache in bytes.
+	 * @return the maximum size of the memory tier.
+	 */
+	public long getMaxMemorySize() {
+		return maxMemorySize;
+	}
+
+	/** Get the maximum size of the disk tier of the cache in bytes. 0 if the disk tier is
+	 * disabled.
+	 * @return the maximum size of the disk tier.
+	 */
+	public long getMaxDiskSize() {
+		return maxDiskSize;
+	}
+
+	/** Get the number of times a blob must be requested before it is admitted to the cache.
+	 * @return the minimum number of requests.
+	 */
+	public int getMinimumRequests() {
+		return minRequests;
+	}
+
+	/** Get the current cache statistics.
+	 * @return the statistics.
+	 */
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(memoryHits.get(), diskHits.get(), misses.get(),
+				evictions.get(), memory.size(), disk.size());
+	}
+
+	@Override
+	public void saveBlob(final MD5 md5, final Restreamable data, final boolean sorted)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
+		blobs.saveBlob(md5, data, sorted);
+	}
+
+	@Override
+	public void saveBlobs(final Map<MD5, Restreamable> data, final boolean sorted)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
+		blobs.saveBlobs(data, sorted);
+	}
+
+	@Override
+	public ByteArrayFileCache getBlob(final MD5 md5, final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException,
+				NoSuchBlobException, FileCacheLimitExceededException, FileCacheIOException {
+		requireNonNull(md5, "md5");
+		requireNonNull(bafcMan, "bafcMan");
+		final ByteArrayFileCache cached = getCached(md5, bafcMan);
+		if (cached != null) {
+			return cached;
+		}
+		misses.incrementAndGet();
+		final ByteArrayFileCache data = blobs.getBlob(md5, bafcMan);
+		if (admit(md5)) {
+			cache(md5, data);
+		}
+		return data;
+	}
+
+	@Override
+	public Map<MD5, ByteArrayFileCache> getBlobs(
+			final Set<MD5> md5s,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException,
+				NoSuchBlobException, FileCacheLimitExceededException, FileCacheIOException {
+		noNulls(requireNonNull(md5s, "md5s"), "null item in md5s");
+		requireNonNull(bafcMan, "bafcMan");
+		final Map<MD5, ByteArrayFileCache> ret = new HashMap<>();
+		boolean success = false;
+		try {
+			final Set<MD5> missing = new HashSet<>();
+			for (final MD5 m: md5s) {
+				final ByteArrayFileCache cached = getCached(m, bafcMan);
+				if (cached == null) {
+					missing.add(m);
+				} else {
+					ret.put(m, cached);
+				}
+			}
+			if (!missing.isEmpty()) {
+				misses.addAndGet(missing.size());
+				final Map<MD5, ByteArrayFileCache> data = blobs.getBlobs(missing, bafcMan);
+				ret.putAll(data);
+				for (final Entry<MD5, ByteArrayFileCache> e: data.entrySet()) {
+					if (admit(e.getKey())) {
+						cache(e.getKey(), e.getValue());
+					}
+				}
+			}
+			success = true;
+		} finally {
+			if (!success) {
+				for (final ByteArrayFileCache bafc: ret.values()) {
+					bafc.destroy();
+				}
+			}
+		}
+		return ret;
+	}
+
+	private ByteArrayFileCache getCached(final MD5 md5, final ByteArrayFileCacheManager bafcMan)
+			throws FileCacheLimitExceededException, FileCacheIOException {
+		CachedBlob cb = memory.getIfPresent(md5);
+		final AtomicLong hits;
+		if (cb != null) {
+			hits = memoryHits;
+		} else {
+			cb = disk.getIfPresent(md5);
+			hits = diskHits;
+		}
+		if (cb == null) {
+			return null;
+		}
+		final InputStream is;
+		try {
+			is = cb.open();
+		} catch (FileNotFoundException e) {
+			// evicted between the get and the open
+			return null;
+		}
+		try {
+			final ByteArrayFileCache ret = bafcMan.createBAFC(is, true, cb.sorted);
+			hits.incrementAndGet();
+			return ret;
+		} finally {
+			IOUtils.closeQuietly(is);
+		}
+	}
+
+	private boolean admit(final MD5 md5) {
+		try {
+			return requestCounts.get(md5, () -> new AtomicInteger())
+					.incrementAndGet() >= minRequests;
+		} catch (ExecutionException e) {
+			throw new RuntimeException("This should be impossible", e);
+		}
+	}
+
+	private void cache(final MD5 md5, final ByteArrayFileCache data) {
+		final long size = data.getSize();
+		try {
+			if (size <= maxMemorySize / MAX_BLOB_FRACTION) {
+				try (final InputStream is = data.getInputStream()) {
+					memory.put(md5, new CachedBlob(IOUtils.toByteArray(is), data.isSorted()));
+				}
+			} else if (size <= maxDiskSize / MAX_BLOB_FRACTION) {
+				try (final InputStream is = data.getInputStream()) {
+					writeToDisk(md5, is, size, data.isSorted());
+				}
+			}
+		} catch (IOException e) {
+			// the cache is an optimization, so don't fail the request
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Failed caching blob %s: %s", md5.getMD5(), e.getMessage()), e);
+		}
+	}
+
+	private boolean demoteToDisk(final MD5 md5, final CachedBlob cb) {
+		if (diskDir == null || cb.size > maxDiskSize / MAX_BLOB_FRACTION) {
+			return false;
+		}
+		try (final InputStream is = cb.open()) {
+			writeToDisk(md5, is, cb.size, cb.sorted);
+			return true;
+		} catch (IOException e) {
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Failed moving blob %s to disk cache: %s", md5.getMD5(), e.getMessage()), e);
+			return false;
+		}
+	}
+
+	private void writeToDisk(
+			final MD5 md5,
+			final InputStream is,
+			final long size,
+			final boolean sorted)
+			throws IOException {
+		final File f = File.createTempFile(md5.getMD5() + ".", ".json", diskDir);
+		try {
+			Files.copy(is, f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			f.delete();
+			throw e;
+		}
+		disk.put(md5, new CachedBlob(f, size, sorted));
+	}
+
+	@Override
+	public void removeBlob(final MD5 md5)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
+		memory.invalidate(md5);
+		disk.invalidate(md5);
+		requestCounts.invalidate(md5);
+		blobs.removeBlob(md5);
+	}
+
+	/** Returns the status of the wrapped blob store, followed by the cache statistics.
+	 */
+	@Override
+	public List<DependencyStatus> status() {
+		final List<DependencyStatus> deps = new LinkedList<>(blobs.status());
+		final CacheStatistics s = getStatistics();
+		final long hits = s.getMemoryHits() + s.getDiskHits();
+		final long requests = hits + s.getMisses();
+		deps.add(new DependencyStatus(true, String.format(
+				"OK - hit rate %s%%, memory hits %s, disk hits %s, misses %s, evictions %s, " +
+						"memory entries %s, disk entries %s",
+				requests == 0 ? 0 : hits * 100 / requests, s.getMemoryHits(), s.getDiskHits(),
+				s.getMisses(), s.getEvictions(), s.getMemoryEntries(), s.getDiskEntries()),
+				"Blob cache", "Unknown"));
+		return deps;
+	}
+
+	/** Removes all data from the cache, including any files in the disk tier. */
+	public void clear() {
+		memory.invalidateAll();
+		disk.invalidateAll();
+		requestCounts.invalidateAll();
+	}
+
+	/** Statistics for a blob cache.
+	 */
+	public static class CacheStatistics {
+
+		private final long memoryHits;
+		private final long diskHits;
+		private final long misses;
+		private final long evictions;
+		private final long memoryEntries;
+		private final long diskEntries;
+
+		private CacheStatistics(
+				final long memoryHits,
+				final long diskHits,
+				final long misses,
+				final long evictions,
+				final long memoryEntries,
+				final long diskEntries) {
+			this.memoryHits = memoryHits;
+			this.diskHits = diskHits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.memoryEntries = memoryEntries;
+			this.diskEntries = diskEntries;
+		}
+
+		/** Get the number of requests served from the memory tier.
+		 * @return the number of memory hits.
+		 */
+		public long getMemoryHits() {
+			return memoryHits;
+		}
+
+		/** Get the number of requests served from the disk tier.
+		 * @return the number of disk hits.
+		 */
+		public long getDiskHits() {
+			return diskHits;
+		}
+
+		/** Get the number of requests that were passed to the wrapped blob store.
+		 * @return the number of misses.
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/** Get the number of blobs that were evicted from the cache entirely. Blobs moved from
+		 * the memory tier to the disk tier are not counted.
+		 * @return the number of evictions.
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/** Get the approximate number of blobs in the memory tier.
+		 * @return the number of blobs.
+		 */
+		public long getMemoryEntries() {
+			return memoryEntries;
+		}
+
+		/** Get the approximate number of blobs in the disk tier.
+		 * @return the number of blobs.
+		 */
+		public long getDiskEntries() {
+			return diskEntries;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			builder.append("CacheStatistics [memoryHits=");
+			builder.append(memoryHits);
+			builder.append(", diskHits=");
+			builder.append(diskHits);
+			builder.append(", misses=");
+			builder.append(misses);
+			builder.append(", evictions=");
+			builder.append(evictions);
+			builder.append(", memoryEntries=");
+			builder.append(memoryEntries);
+			builder.append(", diskEntries=");
+			builder.append(diskEntries);
+			builder.append("]");
+			return builder.toString();
+		}
+	}
+
+	/** Get a builder for a caching blob store.
+	 * @param blobStore the blob store to wrap.
+	 * @return a new builder.
+	 */
+	public static Builder getBuilder(final BlobStore blobStore) {
+		return new Builder(blobStore);
+	}
+
+	/** A builder for a {@link CachingBlobStore}.
+	 */
+	public static class Builder {
+
+		private final BlobStore blobStore;
+		private long maxMemorySize = 0;
+		private File diskDir = null;
+		private long maxDiskSize = 0;
+		private int minRequests = 2;
+
+		private Builder(final BlobStore blobStore) {
+			this.blobStore = requireNonNull(blobStore, "blobStore");
+		}
+
+		/** Set the maximum size of the memory tier of the cache. Default 0, which means no
+		 * data will be cached in memory.
+		 * @param maxSize the maximum size in bytes.
+		 * @return this builder.
+		 */
+		public Builder withMaxMemorySize(final long maxSize) {
+			if (maxSize < 0) {
+				throw new IllegalArgumentException("maxSize must be >= 0");
+			}
+			this.maxMemorySize = maxSize;
+			return this;
+		}
+
+		/** Enable the disk tier of the cache. Any files in the directory with the ".json"
+		 * extension are deleted when the cache is built.
+		 * @param directory the directory in which to store cached data. The directory will be
+		 * created if it does not exist.
+		 * @param maxSize the maximum size in bytes.
+		 * @return this builder.
+		 */
+		public Builder withDiskCache(final File directory, final long maxSize) {
+			requireNonNull(directory, "directory");
+			if (maxSize < 0) {
+				throw new IllegalArgumentException("maxSize must be >= 0");
+			}
+			this.diskDir = directory;
+			this.maxDiskSize = maxSize;
+			return this;
+		}
+
+		/** Set the number of times a blob must be requested before it is cached. Default 2.
+		 * @param minRequests the number of requests.
+		 * @return this builder.
+		 */
+		public Builder withMinimumRequests(final int minRequests) {
+			if (minRequests < 1) {
+				throw new IllegalArgumentException("minRequests must be > 0");
+			}
+			this.minRequests = minRequests;
+			return this;
+		}
+
+		/** Build the caching blob store.
+		 * @return the new blob store.
+		 * @throws IOException if the disk cache directory could not be created.
+		 */
+		public CachingBlobStore build() throws IOException {
+			if (diskDir != null) {
+				Files.createDirectories(diskDir.toPath());
+				for (final File f: diskDir.listFiles((d, name) -> name.endsWith(".json"))) {
+					f.delete();
+				}
+			}
+			return new CachingBlobStore(
+					blobStore, maxMemorySize, diskDir, maxDiskSize, minRequests);
+		}
+	}
+}
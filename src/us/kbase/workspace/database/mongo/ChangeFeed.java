@@ -0,0 +1,408 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Optional;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.ChangeEvent;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+import us.kbase.workspace.listener.WorkspaceEventListener;
+
+/** A workspace listener that records object and permission events in a MongoDB collection so
+ * that downstream indexers can read the events in order and resume where they left off rather
+ * than polling for changes across all workspaces.
+ *
+ * Each event is assigned a sequence number from a counter and is then written to the
+ * collection, and events are read in sequence order. Since a server may be assigned a sequence
+ * number and write the event after a server assigned a later number, a read stops before any
+ * missing sequence number until the event after the gap has been recorded for longer than a
+ * wait period, after which the missing number is assumed to belong to an event that was never
+ * written. Server clocks must agree to within the wait period.
+ *
+ * Events are removed after the retention period, so readers must read the feed more often than
+ * that or they will miss events.
+ *
+ * Events are recorded after the database has been updated, as with any listener, so an event
+ * may be lost if a server fails between the update and recording the event.
+ */
+public class ChangeFeed implements WorkspaceEventListener {
+
+	/** The event type recorded for new object versions, whether saved, copied, or reverted. */
+	public static final String NEW_VERSION = "NEW_VERSION";
+	/** The event type recorded when all the versions of an object are copied. */
+	public static final String COPY_OBJECT = "COPY_OBJECT";
+	/** The event type recorded when a workspace is cloned. */
+	public static final String CLONE_WORKSPACE = "CLONE_WORKSPACE";
+	/** The event type recorded when an object is renamed. */
+	public static final String RENAME_OBJECT = "RENAME_OBJECT";
+	/** The event type recorded when an object is deleted or undeleted. */
+	public static final String OBJECT_DELETE_STATE_CHANGE = "OBJECT_DELETE_STATE_CHANGE";
+	/** The event type recorded when a workspace is deleted or undeleted. */
+	public static final String WORKSPACE_DELETE_STATE_CHANGE = "WORKSPACE_DELETE_STATE_CHANGE";
+	/** The event type recorded when user permissions for a workspace are set. */
+	public static final String SET_PERMISSION = "SET_PERMISSION";
+	/** The event type recorded when the global permission for a workspace is set. */
+	public static final String SET_GLOBAL_PERMISSION = "SET_GLOBAL_PERMISSION";
+
+	/** The maximum number of events that may be read at once. */
+	public static final int MAX_CHANGES = 10000;
+
+	private static final long DEFAULT_GAP_WAIT_MS = 60000;
+	private static final int MONGO_INDEX_OPTIONS_CONFLICT = 85;
+
+	private final DBCollection changes;
+	private final DBCollection counter;
+	private final long gapWaitMS;
+
+	/** Create the change feed.
+	 * @param db the workspace database.
+	 * @param retentionHours the number of hours for which events are kept.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public ChangeFeed(final DB db, final int retentionHours)
+			throws WorkspaceCommunicationException {
+		this(db, retentionHours, DEFAULT_GAP_WAIT_MS);
+	}
+
+	/** This constructor should only be used for tests. */
+	public ChangeFeed(final DB db, final int retentionHours, final long gapWaitMS)
+			throws WorkspaceCommunicationException {
+		requireNonNull(db, "db");
+		if (retentionHours < 1) {
+			throw new IllegalArgumentException("retentionHours must be > 0");
+		}
+		this.changes = db.getCollection(CollectionNames.COL_CHANGE_FEED);
+		this.counter = db.getCollection(CollectionNames.COL_WS_CNT);
+		this.gapWaitMS = gapWaitMS;
+		final BasicDBObject ttl = new BasicDBObject(
+				"expireAfterSeconds", retentionHours * 3600L);
+		try {
+			try {
+				// expire old events. Events are read by sequence number, which is the mongo ID
+				changes.createIndex(new BasicDBObject(Fields.CHG_RECORDED, 1), ttl);
+			} catch (MongoException e) {
+				if (e.getCode() != MONGO_INDEX_OPTIONS_CONFLICT) {
+					throw e;
+				}
+				// the retention period changed
+				db.command(new BasicDBObject("collMod", CollectionNames.COL_CHANGE_FEED)
+						.append("index", new BasicDBObject("keyPattern",
+								new BasicDBObject(Fields.CHG_RECORDED, 1))
+								.append("expireAfterSeconds", ttl.get("expireAfterSeconds"))))
+						.throwOnError();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Get events from the feed in sequence order.
+	 * @param after return events with sequence numbers greater than this number. Pass 0 to
+	 * read from the start of the feed, and the sequence number of the last event read to
+	 * resume reading.
+	 * @param limit the maximum number of events to return, at most {@link #MAX_CHANGES}.
+	 * Fewer events may be returned even if more exist in the feed if an event that may still be
+	 * in the process of being recorded is missing.
+	 * @return the events.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public List<ChangeEvent> getChanges(final long after, final int limit)
+			throws WorkspaceCommunicationException {
+		if (after < 0) {
+			throw new IllegalArgumentException("after must be >= 0");
+		}
+		if (limit < 1 || limit > MAX_CHANGES) {
+			throw new IllegalArgumentException("limit must be between 1 and " + MAX_CHANGES);
+		}
+		final Date gapCutoff = new Date(System.currentTimeMillis() - gapWaitMS);
+		final List<ChangeEvent> ret = new LinkedList<>();
+		try {
+			final Iterable<DBObject> cur = changes.find(
+					new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$gt", after)))
+					.sort(new BasicDBObject(Fields.MONGO_ID, 1))
+					.limit(limit);
+			long expected = after + 1;
+			for (final DBObject o: cur) {
+				final long seq = (Long) o.get(Fields.MONGO_ID);
+				if (seq != expected && ((Date) o.get(Fields.CHG_RECORDED)).after(gapCutoff)) {
+					break;
+				}
+				ret.add(toEvent(o));
+				expected = seq + 1;
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+
+	private ChangeEvent toEvent(final DBObject o) {
+		final String user = (String) o.get(Fields.CHG_USER);
+		final Integer perm = (Integer) o.get(Fields.CHG_PERM);
+		@SuppressWarnings("unchecked")
+		final List<String> pusers = (List<String>) o.get(Fields.CHG_PERM_USERS);
+		return new ChangeEvent(
+				(Long) o.get(Fields.MONGO_ID),
+				(String) o.get(Fields.CHG_TYPE),
+				((Date) o.get(Fields.CHG_TIME)).toInstant(),
+				user == null ? null : new WorkspaceUser(user),
+				(Long) o.get(Fields.CHG_WS_ID),
+				(Long) o.get(Fields.CHG_OBJ_ID),
+				(Integer) o.get(Fields.CHG_VER),
+				(String) o.get(Fields.CHG_OBJ_TYPE),
+				perm == null ? null : Permission.fromInt(perm),
+				pusers == null ? Collections.emptyList() : pusers.stream()
+						.map(u -> new WorkspaceUser(u)).collect(Collectors.toList()));
+	}
+
+	// returns the last of count newly reserved sequence numbers
+	private long reserveSequences(final int count) {
+		final DBObject updated = counter.findAndModify(
+				new BasicDBObject(Fields.CNT_ID, Fields.CNT_ID_CHANGE_FEED_VAL),
+				new BasicDBObject(Fields.CNT_NUM, 1).append(Fields.MONGO_ID, 0),
+				null,
+				false,
+				new BasicDBObject("$inc", new BasicDBObject(Fields.CNT_NUM, (long) count)),
+				true,
+				true);
+		return ((Number) updated.get(Fields.CNT_NUM)).longValue();
+	}
+
+	private BasicDBObject toDoc(
+			final String type,
+			final Instant time,
+			final WorkspaceUser user,
+			final long workspaceID,
+			final Long objectID,
+			final Integer version,
+			final String objectType,
+			final Permission permission,
+			final List<WorkspaceUser> permissionUsers) {
+		return new BasicDBObject(Fields.CHG_TYPE, type)
+				.append(Fields.CHG_TIME, Date.from(time))
+				.append(Fields.CHG_USER, user == null ? null : user.getUser())
+				.append(Fields.CHG_WS_ID, workspaceID)
+				.append(Fields.CHG_OBJ_ID, objectID)
+				.append(Fields.CHG_VER, version)
+				.append(Fields.CHG_OBJ_TYPE, objectType)
+				.append(Fields.CHG_PERM, permission == null ? null : permission.getPermission())
+				.append(Fields.CHG_PERM_USERS, permissionUsers.stream().map(u -> u.getUser())
+						.collect(Collectors.toList()));
+	}
+
+	private BasicDBObject toUpdate(final BasicDBObject event) {
+		return new BasicDBObject("$set", event).append("$currentDate",
+				new BasicDBObject(Fields.CHG_RECORDED, true));
+	}
+
+	private void record(final List<BasicDBObject> events) {
+		try {
+			final long last = reserveSequences(events.size());
+			if (events.size() == 1) {
+				changes.update(new BasicDBObject(Fields.MONGO_ID, last),
+						toUpdate(events.get(0)), true, false);
+			} else {
+				final BulkWriteOperation bulk = changes.initializeOrderedBulkOperation();
+				long seq = last - events.size() + 1;
+				for (final BasicDBObject event: events) {
+					bulk.find(new BasicDBObject(Fields.MONGO_ID, seq++)).upsert()
+							.updateOne(toUpdate(event));
+				}
+				bulk.execute();
+			}
+		} catch (MongoException me) {
+			// as for other listeners, the exception is thrown in the calling thread
+			throw new RuntimeException("Failed recording change feed event: " +
+					me.getMessage(), me);
+		}
+	}
+
+	private void record(
+			final String type,
+			final Instant time,
+			final WorkspaceUser user,
+			final long workspaceID,
+			final Long objectID,
+			final Integer version,
+			final String objectType,
+			final Permission permission,
+			final List<WorkspaceUser> permissionUsers) {
+		record(Arrays.asList(toDoc(type, time, user, workspaceID, objectID, version,
+				objectType, permission, permissionUsers)));
+	}
+
+	private void record(
+			final String type,
+			final Instant time,
+			final WorkspaceUser user,
+			final long workspaceID,
+			final Long objectID) {
+		record(type, time, user, workspaceID, objectID, null, null, null,
+				Collections.emptyList());
+	}
+
+	private BasicDBObject versionToDoc(final ObjectInformation oi) {
+		return toDoc(NEW_VERSION, oi.getSavedDate().toInstant(), oi.getSavedBy(),
+				oi.getWorkspaceId(), oi.getObjectId(), oi.getVersion(), oi.getTypeString(), null,
+				Collections.emptyList());
+	}
+
+	private void recordVersion(final ObjectInformation oi) {
+		record(Arrays.asList(versionToDoc(oi)));
+	}
+
+	@Override
+	public void createWorkspace(final WorkspaceUser user, final long id, final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void cloneWorkspace(
+			final WorkspaceUser user,
+			final long id,
+			final boolean isPublic,
+			final Instant time) {
+		record(CLONE_WORKSPACE, time, user, id, null);
+	}
+
+	@Override
+	public void setWorkspaceMetadata(final WorkspaceUser user, final long id, final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void lockWorkspace(final WorkspaceUser user, final long id, final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void renameWorkspace(
+			final WorkspaceUser user,
+			final long id,
+			final String newname,
+			final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void setGlobalPermission(
+			final WorkspaceUser user,
+			final long id,
+			final Permission permission,
+			final Instant time) {
+		record(SET_GLOBAL_PERMISSION, time, user, id, null, null, null, permission,
+				Collections.emptyList());
+	}
+
+	@Override
+	public void setPermissions(
+			final WorkspaceUser user,
+			final long id,
+			final Permission permission,
+			final List<WorkspaceUser> users,
+			final Instant time) {
+		record(SET_PERMISSION, time, user, id, null, null, null, permission, users);
+	}
+
+	@Override
+	public void setWorkspaceDescription(
+			final WorkspaceUser user,
+			final long id,
+			final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void setWorkspaceOwner(
+			final WorkspaceUser user,
+			final long id,
+			final WorkspaceUser newUser,
+			final Optional<String> newName,
+			final Instant time) {
+		// no action
+	}
+
+	@Override
+	public void setWorkspaceDeleted(
+			final WorkspaceUser user,
+			final long id,
+			final boolean delete,
+			final long maxObjectID,
+			final Instant time) {
+		record(WORKSPACE_DELETE_STATE_CHANGE, time, user, id, null);
+	}
+
+	@Override
+	public void renameObject(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final String newName,
+			final Instant time) {
+		record(RENAME_OBJECT, time, user, workspaceId, objectId);
+	}
+
+	@Override
+	public void revertObject(final ObjectInformation object, final boolean isPublic) {
+		recordVersion(object);
+	}
+
+	@Override
+	public void setObjectDeleted(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final boolean delete,
+			final Instant time) {
+		record(OBJECT_DELETE_STATE_CHANGE, time, user, workspaceId, objectId);
+	}
+
+	@Override
+	public void copyObject(final ObjectInformation object, final boolean isPublic) {
+		recordVersion(object);
+	}
+
+	@Override
+	public void copyObject(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final int latestVersion,
+			final Instant time,
+			final boolean isPublic) {
+		record(COPY_OBJECT, time, user, workspaceId, objectId, latestVersion, null, null,
+				Collections.emptyList());
+	}
+
+	@Override
+	public void saveObject(final ObjectInformation object, final boolean isPublic) {
+		recordVersion(object);
+	}
+
+	@Override
+	public void saveObjects(final List<ObjectInformation> objects, final boolean isPublic) {
+		// reserve the sequence numbers for all the versions at once
+		if (!objects.isEmpty()) {
+			record(objects.stream().map(o -> versionToDoc(o)).collect(Collectors.toList()));
+		}
+	}
+}
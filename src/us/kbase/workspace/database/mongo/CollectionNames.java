@@ -10,4 +10,9 @@ public class CollectionNames {
 	public static final String COL_WORKSPACE_VERS = "workspaceObjVersions";
 	public static final String COL_PROVENANCE = "provenance";
 	public static final String COL_CONFIG = "config";
+	public static final String COL_WS_INVALIDATIONS = "workspaceInvalidations";
+	public static final String COL_WS_META_INDEX = "workspaceMetaIndex";
+	public static final String COL_OBJ_META_INDEX = "objectMetaIndex";
+	public static final String COL_CHANGE_FEED = "changeFeed";
+	public static final String COL_LISTENER_OUTBOX = "listenerOutbox";
 }
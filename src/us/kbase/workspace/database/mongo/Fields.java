@@ -9,6 +9,8 @@ public class Fields {
 	// workspace counter fields
 	public static final String CNT_ID = "id";
 	public static final String CNT_ID_VAL = "wscounter";
+	// since 0.12.0
+	public static final String CNT_ID_CHANGE_FEED_VAL = "changefeed";
 	public static final String CNT_NUM = "num";
 
 	// workspace fields
@@ -43,6 +45,14 @@ public class Fields {
 	public static final String OBJ_REFCOUNTS = "refcnt";
 	//TODO DBUPDATE remove this field. Deleting versions is out, just delete the entire object.
 	public static final String OBJ_LATEST = "latest";
+	/* since 0.12.0, a copy of the listed fields of the latest version. Missing for objects saved
+	 * by earlier versions until backfilled. See LatestVersionView.
+	 */
+	public static final String OBJ_LATEST_VER = "lver";
+	/* since 0.12.0, set to true when the version count is incremented and removed when the
+	 * latest version copy is written. See LatestVersionView.
+	 */
+	public static final String OBJ_LATEST_VER_PENDING = "lverpend";
 
 	// workspace version fields
 	public static final String VER_WS_ID = "ws";
@@ -61,6 +71,12 @@ public class Fields {
 	public static final String VER_COPIED = "copied";
 	//in 0.3.0, if missing assume no external IDs
 	public static final String VER_EXT_IDS = "extids";
+	/* since 0.12.0, the parts of the type string. Missing for versions saved by earlier
+	 * versions until backfilled. See TypeFields.
+	 */
+	public static final String VER_TYPE_MODULE = "tymod";
+	public static final String VER_TYPE_NAME = "tyname";
+	public static final String VER_TYPE_MAJOR = "tymaj";
 	
 	// meta document key & value
 	public static final String META_KEY = "k";
@@ -129,6 +145,49 @@ public class Fields {
 	public static final String CONFIG_VALUE = "config";
 	public static final String CONFIG_UPDATE = "inupdate";
 	public static final String CONFIG_SCHEMA_VERSION = "schemaver";
+	// since 0.12.0, true once every object has a copy of its latest version
+	public static final String CONFIG_LATEST_VER_BACKFILLED = "lverfilled";
+	// since 0.12.0, true once every version and latest version copy has the type fields
+	public static final String CONFIG_TYPE_FIELDS_BACKFILLED = "tyfilled";
+	// since 0.12.0, true once the metadata of every workspace and version is indexed
+	public static final String CONFIG_META_INDEX_BACKFILLED = "metaidxfilled";
+	
+	// workspace invalidation fields, since 0.12.0
+	public static final String INVAL_WS_ID = "ws";
+	// set by the database server so all servers share one clock
+	public static final String INVAL_TIME = "time";
+	
+	// metadata index fields, since 0.12.0. Workspace entries have no object ID or version.
+	public static final String META_IDX_KEY = "k";
+	public static final String META_IDX_VALUE = "v";
+	public static final String META_IDX_WS_ID = "ws";
+	public static final String META_IDX_ID = "id";
+	public static final String META_IDX_VER = "ver";
+	// set by the database server when a workspace entry is written
+	public static final String META_IDX_TIME = "time";
+	
+	// change feed fields, since 0.12.0. The sequence number is the mongo ID.
+	public static final String CHG_TYPE = "type";
+	public static final String CHG_TIME = "time";
+	// set by the database server so all servers share one clock
+	public static final String CHG_RECORDED = "rec";
+	public static final String CHG_USER = "user";
+	public static final String CHG_WS_ID = "ws";
+	public static final String CHG_OBJ_ID = "id";
+	public static final String CHG_VER = "ver";
+	public static final String CHG_OBJ_TYPE = "otype";
+	public static final String CHG_PERM = "perm";
+	public static final String CHG_PERM_USERS = "pusers";
+	
+	// listener outbox fields, since 0.12.0. Per listener fields are keyed by the listener name.
+	public static final String OUTBOX_EVENT = "ev";
+	public static final String OUTBOX_ARGS = "args";
+	public static final String OUTBOX_TIME = "time";
+	public static final String OUTBOX_PENDING = "pend";
+	public static final String OUTBOX_LEASE = "lease";
+	public static final String OUTBOX_CLAIM = "claim";
+	public static final String OUTBOX_TRIES = "tries";
+	public static final String OUTBOX_DROPPED = "drop";
 	
 	
 }
@@ -3,7 +3,13 @@ package us.kbase.workspace.database.mongo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +50,11 @@ public class GridFSBlobStore implements BlobStore {
 		if (getFile(md5) != null) {
 			return; //already exists
 		}
+		save(md5, data, sorted);
+	}
+
+	private void save(final MD5 md5, final Restreamable data, final boolean sorted)
+			throws BlobStoreCommunicationException {
 		try (final InputStream is = data.getInputStream()) {
 			final GridFSInputFile gif = gfs.createFile(is, true);
 			gif.setId(md5.getMD5());
@@ -61,6 +72,42 @@ public class GridFSBlobStore implements BlobStore {
 		}
 	}
 
+	@Override
+	public void saveBlobs(final Map<MD5, Restreamable> data, final boolean sorted)
+			throws BlobStoreCommunicationException {
+		if (data == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		for (final Entry<MD5, Restreamable> e: data.entrySet()) {
+			if (e.getKey() == null || e.getValue() == null) {
+				throw new NullPointerException("Arguments cannot be null");
+			}
+		}
+		if (data.isEmpty()) {
+			return;
+		}
+		final List<String> ids = new LinkedList<>();
+		for (final MD5 m: data.keySet()) {
+			ids.add(m.getMD5());
+		}
+		final Set<MD5> existing = new HashSet<>();
+		try {
+			for (final GridFSDBFile f: gfs.find(new BasicDBObject(
+					Fields.MONGO_ID, new BasicDBObject("$in", ids)))) {
+				existing.add(new MD5((String) f.getId()));
+			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		// as with reads, GridFS writes share the mongo connection pool, so save sequentially
+		for (final Entry<MD5, Restreamable> e: data.entrySet()) {
+			if (!existing.contains(e.getKey())) {
+				save(e.getKey(), e.getValue(), sorted);
+			}
+		}
+	}
+	
 	@Override
 	public ByteArrayFileCache getBlob(final MD5 md5,
 			final ByteArrayFileCacheManager bafcMan)
@@ -69,11 +116,27 @@ public class GridFSBlobStore implements BlobStore {
 		final GridFSDBFile out;
 		try {
 			out = getFile(md5);
-			if (out == null) {
-				throw new NoSuchBlobException(
-						"Attempt to retrieve non-existant blob with chksum " + 
-								md5.getMD5());
-			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		if (out == null) {
+			throw noSuchBlob(md5);
+		}
+		return toBAFC(out, bafcMan);
+	}
+
+	private NoSuchBlobException noSuchBlob(final MD5 md5) {
+		return new NoSuchBlobException(
+				"Attempt to retrieve non-existant blob with chksum " + md5.getMD5(), md5);
+	}
+
+	private ByteArrayFileCache toBAFC(
+			final GridFSDBFile out,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreCommunicationException, FileCacheIOException,
+			FileCacheLimitExceededException {
+		try {
 			final boolean sorted;
 			if (!out.containsField(Fields.GFS_SORTED)) {
 				sorted = false;
@@ -96,6 +159,56 @@ public class GridFSBlobStore implements BlobStore {
 		}
 	}
 
+	@Override
+	public Map<MD5, ByteArrayFileCache> getBlobs(
+			final Set<MD5> md5s,
+			final ByteArrayFileCacheManager bafcMan)
+			throws NoSuchBlobException, BlobStoreCommunicationException,
+			FileCacheIOException, FileCacheLimitExceededException {
+		if (md5s == null || bafcMan == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		final Map<MD5, ByteArrayFileCache> ret = new HashMap<>();
+		if (md5s.isEmpty()) {
+			return ret;
+		}
+		final List<String> ids = new LinkedList<>();
+		for (final MD5 m: md5s) {
+			ids.add(m.getMD5());
+		}
+		final Map<MD5, GridFSDBFile> files = new HashMap<>();
+		try {
+			for (final GridFSDBFile f: gfs.find(new BasicDBObject(
+					Fields.MONGO_ID, new BasicDBObject("$in", ids)))) {
+				files.put(new MD5((String) f.getId()), f);
+			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		for (final MD5 m: md5s) {
+			if (!files.containsKey(m)) {
+				throw noSuchBlob(m);
+			}
+		}
+		// GridFS reads go through the same connection pool as everything else, so there's
+		// little to gain from reading the files concurrently
+		boolean success = false;
+		try {
+			for (final MD5 m: md5s) {
+				ret.put(m, toBAFC(files.get(m), bafcMan));
+			}
+			success = true;
+		} finally {
+			if (!success) {
+				for (final ByteArrayFileCache bafc: ret.values()) {
+					bafc.destroy();
+				}
+			}
+		}
+		return ret;
+	}
+
 	private GridFSDBFile getFile(final MD5 md5) {
 		final GridFSDBFile out;
 		final DBObject query = new BasicDBObject();
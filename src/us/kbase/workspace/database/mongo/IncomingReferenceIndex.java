@@ -0,0 +1,278 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.refsearch.LongHashSet;
+import us.kbase.workspace.database.refsearch.LongHashing;
+import us.kbase.workspace.database.refsearch.PackedReference;
+
+/** An in-memory index of the incoming references to object versions, including provenance
+ * references.
+ *
+ * The index is loaded from the versions collection in the background when created, and until
+ * the load completes the index is cold and returns no results. Versions saved by this server
+ * should be added with {@link #add(DBObject)}, and versions saved by other servers are found by
+ * polling the versions collection by save date. As such, references saved on other servers are
+ * not seen for up to approximately the poll interval. Save dates are set by the saving server,
+ * so servers' clocks must agree to within the poll overlap.
+ *
+ * Versions and references are stored as packed longs (see {@link PackedReference}). Queries
+ * for references that can't be packed, or that are referenced by versions that can't be
+ * packed, return no results so that the caller can fall back to the database.
+ */
+class IncomingReferenceIndex {
+
+	private static final DBObject FIELDS = new BasicDBObject(Fields.VER_WS_ID, 1)
+			.append(Fields.VER_ID, 1).append(Fields.VER_VER, 1).append(Fields.VER_REF, 1)
+			.append(Fields.VER_PROVREF, 1).append(Fields.VER_SAVEDATE, 1)
+			.append(Fields.MONGO_ID, 0);
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// all the fields below are guarded by the lock
+	private final LongHashSet indexed = new LongHashSet(); // versions already in the index
+	private final LongHashSet unindexable = new LongHashSet(); // targets with missing sources
+	// open addressing table from the target reference to its sources. sources[i][0] is the
+	// number of sources.
+	private long[] targets = new long[1024]; // 0 marks an empty slot
+	private long[][] sources = new long[1024][];
+	private int size = 0;
+	private boolean warm = false;
+
+	private final ScheduledExecutorService poller;
+	/* Versions are re-read for this long before the latest seen save date in case of clock
+	 * differences between servers or saves that become visible out of order.
+	 */
+	private final long pollOverlapMS;
+	private Date latestSeen; // only accessed from the poller thread
+
+	/** Create the index, and start loading it and polling for new versions.
+	 * @param versions the versions collection.
+	 * @param pollIntervalMS the interval between polls for new versions.
+	 * @param pollOverlapMS the time before the latest save date seen from which each poll
+	 * re-reads versions.
+	 */
+	IncomingReferenceIndex(
+			final DBCollection versions,
+			final int pollIntervalMS,
+			final int pollOverlapMS) {
+		requireNonNull(versions, "versions");
+		if (pollOverlapMS < 0) {
+			throw new IllegalArgumentException("pollOverlapMS must be >= 0");
+		}
+		this.pollOverlapMS = pollOverlapMS;
+		latestSeen = new Date(pollOverlapMS); // the first poll loads everything
+		poller = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("ws-ref-index-%d").build());
+		// the first poll loads the entire index
+		poller.scheduleWithFixedDelay(() -> poll(versions),
+				0, pollIntervalMS, TimeUnit.MILLISECONDS);
+	}
+
+	/** Stop polling for new versions. The index should not be used after this method is
+	 * called.
+	 */
+	void stop() {
+		poller.shutdownNow();
+	}
+
+	/** Returns true if the initial load of the index is complete and the most recent poll for
+	 * new versions succeeded.
+	 * @return true if the index is warm.
+	 */
+	boolean isWarm() {
+		lock.readLock().lock();
+		try {
+			return warm;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/** Add a version to the index. Adding a version more than once has no effect.
+	 * @param version the version document, which must include the workspace ID, object ID,
+	 * version, references, and provenance references.
+	 */
+	void add(final DBObject version) {
+		lock.writeLock().lock();
+		try {
+			addInternal(version);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Add versions to the index. Adding a version more than once has no effect.
+	 * @param versions the version documents, which must include the workspace ID, object ID,
+	 * version, references, and provenance references.
+	 */
+	void add(final Collection<DBObject> versions) {
+		lock.writeLock().lock();
+		try {
+			for (final DBObject v: versions) {
+				addInternal(v);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addInternal(final DBObject version) {
+		@SuppressWarnings("unchecked")
+		final List<String> refs = (List<String>) version.get(Fields.VER_REF);
+		@SuppressWarnings("unchecked")
+		final List<String> provrefs = (List<String>) version.get(Fields.VER_PROVREF);
+		if (refs.isEmpty() && provrefs.isEmpty()) {
+			return;
+		}
+		final long source = PackedReference.pack(
+				(Long) version.get(Fields.VER_WS_ID),
+				(Long) version.get(Fields.VER_ID),
+				(Integer) version.get(Fields.VER_VER));
+		if (source != PackedReference.UNPACKABLE && !indexed.add(source)) {
+			return;
+		}
+		final LongHashSet versionTargets = new LongHashSet(refs.size() + provrefs.size());
+		for (final String r: refs) {
+			versionTargets.add(PackedReference.parse(r));
+		}
+		for (final String r: provrefs) {
+			versionTargets.add(PackedReference.parse(r));
+		}
+		for (final long target: versionTargets.toArray()) {
+			if (target == PackedReference.UNPACKABLE) {
+				continue; // queries for the target can never be answered by the index
+			}
+			if (source == PackedReference.UNPACKABLE) {
+				unindexable.add(target);
+			} else {
+				addSource(target, source);
+			}
+		}
+	}
+
+	private void addSource(final long target, final long source) {
+		int i = LongHashing.findSlot(targets, target);
+		if (targets[i] == 0) {
+			targets[i] = target;
+			sources[i] = new long[] {0, 0};
+			size++;
+		}
+		long[] src = sources[i];
+		final int count = (int) src[0];
+		if (count + 1 == src.length) {
+			src = Arrays.copyOf(src, src.length * 2);
+			sources[i] = src;
+		}
+		src[count + 1] = source;
+		src[0] = count + 1;
+		if (size * 2 > targets.length) {
+			rehash();
+		}
+	}
+
+	private void rehash() {
+		final long[] oldTargets = targets;
+		final long[][] oldSources = sources;
+		targets = new long[oldTargets.length * 2];
+		sources = new long[oldTargets.length * 2][];
+		for (int j = 0; j < oldTargets.length; j++) {
+			if (oldTargets[j] != 0) {
+				final int i = LongHashing.findSlot(targets, oldTargets[j]);
+				targets[i] = oldTargets[j];
+				sources[i] = oldSources[j];
+			}
+		}
+	}
+
+	/** Get the incoming references for a set of references.
+	 * @param refs the references.
+	 * @return a mapping of each reference to the references that refer to it, or null if the
+	 * index is cold or cannot answer the query for any of the references.
+	 */
+	Map<Reference, Set<Reference>> get(final Set<Reference> refs) {
+		lock.readLock().lock();
+		try {
+			if (!warm) {
+				return null;
+			}
+			final Map<Reference, Set<Reference>> ret = new HashMap<>();
+			for (final Reference r: refs) {
+				final long target = PackedReference.pack(r);
+				if (target == PackedReference.UNPACKABLE || unindexable.contains(target)) {
+					return null;
+				}
+				final Set<Reference> incoming = new HashSet<>();
+				final int i = LongHashing.findSlot(targets, target);
+				if (targets[i] != 0) {
+					final long[] src = sources[i];
+					for (int j = 1; j <= src[0]; j++) {
+						incoming.add(PackedReference.toReference(src[j]));
+					}
+				}
+				ret.put(r, incoming);
+			}
+			return ret;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void poll(final DBCollection versions) {
+		try {
+			final DBObject q = new BasicDBObject(Fields.VER_SAVEDATE, new BasicDBObject(
+					"$gte", new Date(latestSeen.getTime() - pollOverlapMS)));
+			q.put("$or", Arrays.asList(
+					new BasicDBObject(Fields.VER_REF + ".0", new BasicDBObject("$exists", true)),
+					new BasicDBObject(Fields.VER_PROVREF + ".0",
+							new BasicDBObject("$exists", true))));
+			final DBCursor cur = versions.find(q, FIELDS);
+			Date latest = latestSeen;
+			for (final DBObject v: cur) {
+				add(v);
+				final Date saved = (Date) v.get(Fields.VER_SAVEDATE);
+				if (saved.after(latest)) {
+					latest = saved;
+				}
+			}
+			latestSeen = latest;
+			setWarm(true);
+		} catch (RuntimeException e) {
+			// versions saved elsewhere may be missing until the next successful poll
+			setWarm(false);
+			LoggerFactory.getLogger(getClass()).error(
+					"Failed to poll for new object references", e);
+		}
+	}
+
+	private void setWarm(final boolean warm) {
+		lock.writeLock().lock();
+		try {
+			this.warm = warm;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Maintains a copy of the latest version of each object in the object's document in the
+ * objects collection, so that the latest versions of objects can be listed with a single query
+ * against the objects collection rather than reading every version of every object.
+ *
+ * The copy in the object document is stored in the {@link Fields#OBJ_LATEST_VER} field and
+ * contains the {@link #FIELDS} of the version document and the type fields maintained by
+ * {@link TypeFields}. The object name, hidden state, and deleted state are read from the
+ * object document itself, so renaming, hiding, and deleting objects requires no changes to
+ * the copy.
+ *
+ * The copy is only written if the version is the latest version according to the object's
+ * version count. Incrementing the version count marks the object with
+ * {@link Fields#OBJ_LATEST_VER_PENDING}, which is removed when the copy is written. If the
+ * copy can't be written after the versions are saved, the copy is left behind the version
+ * count until {@link #repair(long[])} writes it from the versions collection. If a save fails
+ * before the versions are saved, the object is not listed, as is the case when listing
+ * objects from the versions collection, and remains marked.
+ *
+ * Objects saved by earlier versions of the workspace have no copy. On startup, if the database
+ * has not been marked as backfilled, any missing copies are written in the background and the
+ * view cannot be used until the backfill is complete.
+ */
+class LatestVersionView {
+
+	/** The version fields copied to the object document. */
+	static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+			Fields.VER_VER, Fields.VER_TYPE, Fields.VER_SAVEDATE, Fields.VER_SAVEDBY,
+			Fields.VER_CHKSUM, Fields.VER_SIZE, Fields.VER_META));
+
+	private static final int BACKFILL_BATCH_SIZE = 1000;
+
+	private final DBCollection objects;
+	private final DBCollection versions;
+	private final DBCollection config;
+	private volatile boolean ready = false;
+
+	/** Create the view. If the database is not yet marked as backfilled and any objects are
+	 * missing the latest version copy, a backfill is started in the background.
+	 * @param objects the objects collection.
+	 * @param versions the versions collection.
+	 * @param config the configuration collection. The configuration document must exist.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	LatestVersionView(
+			final DBCollection objects,
+			final DBCollection versions,
+			final DBCollection config)
+			throws WorkspaceCommunicationException {
+		this.objects = requireNonNull(objects, "objects");
+		this.versions = requireNonNull(versions, "versions");
+		this.config = requireNonNull(config, "config");
+		try {
+			final DBObject cfg = config.findOne(
+					new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+					new BasicDBObject(Fields.CONFIG_LATEST_VER_BACKFILLED, 1));
+			if (Boolean.TRUE.equals(cfg.get(Fields.CONFIG_LATEST_VER_BACKFILLED))) {
+				ready = true;
+			} else if (objects.findOne(getMissingQuery()) == null) {
+				setBackfilled();
+			} else {
+				final ExecutorService exe = Executors.newSingleThreadExecutor(
+						new ThreadFactoryBuilder().setDaemon(true)
+								.setNameFormat("ws-latest-backfill-%d").build());
+				exe.execute(() -> backfill());
+				exe.shutdown();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Returns true if the latest version copy is present for all objects and the view can be
+	 * used for listing objects.
+	 * @return true if the view is ready.
+	 */
+	boolean isReady() {
+		return ready;
+	}
+
+	/** Write the latest version copy for any marked objects in a set of workspaces where the
+	 * latest version is saved. Must be called before listing objects in the workspaces from the
+	 * view, so that objects where updating the view failed after saving versions are listed.
+	 * @param workspaceIDs the workspaces to repair.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	void repair(final long[] workspaceIDs) throws WorkspaceCommunicationException {
+		final List<Long> ids = new ArrayList<>(workspaceIDs.length);
+		for (final long id: workspaceIDs) {
+			ids.add(id);
+		}
+		try {
+			final List<DBObject> latest = new LinkedList<>();
+			for (final DBObject o: objects.find(new BasicDBObject(
+							Fields.OBJ_LATEST_VER_PENDING, true)
+							.append(Fields.OBJ_WS_ID, new BasicDBObject("$in", ids))
+							.append(Fields.OBJ_VCNT, new BasicDBObject("$gt", 0)),
+					new BasicDBObject(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_ID, 1)
+							.append(Fields.OBJ_VCNT, 1))
+					.hint(new BasicDBObject(Fields.OBJ_LATEST_VER_PENDING, 1))) {
+				latest.add(toVersionQuery(o));
+			}
+			if (!latest.isEmpty()) {
+				writeCopies(latest, false);
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Update the view with newly saved versions. Must be called after the versions are
+	 * saved.
+	 * @param versions the version documents.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	void update(final Collection<DBObject> versions) throws WorkspaceCommunicationException {
+		// only the highest version saved to each object can be the latest version
+		final Map<Long, Map<Long, DBObject>> latest = new HashMap<>();
+		for (final DBObject v: versions) {
+			final Map<Long, DBObject> ws = latest.computeIfAbsent(
+					(Long) v.get(Fields.VER_WS_ID), k -> new HashMap<>());
+			final Long id = (Long) v.get(Fields.VER_ID);
+			if (!ws.containsKey(id) ||
+					(Integer) ws.get(id).get(Fields.VER_VER) < (Integer) v.get(Fields.VER_VER)) {
+				ws.put(id, v);
+			}
+		}
+		if (latest.isEmpty()) {
+			return; // empty bulk writes are an error
+		}
+		final BulkWriteOperation bulk = objects.initializeUnorderedBulkOperation();
+		for (final Map<Long, DBObject> ws: latest.values()) {
+			for (final DBObject v: ws.values()) {
+				bulk.find(getUpdateQuery(v)).update(getUpdate(v));
+			}
+		}
+		try {
+			bulk.execute();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private static DBObject getUpdateQuery(final DBObject version) {
+		// if the version count has moved on, a later version will write the copy
+		return new BasicDBObject(Fields.OBJ_WS_ID, version.get(Fields.VER_WS_ID))
+				.append(Fields.OBJ_ID, version.get(Fields.VER_ID))
+				.append(Fields.OBJ_VCNT, version.get(Fields.VER_VER));
+	}
+
+	private static DBObject getUpdate(final DBObject version) {
+		final DBObject copy = new BasicDBObject();
+		for (final String field: FIELDS) {
+			copy.put(field, version.get(field));
+		}
+		// the version may have been saved before the type fields existed
+		TypeFields.addFields(copy);
+		return new BasicDBObject("$set", new BasicDBObject(Fields.OBJ_LATEST_VER, copy))
+				.append("$unset", new BasicDBObject(Fields.OBJ_LATEST_VER_PENDING, ""));
+	}
+
+	private static DBObject getMissingQuery() {
+		return new BasicDBObject(Fields.OBJ_LATEST_VER, new BasicDBObject("$exists", false))
+				.append(Fields.OBJ_VCNT, new BasicDBObject("$gt", 0));
+	}
+
+	private void backfill() {
+		try {
+			final DBCursor cur = objects.find(getMissingQuery(), new BasicDBObject(
+					Fields.OBJ_WS_ID, 1).append(Fields.OBJ_ID, 1).append(Fields.OBJ_VCNT, 1));
+			final List<DBObject> batch = new LinkedList<>();
+			long count = 0;
+			for (final DBObject o: cur) {
+				batch.add(toVersionQuery(o));
+				if (batch.size() == BACKFILL_BATCH_SIZE) {
+					count += writeCopies(batch, true);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				count += writeCopies(batch, true);
+			}
+			setBackfilled();
+			LoggerFactory.getLogger(getClass()).info(
+					"Backfilled the latest version of {} objects", count);
+		} catch (RuntimeException e) {
+			// the view will not be used until a backfill completes on a later startup
+			LoggerFactory.getLogger(getClass()).error(
+					"Failed to backfill the latest versions of objects", e);
+		}
+	}
+
+	private static DBObject toVersionQuery(final DBObject object) {
+		return new BasicDBObject(Fields.VER_WS_ID, object.get(Fields.OBJ_WS_ID))
+				.append(Fields.VER_ID, object.get(Fields.OBJ_ID))
+				.append(Fields.VER_VER, object.get(Fields.OBJ_VCNT));
+	}
+
+	private int writeCopies(final List<DBObject> latest, final boolean onlyMissing) {
+		final DBObject fields = new BasicDBObject(Fields.VER_WS_ID, 1)
+				.append(Fields.VER_ID, 1).append(Fields.MONGO_ID, 0);
+		for (final String field: FIELDS) {
+			fields.put(field, 1);
+		}
+		// if the latest version doesn't exist the save failed and the object isn't listed
+		final List<DBObject> vers = versions.find(
+				new BasicDBObject("$or", latest), fields).toArray();
+		if (vers.isEmpty()) {
+			return 0;
+		}
+		final BulkWriteOperation bulk = objects.initializeUnorderedBulkOperation();
+		for (final DBObject v: vers) {
+			final DBObject q = getUpdateQuery(v);
+			if (onlyMissing) {
+				// don't overwrite a copy written by a concurrent save
+				q.put(Fields.OBJ_LATEST_VER, new BasicDBObject("$exists", false));
+			}
+			bulk.find(q).update(getUpdate(v));
+		}
+		bulk.execute();
+		return vers.size();
+	}
+
+	private void setBackfilled() {
+		config.update(new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+				new BasicDBObject("$set",
+						new BasicDBObject(Fields.CONFIG_LATEST_VER_BACKFILLED, true)));
+		ready = true;
+	}
+}
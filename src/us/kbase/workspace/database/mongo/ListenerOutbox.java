@@ -0,0 +1,893 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.UncheckedUserMetadata;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+import us.kbase.workspace.listener.WorkspaceEventListener;
+
+/** A workspace listener that writes events to a MongoDB outbox collection and delivers them
+ * to a set of named listeners from background workers, so that slow or unavailable listeners
+ * do not delay workspace operations.
+ *
+ * Each listener has its own worker, which delivers events in batches of up to
+ * {@link #BATCH_SIZE}, passing runs of consecutive saved objects to the listener in one call
+ * to {@link WorkspaceEventListener#saveObjects(List, boolean)}. A worker leases the events it
+ * is delivering so that workers on other servers skip them. If delivery fails the worker
+ * stops, and the failed events are retried after a delay that starts at the retry interval and
+ * doubles with each failure, up to {@link #MAX_RETRY_DELAY_MS} or the retry interval if that is
+ * longer. Events that fail the maximum number of attempts, {@link #DEFAULT_MAX_ATTEMPTS} unless
+ * set otherwise, are dropped, logged, and kept in the outbox so they can be counted and
+ * inspected.
+ *
+ * Delivery is at least once - an event may be delivered again if a server fails or a lease
+ * expires during delivery. Ordering is best effort. When a single server delivers to a
+ * listener, events are delivered in the order they were written by that server, and events
+ * written by different servers at about the same time may be delivered in either order. When
+ * several servers deliver to the same listener, their claims on the next batch of events can
+ * interleave, so a server may deliver later events before another server delivers earlier
+ * ones. If a listener requires strict ordering, only one server should deliver events.
+ *
+ * Events are pending for the listeners configured on the server that wrote them. Events
+ * pending for a listener that is no longer configured on any server stay in the outbox until
+ * they are removed manually.
+ */
+public class ListenerOutbox implements WorkspaceEventListener {
+
+	/** The maximum number of events delivered to a listener at once. */
+	public static final int BATCH_SIZE = 100;
+	/** The maximum delay before retrying failed events, unless the retry interval is longer. */
+	public static final long MAX_RETRY_DELAY_MS = 60 * 60 * 1000;
+	/** The default number of delivery attempts after which an event is dropped. */
+	public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+	private static final long DEFAULT_LEASE_MS = 60000;
+	private static final long DEFAULT_RETRY_MS = 60000;
+	private static final Pattern NAME_PATTERN = Pattern.compile("^[\\w-]+$");
+
+	// event names
+	private static final String CREATE_WS = "createWorkspace";
+	private static final String CLONE_WS = "cloneWorkspace";
+	private static final String SET_WS_META = "setWorkspaceMetadata";
+	private static final String LOCK_WS = "lockWorkspace";
+	private static final String RENAME_WS = "renameWorkspace";
+	private static final String SET_GLOBAL_PERM = "setGlobalPermission";
+	private static final String SET_PERMS = "setPermissions";
+	private static final String SET_WS_DESC = "setWorkspaceDescription";
+	private static final String SET_WS_OWNER = "setWorkspaceOwner";
+	private static final String SET_WS_DEL = "setWorkspaceDeleted";
+	private static final String RENAME_OBJ = "renameObject";
+	private static final String REVERT_OBJ = "revertObject";
+	private static final String SET_OBJ_DEL = "setObjectDeleted";
+	private static final String COPY_VER = "copyObjectVersion";
+	private static final String COPY_OBJ = "copyObject";
+	private static final String SAVE_OBJ = "saveObject";
+
+	// event argument fields
+	private static final String USER = "user";
+	private static final String WS_ID = "ws";
+	private static final String OBJ_ID = "obj";
+	private static final String VER = "ver";
+	private static final String TIME = "time";
+	private static final String PUBLIC = "pub";
+	private static final String NAME = "name";
+	private static final String PERM = "perm";
+	private static final String USERS = "users";
+	private static final String NEW_USER = "newuser";
+	private static final String DELETE = "del";
+	private static final String MAX_OBJ_ID = "maxobj";
+	private static final String OBJ_INFO = "oi";
+
+	// object information fields
+	private static final String OI_ID = "id";
+	private static final String OI_NAME = "name";
+	private static final String OI_TYPE = "type";
+	private static final String OI_SAVED = "saved";
+	private static final String OI_VER = "ver";
+	private static final String OI_SAVED_BY = "by";
+	private static final String OI_WS_ID = "ws";
+	private static final String OI_WS_NAME = "wsname";
+	private static final String OI_WS_LOCKED = "wslock";
+	private static final String OI_WS_DELETED = "wsdel";
+	private static final String OI_CHKSUM = "chksum";
+	private static final String OI_SIZE = "size";
+	// metadata keys may not be valid mongo field names, so store the metadata as pairs
+	private static final String OI_META = "meta";
+
+	private final DBCollection outbox;
+	private final Map<String, Worker> workers = new LinkedHashMap<>();
+	private final List<String> names;
+	private final long leaseMS;
+	private final int maxAttempts;
+	private final long retryMS;
+	private final ScheduledExecutorService executor;
+
+	/** The status of delivery to a listener.
+	 */
+	public static class ListenerStatus {
+
+		private final String name;
+		private final long pending;
+		private final Optional<Long> lagMS;
+		private final long delivered;
+		private final long failed;
+		private final long dropped;
+		private final Optional<String> lastError;
+
+		/** Create the status.
+		 * @param name the name of the listener.
+		 * @param pending the number of events waiting to be delivered.
+		 * @param lagMS the age of the oldest pending event in milliseconds, or null if there
+		 * are no pending events.
+		 * @param delivered the number of events delivered.
+		 * @param failed the number of failed delivery attempts.
+		 * @param dropped the number of dropped events in the outbox.
+		 * @param lastError the most recent delivery error, or null if there have been none.
+		 */
+		public ListenerStatus(
+				final String name,
+				final long pending,
+				final Long lagMS,
+				final long delivered,
+				final long failed,
+				final long dropped,
+				final String lastError) {
+			this.name = name;
+			this.pending = pending;
+			this.lagMS = Optional.fromNullable(lagMS);
+			this.delivered = delivered;
+			this.failed = failed;
+			this.dropped = dropped;
+			this.lastError = Optional.fromNullable(lastError);
+		}
+
+		/** Get the name of the listener.
+		 * @return the name.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/** Get the number of events waiting to be delivered to the listener from all servers.
+		 * @return the number of pending events.
+		 */
+		public long getPending() {
+			return pending;
+		}
+
+		/** Get the time in milliseconds since the oldest pending event was written to the
+		 * outbox, or absent if there are no pending events.
+		 * @return the lag.
+		 */
+		public Optional<Long> getLagMS() {
+			return lagMS;
+		}
+
+		/** Get the number of events delivered to the listener by this server.
+		 * @return the number of delivered events.
+		 */
+		public long getDelivered() {
+			return delivered;
+		}
+
+		/** Get the number of failed delivery attempts by this server.
+		 * @return the number of failures.
+		 */
+		public long getFailed() {
+			return failed;
+		}
+
+		/** Get the number of events in the outbox that were dropped by any server after
+		 * failing too many times.
+		 * @return the number of dropped events.
+		 */
+		public long getDropped() {
+			return dropped;
+		}
+
+		/** Get the most recent delivery error on this server, if any.
+		 * @return the error.
+		 */
+		public Optional<String> getLastError() {
+			return lastError;
+		}
+	}
+
+	private class Worker {
+
+		private final String name;
+		private final WorkspaceEventListener listener;
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		private volatile String lastError = null;
+
+		private Worker(final String name, final WorkspaceEventListener listener) {
+			this.name = name;
+			this.listener = listener;
+		}
+	}
+
+	/** Create the outbox and start delivering events. Failed events are retried starting after
+	 * one minute, and are dropped after {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+	 * @param db the workspace database.
+	 * @param listeners the listeners to which events will be delivered, keyed by a name that
+	 * identifies the listener across servers and restarts. Names may contain only
+	 * alphanumerics, underscores, and hyphens. At least one listener is required.
+	 * @param pollMS the interval between checks for new events for each listener.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public ListenerOutbox(
+			final DB db,
+			final Map<String, WorkspaceEventListener> listeners,
+			final int pollMS)
+			throws WorkspaceCommunicationException {
+		this(db, listeners, pollMS, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_MS);
+	}
+
+	/** Create the outbox and start delivering events.
+	 * @param db the workspace database.
+	 * @param listeners the listeners to which events will be delivered, keyed by a name that
+	 * identifies the listener across servers and restarts. Names may contain only
+	 * alphanumerics, underscores, and hyphens. At least one listener is required.
+	 * @param pollMS the interval between checks for new events for each listener.
+	 * @param maxAttempts the number of delivery attempts after which an event is dropped, or 0
+	 * to never drop events.
+	 * @param retryMS the delay before the first retry of failed events.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public ListenerOutbox(
+			final DB db,
+			final Map<String, WorkspaceEventListener> listeners,
+			final int pollMS,
+			final int maxAttempts,
+			final long retryMS)
+			throws WorkspaceCommunicationException {
+		this(db, listeners, (int) checkPositive(pollMS, "pollMS"), DEFAULT_LEASE_MS,
+				maxAttempts, checkPositive(retryMS, "retryMS"));
+	}
+
+	private static long checkPositive(final long value, final String name) {
+		if (value < 1) {
+			throw new IllegalArgumentException(name + " must be > 0");
+		}
+		return value;
+	}
+
+	/** This constructor should only be used for tests. If pollMS is 0 no workers are started,
+	 * and events are only delivered by calling {@link #deliver(String)}. If retryMS is 0 failed
+	 * events are retried on the next delivery.
+	 */
+	public ListenerOutbox(
+			final DB db,
+			final Map<String, WorkspaceEventListener> listeners,
+			final int pollMS,
+			final long leaseMS,
+			final int maxAttempts,
+			final long retryMS)
+			throws WorkspaceCommunicationException {
+		requireNonNull(db, "db");
+		requireNonNull(listeners, "listeners");
+		if (listeners.isEmpty()) {
+			throw new IllegalArgumentException("At least one listener is required");
+		}
+		for (final String name: listeners.keySet()) {
+			if (name == null || !NAME_PATTERN.matcher(name).matches()) {
+				throw new IllegalArgumentException("Illegal listener name: " + name);
+			}
+			workers.put(name, new Worker(
+					name, requireNonNull(listeners.get(name), "listener " + name)));
+		}
+		if (maxAttempts < 0) {
+			throw new IllegalArgumentException("maxAttempts must be >= 0");
+		}
+		if (retryMS < 0) {
+			throw new IllegalArgumentException("retryMS must be >= 0");
+		}
+		this.names = Collections.unmodifiableList(new LinkedList<>(workers.keySet()));
+		this.leaseMS = leaseMS;
+		this.maxAttempts = maxAttempts;
+		this.retryMS = retryMS;
+		this.outbox = db.getCollection(CollectionNames.COL_LISTENER_OUTBOX);
+		try {
+			outbox.createIndex(new BasicDBObject(Fields.OUTBOX_PENDING, 1)
+					.append(Fields.MONGO_ID, 1));
+			outbox.createIndex(new BasicDBObject(Fields.OUTBOX_DROPPED, 1));
+			// remove events that were delivered to every listener but not removed, for
+			// example because a server stopped during delivery. Events pending for other
+			// listeners, which may be configured on other servers, are never removed here.
+			// equality with the empty list can use the pending index, unlike $size
+			outbox.remove(delivered(new BasicDBObject(
+					Fields.OUTBOX_PENDING, Collections.emptyList())));
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (pollMS > 0) {
+			executor = new ScheduledThreadPoolExecutor(workers.size(), new ThreadFactoryBuilder()
+					.setDaemon(true).setNameFormat("ws-listener-outbox-%d").build());
+			for (final String name: names) {
+				executor.scheduleWithFixedDelay(() -> deliverAll(name),
+						pollMS, pollMS, TimeUnit.MILLISECONDS);
+			}
+		} else {
+			executor = null;
+		}
+	}
+
+	/** Stop delivering events. Events that have not been delivered remain in the outbox.
+	 */
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Get the names of the listeners, in the order they were provided.
+	 * @return the listener names.
+	 */
+	public List<String> getListenerNames() {
+		return names;
+	}
+
+	/** Get the delivery status of each listener.
+	 * @return the status of each listener, in the order the listeners were provided.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public List<ListenerStatus> getStatus() throws WorkspaceCommunicationException {
+		final long now = System.currentTimeMillis();
+		final List<ListenerStatus> ret = new LinkedList<>();
+		try {
+			for (final Worker w: workers.values()) {
+				final BasicDBObject q = new BasicDBObject(Fields.OUTBOX_PENDING, w.name);
+				final long pending = outbox.count(q);
+				final long dropped = outbox.count(
+						new BasicDBObject(Fields.OUTBOX_DROPPED, w.name));
+				final DBObject oldest = outbox.findOne(q,
+						new BasicDBObject(Fields.OUTBOX_TIME, 1),
+						new BasicDBObject(Fields.MONGO_ID, 1));
+				ret.add(new ListenerStatus(
+						w.name,
+						pending,
+						oldest == null ? null :
+							now - ((Date) oldest.get(Fields.OUTBOX_TIME)).getTime(),
+						w.delivered.get(),
+						w.failed.get(),
+						dropped,
+						w.lastError));
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return ret;
+	}
+
+	private void deliverAll(final String name) {
+		// any exception thrown here would stop the worker
+		try {
+			while (deliver(name) == BATCH_SIZE);
+		} catch (Exception e) {
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Error delivering events to listener %s: %s", name, e.getMessage()), e);
+		}
+	}
+
+	/** Deliver the next batch of pending events to a listener. This method is called by the
+	 * workers and is public for testing purposes.
+	 * @param name the name of the listener.
+	 * @return the number of events claimed for delivery.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	public int deliver(final String name) throws WorkspaceCommunicationException {
+		final Worker w = workers.get(name);
+		if (w == null) {
+			throw new IllegalArgumentException("No such listener: " + name);
+		}
+		try {
+			final List<DBObject> events = claim(name);
+			int delivered = 0;
+			while (delivered < events.size()) {
+				final int end = nextGroup(events, delivered);
+				final List<DBObject> group = events.subList(delivered, end);
+				try {
+					send(w.listener, group);
+				} catch (Exception e) {
+					fail(w, group, e);
+					// let other servers deliver the remaining events in order
+					release(name, events.subList(end, events.size()));
+					removeDelivered(events);
+					return events.size();
+				}
+				complete(name, group);
+				w.delivered.addAndGet(group.size());
+				delivered = end;
+			}
+			removeDelivered(events);
+			return events.size();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private List<DBObject> claim(final String name) {
+		final Date now = new Date();
+		final String lease = Fields.OUTBOX_LEASE + "." + name;
+		final String claim = Fields.OUTBOX_CLAIM + "." + name;
+		final List<Object> ids = new LinkedList<>();
+		// another server can claim some of the same events between the find and the update
+		// below, so claims can interleave and ordering across servers is best effort
+		for (final DBObject o: outbox.find(
+				new BasicDBObject(Fields.OUTBOX_PENDING, name),
+				new BasicDBObject(lease, 1))
+				.sort(new BasicDBObject(Fields.MONGO_ID, 1))
+				.limit(BATCH_SIZE)) {
+			final DBObject leases = (DBObject) o.get(Fields.OUTBOX_LEASE);
+			final Date leased = leases == null ? null : (Date) leases.get(name);
+			// stop at a leased event so events are delivered in order
+			if (leased != null && leased.after(now)) {
+				break;
+			}
+			ids.add(o.get(Fields.MONGO_ID));
+		}
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final String token = UUID.randomUUID().toString();
+		outbox.update(
+				new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", ids))
+						.append(Fields.OUTBOX_PENDING, name)
+						.append("$or", Arrays.asList(
+								new BasicDBObject(lease, new BasicDBObject("$exists", false)),
+								new BasicDBObject(lease, new BasicDBObject("$lte", now)))),
+				new BasicDBObject("$set", new BasicDBObject(
+						lease, new Date(now.getTime() + leaseMS))
+						.append(claim, token)),
+				false,
+				true);
+		return outbox.find(new BasicDBObject(claim, token))
+				.sort(new BasicDBObject(Fields.MONGO_ID, 1)).toArray();
+	}
+
+	// returns the end of the group of events starting at start that can be sent at once
+	private int nextGroup(final List<DBObject> events, final int start) {
+		final DBObject first = events.get(start);
+		if (!SAVE_OBJ.equals(first.get(Fields.OUTBOX_EVENT))) {
+			return start + 1;
+		}
+		final Object isPublic = ((DBObject) first.get(Fields.OUTBOX_ARGS)).get(PUBLIC);
+		int end = start + 1;
+		while (end < events.size() &&
+				SAVE_OBJ.equals(events.get(end).get(Fields.OUTBOX_EVENT)) &&
+				isPublic.equals(((DBObject) events.get(end).get(Fields.OUTBOX_ARGS))
+						.get(PUBLIC))) {
+			end++;
+		}
+		return end;
+	}
+
+	private void complete(final String name, final List<DBObject> events) {
+		outbox.update(
+				new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", ids(events))),
+				new BasicDBObject("$pull", new BasicDBObject(Fields.OUTBOX_PENDING, name))
+						.append("$unset", perListener(name)),
+				false,
+				true);
+	}
+
+	private void release(final String name, final List<DBObject> events) {
+		if (!events.isEmpty()) {
+			outbox.update(
+					new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", ids(events))),
+					new BasicDBObject("$unset", perListener(name)),
+					false,
+					true);
+		}
+	}
+
+	private void fail(final Worker w, final List<DBObject> events, final Exception e) {
+		w.failed.incrementAndGet();
+		w.lastError = e.getClass().getName() + ": " + e.getMessage();
+		final String tries = Fields.OUTBOX_TRIES + "." + w.name;
+		outbox.update(
+				new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", ids(events))),
+				new BasicDBObject("$inc", new BasicDBObject(tries, 1)),
+				false,
+				true);
+		// group the events by the number of attempts so far
+		final Map<Integer, List<Object>> attempts = new TreeMap<>();
+		for (final DBObject o: outbox.find(
+				new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", ids(events))),
+				new BasicDBObject(tries, 1))) {
+			final int t = ((Number) ((DBObject) o.get(Fields.OUTBOX_TRIES)).get(w.name))
+					.intValue();
+			attempts.computeIfAbsent(t, k -> new LinkedList<>()).add(o.get(Fields.MONGO_ID));
+		}
+		final List<Object> expired = new LinkedList<>();
+		final long now = System.currentTimeMillis();
+		for (final int t: attempts.keySet()) {
+			if (maxAttempts > 0 && t >= maxAttempts) {
+				expired.addAll(attempts.get(t));
+			} else {
+				// the lease blocks later events until the retry
+				outbox.update(
+						new BasicDBObject(Fields.MONGO_ID,
+								new BasicDBObject("$in", attempts.get(t))),
+						new BasicDBObject("$set", new BasicDBObject(
+								Fields.OUTBOX_LEASE + "." + w.name,
+								new Date(now + retryDelay(t)))),
+						false,
+						true);
+			}
+		}
+		if (expired.isEmpty()) {
+			LoggerFactory.getLogger(getClass()).warn(String.format(
+					"Failed delivering %s events to listener %s: %s",
+					events.size(), w.name, w.lastError));
+		} else {
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Dropping %s events for listener %s after %s attempts: %s",
+					expired.size(), w.name, maxAttempts, w.lastError), e);
+			// dropped events are kept in the outbox so they can be counted and inspected
+			outbox.update(
+					new BasicDBObject(Fields.MONGO_ID, new BasicDBObject("$in", expired)),
+					new BasicDBObject("$pull", new BasicDBObject(Fields.OUTBOX_PENDING, w.name))
+							.append("$addToSet", new BasicDBObject(
+									Fields.OUTBOX_DROPPED, w.name))
+							.append("$unset", perListener(w.name)),
+					false,
+					true);
+		}
+	}
+
+	// the delay before retrying events that have failed the given number of times
+	private long retryDelay(final int attempts) {
+		final long max = Math.max(retryMS, MAX_RETRY_DELAY_MS);
+		// stop doubling before the shift can overflow
+		return Math.min(max, retryMS << Math.min(attempts - 1, 30));
+	}
+
+	private BasicDBObject perListener(final String name) {
+		return new BasicDBObject(Fields.OUTBOX_LEASE + "." + name, "")
+				.append(Fields.OUTBOX_CLAIM + "." + name, "")
+				.append(Fields.OUTBOX_TRIES + "." + name, "");
+	}
+
+	private List<Object> ids(final List<DBObject> events) {
+		return events.stream().map(e -> e.get(Fields.MONGO_ID)).collect(Collectors.toList());
+	}
+
+	// only checks the claimed events, rather than searching the whole outbox
+	private void removeDelivered(final List<DBObject> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		outbox.remove(delivered(new BasicDBObject(Fields.MONGO_ID,
+				new BasicDBObject("$in", ids(events)))
+				.append(Fields.OUTBOX_PENDING, new BasicDBObject("$size", 0))));
+	}
+
+	// adds the condition that there are no dropped events for any listener to a query
+	private static BasicDBObject delivered(final BasicDBObject query) {
+		return query.append(Fields.OUTBOX_DROPPED + ".0", new BasicDBObject("$exists", false));
+	}
+
+	private void send(final WorkspaceEventListener l, final List<DBObject> events) {
+		final DBObject first = events.get(0);
+		final String event = (String) first.get(Fields.OUTBOX_EVENT);
+		final DBObject a = (DBObject) first.get(Fields.OUTBOX_ARGS);
+		if (SAVE_OBJ.equals(event)) {
+			l.saveObjects(events.stream()
+					.map(e -> toObjInfo((DBObject) ((DBObject) e.get(Fields.OUTBOX_ARGS))
+							.get(OBJ_INFO)))
+					.collect(Collectors.toList()),
+					(Boolean) a.get(PUBLIC));
+		} else if (CREATE_WS.equals(event)) {
+			l.createWorkspace(user(a), wsid(a), time(a));
+		} else if (CLONE_WS.equals(event)) {
+			l.cloneWorkspace(user(a), wsid(a), (Boolean) a.get(PUBLIC), time(a));
+		} else if (SET_WS_META.equals(event)) {
+			l.setWorkspaceMetadata(user(a), wsid(a), time(a));
+		} else if (LOCK_WS.equals(event)) {
+			l.lockWorkspace(user(a), wsid(a), time(a));
+		} else if (RENAME_WS.equals(event)) {
+			l.renameWorkspace(user(a), wsid(a), (String) a.get(NAME), time(a));
+		} else if (SET_GLOBAL_PERM.equals(event)) {
+			l.setGlobalPermission(user(a), wsid(a), perm(a), time(a));
+		} else if (SET_PERMS.equals(event)) {
+			@SuppressWarnings("unchecked")
+			final List<String> users = (List<String>) a.get(USERS);
+			l.setPermissions(user(a), wsid(a), perm(a), users.stream()
+					.map(u -> new WorkspaceUser(u)).collect(Collectors.toList()), time(a));
+		} else if (SET_WS_DESC.equals(event)) {
+			l.setWorkspaceDescription(user(a), wsid(a), time(a));
+		} else if (SET_WS_OWNER.equals(event)) {
+			l.setWorkspaceOwner(user(a), wsid(a), new WorkspaceUser((String) a.get(NEW_USER)),
+					Optional.fromNullable((String) a.get(NAME)), time(a));
+		} else if (SET_WS_DEL.equals(event)) {
+			l.setWorkspaceDeleted(user(a), wsid(a), (Boolean) a.get(DELETE),
+					(Long) a.get(MAX_OBJ_ID), time(a));
+		} else if (RENAME_OBJ.equals(event)) {
+			l.renameObject(user(a), wsid(a), (Long) a.get(OBJ_ID), (String) a.get(NAME),
+					time(a));
+		} else if (REVERT_OBJ.equals(event)) {
+			l.revertObject(toObjInfo((DBObject) a.get(OBJ_INFO)), (Boolean) a.get(PUBLIC));
+		} else if (SET_OBJ_DEL.equals(event)) {
+			l.setObjectDeleted(user(a), wsid(a), (Long) a.get(OBJ_ID), (Boolean) a.get(DELETE),
+					time(a));
+		} else if (COPY_VER.equals(event)) {
+			l.copyObject(toObjInfo((DBObject) a.get(OBJ_INFO)), (Boolean) a.get(PUBLIC));
+		} else if (COPY_OBJ.equals(event)) {
+			l.copyObject(user(a), wsid(a), (Long) a.get(OBJ_ID), (Integer) a.get(VER), time(a),
+					(Boolean) a.get(PUBLIC));
+		} else {
+			// only possible if a newer server version wrote the event
+			throw new IllegalStateException("Unknown event type: " + event);
+		}
+	}
+
+	private static WorkspaceUser user(final DBObject args) {
+		final String user = (String) args.get(USER);
+		return user == null ? null : new WorkspaceUser(user);
+	}
+
+	private static long wsid(final DBObject args) {
+		return (Long) args.get(WS_ID);
+	}
+
+	private static Instant time(final DBObject args) {
+		return ((Date) args.get(TIME)).toInstant();
+	}
+
+	private static Permission perm(final DBObject args) {
+		return Permission.fromInt((Integer) args.get(PERM));
+	}
+
+	private static DBObject toDoc(final ObjectInformation oi) {
+		return new BasicDBObject(OI_ID, oi.getObjectId())
+				.append(OI_NAME, oi.getObjectName())
+				.append(OI_TYPE, oi.getTypeString())
+				.append(OI_SAVED, oi.getSavedDate())
+				.append(OI_VER, oi.getVersion())
+				.append(OI_SAVED_BY, oi.getSavedBy().getUser())
+				.append(OI_WS_ID, oi.getWorkspaceId())
+				.append(OI_WS_NAME, oi.getWorkspaceName())
+				// object information is only sent for new versions, which can't be written
+				// to locked or deleted workspaces
+				.append(OI_WS_LOCKED, false)
+				.append(OI_WS_DELETED, false)
+				.append(OI_CHKSUM, oi.getCheckSum())
+				.append(OI_SIZE, oi.getSize())
+				.append(OI_META, oi.getUserMetaData().getMetadata().entrySet().stream()
+						.map(e -> Arrays.asList(e.getKey(), e.getValue()))
+						.collect(Collectors.toList()));
+	}
+
+	private static ObjectInformation toObjInfo(final DBObject o) {
+		@SuppressWarnings("unchecked")
+		final List<List<String>> meta = (List<List<String>>) o.get(OI_META);
+		final Map<String, String> m = new LinkedHashMap<>();
+		for (final List<String> kv: meta) {
+			m.put(kv.get(0), kv.get(1));
+		}
+		return new ObjectInformation(
+				(Long) o.get(OI_ID),
+				(String) o.get(OI_NAME),
+				(String) o.get(OI_TYPE),
+				(Date) o.get(OI_SAVED),
+				(Integer) o.get(OI_VER),
+				new WorkspaceUser((String) o.get(OI_SAVED_BY)),
+				new ResolvedWorkspaceID(
+						(Long) o.get(OI_WS_ID),
+						(String) o.get(OI_WS_NAME),
+						(Boolean) o.get(OI_WS_LOCKED),
+						(Boolean) o.get(OI_WS_DELETED)),
+				(String) o.get(OI_CHKSUM),
+				(Long) o.get(OI_SIZE),
+				new UncheckedUserMetadata(m));
+	}
+
+	private DBObject event(final String event, final BasicDBObject args) {
+		return new BasicDBObject(Fields.OUTBOX_EVENT, event)
+				.append(Fields.OUTBOX_ARGS, args)
+				.append(Fields.OUTBOX_TIME, new Date())
+				.append(Fields.OUTBOX_PENDING, names);
+	}
+
+	private void write(final List<DBObject> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		try {
+			outbox.insert(events);
+		} catch (MongoException me) {
+			// as for other listeners, the exception is thrown in the calling thread
+			throw new RuntimeException("Failed writing events to the listener outbox: " +
+					me.getMessage(), me);
+		}
+	}
+
+	private void write(final String event, final BasicDBObject args) {
+		write(Arrays.asList(event(event, args)));
+	}
+
+	private static BasicDBObject args(
+			final WorkspaceUser user,
+			final long id,
+			final Instant time) {
+		return new BasicDBObject(USER, user == null ? null : user.getUser())
+				.append(WS_ID, id)
+				.append(TIME, Date.from(time));
+	}
+
+	@Override
+	public void createWorkspace(final WorkspaceUser user, final long id, final Instant time) {
+		write(CREATE_WS, args(user, id, time));
+	}
+
+	@Override
+	public void cloneWorkspace(
+			final WorkspaceUser user,
+			final long id,
+			final boolean isPublic,
+			final Instant time) {
+		write(CLONE_WS, args(user, id, time).append(PUBLIC, isPublic));
+	}
+
+	@Override
+	public void setWorkspaceMetadata(final WorkspaceUser user, final long id, final Instant time) {
+		write(SET_WS_META, args(user, id, time));
+	}
+
+	@Override
+	public void lockWorkspace(final WorkspaceUser user, final long id, final Instant time) {
+		write(LOCK_WS, args(user, id, time));
+	}
+
+	@Override
+	public void renameWorkspace(
+			final WorkspaceUser user,
+			final long id,
+			final String newname,
+			final Instant time) {
+		write(RENAME_WS, args(user, id, time).append(NAME, newname));
+	}
+
+	@Override
+	public void setGlobalPermission(
+			final WorkspaceUser user,
+			final long id,
+			final Permission permission,
+			final Instant time) {
+		write(SET_GLOBAL_PERM, args(user, id, time).append(PERM, permission.getPermission()));
+	}
+
+	@Override
+	public void setPermissions(
+			final WorkspaceUser user,
+			final long id,
+			final Permission permission,
+			final List<WorkspaceUser> users,
+			final Instant time) {
+		write(SET_PERMS, args(user, id, time).append(PERM, permission.getPermission())
+				.append(USERS, users.stream().map(u -> u.getUser())
+						.collect(Collectors.toList())));
+	}
+
+	@Override
+	public void setWorkspaceDescription(
+			final WorkspaceUser user,
+			final long id,
+			final Instant time) {
+		write(SET_WS_DESC, args(user, id, time));
+	}
+
+	@Override
+	public void setWorkspaceOwner(
+			final WorkspaceUser user,
+			final long id,
+			final WorkspaceUser newUser,
+			final Optional<String> newName,
+			final Instant time) {
+		write(SET_WS_OWNER, args(user, id, time).append(NEW_USER, newUser.getUser())
+				.append(NAME, newName.orNull()));
+	}
+
+	@Override
+	public void setWorkspaceDeleted(
+			final WorkspaceUser user,
+			final long id,
+			final boolean delete,
+			final long maxObjectID,
+			final Instant time) {
+		write(SET_WS_DEL, args(user, id, time).append(DELETE, delete)
+				.append(MAX_OBJ_ID, maxObjectID));
+	}
+
+	@Override
+	public void renameObject(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final String newName,
+			final Instant time) {
+		write(RENAME_OBJ, args(user, workspaceId, time).append(OBJ_ID, objectId)
+				.append(NAME, newName));
+	}
+
+	@Override
+	public void revertObject(final ObjectInformation object, final boolean isPublic) {
+		write(REVERT_OBJ, new BasicDBObject(OBJ_INFO, toDoc(object)).append(PUBLIC, isPublic));
+	}
+
+	@Override
+	public void setObjectDeleted(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final boolean delete,
+			final Instant time) {
+		write(SET_OBJ_DEL, args(user, workspaceId, time).append(OBJ_ID, objectId)
+				.append(DELETE, delete));
+	}
+
+	@Override
+	public void copyObject(final ObjectInformation object, final boolean isPublic) {
+		write(COPY_VER, new BasicDBObject(OBJ_INFO, toDoc(object)).append(PUBLIC, isPublic));
+	}
+
+	@Override
+	public void copyObject(
+			final WorkspaceUser user,
+			final long workspaceId,
+			final long objectId,
+			final int latestVersion,
+			final Instant time,
+			final boolean isPublic) {
+		write(COPY_OBJ, args(user, workspaceId, time).append(OBJ_ID, objectId)
+				.append(VER, latestVersion).append(PUBLIC, isPublic));
+	}
+
+	@Override
+	public void saveObject(final ObjectInformation object, final boolean isPublic) {
+		saveObjects(Arrays.asList(object), isPublic);
+	}
+
+	@Override
+	public void saveObjects(final List<ObjectInformation> objects, final boolean isPublic) {
+		write(objects.stream().map(o -> event(SAVE_OBJ,
+				new BasicDBObject(OBJ_INFO, toDoc(o)).append(PUBLIC, isPublic)))
+				.collect(Collectors.toList()));
+	}
+}
@@ -0,0 +1,456 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+import static us.kbase.workspace.database.mongo.ObjectInfoUtils.metaMongoArrayToHash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** An inverted index from user metadata key / value pairs to the workspaces and object versions
+ * with that metadata. Filtering on several metadata entries intersects the sorted lists of
+ * workspaces or versions for each entry, rather than reading every workspace or version with
+ * one of the entries and checking the others.
+ *
+ * The index is written before the workspace or version records and entries are never removed
+ * when records are written, so the index may contain entries that don't match a record but
+ * never misses a record. Queries must therefore still check the metadata of the records found
+ * via the index. Stale workspace entries found by queries are removed by
+ * {@link #removeStaleWorkspaceEntries(Collection, Map)}.
+ *
+ * Workspaces and versions saved by earlier versions of the workspace are not indexed. On
+ * startup, if the database has not been marked as backfilled, they are indexed in the
+ * background and the index cannot be used for queries until the backfill is complete.
+ */
+class MetadataIndex {
+
+	private static final int BACKFILL_BATCH_SIZE = 1000;
+	/* Workspace entries written more recently than this are never removed as stale, since the
+	 * record they describe may not have been written yet. Also covers clock differences between
+	 * the database server, which sets the entry time, and the workspace servers.
+	 */
+	private static final long STALE_ENTRY_GRACE_MS = 10 * 60 * 1000;
+
+	private final DBCollection workspaces;
+	private final DBCollection versions;
+	private final DBCollection wsIndex;
+	private final DBCollection objIndex;
+	private final DBCollection config;
+	private volatile boolean ready = false;
+
+	/** Create the index. If the database is not yet marked as backfilled and any workspaces or
+	 * versions have metadata, a backfill is started in the background.
+	 * @param workspaces the workspaces collection.
+	 * @param versions the versions collection.
+	 * @param wsIndex the collection holding the index for workspaces.
+	 * @param objIndex the collection holding the index for object versions.
+	 * @param config the configuration collection. The configuration document must exist.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	MetadataIndex(
+			final DBCollection workspaces,
+			final DBCollection versions,
+			final DBCollection wsIndex,
+			final DBCollection objIndex,
+			final DBCollection config)
+			throws WorkspaceCommunicationException {
+		this.workspaces = requireNonNull(workspaces, "workspaces");
+		this.versions = requireNonNull(versions, "versions");
+		this.wsIndex = requireNonNull(wsIndex, "wsIndex");
+		this.objIndex = requireNonNull(objIndex, "objIndex");
+		this.config = requireNonNull(config, "config");
+		try {
+			final DBObject cfg = config.findOne(
+					new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+					new BasicDBObject(Fields.CONFIG_META_INDEX_BACKFILLED, 1));
+			if (Boolean.TRUE.equals(cfg.get(Fields.CONFIG_META_INDEX_BACKFILLED))) {
+				ready = true;
+			} else if (workspaces.findOne(getHasMetaQuery(Fields.WS_META)) == null &&
+					versions.findOne(getHasMetaQuery(Fields.VER_META)) == null) {
+				setBackfilled();
+			} else {
+				final ExecutorService exe = Executors.newSingleThreadExecutor(
+						new ThreadFactoryBuilder().setDaemon(true)
+								.setNameFormat("ws-meta-backfill-%d").build());
+				exe.execute(() -> backfill());
+				exe.shutdown();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Returns true if the metadata of all workspaces and versions is indexed and the index
+	 * can be used for queries.
+	 * @return true if the index is ready.
+	 */
+	boolean isReady() {
+		return ready;
+	}
+
+	/** Get the indexes for the collection holding the index for workspaces.
+	 * @return the index specifications, the first of which must be unique.
+	 */
+	static List<DBObject> getWorkspaceIndexSpecs() {
+		final List<DBObject> specs = new LinkedList<>();
+		// find workspaces by metadata
+		specs.add(new BasicDBObject(Fields.META_IDX_KEY, 1).append(Fields.META_IDX_VALUE, 1)
+				.append(Fields.META_IDX_WS_ID, 1));
+		// remove stale entries from a workspace
+		specs.add(new BasicDBObject(Fields.META_IDX_WS_ID, 1).append(Fields.META_IDX_KEY, 1));
+		return specs;
+	}
+
+	/** Get the index for the collection holding the index for object versions. The index is
+	 * unique.
+	 * @return the index specification.
+	 */
+	static DBObject getObjectIndexSpec() {
+		// find versions by metadata, sorted the same way as when listing objects
+		return new BasicDBObject(Fields.META_IDX_KEY, 1).append(Fields.META_IDX_VALUE, 1)
+				.append(Fields.META_IDX_WS_ID, 1).append(Fields.META_IDX_ID, 1)
+				.append(Fields.META_IDX_VER, -1);
+	}
+
+	/** Index metadata for a workspace. Must be called before the metadata is written to the
+	 * workspace record.
+	 * @param workspaceID the workspace ID.
+	 * @param meta the metadata.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	void addWorkspace(final long workspaceID, final Map<String, String> meta)
+			throws WorkspaceCommunicationException {
+		if (meta.isEmpty()) {
+			return; // empty bulk writes are an error
+		}
+		final BulkWriteOperation bulk = wsIndex.initializeUnorderedBulkOperation();
+		for (final Entry<String, String> e: meta.entrySet()) {
+			final DBObject entry = new BasicDBObject(Fields.META_IDX_KEY, e.getKey())
+					.append(Fields.META_IDX_VALUE, e.getValue())
+					.append(Fields.META_IDX_WS_ID, workspaceID);
+			// refreshing the time of an existing entry prevents removal as a stale entry
+			bulk.find(entry).upsert().updateOne(new BasicDBObject("$currentDate",
+					new BasicDBObject(Fields.META_IDX_TIME, true)));
+		}
+		try {
+			bulk.execute();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Remove entries from the index for workspaces whose records no longer have the
+	 * metadata. Entries written within the last ten minutes are kept, since the records they
+	 * describe may not have been written yet.
+	 * 
+	 * Entries are not removed when metadata is updated or removed, since a concurrent update
+	 * of the same key could then remove the entry for the value that ends up in the record.
+	 * Instead, queries pass the workspaces that the index returned but that did not match the
+	 * query to this method.
+	 * @param workspaceIDs the IDs of the workspaces to check.
+	 * @param meta the metadata entries to check.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	void removeStaleWorkspaceEntries(
+			final Collection<Long> workspaceIDs,
+			final Map<String, String> meta)
+			throws WorkspaceCommunicationException {
+		if (workspaceIDs.isEmpty()) {
+			return;
+		}
+		final Date cutoff = new Date(System.currentTimeMillis() - STALE_ENTRY_GRACE_MS);
+		final BulkWriteOperation bulk = wsIndex.initializeUnorderedBulkOperation();
+		boolean empty = true;
+		try {
+			for (final DBObject ws: workspaces.find(
+					new BasicDBObject(Fields.WS_ID, new BasicDBObject("$in", workspaceIDs)),
+					new BasicDBObject(Fields.WS_ID, 1).append(Fields.WS_META, 1))) {
+				@SuppressWarnings("unchecked")
+				final Map<String, String> current = metaMongoArrayToHash(
+						(List<Object>) ws.get(Fields.WS_META));
+				for (final Entry<String, String> e: meta.entrySet()) {
+					if (!e.getValue().equals(current.get(e.getKey()))) {
+						// an entry rewritten since the record was read is newer than the cutoff
+						bulk.find(new BasicDBObject(Fields.META_IDX_KEY, e.getKey())
+								.append(Fields.META_IDX_VALUE, e.getValue())
+								.append(Fields.META_IDX_WS_ID, ws.get(Fields.WS_ID))
+								.append(Fields.META_IDX_TIME, new BasicDBObject("$lt", cutoff)))
+								.remove();
+						empty = false;
+					}
+				}
+			}
+			if (!empty) { // empty bulk writes are an error
+				bulk.execute();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Index the metadata of new versions. Must be called before the versions are saved.
+	 * Version metadata never changes, so index entries for versions are never removed.
+	 * @param versions the version documents.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	void addVersions(final Collection<DBObject> versions)
+			throws WorkspaceCommunicationException {
+		final BulkWriteOperation bulk = objIndex.initializeUnorderedBulkOperation();
+		boolean empty = true;
+		for (final DBObject v: versions) {
+			@SuppressWarnings("unchecked")
+			final Map<String, String> meta = metaMongoArrayToHash(
+					(List<Object>) v.get(Fields.VER_META));
+			for (final Entry<String, String> e: meta.entrySet()) {
+				final DBObject entry = new BasicDBObject(Fields.META_IDX_KEY, e.getKey())
+						.append(Fields.META_IDX_VALUE, e.getValue())
+						.append(Fields.META_IDX_WS_ID, v.get(Fields.VER_WS_ID))
+						.append(Fields.META_IDX_ID, v.get(Fields.VER_ID))
+						.append(Fields.META_IDX_VER, v.get(Fields.VER_VER));
+				bulk.find(entry).upsert().replaceOne(entry);
+				empty = false;
+			}
+		}
+		if (empty) {
+			return; // empty bulk writes are an error
+		}
+		try {
+			bulk.execute();
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Get the workspaces that have all of the given metadata entries. Since the index may
+	 * contain stale entries, the metadata of the workspaces must still be checked.
+	 * @param workspaceIDs the workspaces to search.
+	 * @param meta the metadata entries. At least one entry is required.
+	 * @return the IDs of the workspaces that are indexed with all of the metadata entries.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	Set<Long> getWorkspaces(final Collection<Long> workspaceIDs, final Map<String, String> meta)
+			throws WorkspaceCommunicationException {
+		Set<Long> ret = null;
+		try {
+			for (final Entry<String, String> e: meta.entrySet()) {
+				final Set<Long> ids = new HashSet<>();
+				final DBObject q = new BasicDBObject(Fields.META_IDX_KEY, e.getKey())
+						.append(Fields.META_IDX_VALUE, e.getValue())
+						.append(Fields.META_IDX_WS_ID, new BasicDBObject("$in",
+								ret == null ? workspaceIDs : ret));
+				for (final DBObject o: wsIndex.find(q, new BasicDBObject(
+						Fields.META_IDX_WS_ID, 1).append(Fields.MONGO_ID, 0))) {
+					ids.add((Long) o.get(Fields.META_IDX_WS_ID));
+				}
+				ret = ids;
+				if (ret.isEmpty()) {
+					break;
+				}
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		if (ret == null) {
+			throw new IllegalArgumentException("At least one metadata entry is required");
+		}
+		return ret;
+	}
+
+	/** Get the object versions that have all of the given metadata entries, in order of
+	 * workspace ID, object ID, and descending version. Since the index may contain stale
+	 * entries, the metadata of the versions must still be checked.
+	 * @param workspaceIDs the workspaces to search.
+	 * @param meta the metadata entries. At least one entry is required.
+	 * @param restriction further restrictions on the query on the index, which may only
+	 * include the {@link Fields#META_IDX_WS_ID}, {@link Fields#META_IDX_ID}, and
+	 * {@link Fields#META_IDX_VER} fields. May be empty.
+	 * @return the matching versions.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	VersionMatches getVersions(
+			final long[] workspaceIDs,
+			final Map<String, String> meta,
+			final DBObject restriction)
+			throws WorkspaceCommunicationException {
+		if (meta.isEmpty()) {
+			throw new IllegalArgumentException("At least one metadata entry is required");
+		}
+		final DBObject sort = new BasicDBObject(Fields.META_IDX_WS_ID, 1)
+				.append(Fields.META_IDX_ID, 1).append(Fields.META_IDX_VER, -1);
+		final DBObject proj = new BasicDBObject(Fields.META_IDX_WS_ID, 1)
+				.append(Fields.META_IDX_ID, 1).append(Fields.META_IDX_VER, 1)
+				.append(Fields.MONGO_ID, 0);
+		final List<DBCursor> cursors = new ArrayList<>();
+		try {
+			for (final Entry<String, String> e: meta.entrySet()) {
+				final DBObject q = new BasicDBObject(restriction.toMap());
+				q.put(Fields.META_IDX_KEY, e.getKey());
+				q.put(Fields.META_IDX_VALUE, e.getValue());
+				q.put(Fields.META_IDX_WS_ID, new BasicDBObject("$in", workspaceIDs));
+				cursors.add(objIndex.find(q, proj).sort(sort).hint(getObjectIndexSpec()));
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return new VersionMatches(cursors);
+	}
+
+	/** The object versions matching a set of metadata entries, found by intersecting the
+	 * sorted index entries for each metadata entry.
+	 */
+	static class VersionMatches implements AutoCloseable {
+
+		private final List<DBCursor> cursors;
+		private boolean done = false;
+
+		private VersionMatches(final List<DBCursor> cursors) {
+			this.cursors = cursors;
+		}
+
+		/** Get the next matching version.
+		 * @return the version, or null if there are no more matching versions.
+		 * @throws WorkspaceCommunicationException if a communication error occurs.
+		 */
+		Reference next() throws WorkspaceCommunicationException {
+			if (done) {
+				return null;
+			}
+			try {
+				// each cursor has consumed the previous match, if any
+				Reference target = advance(cursors.get(0), null);
+				int matched = 1;
+				int i = 0;
+				while (target != null && matched < cursors.size()) {
+					i = (i + 1) % cursors.size();
+					final Reference r = advance(cursors.get(i), target);
+					if (r != null && compare(r, target) > 0) {
+						matched = 1;
+					} else {
+						matched++;
+					}
+					target = r;
+				}
+				if (target == null) {
+					close();
+				}
+				return target;
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+		}
+
+		// returns the first entry not before the target, or null if there are none
+		private static Reference advance(final DBCursor cur, final Reference target) {
+			while (cur.hasNext()) {
+				final DBObject o = cur.next();
+				final Reference r = new Reference(
+						(Long) o.get(Fields.META_IDX_WS_ID),
+						(Long) o.get(Fields.META_IDX_ID),
+						(Integer) o.get(Fields.META_IDX_VER));
+				if (target == null || compare(r, target) >= 0) {
+					return r;
+				}
+			}
+			return null;
+		}
+
+		// the order of the index entries
+		private static int compare(final Reference r1, final Reference r2) {
+			int c = Long.compare(r1.getWorkspaceID(), r2.getWorkspaceID());
+			if (c == 0) {
+				c = Long.compare(r1.getObjectID(), r2.getObjectID());
+			}
+			if (c == 0) {
+				c = Integer.compare(r2.getVersion(), r1.getVersion());
+			}
+			return c;
+		}
+
+		@Override
+		public void close() {
+			done = true;
+			for (final DBCursor cur: cursors) {
+				cur.close();
+			}
+		}
+	}
+
+	private static DBObject getHasMetaQuery(final String field) {
+		return new BasicDBObject(field + Fields.FIELD_SEP + "0",
+				new BasicDBObject("$exists", true));
+	}
+
+	private void backfill() {
+		try {
+			long wscount = 0;
+			for (final DBObject ws: workspaces.find(getHasMetaQuery(Fields.WS_META),
+					new BasicDBObject(Fields.WS_ID, 1).append(Fields.WS_META, 1))) {
+				@SuppressWarnings("unchecked")
+				final Map<String, String> meta = metaMongoArrayToHash(
+						(List<Object>) ws.get(Fields.WS_META));
+				addWorkspace((Long) ws.get(Fields.WS_ID), meta);
+				wscount++;
+			}
+			final DBCursor cur = versions.find(getHasMetaQuery(Fields.VER_META),
+					new BasicDBObject(Fields.VER_WS_ID, 1).append(Fields.VER_ID, 1)
+							.append(Fields.VER_VER, 1).append(Fields.VER_META, 1));
+			final List<DBObject> batch = new LinkedList<>();
+			long vercount = 0;
+			for (final DBObject v: cur) {
+				batch.add(v);
+				if (batch.size() == BACKFILL_BATCH_SIZE) {
+					addVersions(batch);
+					vercount += batch.size();
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				addVersions(batch);
+				vercount += batch.size();
+			}
+			setBackfilled();
+			LoggerFactory.getLogger(getClass()).info(
+					"Indexed the metadata of {} workspaces and {} object versions",
+					wscount, vercount);
+		} catch (RuntimeException | WorkspaceCommunicationException e) {
+			// the index will not be used until a backfill completes on a later startup
+			LoggerFactory.getLogger(getClass()).error(
+					"Failed to index the metadata of workspaces and object versions", e);
+		}
+	}
+
+	private void setBackfilled() {
+		config.update(new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+				new BasicDBObject("$set",
+						new BasicDBObject(Fields.CONFIG_META_INDEX_BACKFILLED, true)));
+		ready = true;
+	}
+}
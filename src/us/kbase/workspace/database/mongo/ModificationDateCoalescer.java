@@ -0,0 +1,122 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Coalesces workspace modification date updates. The first update for a workspace is written
+ * immediately and opens a window. Further updates for the workspace within the window are
+ * held, and the latest of them is written once the window closes.
+ *
+ * Held updates are written by {@link #flush()}, which is run by a JVM shutdown hook once the
+ * first window opens, so held updates survive an orderly shutdown. A held update that fails
+ * to write is logged rather than reported to the caller.
+ */
+class ModificationDateCoalescer {
+
+	/** Writes a workspace modification date. */
+	interface DateWriter {
+
+		/** Write a modification date. Implementations must not move the date backwards, as
+		 * held dates may be written after dates written by other servers.
+		 * @param workspaceID the workspace to update.
+		 * @param date the modification date.
+		 * @throws WorkspaceCommunicationException if the date could not be written.
+		 */
+		void write(long workspaceID, Date date) throws WorkspaceCommunicationException;
+	}
+
+	private final DateWriter writer;
+	// workspace ID -> the held date, or null if no update has arrived in the open window
+	private final Map<Long, Date> open = new HashMap<>();
+	private final ScheduledExecutorService scheduler;
+	private final AtomicBoolean hooked = new AtomicBoolean(false);
+
+	/** Create the coalescer.
+	 * @param writer the writer for modification dates.
+	 */
+	ModificationDateCoalescer(final DateWriter writer) {
+		this.writer = requireNonNull(writer, "writer");
+		// threads are only started when the first window opens
+		scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("ws-moddate-%d").build());
+	}
+
+	/** Update a workspace's modification date.
+	 * @param workspaceID the workspace to update.
+	 * @param date the modification date.
+	 * @param windowMS the length of the coalescing window in milliseconds.
+	 * @throws WorkspaceCommunicationException if the date is written immediately and
+	 * the write fails.
+	 */
+	void update(final long workspaceID, final Date date, final long windowMS)
+			throws WorkspaceCommunicationException {
+		requireNonNull(date, "date");
+		synchronized (open) {
+			if (open.containsKey(workspaceID)) {
+				final Date held = open.get(workspaceID);
+				if (held == null || date.after(held)) {
+					open.put(workspaceID, date);
+				}
+				return;
+			}
+			open.put(workspaceID, null);
+		}
+		if (hooked.compareAndSet(false, true)) {
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(() -> flush(), "ws-moddate-flush"));
+		}
+		try {
+			writer.write(workspaceID, date);
+		} finally {
+			scheduler.schedule(() -> close(workspaceID), windowMS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/** Write all held modification dates immediately. Updates arriving after the flush are
+	 * written immediately and open new windows as usual.
+	 */
+	void flush() {
+		final Map<Long, Date> held;
+		synchronized (open) {
+			held = new HashMap<>(open);
+			open.clear();
+		}
+		for (final Entry<Long, Date> e: held.entrySet()) {
+			write(e.getKey(), e.getValue());
+		}
+	}
+
+	private void close(final long workspaceID) {
+		final Date held;
+		synchronized (open) {
+			held = open.remove(workspaceID);
+		}
+		write(workspaceID, held);
+	}
+
+	private void write(final long workspaceID, final Date held) {
+		if (held != null) {
+			try {
+				writer.write(workspaceID, held);
+			} catch (WorkspaceCommunicationException | RuntimeException e) {
+				LoggerFactory.getLogger(getClass()).error(String.format(
+						"Failed to update the modification date for workspace %s",
+						workspaceID), e);
+			}
+		}
+	}
+}
@@ -13,11 +13,11 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.Set;
 
@@ -29,6 +29,7 @@ import us.kbase.common.utils.CountingOutputStream;
 import us.kbase.typedobj.core.AbsoluteTypeDefId;
 import us.kbase.typedobj.core.ExtractedMetadata;
 import us.kbase.typedobj.core.MD5;
+import us.kbase.typedobj.core.Restreamable;
 import us.kbase.typedobj.core.SubsetSelection;
 import us.kbase.typedobj.core.TempFilesManager;
 import us.kbase.typedobj.exceptions.ExceededMaxMetadataSizeException;
@@ -55,6 +56,8 @@ import us.kbase.workspace.database.Provenance;
 import us.kbase.workspace.database.Provenance.ExternalData;
 import us.kbase.workspace.database.Provenance.ProvenanceAction;
 import us.kbase.workspace.database.Provenance.SubAction;
+import us.kbase.workspace.database.RecentObjectPosition;
+import us.kbase.workspace.database.RecentObjects;
 import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedObjectID;
 import us.kbase.workspace.database.ResolvedObjectIDNoVer;
@@ -84,11 +87,17 @@ import us.kbase.workspace.database.exceptions.WorkspaceDBInitializationException
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreAuthorizationException;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
 import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
+import us.kbase.workspace.database.mongo.VersionReferenceCache.VersionReferences;
+import us.kbase.workspace.database.refsearch.LongHashSet;
+import us.kbase.workspace.database.refsearch.PackedReference;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
+import com.google.common.cache.CacheStats;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.CommandResult;
 import com.mongodb.DB;
 import com.mongodb.DBCursor;
@@ -123,12 +132,17 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	public static final String COL_WORKSPACE_VERS = CollectionNames.COL_WORKSPACE_VERS;
 	public static final String COL_PROVENANCE = CollectionNames.COL_PROVENANCE;
 	public static final String COL_CONFIG = CollectionNames.COL_CONFIG;
+	public static final String COL_WS_INVALIDATIONS = CollectionNames.COL_WS_INVALIDATIONS;
+	public static final String COL_WS_META_INDEX = CollectionNames.COL_WS_META_INDEX;
+	public static final String COL_OBJ_META_INDEX = CollectionNames.COL_OBJ_META_INDEX;
 	public static final AllUsers ALL_USERS = Workspace.ALL_USERS;
 	
 
 	//TODO CONFIG this should really be configurable
 	private static final long MAX_PROV_SIZE = 1000000;
 	private static final int SCHEMA_VERSION = 1;
+	private static final int MONGO_DUPLICATE_KEY = 11000;
+	private static final int INVALIDATION_LIFETIME_SEC = 3600;
 	
 	private static final ObjectMapper MAPPER = new ObjectMapper();
 	
@@ -137,6 +151,15 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	private final BlobStore blob;
 	private final QueryMethods query;
 	private final ObjectInfoUtils objutils;
+	private final LatestVersionView latestView;
+	private final TypeFields typeFields;
+	private final MetadataIndex metaIndex;
+	private final ObjectIDAllocator idAllocator;
+	private final ModificationDateCoalescer modDates;
+	private WorkspaceResolutionCache wsCache = null;
+	private PermissionSetCache permCache = null;
+	private VersionReferenceCache verCache = null;
+	private IncomingReferenceIndex refIndex = null;
 	
 	private final TempFilesManager tfm;
 	
@@ -176,10 +199,20 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsObj.add(idxSpec(Fields.OBJ_WS_ID, 1, Fields.OBJ_NAME, 1, IDX_UNIQ));
 		//find object by workspace id & object id
 		wsObj.add(idxSpec(Fields.OBJ_WS_ID, 1, Fields.OBJ_ID, 1, IDX_UNIQ));
-		//find recently modified objects
-		wsObj.add(idxSpec(Fields.OBJ_MODDATE, 1));
+		//find object names by prefix, index covers queries
+		wsObj.add(new IndexSpecification(new BasicDBObject(Fields.OBJ_WS_ID, 1)
+				.append(Fields.OBJ_NAME, 1).append(Fields.OBJ_DEL, 1).append(Fields.OBJ_HIDE, 1),
+				getIndexOptions(new String[0])));
+		//find recently modified objects, index covers the scan
+		wsObj.add(new IndexSpecification(ObjectInfoUtils.getRecentIndex(),
+				getIndexOptions(new String[0])));
 		//find object to garbage collect
 		wsObj.add(idxSpec(Fields.OBJ_DEL, 1, Fields.OBJ_REFCOUNTS, 1));
+		//find the latest versions of objects by type
+		wsObj.add(new IndexSpecification(TypeFields.getLatestIndex(),
+				getIndexOptions(new String[] {IDX_SPARSE})));
+		//find objects where the latest version copy may be out of date
+		wsObj.add(idxSpec(Fields.OBJ_LATEST_VER_PENDING, 1, IDX_SPARSE));
 		indexes.put(COL_WORKSPACE_OBJS, wsObj);
 
 		//workspace object version indexes
@@ -190,6 +223,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsVer.add(idxSpec(Fields.VER_WS_ID, 1, Fields.VER_ID, 1, Fields.VER_VER, -1, IDX_UNIQ));
 		//find versions by data object
 		wsVer.add(idxSpec(Fields.VER_TYPE, 1, Fields.VER_CHKSUM, 1));
+		//find versions by type
+		wsVer.add(new IndexSpecification(TypeFields.getVersionIndex(),
+				getIndexOptions(new String[0])));
 		//find versions by user
 		wsVer.add(idxSpec(Fields.VER_SAVEDBY, 1));
 		//determine whether a particular object is referenced by this object
@@ -218,6 +254,27 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		cfg.add(idxSpec(Fields.CONFIG_KEY, 1, IDX_UNIQ));
 		indexes.put(COL_CONFIG, cfg);
 		
+		//workspace invalidation indexes
+		final LinkedList<IndexSpecification> inval = new LinkedList<>();
+		//find recent invalidations and expire old ones
+		inval.add(new IndexSpecification(new BasicDBObject(Fields.INVAL_TIME, 1),
+				new BasicDBObject("expireAfterSeconds", INVALIDATION_LIFETIME_SEC)));
+		indexes.put(COL_WS_INVALIDATIONS, inval);
+		
+		//metadata index indexes
+		final LinkedList<IndexSpecification> wsMetaIdx = new LinkedList<>();
+		boolean unique = true;
+		for (final DBObject spec: MetadataIndex.getWorkspaceIndexSpecs()) {
+			wsMetaIdx.add(new IndexSpecification(spec,
+					getIndexOptions(unique ? new String[] {IDX_UNIQ} : new String[0])));
+			unique = false;
+		}
+		indexes.put(COL_WS_META_INDEX, wsMetaIdx);
+		final LinkedList<IndexSpecification> objMetaIdx = new LinkedList<>();
+		objMetaIdx.add(new IndexSpecification(MetadataIndex.getObjectIndexSpec(),
+				getIndexOptions(new String[] {IDX_UNIQ})));
+		indexes.put(COL_OBJ_META_INDEX, objMetaIdx);
+		
 		return indexes;
 	}
 	
@@ -233,11 +290,24 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		wsmongo = workspaceDB;
 		query = new QueryMethods(wsmongo, (AllUsers) ALL_USERS, COL_WORKSPACES,
 				COL_WORKSPACE_OBJS, COL_WORKSPACE_VERS, COL_WS_ACLS);
-		objutils = new ObjectInfoUtils(query);
+		idAllocator = new ObjectIDAllocator((ws, count) -> incrementWorkspaceCounter(ws, count));
+		// coalesced dates may be written out of order with other servers' writes
+		modDates = new ModificationDateCoalescer(
+				(ws, date) -> setWorkspaceModifiedDate(ws, date, "$max"));
 		blob = blobStore;
 		//TODO DBCONSIST check a few random types and make sure they exist
 		ensureIndexes();
 		checkConfig();
+		latestView = new LatestVersionView(wsmongo.getCollection(COL_WORKSPACE_OBJS),
+				wsmongo.getCollection(COL_WORKSPACE_VERS), wsmongo.getCollection(COL_CONFIG));
+		typeFields = new TypeFields(wsmongo.getCollection(COL_WORKSPACE_OBJS),
+				wsmongo.getCollection(COL_WORKSPACE_VERS), wsmongo.getCollection(COL_CONFIG));
+		metaIndex = new MetadataIndex(wsmongo.getCollection(COL_WORKSPACES),
+				wsmongo.getCollection(COL_WORKSPACE_VERS),
+				wsmongo.getCollection(COL_WS_META_INDEX),
+				wsmongo.getCollection(COL_OBJ_META_INDEX),
+				wsmongo.getCollection(COL_CONFIG));
+		objutils = new ObjectInfoUtils(query, latestView, typeFields, metaIndex);
 	}
 	
 	private static class IndexSpecification {
@@ -294,6 +364,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		//things still work
 		//TODO TEST add tests exercising failures
 		final List<DependencyStatus> deps = new LinkedList<>(blob.status());
+		deps.addAll(getCacheStatus());
 		final String version;
 		try {
 			final CommandResult bi = wsmongo.command("buildInfo");
@@ -310,10 +381,113 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return deps;
 	}
 	
+	// the status of any enabled caches and indexes
+	private List<DependencyStatus> getCacheStatus() {
+		final List<DependencyStatus> deps = new LinkedList<>();
+		final Optional<CacheStats> perms = getPermissionCacheStats();
+		if (perms.isPresent()) {
+			final CacheStats s = perms.get();
+			deps.add(new DependencyStatus(true, String.format(
+					"OK - hit rate %s%%, hits %s, misses %s, evictions %s",
+					s.requestCount() == 0 ? 0 : s.hitCount() * 100 / s.requestCount(),
+					s.hitCount(), s.missCount(), s.evictionCount()),
+					"Permission cache", "Unknown"));
+		}
+		final IncomingReferenceIndex index = refIndex;
+		if (index != null) {
+			deps.add(new DependencyStatus(true, index.isWarm() ? "OK" :
+					"Loading - incoming references are read from the database",
+					"Reference index", "Unknown"));
+		}
+		return deps;
+	}
+	
 	@Override
 	public void setResourceUsageConfiguration(
 			final ResourceUsageConfiguration rescfg) {
+		final ResourceUsageConfiguration old = this.rescfg;
 		this.rescfg = rescfg;
+		if (old.getWorkspaceCacheSize() != rescfg.getWorkspaceCacheSize() ||
+				old.getWorkspaceCachePollMS() != rescfg.getWorkspaceCachePollMS()) {
+			if (wsCache != null) {
+				wsCache.stop();
+			}
+			wsCache = rescfg.getWorkspaceCacheSize() < 1 ? null : new WorkspaceResolutionCache(
+					wsmongo.getCollection(COL_WS_INVALIDATIONS),
+					rescfg.getWorkspaceCacheSize(),
+					rescfg.getWorkspaceCachePollMS());
+		}
+		if (old.getPermissionCacheSize() != rescfg.getPermissionCacheSize() ||
+				old.getPermissionCacheTTLMS() != rescfg.getPermissionCacheTTLMS()) {
+			permCache = rescfg.getPermissionCacheSize() < 1 ? null : new PermissionSetCache(
+					rescfg.getPermissionCacheSize(), rescfg.getPermissionCacheTTLMS());
+		}
+		if (old.getVersionCacheSize() != rescfg.getVersionCacheSize()) {
+			verCache = rescfg.getVersionCacheSize() < 1 ?
+					null : new VersionReferenceCache(rescfg.getVersionCacheSize());
+		}
+		if (old.getReferenceIndexPollMS() != rescfg.getReferenceIndexPollMS() ||
+				old.getReferenceIndexPollOverlapMS() != rescfg.getReferenceIndexPollOverlapMS()) {
+			if (refIndex != null) {
+				refIndex.stop();
+			}
+			refIndex = rescfg.getReferenceIndexPollMS() < 1 ? null : new IncomingReferenceIndex(
+					wsmongo.getCollection(COL_WORKSPACE_VERS), rescfg.getReferenceIndexPollMS(),
+					rescfg.getReferenceIndexPollOverlapMS());
+		}
+	}
+	
+	/** Check whether the incoming reference index is enabled and loaded.
+	 * @return true if incoming references are being retrieved from the index.
+	 */
+	public boolean isReferenceIndexWarm() {
+		final IncomingReferenceIndex index = refIndex;
+		return index != null && index.isWarm();
+	}
+	
+	/** Check whether objects are listed from the copies of their latest versions, which is
+	 * the case once any backfill of the copies started at startup is complete.
+	 * @return true if the latest version copies are in use.
+	 */
+	public boolean isLatestVersionViewReady() {
+		return latestView.isReady();
+	}
+	
+	/** Check whether type filters are matched against the separate type module, name, and
+	 * version fields, which is the case once any backfill of the fields started at startup
+	 * is complete.
+	 * @return true if the type fields are in use.
+	 */
+	public boolean isTypeFieldsReady() {
+		return typeFields.isReady();
+	}
+	
+	/** Check whether metadata filters on workspaces and objects use the metadata index,
+	 * which is the case once any backfill of the index started at startup is complete.
+	 * @return true if the metadata index is in use.
+	 */
+	public boolean isMetadataIndexReady() {
+		return metaIndex.isReady();
+	}
+	
+	/** Get statistics for the permission set cache.
+	 * @return the cache statistics, or absent if the cache is disabled.
+	 */
+	public Optional<CacheStats> getPermissionCacheStats() {
+		final PermissionSetCache cache = permCache;
+		return cache == null ? Optional.absent() : Optional.of(cache.getStats());
+	}
+	
+	// call after any change to a workspace's name, lock state, or deletion state
+	private void invalidateWorkspace(final long workspaceID)
+			throws WorkspaceCommunicationException {
+		// permission sets contain the workspace state
+		final PermissionSetCache cache = permCache;
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+		WorkspaceResolutionCache.invalidate(
+				wsCache, wsmongo.getCollection(COL_WS_INVALIDATIONS), workspaceID);
 	}
 	
 	@Override
@@ -378,10 +552,23 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 	
 	private void updateWorkspaceModifiedDate(final ResolvedWorkspaceID rwsi)
 			throws WorkspaceCommunicationException {
+		final int window = rescfg.getModificationDateWindowMS();
+		if (window < 1) {
+			setWorkspaceModifiedDate(rwsi.getID(), new Date(), "$set");
+		} else {
+			modDates.update(rwsi.getID(), new Date(), window);
+		}
+	}
+	
+	private void setWorkspaceModifiedDate(
+			final long workspaceID,
+			final Date date,
+			final String operator)
+			throws WorkspaceCommunicationException {
 		try {
 			wsmongo.getCollection(COL_WORKSPACES).update(
-					new BasicDBObject(Fields.WS_ID, rwsi.getID()),
-					new BasicDBObject("$set", new BasicDBObject(Fields.WS_MODDATE, new Date())));
+					new BasicDBObject(Fields.WS_ID, workspaceID),
+					new BasicDBObject(operator, new BasicDBObject(Fields.WS_MODDATE, date)));
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -458,6 +645,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		ws.put(Fields.WS_DESC, description);
 		ws.put(Fields.WS_LOCKED, false);
 		ws.put(Fields.WS_META, metaHashToMongoArray(meta.getMetadata()));
+		metaIndex.addWorkspace(count, meta.getMetadata());
 		try {
 			wsmongo.getCollection(COL_WORKSPACES).insert(ws);
 		} catch (DuplicateKeyException mdk) {
@@ -547,6 +735,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		 * happens once at the beginning of the method. That has virtually no 
 		 * repercussions whatsoever, so meh.
 		 */
+		metaIndex.addWorkspace(rwsi.getID(), newMeta.getMetadata());
 		Instant time = null;
 		final String mkey = Fields.WS_META + Fields.FIELD_SEP + Fields.META_KEY;
 		final String mval = Fields.WS_META + Fields.FIELD_SEP + "$" + Fields.FIELD_SEP +
@@ -601,6 +790,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				 */
 			}
 		}
+		// the index entry for any replaced value is removed when a query finds it stale
 		return time;
 	}
 	
@@ -621,6 +811,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		// the index entry for the key is removed when a query finds it stale
 		return time;
 	}
 	
@@ -703,7 +894,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 					"There was a problem communicating with the database", me);
 		}
 		if (maxid > 0) {
-			incrementWorkspaceCounter(toWS, maxid);
+			incrementWorkspaceCounter(toWS.getID(), maxid);
 		}
 		final Instant moddate = updateClonedWorkspaceInformation(
 				user, globalRead, toWS.getID(), newname);
@@ -754,6 +945,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new IllegalStateException("A programming error occurred: " +
 					"there is no workspace with ID " + id);
 		}
+		invalidateWorkspace(id);
 		setCreatedWorkspacePermissions(user, globalRead,
 				new ResolvedWorkspaceID(id, newname, false, false));
 		return moddate.toInstant();
@@ -785,6 +977,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		invalidateWorkspace(rwsi.getID());
 		// ws mod date isn't changed, maybe it should be?
 		return Instant.now();
 	}
@@ -864,7 +1057,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		final ResolvedWorkspaceID toWS = to.getWorkspaceIdentifier();
 		final long objid;
 		if (rto == null) { //need to make a new object
-			final long id = incrementWorkspaceCounter(toWS, 1);
+			final long id = idAllocator.allocate(toWS.getID(), 1);
 			objid = saveWorkspaceObject(toWS, id, to.getName()).id;
 		} else {
 			objid = rto.getId();
@@ -897,6 +1090,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		invalidateWorkspace(rwsi.getID());
 		return now;
 	}
 	
@@ -1020,9 +1214,24 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		if (wsis.isEmpty()) {
 			return ret;
 		}
-		final Map<WorkspaceIdentifier, Map<String, Object>> res =
-				query.queryWorkspacesByIdentifier(wsis, FLDS_WS_ID_NAME_DEL);
+		final WorkspaceResolutionCache cache = wsCache;
+		final Set<WorkspaceIdentifier> uncached = new HashSet<>();
 		for (final WorkspaceIdentifier wsi: wsis) {
+			final ResolvedWorkspaceID r = cache == null ? null : cache.get(wsi);
+			if (r == null) {
+				uncached.add(wsi);
+			} else {
+				if (!allowDeleted && r.isDeleted()) {
+					throw new NoSuchWorkspaceException("Workspace " +
+							wsi.getIdentifierString() + " is deleted", wsi);
+				}
+				ret.put(wsi, r);
+			}
+		}
+		final long generation = cache == null ? 0 : cache.getGeneration();
+		final Map<WorkspaceIdentifier, Map<String, Object>> res =
+				query.queryWorkspacesByIdentifier(uncached, FLDS_WS_ID_NAME_DEL);
+		for (final WorkspaceIdentifier wsi: uncached) {
 			if (!res.containsKey(wsi)) {
 				if (!allowMissing) {
 					throw new NoSuchWorkspaceException(String.format(
@@ -1040,6 +1249,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 						(Boolean) res.get(wsi).get(Fields.WS_LOCKED), 
 						(Boolean) res.get(wsi).get(Fields.WS_DEL));
 				ret.put(wsi, r);
+				if (cache != null) {
+					cache.put(r, generation);
+				}
 			}
 		}
 		return ret;
@@ -1087,8 +1299,25 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final Permission perm,
 			final boolean excludeGlobalRead)
 			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
-		return getPermissions(user, new HashSet<ResolvedWorkspaceID>(), perm, excludeGlobalRead,
-				false, false);
+		final PermissionSetCache cache = permCache;
+		if (cache == null) {
+			return getPermissions(user, new HashSet<ResolvedWorkspaceID>(), perm,
+					excludeGlobalRead, false, false);
+		}
+		// check args before the cache sees them
+		if (perm == null || Permission.NONE.equals(perm)) {
+			throw new IllegalArgumentException(
+					"Permission cannot be null or NONE");
+		}
+		final PermissionSet cached = cache.get(user, perm, excludeGlobalRead);
+		if (cached != null) {
+			return cached;
+		}
+		final long generation = cache.getGeneration();
+		final PermissionSet pset = getPermissions(user, new HashSet<ResolvedWorkspaceID>(), perm,
+				excludeGlobalRead, false, false);
+		cache.put(user, perm, excludeGlobalRead, pset, generation);
+		return pset;
 	}
 	
 	@Override
@@ -1194,6 +1423,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		if (newname.isPresent()) {
+			invalidateWorkspace(rwsi.getID());
+		}
 		final ResolvedWorkspaceID newRwsi = new ResolvedWorkspaceID(
 				rwsi.getID(),
 				newname.isPresent() ? newname.get() : rwsi.getName(), false, false);
@@ -1272,6 +1504,10 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 						"There was a problem communicating with the database", me);
 			}
 		}
+		final PermissionSetCache cache = permCache;
+		if (cache != null) {
+			cache.invalidate(users);
+		}
 		// hmm. should the workspace mod date be changed when setting perms? Currently not
 		return Instant.now();
 	}
@@ -1296,11 +1532,20 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			rwsis.put(rwsi.getID(), rwsi);
 		}
 		final DBObject q = new BasicDBObject(Fields.WS_ID,
-				new BasicDBObject("$in", rwsis.keySet()));
+				new BasicDBObject("$in", pset.getWorkspaceIDs().toArray()));
 		if (owners != null && !owners.isEmpty()) {
 			q.put(Fields.WS_OWNER, new BasicDBObject("$in", convertWorkspaceUsers(owners)));
 		}
+		Set<Long> indexed = null;
 		if (meta != null && !meta.isEmpty()) {
+			if (metaIndex.isReady()) {
+				indexed = metaIndex.getWorkspaces(rwsis.keySet(), meta.getMetadata());
+				if (indexed.isEmpty()) {
+					return new LinkedList<>();
+				}
+				q.put(Fields.WS_ID, new BasicDBObject("$in", indexed));
+			}
+			// the index may contain stale entries, so always check the metadata
 			final List<DBObject> andmetaq = new LinkedList<DBObject>();
 			for (final Entry<String, String> e:
 					meta.getMetadata().entrySet()) {
@@ -1309,7 +1554,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 				mentry.put(Fields.META_VALUE, e.getValue());
 				andmetaq.add(new BasicDBObject(Fields.WS_META, mentry));
 			}
-			q.put("$and", andmetaq); //note more than one entry is untested
+			q.put("$and", andmetaq);
 		}
 		if (before != null || after != null) {
 			final DBObject d = new BasicDBObject();
@@ -1323,6 +1568,13 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 		final List<Map<String, Object>> ws = query.queryCollection(
 				COL_WORKSPACES, q, FLDS_WS_NO_DESC);
+		if (indexed != null) {
+			final Set<Long> unmatched = new HashSet<>(indexed);
+			for (final Map<String, Object> w: ws) {
+				unmatched.remove((Long) w.get(Fields.WS_ID));
+			}
+			metaIndex.removeStaleWorkspaceEntries(unmatched, meta.getMetadata());
+		}
 		
 		final List<WorkspaceInformation> ret = new LinkedList<WorkspaceInformation>();
 		for (final Map<String, Object> w: ws) {
@@ -1437,11 +1689,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 	
-	// save object in preexisting object container
-	private ObjectInformation saveObjectVersion(final WorkspaceUser user,
-			final ResolvedWorkspaceID wsid, final long objectid,
-			final ObjectSavePackage pkg)
-			throws WorkspaceCommunicationException {
+	private Map<String, Object> toVersion(
+			final WorkspaceUser user,
+			final ObjectSavePackage pkg) {
 		final Map<String, Object> version = new HashMap<String, Object>();
 		version.put(Fields.VER_SAVEDBY, user.getUser());
 		version.put(Fields.VER_CHKSUM, pkg.wo.getRep().getMD5().getMD5());
@@ -1457,16 +1707,20 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		version.put(Fields.VER_COPIED, null);
 		version.put(Fields.VER_EXT_IDS, extractedIDsToStrings(
 				pkg.wo.getExtractedIDs()));
-		
-		saveObjectVersions(user, wsid, objectid, Arrays.asList(version),
-				pkg.wo.isHidden());
-		
+		return version;
+	}
+	
+	private ObjectInformation toObjectInfo(
+			final WorkspaceUser user,
+			final ResolvedWorkspaceID wsid,
+			final ObjectSavePackage pkg,
+			final Date saved) {
 		return new ObjectInformation(
-				objectid,
+				pkg.id,
 				pkg.name,
 				pkg.wo.getRep().getValidationTypeDefId().getTypeString(),
-				(Date) version.get(Fields.VER_SAVEDATE),
-				(Integer) version.get(Fields.VER_VER),
+				saved,
+				pkg.version,
 				user,
 				wsid,
 				pkg.wo.getRep().getMD5().getMD5(),
@@ -1503,20 +1757,33 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		 * None of the above addresses the object w/ 0 versions failure. Not sure what to do about that.
 		 * 
 		*/
-		int ver;
-		final List<Integer> zeros = new LinkedList<Integer>();
-		for (int i = 0; i < versions.size(); i++) {
-			zeros.add(0);
-		}
 		final Date saved = new Date();
+		int ver = incrementVersionCount(wsid, objectid, versions.size(), hidden, saved);
+		final List<DBObject> dbo = new LinkedList<DBObject>();
+		for (final Map<String, Object> v: versions) {
+			dbo.add(toVersionDocument(v, wsid, objectid, ver++, saved));
+		}
+		insertVersions(dbo);
+	}
+	
+	// returns the first of the newly reserved version numbers
+	private int incrementVersionCount(
+			final ResolvedWorkspaceID wsid,
+			final long objectid,
+			final int versions,
+			final Boolean hidden,
+			final Date saved)
+			throws WorkspaceCommunicationException {
 		final BasicDBObject set = new BasicDBObject(Fields.OBJ_DEL, false)
 				.append(Fields.OBJ_MODDATE, saved)
-				.append(Fields.OBJ_LATEST, null);
+				.append(Fields.OBJ_LATEST, null)
+				// cleared when the latest version copy is written
+				.append(Fields.OBJ_LATEST_VER_PENDING, true);
 		final DBObject update = new BasicDBObject(
-				"$inc", new BasicDBObject(Fields.OBJ_VCNT, versions.size()))
+				"$inc", new BasicDBObject(Fields.OBJ_VCNT, versions))
 				.append("$set", set)
 				.append("$push", new BasicDBObject(Fields.OBJ_REFCOUNTS,
-						new BasicDBObject("$each", zeros)));
+						new BasicDBObject("$each", zeros(versions))));
 		if (hidden != null) {
 			set.append(Fields.OBJ_HIDE, hidden);
 		}
@@ -1530,32 +1797,54 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 					update,
 					true,
 					false);
-			
-			ver = (Integer) res.get(Fields.OBJ_VCNT) - versions.size() + 1;
+			return (Integer) res.get(Fields.OBJ_VCNT) - versions + 1;
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+	}
+	
+	private static List<Integer> zeros(final int count) {
+		final List<Integer> zeros = new LinkedList<Integer>();
+		for (int i = 0; i < count; i++) {
+			zeros.add(0);
+		}
+		return zeros;
+	}
+	
+	private DBObject toVersionDocument(
+			final Map<String, Object> version,
+			final ResolvedWorkspaceID wsid,
+			final long objectid,
+			final int ver,
+			final Date saved) {
+		version.put(Fields.VER_SAVEDATE, saved);
+		version.put(Fields.VER_WS_ID, wsid.getID());
+		version.put(Fields.VER_ID, objectid);
+		version.put(Fields.VER_VER, ver);
 		//TODO look into why saving array of maps via List.ToArray() /w Jongo makes Lazy?Objects return, which screw up everything
-		final List<DBObject> dbo = new LinkedList<DBObject>();
-		for (final Map<String, Object> v: versions) {
-			v.put(Fields.VER_SAVEDATE, saved);
-			v.put(Fields.VER_WS_ID, wsid.getID());
-			v.put(Fields.VER_ID, objectid);
-			v.put(Fields.VER_VER, ver++);
-			final DBObject d = new BasicDBObject();
-			for (final Entry<String, Object> e: v.entrySet()) {
-				d.put(e.getKey(), e.getValue());
-			}
-			dbo.add(d);
+		final DBObject d = new BasicDBObject();
+		for (final Entry<String, Object> e: version.entrySet()) {
+			d.put(e.getKey(), e.getValue());
 		}
-
+		TypeFields.addFields(d);
+		return d;
+	}
+	
+	private void insertVersions(final List<DBObject> versions)
+			throws WorkspaceCommunicationException {
+		metaIndex.addVersions(versions);
 		try {
-			wsmongo.getCollection(COL_WORKSPACE_VERS).insert(dbo);
+			wsmongo.getCollection(COL_WORKSPACE_VERS).insert(versions);
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		latestView.update(versions);
+		final IncomingReferenceIndex index = refIndex;
+		if (index != null) {
+			index.add(versions);
+		}
 	}
 	
 	//save brand new object - create container
@@ -1605,6 +1894,101 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return new IDName(objectid, name);
 	}
 	
+	/* Save brand new objects in one ordered bulk write. As in saveWorkspaceObject, each object
+	 * is created with no versions, and the versions are reserved with incrementVersionCount
+	 * just before they are written, so objects don't point at missing versions while the rest
+	 * of the save is written.
+	 * 
+	 * If another save claims one of the names between resolution and the write, the insert
+	 * for that name fails with a duplicate key error. Since the write is ordered, the inserts
+	 * prior to the failure succeeded and the remainder were not attempted. The packages for the
+	 * name are moved to the object that now holds the name, and the remaining inserts are
+	 * resubmitted. The object ID reserved for the name is not used, as in saveWorkspaceObject.
+	 * 
+	 * Returns the objects that were created.
+	 */
+	private List<IDName> saveWorkspaceObjects(
+			final ResolvedWorkspaceID wsid,
+			final long firstObjectID,
+			final Map<String, List<ObjectSavePackage>> newNames,
+			final Map<Long, List<ObjectSavePackage>> existing,
+			final Date saved)
+			throws WorkspaceCommunicationException {
+		final List<IDName> created = new LinkedList<>();
+		final LinkedList<IDName> toCreate = new LinkedList<>();
+		long id = firstObjectID;
+		for (final String name: newNames.keySet()) {
+			toCreate.add(new IDName(id++, name));
+		}
+		while (!toCreate.isEmpty()) {
+			final BulkWriteOperation bulk = wsmongo.getCollection(COL_WORKSPACE_OBJS)
+					.initializeOrderedBulkOperation();
+			for (final IDName o: toCreate) {
+				final List<ObjectSavePackage> pkgs = newNames.get(o.name);
+				final DBObject dbo = new BasicDBObject();
+				dbo.put(Fields.OBJ_WS_ID, wsid.getID());
+				dbo.put(Fields.OBJ_ID, o.id);
+				dbo.put(Fields.OBJ_VCNT, 0); //Integer
+				dbo.put(Fields.OBJ_REFCOUNTS, new LinkedList<Integer>());
+				dbo.put(Fields.OBJ_NAME, o.name);
+				dbo.put(Fields.OBJ_MODDATE, saved);
+				dbo.put(Fields.OBJ_LATEST, null);
+				dbo.put(Fields.OBJ_DEL, false);
+				// the last save wins, as for saves to existing objects
+				dbo.put(Fields.OBJ_HIDE, pkgs.get(pkgs.size() - 1).wo.isHidden());
+				bulk.insert(dbo);
+			}
+			try {
+				bulk.execute();
+				created.addAll(toCreate);
+				toCreate.clear();
+			} catch (BulkWriteException bwe) {
+				if (bwe.getWriteConcernError() != null || bwe.getWriteErrors().size() != 1 ||
+						bwe.getWriteErrors().get(0).getCode() != MONGO_DUPLICATE_KEY) {
+					throw new WorkspaceCommunicationException(
+							"There was a problem communicating with the database", bwe);
+				}
+				final int failed = bwe.getWriteErrors().get(0).getIndex();
+				for (int i = 0; i < failed; i++) {
+					created.add(toCreate.removeFirst());
+				}
+				final IDName dupe = toCreate.removeFirst();
+				final ObjectIDNoWSNoVer o = new ObjectIDNoWSNoVer(dupe.name);
+				final ResolvedObjectID raced = resolveObjectIDsIgnoreExceptions(
+						wsid, new HashSet<>(Arrays.asList(o))).get(o);
+				if (raced != null) {
+					existing.computeIfAbsent(raced.getId(), k -> new LinkedList<>())
+							.addAll(newNames.get(dupe.name));
+				} else if (objectExists(wsid, dupe.id)) {
+					// can only happen if the workspace object counter is wrong
+					throw new IllegalStateException(String.format(
+							"Object ID %s in workspace %s was reserved for a new object " +
+							"but is already in use", dupe.id, wsid.getID()));
+				} else {
+					// the name was renamed away again, try again
+					toCreate.addFirst(dupe);
+				}
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+		}
+		return created;
+	}
+	
+	private boolean objectExists(final ResolvedWorkspaceID wsid, final long objectid)
+			throws WorkspaceCommunicationException {
+		try {
+			return wsmongo.getCollection(COL_WORKSPACE_OBJS).findOne(
+					new BasicDBObject(Fields.OBJ_WS_ID, wsid.getID())
+							.append(Fields.OBJ_ID, objectid),
+					new BasicDBObject(Fields.MONGO_ID, 1)) != null;
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+	
 	private static String getObjectErrorId(final ObjectIDNoWSNoVer oi, final int objcount) {
 		return "#" + objcount + ", " + oi.getIdentifierString();
 	}
@@ -1763,54 +2147,54 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		saveData(rwsi, packages);
 		saveProvenance(packages);
 		updateReferenceCounts(packages);
-		long newid = incrementWorkspaceCounter(rwsi, newobjects);
-		/*  alternate impl: 1) make all save objects 2) increment all version
-		 *  counters 3) batch save versions
-		 *  This probably won't help much. Firstly, saving the same object
-		 *  multiple times (e.g. save over the same object in the same
-		 *  saveObjects call) is going to be a rare op - who wants to do that?
-		 *  Hence batching up the version increments is probably not going to
-		 *  help much.
-		 *  Secondly, the write lock is on a per document basis, so batching
-		 *  writes has no effect on write locking.
-		 *  That means that the gain from batching writes is removal of the 
-		 *  flight time to/from the server between each object. This may
-		 *  be significant for many small objects, but is probably
-		 *  insignificant for a few objects, or many large objects.
-		 *  Summary: probably not worth the trouble and increase in code
-		 *  complexity.
-		 */
-		final List<ObjectInformation> ret = new ArrayList<ObjectInformation>();
-		final Map<String, Long> seenNames = new HashMap<String, Long>();
+		final long newid = newobjects < 1 ? -1 : idAllocator.allocate(rwsi.getID(), newobjects);
+		final Date saved = new Date();
+		
+		//group the packages by the object they're saved to, in save order
+		final Map<Long, List<ObjectSavePackage>> existing = new LinkedHashMap<>();
+		final Map<String, List<ObjectSavePackage>> newNames = new LinkedHashMap<>();
 		for (final ObjectSavePackage p: packages) {
 			final ObjectIDNoWSNoVer oi = p.wo.getObjectIdentifier();
 			if (oi.getId().isPresent()) { //confirmed ok id
-				ret.add(saveObjectVersion(user, rwsi, oi.getId().get(), p));
-			} else if (objIDs.get(oi) != null) {//given name translated to id
-				ret.add(saveObjectVersion(user, rwsi, objIDs.get(oi).getId(), p));
-			} else if (seenNames.containsKey(oi.getName().get())) {
-				//we've already generated an id for this name
-				ret.add(saveObjectVersion(user, rwsi, seenNames.get(oi.getName().get()), p));
-			} else {//new name, need to generate new id
-				final IDName obj = saveWorkspaceObject(rwsi, newid++, oi.getName().get());
-				p.name = obj.name;
-				seenNames.put(obj.name, obj.id);
-				ret.add(saveObjectVersion(user, rwsi, obj.id, p));
+				existing.computeIfAbsent(oi.getId().get(), k -> new LinkedList<>()).add(p);
+			} else if (objIDs.get(oi) != null) { //given name translated to id
+				existing.computeIfAbsent(objIDs.get(oi).getId(), k -> new LinkedList<>()).add(p);
+			} else { //new name, need to generate new id
+				newNames.computeIfAbsent(oi.getName().get(), k -> new LinkedList<>()).add(p);
+			}
+		}
+		for (final IDName obj: saveWorkspaceObjects(rwsi, newid, newNames, existing, saved)) {
+			existing.put(obj.id, newNames.get(obj.name));
+		}
+		for (final Long id: existing.keySet()) {
+			final List<ObjectSavePackage> pkgs = existing.get(id);
+			int ver = incrementVersionCount(rwsi, id, pkgs.size(),
+					pkgs.get(pkgs.size() - 1).wo.isHidden(), saved);
+			for (final ObjectSavePackage p: pkgs) {
+				p.id = id;
+				p.version = ver++;
 			}
 		}
+		final List<DBObject> versions = new LinkedList<>();
+		final List<ObjectInformation> ret = new ArrayList<ObjectInformation>();
+		for (final ObjectSavePackage p: packages) {
+			versions.add(toVersionDocument(toVersion(user, p), rwsi, p.id, p.version, saved));
+			ret.add(toObjectInfo(user, rwsi, p, saved));
+		}
+		insertVersions(versions);
 		updateWorkspaceModifiedDate(rwsi);
 		return ret;
 	}
 
 	//returns starting object number
-	private long incrementWorkspaceCounter(final ResolvedWorkspaceID wsidmongo,
+	private long incrementWorkspaceCounter(final long workspaceID,
 			final long newobjects) throws WorkspaceCommunicationException {
 		final long lastid;
 		try {
 			
 			lastid = ((Number) wsmongo.getCollection(COL_WORKSPACES)
 					.findAndModify(
-							new BasicDBObject(Fields.WS_ID, wsidmongo.getID()),
+							new BasicDBObject(Fields.WS_ID, workspaceID),
 							new BasicDBObject(Fields.WS_NUMOBJ, 1).append(Fields.MONGO_ID, 0),
 							null,
 							false,
@@ -1898,56 +2282,11 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 
-	private static class VerCount {
-		final public int ver;
-		final public int count;
-
-		public VerCount (final int ver, final int count) {
-			this.ver = ver;
-			this.count = count;
-		}
-		
-		@Override
-		public String toString() {
-			return "VerCount [ver=" + ver + ", count=" + count + "]";
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + count;
-			result = prime * result + ver;
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			VerCount other = (VerCount) obj;
-			if (count != other.count)
-				return false;
-			if (ver != other.ver)
-				return false;
-			return true;
-		}
-	}
-	
 	private void updateReferenceCounts(final List<ObjectSavePackage> packages)
 			throws WorkspaceCommunicationException {
 		//TODO GC when garbage collection working much more testing of these methods
 		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
 				countReferences(packages);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
 		updateReferenceCounts(refcounts);
 	}
 	
@@ -1957,55 +2296,31 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		//TODO GC when garbage collection working much more testing of these methods
 		final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts = 
 				countReferencesForVersions(versions);
-		/* since the version numbers are probably highly skewed towards 1 and
-		 * the reference counts are also highly skewed towards 1 we can 
-		 * probably minimize the number of updates by running one update
-		 * per version/count combination
-		 */
 		updateReferenceCounts(refcounts);
 	}
 
 	private void updateReferenceCounts(
 			final Map<Long, Map<Long, Map<Integer, Counter>>> refcounts)
 			throws WorkspaceCommunicationException {
-		final Map<VerCount, Map<Long, List<Long>>> queries = 
-				new HashMap<VerCount, Map<Long,List<Long>>>();
+		if (refcounts.isEmpty()) {
+			return; // empty bulk writes are an error
+		}
+		// one update per object, all sent in one round trip. Order is irrelevant.
+		final BulkWriteOperation bulk = wsmongo.getCollection(COL_WORKSPACE_OBJS)
+				.initializeUnorderedBulkOperation();
 		for (final Long ws: refcounts.keySet()) {
 			for (final Long obj: refcounts.get(ws).keySet()) {
+				final BasicDBObject inc = new BasicDBObject();
 				for (final Integer ver: refcounts.get(ws).get(obj).keySet()) {
-					final VerCount vc = new VerCount(ver,
+					inc.append(Fields.OBJ_REFCOUNTS + "." + (ver - 1),
 							refcounts.get(ws).get(obj).get(ver).getValue());
-					if (!queries.containsKey(vc)) {
-						queries.put(vc, new HashMap<Long, List<Long>>());
-					}
-					if (!queries.get(vc).containsKey(ws)) {
-						queries.get(vc).put(ws, new LinkedList<Long>());
-					}
-					queries.get(vc).get(ws).add(obj);
 				}
+				bulk.find(new BasicDBObject(Fields.OBJ_WS_ID, ws).append(Fields.OBJ_ID, obj))
+						.update(new BasicDBObject("$inc", inc));
 			}
 		}
-		for (final VerCount vc: queries.keySet()) {
-			updateReferenceCounts(vc, queries.get(vc));
-		}
-	}
-
-	private void updateReferenceCounts(final VerCount vc,
-			final Map<Long, List<Long>> wsToObjs)
-			throws WorkspaceCommunicationException {
-		final DBObject update = new BasicDBObject("$inc",
-				new BasicDBObject(Fields.OBJ_REFCOUNTS + "." + (vc.ver - 1),
-						vc.count));
-		final List<DBObject> orquery = new LinkedList<DBObject>();
-		for (final Long ws: wsToObjs.keySet()) {
-			final DBObject query = new BasicDBObject(Fields.OBJ_WS_ID, ws);
-			query.put(Fields.OBJ_ID, new BasicDBObject("$in",
-					wsToObjs.get(ws)));
-			orquery.add(query);
-		}
 		try {
-			wsmongo.getCollection(COL_WORKSPACE_OBJS).update(
-					new BasicDBObject("$or", orquery), update, false, true);
+			bulk.execute();
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -2077,19 +2392,24 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final List<ObjectSavePackage> data)
 			throws WorkspaceCommunicationException {
 		try {
+			// identical objects in the same batch only need to be stored once
+			final Map<MD5, Restreamable> blobs = new LinkedHashMap<>();
 			for (ObjectSavePackage p: data) {
-				final String md5 = p.wo.getRep().getMD5().getMD5();
-				try {
-					blob.saveBlob(new MD5(md5), p.wo.getRep(), true); //always sorted in 0.2.0+
-				} catch (BlobStoreCommunicationException e) {
-					throw new WorkspaceCommunicationException(
-							e.getLocalizedMessage(), e);
-				} catch (BlobStoreAuthorizationException e) {
-					throw new WorkspaceCommunicationException(
-							"Authorization error communicating with the backend storage system",
-							e);
+				final MD5 md5 = new MD5(p.wo.getRep().getMD5().getMD5());
+				if (!blobs.containsKey(md5)) {
+					blobs.put(md5, p.wo.getRep());
 				}
 			}
+			try {
+				blob.saveBlobs(blobs, true); //always sorted in 0.2.0+
+			} catch (BlobStoreCommunicationException e) {
+				throw new WorkspaceCommunicationException(
+						e.getLocalizedMessage(), e);
+			} catch (BlobStoreAuthorizationException e) {
+				throw new WorkspaceCommunicationException(
+						"Authorization error communicating with the backend storage system",
+						e);
+			}
 		} finally {
 			for (final ObjectSavePackage o: data) {
 				try {
@@ -2133,6 +2453,9 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		final Map<ObjectId, Provenance> provs = getProvenance(vers);
 		final Map<String, ByteArrayFileCache> chksumToData =
 				new HashMap<String, ByteArrayFileCache>();
+		if (dataMan != null) {
+			getBlobs(vers, dataMan, chksumToData);
+		}
 		final Map<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>> ret =
 				new HashMap<ObjectIDResolvedWS, Map<SubsetSelection, WorkspaceObjectData>>();
 		for (final ObjectIDResolvedWS o: objs.keySet()) {
@@ -2170,7 +2493,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 					}
 				} catch (TypedObjectExtractionException |
 						WorkspaceCommunicationException |
-						CorruptWorkspaceDBException |
 						RuntimeException |
 						Error e) {
 					cleanUpTempObjectFiles(chksumToData, ret);
@@ -2181,6 +2503,44 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return ret;
 	}
 
+	// fetch all the data for a get_objects call from the blob store in one call
+	private void getBlobs(
+			final Map<ResolvedObjectID, Map<String, Object>> vers,
+			final ByteArrayFileCacheManager bafcMan,
+			final Map<String, ByteArrayFileCache> chksumToData)
+			throws WorkspaceCommunicationException, CorruptWorkspaceDBException {
+		final Map<MD5, ResolvedObjectID> md5s = new HashMap<>();
+		for (final ResolvedObjectID roi: vers.keySet()) {
+			md5s.put(new MD5((String) vers.get(roi).get(Fields.VER_CHKSUM)), roi);
+		}
+		final Map<MD5, ByteArrayFileCache> data;
+		try {
+			data = blob.getBlobs(md5s.keySet(), bafcMan);
+		} catch (NoSuchBlobException e) {
+			final ResolvedObjectID roi = md5s.get(e.getMD5());
+			if (roi == null) { // should never happen
+				throw new CorruptWorkspaceDBException(
+						"No data present for valid object: " + e.getMessage(), e);
+			}
+			throw new CorruptWorkspaceDBException(String.format(
+					"No data present for valid object %s.%s.%s",
+					roi.getWorkspaceIdentifier().getID(), roi.getId(), roi.getVersion()), e);
+		} catch (FileCacheLimitExceededException e) {
+			throw new IllegalArgumentException( //shouldn't happen if size was checked correctly beforehand
+					"Too much data requested from the workspace at once; " +
+					"data requested including subsets exceeds maximum of "
+					+ bafcMan.getMaxSizeOnDisk());
+		} catch (FileCacheIOException | BlobStoreCommunicationException e) {
+			throw new WorkspaceCommunicationException(e.getLocalizedMessage(), e);
+		} catch (BlobStoreAuthorizationException e) {
+			throw new WorkspaceCommunicationException(
+					"Authorization error communicating with the backend storage system", e);
+		}
+		for (final Entry<MD5, ByteArrayFileCache> e: data.entrySet()) {
+			chksumToData.put(e.getKey().getMD5(), e.getValue());
+		}
+	}
+	
 	private Map<IdReferenceType, List<String>> toExternalIDs(
 			final Map<String, List<String>> extIDs) {
 		if (extIDs == null) {
@@ -2254,49 +2614,22 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final ByteArrayFileCacheManager bafcMan,
 			final Map<ObjectIDResolvedWS,
 					Map<SubsetSelection, WorkspaceObjectData>> ret)
-			throws TypedObjectExtractionException,
-			WorkspaceCommunicationException, CorruptWorkspaceDBException {
+			throws TypedObjectExtractionException, WorkspaceCommunicationException {
 		if (!ret.containsKey(o)) {
 			ret.put(o, new HashMap<SubsetSelection, WorkspaceObjectData>());
 		}
-		if (chksumToData.containsKey(info.getCheckSum())) {
-			/* might be subsetting the same object the same way multiple
-			 * times, but probably unlikely. If it becomes a problem
-			 * memoize the subset
-			 */
-			ret.get(o).put(op, new WorkspaceObjectData(getDataSubSet(
-					chksumToData.get(info.getCheckSum()), op, bafcMan),
-					info, prov, refs, copied, toExternalIDs(extIDs)));
-		} else {
-			final ByteArrayFileCache data;
-			try {
-				data = blob.getBlob(new MD5(info.getCheckSum()), bafcMan);
-			} catch (FileCacheIOException e) {
-				throw new WorkspaceCommunicationException(
-						e.getLocalizedMessage(), e);
-			} catch (FileCacheLimitExceededException e) {
-				throw new IllegalArgumentException( //shouldn't happen if size was checked correctly beforehand
-						"Too much data requested from the workspace at once; " +
-						"data requested including subsets exceeds maximum of "
-						+ bafcMan.getMaxSizeOnDisk());
-			} catch (BlobStoreCommunicationException e) {
-				throw new WorkspaceCommunicationException(
-						e.getLocalizedMessage(), e);
-			} catch (BlobStoreAuthorizationException e) {
-				throw new WorkspaceCommunicationException(
-						"Authorization error communicating with the backend storage system",
-						e);
-			} catch (NoSuchBlobException e) {
-				throw new CorruptWorkspaceDBException(String.format(
-						"No data present for valid object %s.%s.%s",
-						info.getWorkspaceId(), info.getObjectId(),
-						info.getVersion()), e);
-			}
-			chksumToData.put(info.getCheckSum(), data);
-			ret.get(o).put(op, new WorkspaceObjectData(
-					getDataSubSet(data, op, bafcMan),
-					info, prov, refs, copied, toExternalIDs(extIDs)));
+		final ByteArrayFileCache data = chksumToData.get(info.getCheckSum());
+		if (data == null) {
+			// this can never happen, all the data is fetched by getBlobs
+			throw new IllegalStateException("No data fetched for object " +
+					info.getWorkspaceId() + "/" + info.getObjectId() + "/" + info.getVersion());
 		}
+		/* might be subsetting the same object the same way multiple
+		 * times, but probably unlikely. If it becomes a problem
+		 * memoize the subset
+		 */
+		ret.get(o).put(op, new WorkspaceObjectData(getDataSubSet(data, op, bafcMan),
+				info, prov, refs, copied, toExternalIDs(extIDs)));
 	}
 	
 	private ByteArrayFileCache getDataSubSet(final ByteArrayFileCache data,
@@ -2319,8 +2652,57 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		}
 	}
 	
-	private static final Set<String> FLDS_GET_REF_FROM_OBJ = newHashSet(
-			Fields.VER_PROVREF, Fields.VER_REF, Fields.VER_VER);
+	private static final Set<String> FLDS_VER_TYPE_REFS = newHashSet(
+			Fields.VER_TYPE, Fields.VER_PROVREF, Fields.VER_REF, Fields.VER_VER);
+	
+	/* Gets the type and outgoing references for a set of versions, using the version cache
+	 * where possible. The versions must already be resolved, which checks their deletion state.
+	 * If ignoreMissing is true, versions that don't exist are omitted from the returned map.
+	 */
+	private Map<ResolvedObjectID, VersionReferences> getVersionReferences(
+			final Set<ResolvedObjectID> objs,
+			final boolean ignoreMissing)
+			throws WorkspaceCommunicationException, NoSuchObjectException {
+		final VersionReferenceCache cache = verCache;
+		final Map<ResolvedObjectID, VersionReferences> ret = new HashMap<>();
+		final Set<ResolvedObjectID> query = new HashSet<>();
+		for (final ResolvedObjectID roi: objs) {
+			final VersionReferences vr = cache == null ? null : cache.get(
+					roi.getWorkspaceIdentifier().getID(), roi.getId(), roi.getVersion());
+			if (vr == null) {
+				query.add(roi);
+			} else {
+				ret.put(roi, vr);
+			}
+		}
+		if (query.isEmpty()) {
+			return ret;
+		}
+		final Map<ResolvedObjectID, Map<String, Object>> vers =
+				queryVersions(query, FLDS_VER_TYPE_REFS, ignoreMissing);
+		for (final Entry<ResolvedObjectID, Map<String, Object>> e: vers.entrySet()) {
+			final Map<String, Object> m = e.getValue();
+			@SuppressWarnings("unchecked")
+			final List<String> rf = (List<String>) m.get(Fields.VER_REF);
+			@SuppressWarnings("unchecked")
+			final List<String> prf = (List<String>) m.get(Fields.VER_PROVREF);
+			final Set<Reference> r = new HashSet<Reference>();
+			for (String s: rf) {
+				r.add(new Reference(s));
+			}
+			for (String s: prf) {
+				r.add(new Reference(s));
+			}
+			final VersionReferences vr = new VersionReferences(
+					AbsoluteTypeDefId.fromAbsoluteTypeString((String) m.get(Fields.VER_TYPE)),
+					r);
+			if (cache != null) {
+				cache.put(e.getKey().getReference(), vr);
+			}
+			ret.put(e.getKey(), vr);
+		}
+		return ret;
+	}
 	
 	@Override
 	public Map<ObjectIDResolvedWS, ObjectReferenceSet> getObjectOutgoingReferences(
@@ -2334,32 +2716,19 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		
 		final Map<ObjectIDResolvedWS, ResolvedObjectID> resobjs = 
 				resolveObjectIDs(objs, exceptIfDeleted, includeDeleted, exceptIfMissing);
-		final Map<ResolvedObjectID, Map<String, Object>> refs =
-				queryVersions(
-						new HashSet<ResolvedObjectID>(resobjs.values()),
-						FLDS_GET_REF_FROM_OBJ, !exceptIfMissing);
+		final Map<ResolvedObjectID, VersionReferences> refs = getVersionReferences(
+				new HashSet<ResolvedObjectID>(resobjs.values()), !exceptIfMissing);
 		
 		for (final ObjectIDResolvedWS oi: objs) {
 			if (!resobjs.containsKey(oi)) {
 				continue;
 			}
 			final ResolvedObjectID res = resobjs.get(oi);
-			final Map<String, Object> m = refs.get(res);
-			final int ver = (Integer) m.get(Fields.VER_VER);
-			final Reference ref = new Reference(
-					res.getWorkspaceIdentifier().getID(), res.getId(), ver);
-			@SuppressWarnings("unchecked")
-			final List<String> rf = (List<String>) m.get(Fields.VER_REF);
-			@SuppressWarnings("unchecked")
-			final List<String> prf = (List<String>) m.get(Fields.VER_PROVREF);
-			final Set<Reference> r = new HashSet<Reference>();
-			for (String s: rf) {
-				r.add(new Reference(s));
-			}
-			for (String s: prf) {
-				r.add(new Reference(s));
+			final VersionReferences vr = refs.get(res);
+			if (vr == null) {
+				continue;
 			}
-			ret.put(oi, new ObjectReferenceSet(ref, r, false));
+			ret.put(oi, new ObjectReferenceSet(res.getReference(), vr.getReferences(), false));
 		}
 		return ret;
 	}
@@ -2400,6 +2769,15 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		if (refs.isEmpty()) {
 			return new HashMap<>();
 		}
+		final IncomingReferenceIndex index = refIndex;
+		final Map<Reference, Set<Reference>> indexed = index == null ? null : index.get(refs);
+		if (indexed != null) {
+			final Map<Reference, ObjectReferenceSet> ret = new HashMap<>();
+			for (final Entry<Reference, Set<Reference>> e: indexed.entrySet()) {
+				ret.put(e.getKey(), new ObjectReferenceSet(e.getKey(), e.getValue(), true));
+			}
+			return ret;
+		}
 		//TODO MEM add limit for number of refs returned (probably 50K, but make a method param) & throw exception if more than that returned
 		final List<String> refStrings = new LinkedList<>();
 		for (final Reference r: refs) {
@@ -2418,8 +2796,14 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final Set<Reference> refs,
 			final List<Map<String, Object>> vers) {
 		final Map<Reference, Set<Reference>> refToRefs = new HashMap<Reference, Set<Reference>>();
+		// versions may have many references, so filter them without creating objects
+		final LongHashSet packed = new LongHashSet(refs.size());
+		boolean allPacked = true;
 		for (final Reference r: refs) {
 			refToRefs.put(r, new HashSet<Reference>());
+			final long p = PackedReference.pack(r);
+			allPacked = allPacked && p != PackedReference.UNPACKABLE;
+			packed.add(p);
 		}
 		for (final Map<String, Object> v: vers) {
 			final long ws = (Long) v.get(Fields.VER_WS_ID);
@@ -2427,22 +2811,22 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			final int ver = (Integer) v.get(Fields.VER_VER);
 			final Reference thisref = new Reference(ws, obj, ver);
 			
-			final Set<String> allrefs = new HashSet<String>();
 			@SuppressWarnings("unchecked")
 			final List<String> increfs = (List<String>) v.get(Fields.VER_REF);
-			allrefs.addAll(increfs);
-			increfs.clear();
 			@SuppressWarnings("unchecked")
 			final List<String> provrefs = (List<String>) v.get(Fields.VER_PROVREF);
-			allrefs.addAll(provrefs);
-			provrefs.clear();
-			for (final String ref: allrefs) {
-				final Reference r = new Reference(ref);
-				if (refToRefs.containsKey(r)) {
-					refToRefs.get(r).add(thisref);
+			for (final List<String> reflist: Arrays.asList(increfs, provrefs)) {
+				for (final String ref: reflist) {
+					if (allPacked && !packed.contains(PackedReference.parse(ref))) {
+						continue;
+					}
+					final Set<Reference> incoming = refToRefs.get(new Reference(ref));
+					if (incoming != null) {
+						incoming.add(thisref);
+					}
 				}
+				reflist.clear();
 			}
-			
 		}
 		final Map<Reference, ObjectReferenceSet> ret = new HashMap<>();
 		for (final Reference r: refToRefs.keySet()) {
@@ -2463,10 +2847,6 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			getReferencingObjects(final PermissionSet perms,
 					final Set<ObjectIDResolvedWS> objs)
 		throws NoSuchObjectException, WorkspaceCommunicationException {
-		final List<Long> wsids = new LinkedList<Long>();
-		for (final ResolvedWorkspaceID ws: perms.getWorkspaces()) {
-			wsids.add(ws.getID());
-		}
 		final Map<ObjectIDResolvedWS, ResolvedObjectID> resobjs =
 				resolveObjectIDs(objs);
 		verifyVersions(new HashSet<ResolvedObjectID>(resobjs.values()), true);
@@ -2480,7 +2860,8 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			}
 			ref2id.get(ref).add(oi);
 		}
-		final DBObject q = new BasicDBObject(Fields.VER_WS_ID, new BasicDBObject("$in", wsids));
+		final DBObject q = new BasicDBObject(Fields.VER_WS_ID,
+				new BasicDBObject("$in", perms.getWorkspaceIDs().toArray()));
 		q.put("$or", Arrays.asList(new BasicDBObject(Fields.VER_REF,
 						new BasicDBObject("$in", ref2id.keySet())),
 				new BasicDBObject(Fields.VER_PROVREF, new BasicDBObject("$in", ref2id.keySet()))));
@@ -2689,29 +3070,21 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		return eds;
 	}
 
-	private static final Set<String> FLDS_VER_TYPE = newHashSet(
-			Fields.VER_TYPE, Fields.VER_VER);
-	
 	public Map<ObjectIDResolvedWS, TypeAndReference> getObjectType(
 			final Set<ObjectIDResolvedWS> objectIDs,
 			final boolean ignoreErrors) throws
 			NoSuchObjectException, WorkspaceCommunicationException {
-		//this method is a pattern - generalize somehow?
 		final Map<ObjectIDResolvedWS, ResolvedObjectID> oids =
 				resolveObjectIDs(objectIDs, !ignoreErrors, ignoreErrors, !ignoreErrors);
-		//instead of calling verifyVersions() just query the version here
-		final Map<ResolvedObjectID, Map<String, Object>> vers = 
-				queryVersions(new HashSet<ResolvedObjectID>(oids.values()),
-						FLDS_VER_TYPE, ignoreErrors);
+		//instead of calling verifyVersions() just get the version data here
+		final Map<ResolvedObjectID, VersionReferences> vers = getVersionReferences(
+				new HashSet<ResolvedObjectID>(oids.values()), ignoreErrors);
 		final Map<ObjectIDResolvedWS, TypeAndReference> ret = new HashMap<>();
 		for (final ObjectIDResolvedWS o: objectIDs) {
 			final ResolvedObjectID roi = oids.get(o);
-			final Map<String, Object> v = vers.get(roi);
+			final VersionReferences v = vers.get(roi);
 			if (v != null) {
-				ret.put(o, new TypeAndReference(AbsoluteTypeDefId.fromAbsoluteTypeString(
-								(String) v.get(Fields.VER_TYPE)),
-						new Reference(roi.getWorkspaceIdentifier().getID(), roi.getId(),
-								(Integer) v.get(Fields.VER_VER))));
+				ret.put(o, new TypeAndReference(v.getType(), roi.getReference()));
 			}
 		}
 		return ret;
@@ -2737,27 +3110,44 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 		for (final ResolvedWorkspaceID rwsid: rwsis) {
 			wsIDtoWS.put(rwsid.getID(), rwsid);
 		}
-		final DBObject q = new BasicDBObject(Fields.OBJ_DEL, false);
-		q.put(Fields.OBJ_WS_ID, new BasicDBObject("$in", wsIDtoWS.keySet()));
+		/* Object names are restricted to ASCII characters, so a prefix with other characters
+		 * matches nothing. MongoDB compares strings by their UTF-8 bytes, so for an ASCII
+		 * prefix, incrementing the last character gives the first string after all the strings
+		 * with the prefix.
+		 */
+		if (prefix.chars().anyMatch(c -> c > 127)) {
+			return ret;
+		}
+		final DBObject q = new BasicDBObject(Fields.OBJ_WS_ID,
+				new BasicDBObject("$in", wsIDtoWS.keySet()));
 		if (!prefix.isEmpty()) {
-			// escape regex chars
-			q.put(Fields.OBJ_NAME,
-					new BasicDBObject("$regex", "^" + Pattern.quote(prefix)));
+			final int last = prefix.length() - 1;
+			q.put(Fields.OBJ_NAME, new BasicDBObject("$gte", prefix).append("$lt",
+					prefix.substring(0, last) + (char) (prefix.charAt(last) + 1)));
 		}
+		q.put(Fields.OBJ_DEL, false);
 		if (!includeHidden) {
 			q.put(Fields.OBJ_HIDE, false);
 		}
-		
-		final List<Map<String, Object>> names = query.queryCollection(
-				COL_WORKSPACE_OBJS, q, FLDS_NAME_PREFIX, limit);
-		for (final Map<String, Object> o: names) {
-			final Long wsid = (Long) o.get(Fields.OBJ_WS_ID);
-			final String name = (String) o.get(Fields.OBJ_NAME);
-			final ResolvedWorkspaceID rwsid = wsIDtoWS.get(wsid);
-			if (!ret.containsKey(rwsid)) {
-				ret.put(rwsid, new LinkedList<String>());
+		final DBObject sort = new BasicDBObject(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_NAME, 1);
+		// the prefix index covers the query and returns names in sorted order
+		final DBObject hint = new BasicDBObject(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_NAME, 1)
+				.append(Fields.OBJ_DEL, 1).append(Fields.OBJ_HIDE, 1);
+		try {
+			final DBCursor names = query.queryCollectionCursor(
+					COL_WORKSPACE_OBJS, q, FLDS_NAME_PREFIX, hint, limit).sort(sort);
+			for (final DBObject o: names) {
+				final Long wsid = (Long) o.get(Fields.OBJ_WS_ID);
+				final String name = (String) o.get(Fields.OBJ_NAME);
+				final ResolvedWorkspaceID rwsid = wsIDtoWS.get(wsid);
+				if (!ret.containsKey(rwsid)) {
+					ret.put(rwsid, new LinkedList<String>());
+				}
+				ret.get(rwsid).add(name);
 			}
-			ret.get(rwsid).add(name);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
 		}
 		return ret;
 	}
@@ -2768,6 +3158,23 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throws WorkspaceCommunicationException {
 		return objutils.filter(params);
 	}
+	
+	@Override
+	public RecentObjects getRecentObjects(
+			final PermissionSet pset,
+			final boolean includeMetadata,
+			final int limit,
+			final int scanLimit,
+			final RecentObjectPosition startAfter)
+			throws WorkspaceCommunicationException {
+		if (pset == null) {
+			throw new NullPointerException("pset cannot be null");
+		}
+		if (limit < 1 || scanLimit < 1) {
+			throw new IllegalArgumentException("limit and scanLimit must be > 0");
+		}
+		return objutils.filterRecent(pset, includeMetadata, limit, scanLimit, startAfter);
+	}
 
 	private static final Set<String> FLDS_VER_OBJ_HIST = newHashSet(
 			Fields.VER_WS_ID, Fields.VER_ID, Fields.VER_VER,
@@ -3195,6 +3602,7 @@ public class MongoWorkspaceDB implements WorkspaceDatabase {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
 		}
+		invalidateWorkspace(rwsi.getID());
 		if (!delete) {
 			//undelete object last so we yadda yadda
 			setObjectsDeleted(rwsi, new ArrayList<Long>(), delete);
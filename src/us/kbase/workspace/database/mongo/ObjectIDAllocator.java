@@ -0,0 +1,162 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Allocates object IDs for workspaces from the workspace object counter, combining concurrent
+ * allocations for a workspace into a single reservation. While a reservation for a workspace
+ * is in flight, further allocations for the workspace are collected into one batch, which is
+ * reserved in one database update once the in flight reservation completes.
+ *
+ * No IDs are held between allocations, so IDs in a workspace are assigned in the order the
+ * allocations arrive at the database, as when every allocation reserves its own IDs, and
+ * the workspace's maximum object ID is the highest ID assigned.
+ */
+class ObjectIDAllocator {
+
+	/** Reserves a contiguous range of object IDs in a workspace. */
+	interface IDReserver {
+
+		/** Reserve IDs.
+		 * @param workspaceID the workspace in which to reserve the IDs.
+		 * @param count the number of IDs to reserve.
+		 * @return the first ID in the reserved range.
+		 * @throws WorkspaceCommunicationException if the IDs could not be reserved.
+		 */
+		long reserve(long workspaceID, long count) throws WorkspaceCommunicationException;
+	}
+
+	private static class Batch {
+		private long count = 0;
+		private boolean done = false;
+		private long first = -1;
+		private WorkspaceCommunicationException commError = null;
+		private RuntimeException error = null;
+	}
+
+	private static class State {
+		private boolean reserving = false;
+		private Batch next = null;
+		private int users = 0;
+	}
+
+	private final IDReserver reserver;
+	// all access is synchronized on the map
+	private final Map<Long, State> states = new HashMap<>();
+
+	/** Create the allocator.
+	 * @param reserver the source of object IDs.
+	 */
+	ObjectIDAllocator(final IDReserver reserver) {
+		this.reserver = requireNonNull(reserver, "reserver");
+	}
+
+	/** Allocate a contiguous range of object IDs.
+	 * @param workspaceID the workspace in which to allocate the IDs.
+	 * @param count the number of IDs to allocate.
+	 * @return the first allocated ID.
+	 * @throws WorkspaceCommunicationException if IDs could not be reserved.
+	 */
+	long allocate(final long workspaceID, final long count)
+			throws WorkspaceCommunicationException {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be at least 1");
+		}
+		final State state;
+		final Batch batch;
+		final long offset;
+		final boolean leader;
+		synchronized (states) {
+			state = states.computeIfAbsent(workspaceID, k -> new State());
+			state.users++;
+			leader = state.next == null;
+			if (leader) {
+				state.next = new Batch();
+			}
+			batch = state.next;
+			offset = batch.count;
+			batch.count += count;
+		}
+		try {
+			if (leader) {
+				reserve(workspaceID, state, batch);
+			} else {
+				awaitBatch(batch);
+			}
+		} finally {
+			synchronized (states) {
+				state.users--;
+				if (state.users == 0) {
+					states.remove(workspaceID);
+				}
+			}
+		}
+		if (batch.commError != null) {
+			throw new WorkspaceCommunicationException(
+					batch.commError.getLocalizedMessage(), batch.commError);
+		}
+		if (batch.error != null) {
+			throw new RuntimeException(batch.error.getLocalizedMessage(), batch.error);
+		}
+		return batch.first + offset;
+	}
+
+	private void reserve(final long workspaceID, final State state, final Batch batch) {
+		boolean interrupted = false;
+		synchronized (states) {
+			while (state.reserving) {
+				try {
+					states.wait();
+				} catch (InterruptedException e) {
+					// the batch has waiters, so it must be reserved regardless
+					interrupted = true;
+				}
+			}
+			state.reserving = true;
+			// close the batch so later allocations start a new one
+			state.next = null;
+		}
+		long first = -1;
+		WorkspaceCommunicationException commError = null;
+		RuntimeException error = null;
+		try {
+			first = reserver.reserve(workspaceID, batch.count);
+		} catch (WorkspaceCommunicationException e) {
+			commError = e;
+		} catch (RuntimeException e) {
+			error = e;
+		}
+		synchronized (states) {
+			batch.first = first;
+			batch.commError = commError;
+			batch.error = error;
+			batch.done = true;
+			state.reserving = false;
+			states.notifyAll();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void awaitBatch(final Batch batch) {
+		boolean interrupted = false;
+		synchronized (states) {
+			while (!batch.done) {
+				try {
+					states.wait();
+				} catch (InterruptedException e) {
+					// the IDs are reserved for this allocation, so wait for them
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
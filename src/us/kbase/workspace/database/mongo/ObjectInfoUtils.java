@@ -1,6 +1,7 @@
 package us.kbase.workspace.database.mongo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -11,18 +12,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.function.Function;
 
 import us.kbase.workspace.database.GetObjectInformationParameters;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.PermissionSet;
+import us.kbase.workspace.database.RecentObjectPosition;
+import us.kbase.workspace.database.RecentObjects;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedObjectID;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
 import us.kbase.workspace.database.UncheckedUserMetadata;
+import us.kbase.workspace.database.WorkspaceIDSet;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoException;
@@ -39,12 +46,31 @@ public class ObjectInfoUtils {
 	//TODO JAVADOC
 	
 	private final QueryMethods query;
+	private final LatestVersionView latestView;
+	private final TypeFields typeFields;
+	private final MetadataIndex metaIndex;
 	
-	ObjectInfoUtils(final QueryMethods query) {
+	ObjectInfoUtils(
+			final QueryMethods query,
+			final LatestVersionView latestView,
+			final TypeFields typeFields,
+			final MetadataIndex metaIndex) {
 		if (query == null) {
 			throw new NullPointerException("query argument may not be null");
 		}
+		if (latestView == null) {
+			throw new NullPointerException("latestView argument may not be null");
+		}
+		if (typeFields == null) {
+			throw new NullPointerException("typeFields argument may not be null");
+		}
+		if (metaIndex == null) {
+			throw new NullPointerException("metaIndex argument may not be null");
+		}
 		this.query = query;
+		this.latestView = latestView;
+		this.typeFields = typeFields;
+		this.metaIndex = metaIndex;
 	}
 	
 	private static final Set<String> FLDS_LIST_OBJ_VER = newHashSet(
@@ -56,6 +82,11 @@ public class ObjectInfoUtils {
 			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL, Fields.OBJ_HIDE,
 			Fields.OBJ_VCNT, Fields.OBJ_WS_ID);
 	
+	private static final String LATEST_PREFIX = Fields.OBJ_LATEST_VER + Fields.FIELD_SEP;
+	
+	private static final Set<String> FLDS_LIST_LATEST = newHashSet(
+			Fields.OBJ_ID, Fields.OBJ_NAME, Fields.OBJ_DEL, Fields.OBJ_VCNT, Fields.OBJ_WS_ID);
+	
 	List<ObjectInformation> filter(
 			final GetObjectInformationParameters params)
 			throws WorkspaceCommunicationException {
@@ -75,52 +106,434 @@ public class ObjectInfoUtils {
 		if (pset.isEmpty()) {
 			return new LinkedList<ObjectInformation>();
 		}
-		final DBObject verq = buildQuery(params);
+		if (!params.isShowAllVersions() && latestView.isReady()) {
+			return filterLatest(params, querysize);
+		}
+		final long[] wsids = pset.getWorkspaceIDs().toArray();
+		final DBObject verq = buildQuery(params, wsids, "");
 		final DBObject projection = buildProjection(params);
-		final DBObject sort = buildSortSpec(params);
-		final DBCursor cur = buildCursor(verq, projection, sort);
+		final DBObject sort = buildSortSpec();
+		final RecordBatches batches;
+		if (useMetadataIndex(params)) {
+			// the ws/obj/ver index serves the lookups of the versions found in the index
+			batches = new MetadataBatches(
+					query.getDatabase().getCollection(query.getVersionCollection()),
+					verq, projection, sort,
+					metaIndex.getVersions(wsids, params.getMetadata().getMetadata(),
+							getStartAfterRestriction(params.getStartAfter(), true)),
+					r -> new BasicDBObject(Fields.VER_WS_ID, r.getWorkspaceID())
+							.append(Fields.VER_ID, r.getObjectID())
+							.append(Fields.VER_VER, r.getVersion()));
+		} else {
+			addStartAfter(verq, params.getStartAfter(), true);
+			// the optimizer may not pick the type index over the ws/obj/ver index
+			final DBObject hint = verq.containsField(Fields.VER_TYPE_MODULE) ?
+					TypeFields.getVersionIndex() : null;
+			batches = new CursorBatches(buildCursor(verq, projection, sort, hint));
+		}
 		
 		//querying on versions directly so no need to worry about race 
 		//condition where the workspace object was saved but no versions
 		//were saved yet
 		
 		final List<ObjectInformation> ret = new LinkedList<>();
-		while (cur.hasNext() && ret.size() < params.getLimit()) {
-			final List<Map<String, Object>> verobjs = new ArrayList<>();
-			while (cur.hasNext() && verobjs.size() < querysize) {
+		try (final RecordBatches b = batches) {
+			List<DBObject> batch;
+			while (ret.size() < params.getLimit() && !(batch = b.next(querysize)).isEmpty()) {
+				final List<Map<String, Object>> verobjs = new ArrayList<>();
+				for (final DBObject v: batch) {
+					verobjs.add(QueryMethods.dbObjectToMap(v));
+				}
+				final Map<Map<String, Object>, ObjectInformation> objs =
+						generateObjectInfo(pset, verobjs, params.isShowHidden(),
+								params.isShowDeleted(), params.isShowOnlyDeleted(),
+								params.isShowAllVersions(), params.asAdmin()
+								);
+				//maintain the ordering 
+				final Iterator<Map<String, Object>> veriter = verobjs.iterator();
+				while (veriter.hasNext() && ret.size() < params.getLimit()) {
+					final Map<String, Object> v = veriter.next();
+					if (objs.containsKey(v)) {
+						ret.add(objs.get(v));
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	/* Lists the latest versions of objects from the copies in the object documents maintained
+	 * by LatestVersionView, which requires reading one document per object rather than every
+	 * version of every object in the workspaces.
+	 */
+	private List<ObjectInformation> filterLatest(
+			final GetObjectInformationParameters params,
+			final int querysize)
+			throws WorkspaceCommunicationException {
+		final PermissionSet pset = params.getPermissionSet();
+		final Map<Long, ResolvedWorkspaceID> ids = new HashMap<>();
+		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
+			// deleted objects are only visible in workspaces the user can write to
+			if (!params.isShowOnlyDeleted() || params.asAdmin() ||
+					pset.hasPermission(rwsi, Permission.WRITE)) {
+				ids.put(rwsi.getID(), rwsi);
+			}
+		}
+		final List<ObjectInformation> ret = new LinkedList<>();
+		if (ids.isEmpty()) {
+			return ret;
+		}
+		final long[] wsids = ids.keySet().stream().mapToLong(l -> l).toArray();
+		latestView.repair(wsids);
+		final DBObject objq = buildQuery(params, wsids, LATEST_PREFIX);
+		if (params.isShowOnlyDeleted()) {
+			objq.put(Fields.OBJ_DEL, true);
+		} else if (!params.isShowDeleted()) {
+			objq.put(Fields.OBJ_DEL, false);
+		}
+		if (!params.isShowHidden()) {
+			objq.put(Fields.OBJ_HIDE, false);
+		}
+		final DBObject projection = new BasicDBObject(Fields.MONGO_ID, 0);
+		for (final String field: FLDS_LIST_LATEST) {
+			projection.put(field, 1);
+		}
+		for (final String field: LatestVersionView.FIELDS) {
+			if (params.isIncludeMetaData() || !field.equals(Fields.VER_META)) {
+				projection.put(LATEST_PREFIX + field, 1);
+			}
+		}
+		// the ws / id index and the type index are the only indexes that can serve this query
+		final DBObject sort = new BasicDBObject(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_ID, 1);
+		final DBCollection objects = query.getDatabase().getCollection(
+				query.getObjectCollection());
+		final RecordBatches batches;
+		if (useMetadataIndex(params)) {
+			// the index lists all versions, so only objects where the version is the latest match
+			batches = new MetadataBatches(objects, objq, projection, sort,
+					metaIndex.getVersions(wsids, params.getMetadata().getMetadata(),
+							getStartAfterRestriction(params.getStartAfter(), false)),
+					r -> new BasicDBObject(Fields.OBJ_WS_ID, r.getWorkspaceID())
+							.append(Fields.OBJ_ID, r.getObjectID())
+							.append(LATEST_PREFIX + Fields.VER_VER, r.getVersion()));
+		} else {
+			addStartAfter(objq, params.getStartAfter(), false);
+			final DBObject hint = objq.containsField(LATEST_PREFIX + Fields.VER_TYPE_MODULE) ?
+					TypeFields.getLatestIndex() : sort;
+			try {
+				batches = new CursorBatches(
+						objects.find(objq, projection).hint(hint).sort(sort));
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+		}
+		try (final RecordBatches b = batches) {
+			List<DBObject> batch;
+			while (ret.size() < params.getLimit() && !(batch = b.next(querysize)).isEmpty()) {
+				for (final DBObject obj: batch) {
+					@SuppressWarnings("unchecked")
+					final Map<String, Object> latest =
+							(Map<String, Object>) obj.get(Fields.OBJ_LATEST_VER);
+					// as in generateObjectInfo, skip objects where the latest version isn't
+					// saved
+					if (latest == null || !obj.get(Fields.OBJ_VCNT).equals(
+							latest.get(Fields.VER_VER))) {
+						continue;
+					}
+					final ResolvedWorkspaceID rwsi = ids.get((Long) obj.get(Fields.OBJ_WS_ID));
+					if ((Boolean) obj.get(Fields.OBJ_DEL) && !params.asAdmin() &&
+							!pset.hasPermission(rwsi, Permission.WRITE)) {
+						continue;
+					}
+					ret.add(generateObjectInfo(rwsi, (Long) obj.get(Fields.OBJ_ID),
+							(String) obj.get(Fields.OBJ_NAME), latest));
+					if (ret.size() == params.getLimit()) {
+						break;
+					}
+				}
+			}
+		}
+		return ret;
+	}
+	
+	/** Get the index that serves recently modified object listings. The index covers the
+	 * scan, so objects in workspaces the user can't read are skipped without reading the
+	 * object documents.
+	 * @return the index specification.
+	 */
+	static DBObject getRecentIndex() {
+		return new BasicDBObject(Fields.OBJ_MODDATE, -1)
+				.append(Fields.OBJ_WS_ID, 1)
+				.append(Fields.OBJ_ID, 1)
+				.append(Fields.OBJ_DEL, 1)
+				.append(Fields.OBJ_HIDE, 1);
+	}
+	
+	/* Walks the objects in modification order, filtering by the readable workspace IDs, and
+	 * then looks up the information for the objects found. The modification date is updated
+	 * for any change to an object, so an object may move to the front of the list between
+	 * pages and be listed twice, but is never skipped.
+	 */
+	RecentObjects filterRecent(
+			final PermissionSet pset,
+			final boolean includeMetadata,
+			final int limit,
+			final int scanLimit,
+			final RecentObjectPosition startAfter)
+			throws WorkspaceCommunicationException {
+		final WorkspaceIDSet readable = pset.getReadableWorkspaceIDs();
+		if (readable.isEmpty()) {
+			return new RecentObjects(new LinkedList<>(), null);
+		}
+		final DBObject q = new BasicDBObject();
+		if (startAfter != null) {
+			final Date d = Date.from(startAfter.getModificationDate());
+			q.put("$or", Arrays.asList(
+					new BasicDBObject(Fields.OBJ_MODDATE, new BasicDBObject("$lt", d)),
+					new BasicDBObject(Fields.OBJ_MODDATE, d).append(Fields.OBJ_WS_ID,
+							new BasicDBObject("$gt", startAfter.getWorkspaceID())),
+					new BasicDBObject(Fields.OBJ_MODDATE, d)
+							.append(Fields.OBJ_WS_ID, startAfter.getWorkspaceID())
+							.append(Fields.OBJ_ID,
+									new BasicDBObject("$gt", startAfter.getObjectID()))));
+		}
+		final DBObject projection = new BasicDBObject(Fields.MONGO_ID, 0);
+		for (final String field: getRecentIndex().keySet()) {
+			projection.put(field, 1);
+		}
+		final DBObject sort = new BasicDBObject(Fields.OBJ_MODDATE, -1)
+				.append(Fields.OBJ_WS_ID, 1).append(Fields.OBJ_ID, 1);
+		final List<DBObject> found = new ArrayList<>();
+		RecentObjectPosition last = null;
+		int scanned = 0;
+		try (final DBCursor cur = query.getDatabase().getCollection(query.getObjectCollection())
+				.find(q, projection).hint(getRecentIndex()).sort(sort).limit(scanLimit)) {
+			while (found.size() < limit && cur.hasNext()) {
+				final DBObject o = cur.next();
+				scanned++;
+				final long wsid = (Long) o.get(Fields.OBJ_WS_ID);
+				last = new RecentObjectPosition(((Date) o.get(Fields.OBJ_MODDATE)).toInstant(),
+						wsid, (Long) o.get(Fields.OBJ_ID));
+				if (readable.contains(wsid) && !(Boolean) o.get(Fields.OBJ_DEL) &&
+						!(Boolean) o.get(Fields.OBJ_HIDE)) {
+					found.add(o);
+				}
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+		return new RecentObjects(getLatestInfo(pset, found, includeMetadata),
+				found.size() == limit || scanned == scanLimit ? last : null);
+	}
+	
+	/* Gets the information for the latest versions of objects, in order, from the latest
+	 * version copies where available and otherwise from the versions collection. Objects that
+	 * have been deleted or hidden since they were found, or for which the latest version isn't
+	 * saved, are skipped.
+	 */
+	private List<ObjectInformation> getLatestInfo(
+			final PermissionSet pset,
+			final List<DBObject> objects,
+			final boolean includeMetadata)
+			throws WorkspaceCommunicationException {
+		final List<ObjectInformation> ret = new LinkedList<>();
+		if (objects.isEmpty()) {
+			return ret;
+		}
+		final Map<Long, ResolvedWorkspaceID> ids = new HashMap<>();
+		for (final ResolvedWorkspaceID rwsi: pset.getWorkspaces()) {
+			ids.put(rwsi.getID(), rwsi);
+		}
+		final List<DBObject> objq = new LinkedList<>();
+		for (final DBObject o: objects) {
+			objq.add(new BasicDBObject(Fields.OBJ_WS_ID, o.get(Fields.OBJ_WS_ID))
+					.append(Fields.OBJ_ID, o.get(Fields.OBJ_ID)));
+		}
+		final Set<String> fields = new HashSet<>(FLDS_LIST_OBJ);
+		for (final String field: LatestVersionView.FIELDS) {
+			if (includeMetadata || !field.equals(Fields.VER_META)) {
+				fields.add(LATEST_PREFIX + field);
+			}
+		}
+		final Map<Long, Map<Long, Map<String, Object>>> objdata = organizeObjData(
+				query.queryCollection(query.getObjectCollection(),
+						new BasicDBObject("$or", objq), fields));
+		final List<DBObject> verq = new LinkedList<>();
+		for (final Map<Long, Map<String, Object>> wsobjs: objdata.values()) {
+			for (final Map<String, Object> obj: wsobjs.values()) {
+				if (getLatest(obj) == null) {
+					verq.add(new BasicDBObject(Fields.VER_WS_ID, obj.get(Fields.OBJ_WS_ID))
+							.append(Fields.VER_ID, obj.get(Fields.OBJ_ID))
+							.append(Fields.VER_VER, obj.get(Fields.OBJ_VCNT)));
+				}
+			}
+		}
+		final Map<Long, Map<Long, Map<String, Object>>> verdata;
+		if (verq.isEmpty()) {
+			verdata = new HashMap<>();
+		} else {
+			final Set<String> verfields = new HashSet<>(FLDS_LIST_OBJ_VER);
+			if (includeMetadata) {
+				verfields.add(Fields.VER_META);
+			}
+			verdata = organizeObjData(query.queryCollection(query.getVersionCollection(),
+					new BasicDBObject("$or", verq), verfields));
+		}
+		for (final DBObject o: objects) {
+			final long wsid = (Long) o.get(Fields.OBJ_WS_ID);
+			final long id = (Long) o.get(Fields.OBJ_ID);
+			final Map<String, Object> obj = get(objdata, wsid, id);
+			if (obj == null || (Boolean) obj.get(Fields.OBJ_DEL) ||
+					(Boolean) obj.get(Fields.OBJ_HIDE)) {
+				continue;
+			}
+			Map<String, Object> ver = getLatest(obj);
+			if (ver == null) {
+				ver = get(verdata, wsid, id);
+			}
+			if (ver != null) {
+				ret.add(generateObjectInfo(ids.get(wsid), id, (String) obj.get(Fields.OBJ_NAME),
+						ver));
+			}
+		}
+		return ret;
+	}
+	
+	// returns the latest version copy if it's present and up to date
+	private static Map<String, Object> getLatest(final Map<String, Object> obj) {
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> latest = (Map<String, Object>) obj.get(Fields.OBJ_LATEST_VER);
+		if (latest == null || !obj.get(Fields.OBJ_VCNT).equals(latest.get(Fields.VER_VER))) {
+			return null;
+		}
+		return latest;
+	}
+	
+	private static Map<String, Object> get(
+			final Map<Long, Map<Long, Map<String, Object>>> data,
+			final long wsid,
+			final long id) {
+		final Map<Long, Map<String, Object>> wsdata = data.get(wsid);
+		return wsdata == null ? null : wsdata.get(id);
+	}
+	
+	private boolean useMetadataIndex(final GetObjectInformationParameters params) {
+		return !params.getMetadata().isEmpty() && metaIndex.isReady();
+	}
+	
+	/* The records matching a query, in sorted order, fetched in batches. */
+	private interface RecordBatches extends AutoCloseable {
+		
+		/* Returns an empty list when there are no more records. */
+		List<DBObject> next(int count) throws WorkspaceCommunicationException;
+		
+		@Override
+		void close();
+	}
+	
+	private static class CursorBatches implements RecordBatches {
+		
+		private final DBCursor cur;
+		
+		private CursorBatches(final DBCursor cur) {
+			this.cur = cur;
+		}
+
+		@Override
+		public List<DBObject> next(final int count) throws WorkspaceCommunicationException {
+			final List<DBObject> ret = new ArrayList<>();
+			try {
+				while (ret.size() < count && cur.hasNext()) {
+					ret.add(cur.next());
+				}
+			} catch (MongoException me) {
+				throw new WorkspaceCommunicationException(
+						"There was a problem communicating with the database", me);
+			}
+			return ret;
+		}
+
+		@Override
+		public void close() {
+			cur.close();
+		}
+	}
+	
+	/* Looks up the records for the versions found in the metadata index. The query is still
+	 * applied to the records, since the index may contain stale entries and doesn't include
+	 * the other filters. The sort must match an index that serves the lookups.
+	 */
+	private static class MetadataBatches implements RecordBatches {
+		
+		private final DBCollection col;
+		private final DBObject query;
+		private final DBObject projection;
+		private final DBObject sort;
+		private final MetadataIndex.VersionMatches matches;
+		private final Function<Reference, DBObject> toQuery;
+		
+		private MetadataBatches(
+				final DBCollection col,
+				final DBObject query,
+				final DBObject projection,
+				final DBObject sort,
+				final MetadataIndex.VersionMatches matches,
+				final Function<Reference, DBObject> toQuery) {
+			this.col = col;
+			this.query = query;
+			this.projection = projection;
+			this.sort = sort;
+			this.matches = matches;
+			this.toQuery = toQuery;
+		}
+
+		@Override
+		public List<DBObject> next(final int count) throws WorkspaceCommunicationException {
+			List<DBObject> ret = new ArrayList<>();
+			// a batch may match no records, so keep going until the index is exhausted
+			while (ret.isEmpty()) {
+				final List<DBObject> refs = new ArrayList<>();
+				Reference r;
+				while (refs.size() < count && (r = matches.next()) != null) {
+					refs.add(toQuery.apply(r));
+				}
+				if (refs.isEmpty()) {
+					return ret;
+				}
+				final DBObject q = new BasicDBObject(query.toMap());
+				q.put("$or", refs);
 				try {
-					verobjs.add(QueryMethods.dbObjectToMap(cur.next()));
+					// sorts at most count records
+					ret = col.find(q, projection).hint(sort).sort(sort).toArray();
 				} catch (MongoException me) {
 					throw new WorkspaceCommunicationException(
 							"There was a problem communicating with the database", me);
 				}
 			}
-			final Map<Map<String, Object>, ObjectInformation> objs =
-					generateObjectInfo(pset, verobjs, params.isShowHidden(),
-							params.isShowDeleted(), params.isShowOnlyDeleted(),
-							params.isShowAllVersions(), params.asAdmin()
-							);
-			//maintain the ordering 
-			final Iterator<Map<String, Object>> veriter = verobjs.iterator();
-			while (veriter.hasNext() && ret.size() < params.getLimit()) {
-				final Map<String, Object> v = veriter.next();
-				if (objs.containsKey(v)) {
-					ret.add(objs.get(v));
-				}
-			}
+			return ret;
+		}
+
+		@Override
+		public void close() {
+			matches.close();
 		}
-		return ret;
 	}
 
 	private DBCursor buildCursor(
 			final DBObject verq,
 			final DBObject projection,
-			final DBObject sort)
+			final DBObject sort,
+			final DBObject hint)
 			throws WorkspaceCommunicationException {
 		final DBCursor cur;
 		try {
 			cur = query.getDatabase().getCollection(query.getVersionCollection())
 					.find(verq, projection).sort(sort);
+			if (hint != null) {
+				cur.hint(hint);
+			}
 		} catch (MongoException me) {
 			throw new WorkspaceCommunicationException(
 					"There was a problem communicating with the database", me);
@@ -150,31 +563,69 @@ public class ObjectInfoUtils {
 	 * use the ws/obj/ver index to sort, at least for smaller data sets. It's still potentially
 	 * dangerous to add the sort, since that forces the optimizer to use the ws/obj/ver index
 	 * (which could return a huge number of results and really slow down the query).
+	 * 
+	 * Paging with startAfter requires a stable order from the first page onwards, whatever the
+	 * filters, so results are now always sorted. Since the optimizer was already choosing the
+	 * ws/obj/ver index in practice, this is not expected to change query plans much. Type
+	 * filtered queries are hinted to the type index, which holds the ws/obj/ver fields after
+	 * the type module and name and so also serves the sort.
 	 */
-	private DBObject buildSortSpec(final GetObjectInformationParameters params) {
+	private DBObject buildSortSpec() {
 		final DBObject sort = new BasicDBObject();
-		if (params.isObjectIDFiltersOnly()) {
-			sort.put(Fields.VER_WS_ID, 1);
-			sort.put(Fields.VER_ID, 1);
-			sort.put(Fields.VER_VER, -1);
-		}
+		sort.put(Fields.VER_WS_ID, 1);
+		sort.put(Fields.VER_ID, 1);
+		sort.put(Fields.VER_VER, -1);
 		return sort;
 	}
-
-	private DBObject buildQuery(final GetObjectInformationParameters params) {
-		final Set<Long> ids = new HashSet<Long>();
-		for (final ResolvedWorkspaceID rwsi:
-				params.getPermissionSet().getWorkspaces()) {
-			ids.add(rwsi.getID());
+	
+	/* Restrict the query to objects after the reference in ws / obj / descending ver order.
+	 * Uses the same field names for the versions and objects collections. When listing from
+	 * the objects collection there's only one version per object, so the version is ignored.
+	 */
+	private static void addStartAfter(
+			final DBObject query,
+			final Reference startAfter,
+			final boolean includeVersion) {
+		if (startAfter == null) {
+			return;
 		}
+		final List<DBObject> after = new LinkedList<>();
+		after.add(new BasicDBObject(Fields.VER_WS_ID,
+				new BasicDBObject("$gt", startAfter.getWorkspaceID())));
+		after.add(new BasicDBObject(Fields.VER_WS_ID, startAfter.getWorkspaceID())
+				.append(Fields.VER_ID, new BasicDBObject("$gt", startAfter.getObjectID())));
+		if (includeVersion) {
+			after.add(new BasicDBObject(Fields.VER_WS_ID, startAfter.getWorkspaceID())
+					.append(Fields.VER_ID, startAfter.getObjectID())
+					.append(Fields.VER_VER, new BasicDBObject("$lt", startAfter.getVersion())));
+		}
+		query.put("$or", after);
+	}
+	
+	private static DBObject getStartAfterRestriction(
+			final Reference startAfter,
+			final boolean includeVersion) {
+		// the metadata index uses the same field names as the versions collection
+		final DBObject restriction = new BasicDBObject();
+		addStartAfter(restriction, startAfter, includeVersion);
+		return restriction;
+	}
+
+	/* The workspace and object ID fields are the same in the versions and objects collections.
+	 * The other version fields are prefixed by verPrefix, allowing the query to be used on the
+	 * latest version copies in the objects collection.
+	 */
+	private DBObject buildQuery(
+			final GetObjectInformationParameters params,
+			final long[] workspaceIDs,
+			final String verPrefix) {
 		final DBObject verq = new BasicDBObject();
-		verq.put(Fields.VER_WS_ID, new BasicDBObject("$in", ids));
+		verq.put(Fields.VER_WS_ID, new BasicDBObject("$in", workspaceIDs));
 		if (params.getType() != null) {
-			verq.put(Fields.VER_TYPE, new BasicDBObject(
-					"$regex", "^" + params.getType().getTypePrefix()));
+			typeFields.addQuery(verq, params.getType(), verPrefix);
 		}
 		if (!params.getSavers().isEmpty()) {
-			verq.put(Fields.VER_SAVEDBY, new BasicDBObject(
+			verq.put(verPrefix + Fields.VER_SAVEDBY, new BasicDBObject(
 					"$in", convertWorkspaceUsers(params.getSavers())));
 		}
 		if (!params.getMetadata().isEmpty()) {
@@ -184,7 +635,7 @@ public class ObjectInfoUtils {
 				final DBObject mentry = new BasicDBObject();
 				mentry.put(Fields.META_KEY, e.getKey());
 				mentry.put(Fields.META_VALUE, e.getValue());
-				andmetaq.add(new BasicDBObject(Fields.VER_META, mentry));
+				andmetaq.add(new BasicDBObject(verPrefix + Fields.VER_META, mentry));
 			}
 			verq.put("$and", andmetaq); //note more than one entry is untested
 		}
@@ -196,7 +647,7 @@ public class ObjectInfoUtils {
 			if (params.getAfter() != null) {
 				d.put("$gt", params.getAfter());
 			}
-			verq.put(Fields.VER_SAVEDATE, d);
+			verq.put(verPrefix + Fields.VER_SAVEDATE, d);
 		}
 		if (params.getMinObjectID() > 1 || params.getMaxObjectID() > 0) {
 			final DBObject id = new BasicDBObject();
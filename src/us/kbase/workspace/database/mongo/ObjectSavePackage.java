@@ -16,5 +16,7 @@ public class ObjectSavePackage {
 	Set<String> refs;
 	List<String> provrefs;
 	ObjectId provid;
+	long id;
+	int version;
 
 }
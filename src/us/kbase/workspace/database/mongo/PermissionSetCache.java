@@ -0,0 +1,178 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import us.kbase.workspace.database.AllUsers;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.PermissionSet;
+import us.kbase.workspace.database.User;
+import us.kbase.workspace.database.WorkspaceUser;
+
+/** A cache of the permission sets listing every workspace to which a user has at least a
+ * particular permission.
+ *
+ * Permission changes made on this server are applied via the invalidate methods. Changes made
+ * on other servers are only seen once the cached set expires.
+ */
+class PermissionSetCache {
+
+	private static class Key {
+
+		private final String user; // null for anonymous users
+		private final Permission perm;
+		private final boolean excludeGlobalRead;
+
+		private Key(final User user, final Permission perm, final boolean excludeGlobalRead) {
+			this.user = user == null ? null : user.getUser();
+			this.perm = requireNonNull(perm, "perm");
+			this.excludeGlobalRead = excludeGlobalRead;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (excludeGlobalRead ? 1231 : 1237);
+			result = prime * result + perm.hashCode();
+			result = prime * result + ((user == null) ? 0 : user.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (excludeGlobalRead != other.excludeGlobalRead) {
+				return false;
+			}
+			if (perm != other.perm) {
+				return false;
+			}
+			if (user == null) {
+				if (other.user != null) {
+					return false;
+				}
+			} else if (!user.equals(other.user)) {
+				return false;
+			}
+			return true;
+		}
+	}
+
+	private final Cache<Key, PermissionSet> cache;
+	// incremented on every invalidation so stale query results aren't cached
+	private final AtomicLong generation = new AtomicLong();
+
+	/** Create the cache.
+	 * @param maxSets the maximum number of permission sets to cache.
+	 * @param ttlMS the time in milliseconds after which a cached set expires.
+	 */
+	PermissionSetCache(final int maxSets, final int ttlMS) {
+		cache = CacheBuilder.newBuilder()
+				.maximumSize(maxSets)
+				.expireAfterWrite(ttlMS, TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/** Get the current generation of the cache. Pass the generation obtained prior to
+	 * querying the database to {@link #put(WorkspaceUser, Permission, boolean, PermissionSet,
+	 * long)}.
+	 * @return the generation.
+	 */
+	long getGeneration() {
+		return generation.get();
+	}
+
+	/** Get a permission set from the cache.
+	 * @param user the user, or null for an anonymous user.
+	 * @param perm the minimum permission of the workspaces in the set.
+	 * @param excludeGlobalRead true if the set excludes globally readable workspaces to which
+	 * the user has no explicit permission.
+	 * @return the permission set, or null if the set is not cached.
+	 */
+	PermissionSet get(
+			final WorkspaceUser user,
+			final Permission perm,
+			final boolean excludeGlobalRead) {
+		return cache.getIfPresent(new Key(user, perm, excludeGlobalRead));
+	}
+
+	/** Add a permission set to the cache. The set is not added if any invalidation has occurred
+	 * since the generation was retrieved.
+	 * @param user the user, or null for an anonymous user.
+	 * @param perm the minimum permission of the workspaces in the set.
+	 * @param excludeGlobalRead true if the set excludes globally readable workspaces to which
+	 * the user has no explicit permission.
+	 * @param pset the permission set.
+	 * @param generation the generation of the cache when the set was retrieved from the
+	 * database.
+	 */
+	void put(
+			final WorkspaceUser user,
+			final Permission perm,
+			final boolean excludeGlobalRead,
+			final PermissionSet pset,
+			final long generation) {
+		synchronized (this) {
+			if (this.generation.get() == generation) {
+				cache.put(new Key(user, perm, excludeGlobalRead), requireNonNull(pset, "pset"));
+			}
+		}
+	}
+
+	/** Invalidate the permission sets for a set of users. If the users include all users, or
+	 * any user is anonymous, all sets are invalidated.
+	 * @param users the users whose permissions have changed.
+	 */
+	void invalidate(final Collection<? extends User> users) {
+		synchronized (this) {
+			generation.incrementAndGet();
+			for (final User u: users) {
+				if (u == null || u instanceof AllUsers) {
+					cache.invalidateAll();
+					return;
+				}
+			}
+			for (final User u: users) {
+				for (final Permission p: Permission.values()) {
+					cache.invalidate(new Key(u, p, true));
+					cache.invalidate(new Key(u, p, false));
+				}
+			}
+		}
+	}
+
+	/** Invalidate all cached permission sets, for example when a workspace is renamed, locked,
+	 * deleted, or changes owner, since the sets contain the workspace's state.
+	 */
+	void invalidateAll() {
+		synchronized (this) {
+			generation.incrementAndGet();
+			cache.invalidateAll();
+		}
+	}
+
+	/** Get the cache statistics, including the hit rate.
+	 * @return the statistics.
+	 */
+	CacheStats getStats() {
+		return cache.stats();
+	}
+}
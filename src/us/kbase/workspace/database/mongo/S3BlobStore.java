@@ -2,16 +2,32 @@ package us.kbase.workspace.database.mongo;
 
 import static java.util.Objects.requireNonNull;
 import static us.kbase.workspace.database.Util.checkString;
+import static us.kbase.workspace.database.Util.noNulls;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoException;
 
@@ -57,10 +73,18 @@ public class S3BlobStore implements BlobStore {
 	
 	private static final String IDX_UNIQ = "unique";
 	
+	/** The default maximum number of S3 objects that will be transferred concurrently by
+	 * {@link #getBlobs(Set, ByteArrayFileCacheManager)} and {@link #saveBlobs(Map, boolean)},
+	 * across all requests.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENCY = 20;
+	
 	private final DBCollection col;
 	private final S3ClientWithPresign s3;
 	private final String bucket;
 	private final UUIDGen uuidGen;
+	private final ExecutorService executor;
+	private final int maxConcurrency;
 	
 	/** Create the blob store.
 	 * @param mongoCollection the MongoDB collection in which the blob store will store records.
@@ -74,7 +98,25 @@ public class S3BlobStore implements BlobStore {
 			final S3ClientWithPresign s3,
 			final String bucket)
 			throws BlobStoreCommunicationException, IllegalArgumentException {
-		this(mongoCollection, s3, bucket, new UUIDGen() {
+		this(mongoCollection, s3, bucket, DEFAULT_MAX_CONCURRENCY);
+	}
+	
+	/** Create the blob store.
+	 * @param mongoCollection the MongoDB collection in which the blob store will store records.
+	 * @param s3 the S3 client.
+	 * @param bucket the name of the bucket in which files will be stored.
+	 * @param maxConcurrency the maximum number of S3 objects that will be transferred
+	 * concurrently when saving or getting multiple blobs, across all requests.
+	 * @throws BlobStoreCommunicationException if an error occurs contacting the S3 backend.
+	 * @throws IllegalArgumentException if the bucket name is illegal.
+	 */
+	public S3BlobStore(
+			final DBCollection mongoCollection,
+			final S3ClientWithPresign s3,
+			final String bucket,
+			final int maxConcurrency)
+			throws BlobStoreCommunicationException, IllegalArgumentException {
+		this(mongoCollection, s3, bucket, maxConcurrency, new UUIDGen() {
 			@Override
 			public UUID randomUUID() {
 				return UUID.randomUUID();
@@ -92,10 +134,35 @@ public class S3BlobStore implements BlobStore {
 			final String bucket,
 			final UUIDGen uuidGen)
 			throws BlobStoreCommunicationException, IllegalArgumentException {
+		this(mongoCollection, s3, bucket, DEFAULT_MAX_CONCURRENCY, uuidGen);
+	}
+	
+	/** This constructor is to be used only for unit testing, as it allows mocking the UUID
+	 * generator. It is otherwise equivalent to
+	 * {@link #S3BlobStore(DBCollection, S3ClientWithPresign, String, int)}.
+	 */
+	public S3BlobStore(
+			final DBCollection mongoCollection,
+			final S3ClientWithPresign s3,
+			final String bucket,
+			final int maxConcurrency,
+			final UUIDGen uuidGen)
+			throws BlobStoreCommunicationException, IllegalArgumentException {
 		this.uuidGen = uuidGen;
 		this.col = requireNonNull(mongoCollection, "mongoCollection");
 		this.s3 = requireNonNull(s3, "s3");
 		this.bucket = checkBucketName(bucket);
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be at least 1");
+		}
+		this.maxConcurrency = maxConcurrency;
+		final ThreadPoolExecutor exe = new ThreadPoolExecutor(
+				maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("s3-transfer-%d")
+						.build());
+		exe.allowCoreThreadTimeOut(true);
+		this.executor = exe;
 		this.col.createIndex(new BasicDBObject(Fields.S3_CHKSUM, 1),
 				new BasicDBObject(IDX_UNIQ, 1));
 		try {
@@ -109,6 +176,13 @@ public class S3BlobStore implements BlobStore {
 		//TODO DBCONSIST check that a few files exist to ensure we're pointing at the right S3 instance
 	}
 	
+	/** Get the maximum number of S3 objects that will be transferred concurrently.
+	 * @return the maximum concurrency.
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+	
 	private String checkBucketName(String bucket) throws IllegalArgumentException {
 		bucket = checkString(bucket, "bucket");
 		if (bucket.length() < 3 || bucket.length() > 63) {
@@ -144,6 +218,59 @@ public class S3BlobStore implements BlobStore {
 		} catch (NoSuchBlobException nb) {
 			//go ahead, need to save
 		}
+		upload(md5, data, sorted);
+	}
+	
+	@Override
+	public void saveBlobs(final Map<MD5, Restreamable> data, final boolean sorted)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
+		requireNonNull(data, "data");
+		noNulls(data.keySet(), "null key in data");
+		noNulls(data.values(), "null value in data");
+		final Set<MD5> existing = getExistingBlobs(data.keySet());
+		final Map<MD5, Callable<Void>> uploads = new HashMap<>();
+		for (final Entry<MD5, Restreamable> e: data.entrySet()) {
+			if (!existing.contains(e.getKey())) {
+				uploads.put(e.getKey(), () -> {
+					upload(e.getKey(), e.getValue(), sorted);
+					return null;
+				});
+			}
+		}
+		try {
+			runConcurrently(uploads);
+		} catch (BlobStoreCommunicationException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unexpected exception: " + e.getMessage(), e);
+		}
+	}
+	
+	private Set<MD5> getExistingBlobs(final Set<MD5> md5s)
+			throws BlobStoreCommunicationException {
+		final Set<MD5> ret = new HashSet<>();
+		if (md5s.isEmpty()) {
+			return ret;
+		}
+		final List<String> chksums = new LinkedList<>();
+		for (final MD5 m: md5s) {
+			chksums.add(m.getMD5());
+		}
+		try (final DBCursor cur = col.find(
+				new BasicDBObject(Fields.S3_CHKSUM, new BasicDBObject("$in", chksums)),
+				new BasicDBObject(Fields.S3_CHKSUM, 1))) {
+			while (cur.hasNext()) {
+				ret.add(new MD5((String) cur.next().get(Fields.S3_CHKSUM)));
+			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		return ret;
+	}
+	
+	private void upload(final MD5 md5, final Restreamable data, final boolean sorted)
+			throws BlobStoreCommunicationException {
 		final String key = toS3Key(uuidGen.randomUUID());
 		try {
 			s3.presignAndPutObject(bucket, key, data);
@@ -186,7 +313,7 @@ public class S3BlobStore implements BlobStore {
 		try {
 			final DBObject ret = col.findOne(new BasicDBObject(Fields.S3_CHKSUM, md5.getMD5()));
 			if (ret == null) {
-				throw new NoSuchBlobException("No blob saved with chksum " + md5.getMD5());
+				throw noSuchBlob(md5);
 			}
 			return ret;
 		} catch (MongoException me) {
@@ -195,12 +322,114 @@ public class S3BlobStore implements BlobStore {
 		}
 	}
 
+	private NoSuchBlobException noSuchBlob(final MD5 md5) {
+		return new NoSuchBlobException("No blob saved with chksum " + md5.getMD5(), md5);
+	}
+	
+	private Map<MD5, DBObject> getBlobEntries(final Set<MD5> md5s)
+			throws BlobStoreCommunicationException, NoSuchBlobException {
+		final List<String> chksums = new LinkedList<>();
+		for (final MD5 m: md5s) {
+			chksums.add(m.getMD5());
+		}
+		final Map<MD5, DBObject> ret = new HashMap<>();
+		try (final DBCursor cur = col.find(new BasicDBObject(
+				Fields.S3_CHKSUM, new BasicDBObject("$in", chksums)))) {
+			while (cur.hasNext()) {
+				final DBObject o = cur.next();
+				ret.put(new MD5((String) o.get(Fields.S3_CHKSUM)), o);
+			}
+		} catch (MongoException me) {
+			throw new BlobStoreCommunicationException(
+					"Could not read from the mongo database", me);
+		}
+		for (final MD5 m: md5s) {
+			if (!ret.containsKey(m)) {
+				throw noSuchBlob(m);
+			}
+		}
+		return ret;
+	}
+
 	@Override
 	public ByteArrayFileCache getBlob(final MD5 md5, final ByteArrayFileCacheManager bafcMan)
 			throws BlobStoreAuthorizationException, BlobStoreCommunicationException,
 				NoSuchBlobException, FileCacheLimitExceededException, FileCacheIOException {
 		requireNonNull(bafcMan, "bafcMan");
-		final DBObject entry = getBlobEntry(requireNonNull(md5, "md5"));
+		return getBlob(md5, getBlobEntry(requireNonNull(md5, "md5")), bafcMan);
+	}
+	
+	@Override
+	public Map<MD5, ByteArrayFileCache> getBlobs(
+			final Set<MD5> md5s,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException,
+				NoSuchBlobException, FileCacheLimitExceededException, FileCacheIOException {
+		noNulls(requireNonNull(md5s, "md5s"), "null item in md5s");
+		requireNonNull(bafcMan, "bafcMan");
+		if (md5s.isEmpty()) {
+			return new HashMap<>();
+		}
+		final Map<MD5, DBObject> entries = getBlobEntries(md5s);
+		final Map<MD5, Callable<ByteArrayFileCache>> gets = new HashMap<>();
+		for (final Entry<MD5, DBObject> e: entries.entrySet()) {
+			gets.put(e.getKey(), () -> getBlob(e.getKey(), e.getValue(), bafcMan));
+		}
+		try {
+			return runConcurrently(gets);
+		} catch (BlobStoreCommunicationException | FileCacheLimitExceededException |
+				FileCacheIOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unexpected exception: " + e.getMessage(), e);
+		}
+	}
+	
+	/* Runs the callables on the executor and waits for all of them to complete. If any
+	 * callable fails, the first exception is thrown once all the callables are complete and any
+	 * ByteArrayFileCaches returned from successful callables are destroyed.
+	 */
+	private <T> Map<MD5, T> runConcurrently(final Map<MD5, Callable<T>> tasks)
+			throws Throwable {
+		final Map<MD5, T> ret = new HashMap<>();
+		if (tasks.size() == 1) { // don't bother with the executor
+			final Entry<MD5, Callable<T>> e = tasks.entrySet().iterator().next();
+			ret.put(e.getKey(), e.getValue().call());
+			return ret;
+		}
+		final Map<MD5, Future<T>> futures = new HashMap<>();
+		for (final Entry<MD5, Callable<T>> e: tasks.entrySet()) {
+			futures.put(e.getKey(), executor.submit(e.getValue()));
+		}
+		Throwable err = null;
+		for (final Entry<MD5, Future<T>> f: futures.entrySet()) {
+			try {
+				ret.put(f.getKey(), f.getValue().get());
+			} catch (ExecutionException e) {
+				err = err == null ? e.getCause() : err;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				err = err == null ? new BlobStoreCommunicationException(
+						"Interrupted while transferring S3 objects", e) : err;
+			}
+		}
+		if (err != null) {
+			for (final T t: ret.values()) {
+				if (t instanceof ByteArrayFileCache) {
+					((ByteArrayFileCache) t).destroy();
+				}
+			}
+			throw err;
+		}
+		return ret;
+	}
+	
+	private ByteArrayFileCache getBlob(
+			final MD5 md5,
+			final DBObject entry,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreCommunicationException, FileCacheLimitExceededException,
+				FileCacheIOException {
 		final boolean sorted = (Boolean)entry.get(Fields.S3_SORTED);
 		final String key = (String)entry.get(Fields.S3_KEY);
 		try (final ResponseInputStream<GetObjectResponse> obj = s3.getClient().getObject(
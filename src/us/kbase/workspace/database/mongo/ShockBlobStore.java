@@ -3,7 +3,11 @@ package us.kbase.workspace.database.mongo;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.LoggerFactory;
 
@@ -124,6 +128,18 @@ public class ShockBlobStore implements BlobStore {
 		}
 	}
 
+	@Override
+	public void saveBlobs(final Map<MD5, Restreamable> data, final boolean sorted)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
+		if (data == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		// Shock is deprecated, so no attempt is made to batch requests
+		for (final Entry<MD5, Restreamable> e: data.entrySet()) {
+			saveBlob(e.getKey(), e.getValue(), sorted);
+		}
+	}
+	
 	private ShockNode saveNode(final MD5 md5, final Restreamable data)
 			throws BlobStoreCommunicationException {
 		try (final InputStream is = data.getInputStream()) {
@@ -161,7 +177,7 @@ public class ShockBlobStore implements BlobStore {
 		}
 		if (ret == null) {
 			throw new NoSuchBlobException("No blob saved with chksum "
-					+ md5.getMD5());
+					+ md5.getMD5(), md5);
 		}
 		return ret;
 	}
@@ -199,6 +215,33 @@ public class ShockBlobStore implements BlobStore {
 		}
 	}
 
+	@Override
+	public Map<MD5, ByteArrayFileCache> getBlobs(
+			final Set<MD5> md5s,
+			final ByteArrayFileCacheManager bafcMan)
+			throws BlobStoreAuthorizationException, BlobStoreCommunicationException,
+				NoSuchBlobException, FileCacheLimitExceededException, FileCacheIOException {
+		if (md5s == null || bafcMan == null) {
+			throw new NullPointerException("Arguments cannot be null");
+		}
+		// Shock is deprecated, so no attempt is made to batch requests
+		final Map<MD5, ByteArrayFileCache> ret = new HashMap<>();
+		boolean success = false;
+		try {
+			for (final MD5 m: md5s) {
+				ret.put(m, getBlob(m, bafcMan));
+			}
+			success = true;
+		} finally {
+			if (!success) {
+				for (final ByteArrayFileCache bafc: ret.values()) {
+					bafc.destroy();
+				}
+			}
+		}
+		return ret;
+	}
+
 	@Override
 	public void removeBlob(final MD5 md5)
 			throws BlobStoreAuthorizationException, BlobStoreCommunicationException {
@@ -0,0 +1,237 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.typedobj.core.AbsoluteTypeDefId;
+import us.kbase.typedobj.core.TypeDefId;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** Maintains the type module, type name, and major version fields of version documents and
+ * of the latest version copies in object documents (see {@link LatestVersionView}). The
+ * fields are split out of the full type string so that queries on types can be exact
+ * matches against an index rather than regular expressions against the type string.
+ *
+ * Versions saved by earlier versions of the workspace do not have the fields. On startup, if
+ * the database has not been marked as backfilled, any missing fields are written in the
+ * background, and type queries fall back to matching the full type string until the
+ * backfill is complete.
+ */
+class TypeFields {
+
+	private static final int BACKFILL_BATCH_SIZE = 1000;
+
+	private static final String LATEST_TYPE = Fields.OBJ_LATEST_VER + Fields.FIELD_SEP +
+			Fields.VER_TYPE;
+	private static final String LATEST_MODULE = Fields.OBJ_LATEST_VER + Fields.FIELD_SEP +
+			Fields.VER_TYPE_MODULE;
+
+	private final DBCollection objects;
+	private final DBCollection versions;
+	private final DBCollection config;
+	private volatile boolean ready = false;
+
+	/** Create the type field manager. If the database is not yet marked as backfilled and any
+	 * versions or latest version copies are missing the type fields, a backfill is started in
+	 * the background.
+	 * @param objects the objects collection.
+	 * @param versions the versions collection.
+	 * @param config the configuration collection. The configuration document must exist.
+	 * @throws WorkspaceCommunicationException if a communication error occurs.
+	 */
+	TypeFields(
+			final DBCollection objects,
+			final DBCollection versions,
+			final DBCollection config)
+			throws WorkspaceCommunicationException {
+		this.objects = requireNonNull(objects, "objects");
+		this.versions = requireNonNull(versions, "versions");
+		this.config = requireNonNull(config, "config");
+		try {
+			final DBObject cfg = config.findOne(
+					new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+					new BasicDBObject(Fields.CONFIG_TYPE_FIELDS_BACKFILLED, 1));
+			if (Boolean.TRUE.equals(cfg.get(Fields.CONFIG_TYPE_FIELDS_BACKFILLED))) {
+				ready = true;
+			} else if (versions.findOne(getMissingVersionQuery()) == null &&
+					objects.findOne(getMissingLatestQuery()) == null) {
+				setBackfilled();
+			} else {
+				final ExecutorService exe = Executors.newSingleThreadExecutor(
+						new ThreadFactoryBuilder().setDaemon(true)
+								.setNameFormat("ws-type-backfill-%d").build());
+				exe.execute(() -> backfill());
+				exe.shutdown();
+			}
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	/** Returns true if all versions and latest version copies have the type fields and type
+	 * queries use them.
+	 * @return true if the type fields are in use.
+	 */
+	boolean isReady() {
+		return ready;
+	}
+
+	/** Get the index on the type fields of the versions collection. The workspace, object,
+	 * and version fields follow the type module and name so that type queries on a set of
+	 * workspaces can be sorted by the index.
+	 * @return the index specification.
+	 */
+	static DBObject getVersionIndex() {
+		return new BasicDBObject(Fields.VER_TYPE_MODULE, 1)
+				.append(Fields.VER_TYPE_NAME, 1)
+				.append(Fields.VER_WS_ID, 1)
+				.append(Fields.VER_ID, 1)
+				.append(Fields.VER_VER, -1)
+				.append(Fields.VER_TYPE_MAJOR, 1);
+	}
+
+	/** Get the index on the type fields of the latest version copies in the objects
+	 * collection. The workspace and object fields follow the type module and name so that
+	 * type queries on a set of workspaces can be sorted by the index.
+	 * @return the index specification.
+	 */
+	static DBObject getLatestIndex() {
+		final String prefix = Fields.OBJ_LATEST_VER + Fields.FIELD_SEP;
+		return new BasicDBObject(prefix + Fields.VER_TYPE_MODULE, 1)
+				.append(prefix + Fields.VER_TYPE_NAME, 1)
+				.append(Fields.OBJ_WS_ID, 1)
+				.append(Fields.OBJ_ID, 1)
+				.append(prefix + Fields.VER_TYPE_MAJOR, 1);
+	}
+
+	/** Add the type fields to a version document or latest version copy based on the type
+	 * string in the {@link Fields#VER_TYPE} field.
+	 * @param version the version document or copy.
+	 */
+	static void addFields(final DBObject version) {
+		final AbsoluteTypeDefId type = AbsoluteTypeDefId.fromAbsoluteTypeString(
+				(String) version.get(Fields.VER_TYPE));
+		version.put(Fields.VER_TYPE_MODULE, type.getType().getModule());
+		version.put(Fields.VER_TYPE_NAME, type.getType().getName());
+		version.put(Fields.VER_TYPE_MAJOR, type.getMajorVersion());
+	}
+
+	/** Add a type filter to a query. Once the type fields are available, the filter is an
+	 * exact match on the {@link Fields#VER_TYPE_MODULE} field and the other type fields, and
+	 * so can be served by the type indexes.
+	 * @param query the query.
+	 * @param type the type to filter on. Any versions not provided in the type match any
+	 * version.
+	 * @param verPrefix a prefix for the version fields, allowing the filter to be used on the
+	 * latest version copies in the objects collection.
+	 */
+	void addQuery(final DBObject query, final TypeDefId type, final String verPrefix) {
+		if (!ready || type.getMd5() != null) {
+			// stored types never contain MD5s, so this never matches, as before
+			query.put(verPrefix + Fields.VER_TYPE,
+					new BasicDBObject("$regex", "^" + type.getTypePrefix()));
+			return;
+		}
+		query.put(verPrefix + Fields.VER_TYPE_MODULE, type.getType().getModule());
+		query.put(verPrefix + Fields.VER_TYPE_NAME, type.getType().getName());
+		if (type.getMajorVersion() != null) {
+			query.put(verPrefix + Fields.VER_TYPE_MAJOR, type.getMajorVersion());
+		}
+		if (type.getMinorVersion() != null) {
+			query.put(verPrefix + Fields.VER_TYPE, type.getTypeString());
+		}
+	}
+
+	private static DBObject getMissingVersionQuery() {
+		return new BasicDBObject(Fields.VER_TYPE_MODULE, new BasicDBObject("$exists", false));
+	}
+
+	private static DBObject getMissingLatestQuery() {
+		return new BasicDBObject(Fields.OBJ_LATEST_VER, new BasicDBObject("$exists", true))
+				.append(LATEST_MODULE, new BasicDBObject("$exists", false));
+	}
+
+	private void backfill() {
+		try {
+			final long vers = backfill(versions, getMissingVersionQuery(), Fields.VER_TYPE, "");
+			final long latest = backfill(objects, getMissingLatestQuery(), LATEST_TYPE,
+					Fields.OBJ_LATEST_VER + Fields.FIELD_SEP);
+			setBackfilled();
+			LoggerFactory.getLogger(getClass()).info(
+					"Backfilled the type fields of {} versions and {} latest versions",
+					vers, latest);
+		} catch (RuntimeException e) {
+			// type queries use the type string until a backfill completes on a later startup
+			LoggerFactory.getLogger(getClass()).error(
+					"Failed to backfill the type fields of object versions", e);
+		}
+	}
+
+	private long backfill(
+			final DBCollection col,
+			final DBObject missing,
+			final String typeField,
+			final String prefix) {
+		final DBCursor cur = col.find(missing, new BasicDBObject(typeField, 1));
+		final List<DBObject> batch = new LinkedList<>();
+		long count = 0;
+		for (final DBObject o: cur) {
+			batch.add(o);
+			if (batch.size() == BACKFILL_BATCH_SIZE) {
+				count += backfill(col, batch, typeField, prefix);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			count += backfill(col, batch, typeField, prefix);
+		}
+		return count;
+	}
+
+	private int backfill(
+			final DBCollection col,
+			final List<DBObject> docs,
+			final String typeField,
+			final String prefix) {
+		final BulkWriteOperation bulk = col.initializeUnorderedBulkOperation();
+		for (final DBObject d: docs) {
+			final String type = (String) (prefix.isEmpty() ? d.get(Fields.VER_TYPE) :
+				((DBObject) d.get(Fields.OBJ_LATEST_VER)).get(Fields.VER_TYPE));
+			final DBObject fields = new BasicDBObject(Fields.VER_TYPE, type);
+			addFields(fields);
+			final DBObject set = new BasicDBObject();
+			for (final String f: new String[] {Fields.VER_TYPE_MODULE, Fields.VER_TYPE_NAME,
+					Fields.VER_TYPE_MAJOR}) {
+				set.put(prefix + f, fields.get(f));
+			}
+			// a latest version copy may have been replaced by a concurrent save
+			bulk.find(new BasicDBObject(Fields.MONGO_ID, d.get(Fields.MONGO_ID))
+					.append(typeField, type))
+					.update(new BasicDBObject("$set", set));
+		}
+		bulk.execute();
+		return docs.size();
+	}
+
+	private void setBackfilled() {
+		config.update(new BasicDBObject(Fields.CONFIG_KEY, Fields.CONFIG_VALUE),
+				new BasicDBObject("$set",
+						new BasicDBObject(Fields.CONFIG_TYPE_FIELDS_BACKFILLED, true)));
+		ready = true;
+	}
+}
@@ -0,0 +1,95 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import us.kbase.typedobj.core.AbsoluteTypeDefId;
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.refsearch.PackedReference;
+
+/** A cache of the type and outgoing references of object versions. A version's type and
+ * references never change once the version is saved, so the cache needs no invalidation.
+ * Deletion state belongs to the object rather than the version and so is not cached.
+ *
+ * Versions are keyed by their {@link PackedReference} rather than a {@link Reference}. The
+ * few versions whose references cannot be packed are held in a separate cache keyed by
+ * reference.
+ */
+class VersionReferenceCache {
+
+	/** The type and outgoing references of an object version. */
+	static class VersionReferences {
+
+		private final AbsoluteTypeDefId type;
+		private final Set<Reference> references;
+
+		/** Create the version data.
+		 * @param type the type of the version.
+		 * @param references the references and provenance references from the version.
+		 */
+		VersionReferences(final AbsoluteTypeDefId type, final Set<Reference> references) {
+			this.type = requireNonNull(type, "type");
+			this.references = Collections.unmodifiableSet(
+					requireNonNull(references, "references"));
+		}
+
+		/** Get the type of the version.
+		 * @return the type.
+		 */
+		AbsoluteTypeDefId getType() {
+			return type;
+		}
+
+		/** Get the references and provenance references from the version.
+		 * @return the references.
+		 */
+		Set<Reference> getReferences() {
+			return references;
+		}
+	}
+
+	private final Cache<Long, VersionReferences> cache;
+	private final Cache<Reference, VersionReferences> unpackable;
+
+	/** Create the cache.
+	 * @param maxVersions the maximum number of versions to cache.
+	 */
+	VersionReferenceCache(final int maxVersions) {
+		cache = CacheBuilder.newBuilder().maximumSize(maxVersions).build();
+		unpackable = CacheBuilder.newBuilder().maximumSize(maxVersions).build();
+	}
+
+	/** Get the data for a version from the cache.
+	 * @param workspaceID the workspace ID of the version.
+	 * @param objectID the object ID of the version.
+	 * @param version the version.
+	 * @return the version data, or null if the version is not cached.
+	 */
+	VersionReferences get(final long workspaceID, final long objectID, final int version) {
+		final long packed = PackedReference.pack(workspaceID, objectID, version);
+		if (packed == PackedReference.UNPACKABLE) {
+			return unpackable.getIfPresent(new Reference(workspaceID, objectID, version));
+		}
+		return cache.getIfPresent(packed);
+	}
+
+	/** Add the data for a version to the cache.
+	 * @param version the version.
+	 * @param data the version data.
+	 */
+	void put(final Reference version, final VersionReferences data) {
+		requireNonNull(version, "version");
+		requireNonNull(data, "data");
+		final long packed = PackedReference.pack(version);
+		if (packed == PackedReference.UNPACKABLE) {
+			unpackable.put(version, data);
+		} else {
+			cache.put(packed, data);
+		}
+	}
+}
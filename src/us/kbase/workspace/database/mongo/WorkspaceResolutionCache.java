@@ -0,0 +1,185 @@
+package us.kbase.workspace.database.mongo;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.ObjectId;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.WorkspaceIdentifier;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
+
+/** A cache of resolved workspace IDs, keyed by workspace name and ID.
+ *
+ * Changes to a workspace's name, lock state or deletion state must be reported via
+ * {@link #invalidate(WorkspaceResolutionCache, DBCollection, long)}, which removes the workspace from the local cache
+ * and records the change in the invalidation collection. Each cache polls that collection and
+ * removes any workspaces changed by other servers, so a cache may return stale data for
+ * approximately the poll interval after another server changes a workspace.
+ */
+class WorkspaceResolutionCache {
+
+	/* Invalidation records are timestamped by the database server. Records are re-read for
+	 * this long after the latest seen record in case records with slightly earlier times
+	 * become visible after later records.
+	 */
+	private static final long POLL_OVERLAP_MS = 10000;
+
+	private final Cache<Long, ResolvedWorkspaceID> ids;
+	private final Cache<String, Long> names;
+	// incremented on every invalidation so stale query results aren't cached
+	private final AtomicLong generation = new AtomicLong();
+	private final ScheduledExecutorService poller;
+	// only accessed from the poller thread
+	private Date latestSeen = new Date(0);
+	// the times of the applied records that may be read again, so they aren't applied again
+	private final Map<ObjectId, Date> applied = new HashMap<>();
+
+	/** Create the cache and start polling for invalidations.
+	 * @param invalidations the collection containing invalidation records.
+	 * @param maxWorkspaces the maximum number of workspaces to cache.
+	 * @param pollIntervalMS the interval between polls of the invalidation collection.
+	 */
+	WorkspaceResolutionCache(
+			final DBCollection invalidations,
+			final int maxWorkspaces,
+			final int pollIntervalMS) {
+		requireNonNull(invalidations, "invalidations");
+		ids = CacheBuilder.newBuilder().maximumSize(maxWorkspaces).build();
+		names = CacheBuilder.newBuilder().maximumSize(maxWorkspaces).build();
+		poller = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("ws-cache-poll-%d").build());
+		poller.scheduleWithFixedDelay(() -> poll(invalidations),
+				0, pollIntervalMS, TimeUnit.MILLISECONDS);
+	}
+
+	/** Stop polling for invalidations. The cache should not be used after this method is
+	 * called.
+	 */
+	void stop() {
+		poller.shutdownNow();
+	}
+
+	/** Get the current generation of the cache. Pass the generation obtained prior to
+	 * querying the database to {@link #put(ResolvedWorkspaceID, long)}.
+	 * @return the generation.
+	 */
+	long getGeneration() {
+		return generation.get();
+	}
+
+	/** Get a workspace from the cache.
+	 * @param wsi the workspace identifier.
+	 * @return the resolved workspace ID, or null if the workspace is not cached.
+	 */
+	ResolvedWorkspaceID get(final WorkspaceIdentifier wsi) {
+		if (wsi.getId() != null) {
+			return ids.getIfPresent(wsi.getId());
+		}
+		final Long id = names.getIfPresent(wsi.getName());
+		if (id == null) {
+			return null;
+		}
+		final ResolvedWorkspaceID rwsi = ids.getIfPresent(id);
+		// the workspace may have been renamed since the name was cached
+		return rwsi == null || !rwsi.getName().equals(wsi.getName()) ? null : rwsi;
+	}
+
+	/** Add a workspace to the cache. The workspace is not added if any workspace has been
+	 * invalidated since the generation was retrieved, as the workspace data may be stale.
+	 * @param rwsi the workspace.
+	 * @param generation the generation of the cache when the workspace was retrieved from the
+	 * database.
+	 */
+	void put(final ResolvedWorkspaceID rwsi, final long generation) {
+		synchronized (this) {
+			if (this.generation.get() == generation) {
+				ids.put(rwsi.getID(), rwsi);
+				names.put(rwsi.getName(), rwsi.getID());
+			}
+		}
+	}
+
+	private void invalidateLocal(final long workspaceID) {
+		synchronized (this) {
+			generation.incrementAndGet();
+			ids.invalidate(workspaceID);
+		}
+	}
+
+	/** Invalidate a workspace in the local cache, if any, and record the invalidation so that
+	 * caches on other servers also invalidate the workspace. Call this method after changing a
+	 * workspace, whether or not a local cache is in use.
+	 * @param cache the local cache, or null if there is no local cache.
+	 * @param invalidations the collection containing invalidation records.
+	 * @param workspaceID the ID of the workspace that changed.
+	 * @throws WorkspaceCommunicationException if the invalidation could not be recorded.
+	 */
+	static void invalidate(
+			final WorkspaceResolutionCache cache,
+			final DBCollection invalidations,
+			final long workspaceID)
+			throws WorkspaceCommunicationException {
+		if (cache != null) {
+			cache.invalidateLocal(workspaceID);
+		}
+		try {
+			invalidations.update(
+					new BasicDBObject(Fields.MONGO_ID, new ObjectId()),
+					new BasicDBObject("$set", new BasicDBObject(Fields.INVAL_WS_ID, workspaceID))
+							.append("$currentDate",
+									new BasicDBObject(Fields.INVAL_TIME, true)),
+					true,
+					false);
+		} catch (MongoException me) {
+			throw new WorkspaceCommunicationException(
+					"There was a problem communicating with the database", me);
+		}
+	}
+
+	private void poll(final DBCollection invalidations) {
+		try {
+			final DBCursor cur = invalidations.find(
+					new BasicDBObject(Fields.INVAL_TIME, new BasicDBObject(
+							"$gte", new Date(latestSeen.getTime() - POLL_OVERLAP_MS))),
+					new BasicDBObject(Fields.INVAL_WS_ID, 1).append(Fields.INVAL_TIME, 1));
+			for (final DBObject inv: cur) {
+				final Date time = (Date) inv.get(Fields.INVAL_TIME);
+				// invalidating bumps the generation, so only do it for new records
+				if (applied.put((ObjectId) inv.get(Fields.MONGO_ID), time) == null) {
+					invalidateLocal((Long) inv.get(Fields.INVAL_WS_ID));
+				}
+				if (time.after(latestSeen)) {
+					latestSeen = time;
+				}
+			}
+			final Date oldest = new Date(latestSeen.getTime() - POLL_OVERLAP_MS);
+			applied.values().removeIf(t -> t.before(oldest));
+		} catch (RuntimeException e) {
+			// keep polling, but don't trust the cache
+			synchronized (this) {
+				generation.incrementAndGet();
+				ids.invalidateAll();
+			}
+			LoggerFactory.getLogger(getClass()).error(
+					"Failed to poll for workspace invalidations", e);
+		}
+	}
+}
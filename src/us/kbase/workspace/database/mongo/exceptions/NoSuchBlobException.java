@@ -1,5 +1,7 @@
 package us.kbase.workspace.database.mongo.exceptions;
 
+import us.kbase.typedobj.core.MD5;
+
 /** 
  * Thrown when attempting to retrieve a blob that doesn't exist.
  * @author gaprice@lbl.gov
@@ -9,8 +11,29 @@ public class NoSuchBlobException extends BlobStoreException {
 
 	private static final long serialVersionUID = 1L;
 	
-	public NoSuchBlobException() { super(); }
-	public NoSuchBlobException(String message) { super(message); }
-	public NoSuchBlobException(String message, Throwable cause) { super(message, cause); }
-	public NoSuchBlobException(Throwable cause) { super(cause); }
+	private final MD5 md5;
+	
+	public NoSuchBlobException() { super(); md5 = null; }
+	public NoSuchBlobException(String message) { super(message); md5 = null; }
+	public NoSuchBlobException(String message, Throwable cause) {
+		super(message, cause);
+		md5 = null;
+	}
+	public NoSuchBlobException(Throwable cause) { super(cause); md5 = null; }
+	
+	/** Create the exception.
+	 * @param message the exception message.
+	 * @param md5 the md5 of the missing blob.
+	 */
+	public NoSuchBlobException(final String message, final MD5 md5) {
+		super(message);
+		this.md5 = md5;
+	}
+	
+	/** Get the md5 of the missing blob, if provided.
+	 * @return the md5 or null.
+	 */
+	public MD5 getMD5() {
+		return md5;
+	}
 }
@@ -0,0 +1,110 @@
+package us.kbase.workspace.database.refsearch;
+
+import java.util.Arrays;
+
+/** A set of primitive longs using open addressing, avoiding the per-entry objects of a
+ * {@link java.util.HashSet}. This class is not thread safe.
+ */
+public class LongHashSet {
+
+	private long[] table; // 0 marks an empty slot
+	private boolean hasZero = false;
+	private int size = 0;
+
+	/** Create an empty set. */
+	public LongHashSet() {
+		this(0);
+	}
+
+	/** Create an empty set.
+	 * @param expectedSize the number of values the set is expected to hold.
+	 */
+	public LongHashSet(final int expectedSize) {
+		table = new long[LongHashing.capacity(expectedSize)];
+	}
+
+	/** Add a value to the set.
+	 * @param value the value.
+	 * @return true if the value was not already in the set.
+	 */
+	public boolean add(final long value) {
+		if (value == 0) {
+			if (hasZero) {
+				return false;
+			}
+			hasZero = true;
+			size++;
+			return true;
+		}
+		final int i = LongHashing.findSlot(table, value);
+		if (table[i] == value) {
+			return false;
+		}
+		table[i] = value;
+		size++;
+		// keep the load factor at or below 0.5
+		if (size * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		return true;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] old = table;
+		table = new long[capacity];
+		for (final long v: old) {
+			if (v != 0) {
+				table[LongHashing.findSlot(table, v)] = v;
+			}
+		}
+	}
+
+	/** Check whether the set contains a value.
+	 * @param value the value.
+	 * @return true if the set contains the value.
+	 */
+	public boolean contains(final long value) {
+		if (value == 0) {
+			return hasZero;
+		}
+		return table[LongHashing.findSlot(table, value)] == value;
+	}
+
+	/** Get the number of values in the set.
+	 * @return the size of the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if the set contains no values.
+	 * @return true if the set is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Get the values in the set in no particular order.
+	 * @return the values.
+	 */
+	public long[] toArray() {
+		final long[] ret = new long[size];
+		int j = 0;
+		if (hasZero) {
+			ret[j++] = 0;
+		}
+		for (final long v: table) {
+			if (v != 0) {
+				ret[j++] = v;
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		final long[] values = toArray();
+		Arrays.sort(values);
+		return "LongHashSet " + Arrays.toString(values);
+	}
+}
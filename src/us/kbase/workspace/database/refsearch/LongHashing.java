@@ -0,0 +1,43 @@
+package us.kbase.workspace.database.refsearch;
+
+/** Helpers for open addressing hash tables of primitive longs with linear probing. 0 marks
+ * an empty slot in the tables, so 0 cannot be stored as a key.
+ */
+public final class LongHashing {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private LongHashing() {}
+
+	/** Get the capacity of a table that can hold a number of keys at a load factor of at most
+	 * 0.5.
+	 * @param expectedSize the number of keys the table is expected to hold.
+	 * @return the table capacity, which is always a power of two.
+	 */
+	public static int capacity(final int expectedSize) {
+		int cap = MIN_CAPACITY;
+		while (cap < expectedSize * 2L && cap < MAX_CAPACITY) {
+			cap <<= 1;
+		}
+		return cap;
+	}
+
+	/** Find the slot holding a key in a table, or the empty slot where the key would be
+	 * inserted if the table does not contain the key.
+	 * @param table the table. The length must be a power of two and the table must contain at
+	 * least one empty slot.
+	 * @param key the key, which must not be 0.
+	 * @return the index of the slot.
+	 */
+	public static int findSlot(final long[] table, final long key) {
+		final int mask = table.length - 1;
+		long h = key * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		int i = (int) h & mask;
+		while (table[i] != 0 && table[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,62 @@
+package us.kbase.workspace.database.refsearch;
+
+/** The references adjacent to a set of references in a reference graph, with all references
+ * encoded as longs. Built from the response of a {@link ReferenceGraphTopologyProvider} for a
+ * single level of a search. Not thread safe.
+ */
+public class PackedAdjacency {
+
+	private static final long[] NO_REFS = new long[0];
+
+	// open addressing table from a reference to its adjacent references and whether each
+	// adjacent reference terminates the search. Encoded references are never 0.
+	private long[] keys;
+	private long[][] adjacent;
+	private boolean[][] terminal;
+
+	/** Create an empty adjacency structure.
+	 * @param expectedSize the number of references that will be added.
+	 */
+	public PackedAdjacency(final int expectedSize) {
+		final int cap = LongHashing.capacity(expectedSize);
+		keys = new long[cap];
+		adjacent = new long[cap][];
+		terminal = new boolean[cap][];
+	}
+
+	private int slot(final long ref) {
+		return LongHashing.findSlot(keys, ref);
+	}
+
+	/** Set the adjacent references for a reference. Each reference may only be set once.
+	 * @param ref the reference.
+	 * @param adjacentRefs the adjacent references.
+	 * @param terminates whether each adjacent reference terminates the search.
+	 */
+	public void put(final long ref, final long[] adjacentRefs, final boolean[] terminates) {
+		final int i = slot(ref);
+		keys[i] = ref;
+		adjacent[i] = adjacentRefs;
+		terminal[i] = terminates;
+	}
+
+	/** Get the references adjacent to a reference.
+	 * @param ref the reference.
+	 * @return the adjacent references, which must not be modified. Empty if the reference
+	 * has no adjacent references or was not included in the provider response.
+	 */
+	public long[] getAdjacent(final long ref) {
+		final int i = slot(ref);
+		return keys[i] == 0 ? NO_REFS : adjacent[i];
+	}
+
+	/** Check whether an adjacent reference terminates the search.
+	 * @param ref the reference.
+	 * @param index the index of the adjacent reference in the array returned by
+	 * {@link #getAdjacent(long)}.
+	 * @return true if the adjacent reference terminates the search.
+	 */
+	public boolean isTerminal(final long ref, final int index) {
+		return terminal[slot(ref)][index];
+	}
+}
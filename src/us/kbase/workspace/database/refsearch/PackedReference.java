@@ -0,0 +1,108 @@
+package us.kbase.workspace.database.refsearch;
+
+import us.kbase.workspace.database.Reference;
+
+/** Encodes a {@link Reference} as a single positive long, so that large numbers of references
+ * can be held in primitive arrays and sets.
+ *
+ * The workspace ID, object ID, and version are stored in 23, 26, and 14 bits respectively.
+ * References with larger IDs or versions cannot be packed, and the packing methods return
+ * {@link #UNPACKABLE} for those references.
+ */
+public final class PackedReference {
+
+	/** Returned in place of a packed reference when a reference cannot be packed. */
+	public static final long UNPACKABLE = -1;
+
+	private static final int VER_BITS = 14;
+	private static final int OBJ_BITS = 26;
+	private static final int WS_BITS = 23;
+	private static final long MAX_VER = (1L << VER_BITS) - 1;
+	private static final long MAX_OBJ = (1L << OBJ_BITS) - 1;
+	private static final long MAX_WS = (1L << WS_BITS) - 1;
+
+	private PackedReference() {}
+
+	/** Pack a reference.
+	 * @param workspaceID the workspace ID of the object.
+	 * @param objectID the ID of the object.
+	 * @param version the version of the object.
+	 * @return the packed reference, or {@link #UNPACKABLE} if any argument is out of range.
+	 */
+	public static long pack(final long workspaceID, final long objectID, final int version) {
+		if (workspaceID < 1 || workspaceID > MAX_WS || objectID < 1 || objectID > MAX_OBJ ||
+				version < 1 || version > MAX_VER) {
+			return UNPACKABLE;
+		}
+		return (workspaceID << (OBJ_BITS + VER_BITS)) | (objectID << VER_BITS) | version;
+	}
+
+	/** Pack a reference.
+	 * @param ref the reference.
+	 * @return the packed reference, or {@link #UNPACKABLE} if the reference cannot be packed.
+	 */
+	public static long pack(final Reference ref) {
+		return pack(ref.getWorkspaceID(), ref.getObjectID(), ref.getVersion());
+	}
+
+	/** Pack a reference string in the format X/Y/Z, as described in {@link Reference}, without
+	 * creating any intermediate objects.
+	 * @param ref the reference string.
+	 * @return the packed reference, or {@link #UNPACKABLE} if the reference cannot be packed.
+	 * @throws IllegalArgumentException if the string is not an absolute reference.
+	 */
+	public static long parse(final String ref) {
+		final long[] parts = new long[3];
+		int part = 0;
+		boolean digits = false;
+		for (int i = 0; i < ref.length(); i++) {
+			final char c = ref.charAt(i);
+			if (c >= '0' && c <= '9' && parts[part] <= MAX_OBJ) {
+				parts[part] = parts[part] * 10 + (c - '0');
+				digits = true;
+			} else if (c == '/' && digits && part < 2) {
+				part++;
+				digits = false;
+			} else {
+				// unusual, so let Reference deal with validation and large numbers
+				return pack(new Reference(ref));
+			}
+		}
+		if (part != 2 || !digits || parts[0] < 1 || parts[1] < 1 || parts[2] < 1) {
+			return pack(new Reference(ref));
+		}
+		return parts[2] > MAX_VER ? UNPACKABLE : pack(parts[0], parts[1], (int) parts[2]);
+	}
+
+	/** Unpack a reference.
+	 * @param packed the packed reference.
+	 * @return the reference.
+	 */
+	public static Reference toReference(final long packed) {
+		return new Reference(getWorkspaceID(packed), getObjectID(packed), getVersion(packed));
+	}
+
+	/** Get the workspace ID from a packed reference.
+	 * @param packed the packed reference.
+	 * @return the workspace ID.
+	 */
+	public static long getWorkspaceID(final long packed) {
+		return packed >>> (OBJ_BITS + VER_BITS);
+	}
+
+	/** Get the object ID from a packed reference.
+	 * @param packed the packed reference.
+	 * @return the object ID.
+	 */
+	public static long getObjectID(final long packed) {
+		return (packed >>> VER_BITS) & MAX_OBJ;
+	}
+
+	/** Get the version from a packed reference.
+	 * @param packed the packed reference.
+	 * @return the version.
+	 */
+	public static int getVersion(final long packed) {
+		return (int) (packed & MAX_VER);
+	}
+}
@@ -0,0 +1,145 @@
+package us.kbase.workspace.database.refsearch;
+
+import java.util.Arrays;
+
+/** A search tree based on a workspace reference graph, with references encoded as longs.
+ * The tree is stored in primitive arrays rather than as a set of references and linked tree
+ * nodes.
+ */
+public class PackedReferenceSearchTree {
+
+	private static final long[] NONE = new long[0];
+
+	private final long root;
+	private LongHashSet tree = new LongHashSet();
+	// the tree nodes, stored as parallel arrays of references and parent indexes
+	private long[] nodes = new long[16];
+	private int[] parents = new int[16];
+	private int nodeCount = 0;
+	private int[] leaves;
+	private long[] path = null;
+	private boolean complete = false;
+
+	/** Construct a new search tree.
+	 * @param root the root, or target, reference of the search.
+	 */
+	public PackedReferenceSearchTree(final long root) {
+		this.root = root;
+		tree.add(root);
+		leaves = new int[] {addNode(root, -1)};
+	}
+
+	private int addNode(final long ref, final int parent) {
+		if (nodeCount == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodeCount * 2);
+			parents = Arrays.copyOf(parents, nodeCount * 2);
+		}
+		nodes[nodeCount] = ref;
+		parents[nodeCount] = parent;
+		return nodeCount++;
+	}
+
+	/** Update the search tree with a new set of leaves. The tree's current leaves are checked
+	 * against the incoming references and updated to be parents of the new references, which
+	 * become the tree's new leaves. If one of the new references is a termination node, the
+	 * search completes and a path is generated from the termination node to the root node. If
+	 * no new leaves are found in the input the search is terminated with no path generated.
+	 *
+	 * Leaves that are already in the tree are ignored - e.g. diamond patterns in a directed graph
+	 * or cycles will not re-enter the search tree.
+	 *
+	 * @param newrefs the references adjacent to the current leaves.
+	 * @return the leaves that were added to the tree.
+	 * @throws IllegalStateException if the search is already complete.
+	 */
+	public long[] updateTree(final PackedAdjacency newrefs) {
+		if (complete) {
+			throw new IllegalStateException("Search is complete");
+		}
+		int[] newleaves = new int[leaves.length];
+		int newleafCount = 0;
+		for (final int leaf: leaves) {
+			final long r = nodes[leaf];
+			final long[] adjacent = newrefs.getAdjacent(r);
+			for (int i = 0; i < adjacent.length; i++) {
+				final long newleaf = adjacent[i];
+				// if newleaf already seen, an <= length path exists in the tree
+				if (!tree.contains(newleaf)) {
+					if (newrefs.isTerminal(r, i)) { //search is done
+						generatePath(leaf, newleaf);
+						completeSearch();
+						return NONE;
+					}
+					tree.add(newleaf);
+					if (newleafCount == newleaves.length) {
+						newleaves = Arrays.copyOf(newleaves, newleafCount * 2 + 1);
+					}
+					newleaves[newleafCount++] = addNode(newleaf, leaf);
+				}
+			}
+		}
+		leaves = Arrays.copyOf(newleaves, newleafCount);
+		final long[] ret = new long[newleafCount];
+		for (int i = 0; i < newleafCount; i++) {
+			ret[i] = nodes[leaves[i]];
+		}
+		if (newleafCount == 0) {
+			completeSearch();
+		}
+		return ret;
+	}
+
+	private void completeSearch() {
+		complete = true;
+		tree = null;
+		nodes = null;
+		parents = null;
+		leaves = null;
+	}
+
+	private void generatePath(final int leaf, final long newleaf) {
+		int length = 2;
+		for (int pos = leaf; parents[pos] >= 0; pos = parents[pos]) {
+			length++;
+		}
+		path = new long[length];
+		path[0] = newleaf;
+		int i = 1;
+		for (int pos = leaf; pos >= 0; pos = parents[pos]) {
+			path[i++] = nodes[pos];
+		}
+	}
+
+	/** Returns the root of this search tree.
+	 * @return the tree root.
+	 */
+	public long getRoot() {
+		return root;
+	}
+
+	/** Check if the search is complete, whether by encountering a termination reference or
+	 * exhausting the search.
+	 * @return true if the search is complete or false otherwise.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/** Check if a path from a termination reference to the root reference was found.
+	 * @return true if a path was found, false otherwise.
+	 */
+	public boolean isPathFound() {
+		return path != null;
+	}
+
+	/** Gets the path from the termination reference to the root reference of this search tree.
+	 * @return the path from the termination reference to the root.
+	 * @throws IllegalStateException if no path was found.
+	 */
+	public long[] getPath() {
+		if (path == null) {
+			throw new IllegalStateException("Search is not complete or failed");
+		}
+		return path;
+	}
+}
@@ -1,11 +1,14 @@
 package us.kbase.workspace.database.refsearch;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import us.kbase.workspace.database.Reference;
@@ -13,6 +16,9 @@ import us.kbase.workspace.database.Reference;
 /** Searches a reference graph from a set of target references to find references that meet search
  * termination criteria, and returns the path from each found object to its respective target
  * object.
+ * 
+ * References are encoded as longs within the search, and are only converted to
+ * {@link Reference}s when communicating with the topology provider and returning paths.
  * @author gaprice@lbl.gov
  *
  */
@@ -22,6 +28,10 @@ public class ReferenceGraphSearch {
 	private final Map<Reference, List<Reference>> paths = new HashMap<>();
 	private final ReferenceGraphTopologyProvider refProvider;
 	private final boolean throwExceptionOnFail;
+	// codes for references that can't be packed, which are encoded as negative numbers
+	private final Map<Reference, Long> unpackableCodes = new HashMap<>();
+	private final List<Reference> unpackable = new ArrayList<>();
+	private int refcount = 0;
 	
 	/** Construct and perform a search in a reference graph from a set of target
 	 * references to references that meet the search termination criteria as provided by the
@@ -69,42 +79,96 @@ public class ReferenceGraphSearch {
 			final Set<Reference> startingRefs)
 			throws ReferenceSearchFailedException, ReferenceSearchMaximumSizeExceededException,
 				ReferenceProviderException {
-		int refcount = startingRefs.size();
+		refcount = startingRefs.size();
 		if (refCountExceeded(refcount)) {
 			return;
 		}
-		Set<Reference> query = new HashSet<>();
-		final List<ReferenceSearchTree> trees = new LinkedList<>();
+		LongHashSet query = new LongHashSet(startingRefs.size());
+		final List<PackedReferenceSearchTree> trees = new LinkedList<>();
 		for (final Reference r: startingRefs) {
-			trees.add(new ReferenceSearchTree(r));
-			query.add(r);
+			final long code = encode(r);
+			trees.add(new PackedReferenceSearchTree(code));
+			query.add(code);
 		}
 		while (!trees.isEmpty()) {
-			final Map<Reference, Map<Reference, Boolean>> res =
-					refProvider.getAssociatedReferences(query);
+			final PackedAdjacency res = getAssociatedReferences(query);
 			query = null;
-			for (final Map<Reference, Boolean> r: res.values()) {
-				refcount += r.size();
-			}
-			if (refCountExceeded(refcount)) {
+			if (res == null) {
 				return;
 			}
-			query = new HashSet<>();
-			final Iterator<ReferenceSearchTree> treeiter = trees.iterator();
+			query = new LongHashSet();
+			final Iterator<PackedReferenceSearchTree> treeiter = trees.iterator();
 			while (treeiter.hasNext()) {
-				final ReferenceSearchTree tree = treeiter.next();
-				query.addAll(tree.updateTree(res));
+				final PackedReferenceSearchTree tree = treeiter.next();
+				for (final long r: tree.updateTree(res)) {
+					query.add(r);
+				}
 				if (tree.isComplete()) {
 					treeiter.remove();
 					if (tree.isPathFound()) {
-						paths.put(tree.getRoot(), tree.getPath());
+						paths.put(decode(tree.getRoot()), decode(tree.getPath()));
 					} else if (throwExceptionOnFail) { // otherwise do nothing
-						throw new ReferenceSearchFailedException(tree.getRoot());
+						throw new ReferenceSearchFailedException(decode(tree.getRoot()));
 					}
 				}
 			}
 		}
 	}
+	
+	// returns null if the search should end
+	private PackedAdjacency getAssociatedReferences(final LongHashSet query)
+			throws ReferenceProviderException, ReferenceSearchMaximumSizeExceededException {
+		final Set<Reference> refs = new HashSet<>();
+		for (final long r: query.toArray()) {
+			refs.add(decode(r));
+		}
+		final Map<Reference, Map<Reference, Boolean>> res =
+				refProvider.getAssociatedReferences(refs);
+		for (final Map<Reference, Boolean> r: res.values()) {
+			refcount += r.size();
+		}
+		if (refCountExceeded(refcount)) {
+			return null;
+		}
+		final PackedAdjacency adj = new PackedAdjacency(res.size());
+		for (final Entry<Reference, Map<Reference, Boolean>> e: res.entrySet()) {
+			final long[] adjacent = new long[e.getValue().size()];
+			final boolean[] terminal = new boolean[adjacent.length];
+			int i = 0;
+			for (final Entry<Reference, Boolean> a: e.getValue().entrySet()) {
+				adjacent[i] = encode(a.getKey());
+				terminal[i++] = a.getValue();
+			}
+			adj.put(encode(e.getKey()), adjacent, terminal);
+		}
+		return adj;
+	}
+	
+	private long encode(final Reference ref) {
+		final long packed = PackedReference.pack(ref);
+		if (packed != PackedReference.UNPACKABLE) {
+			return packed;
+		}
+		Long code = unpackableCodes.get(ref);
+		if (code == null) {
+			unpackable.add(ref);
+			code = (long) -unpackable.size();
+			unpackableCodes.put(ref, code);
+		}
+		return code;
+	}
+	
+	private Reference decode(final long code) {
+		return code > 0 ? PackedReference.toReference(code) : unpackable.get((int) -code - 1);
+	}
+	
+	private List<Reference> decode(final long[] codes) {
+		final List<Reference> refs = new ArrayList<>(codes.length);
+		for (final long c: codes) {
+			refs.add(decode(c));
+		}
+		return Collections.unmodifiableList(refs);
+	}
 
 	private boolean refCountExceeded(final int refcount)
 			throws ReferenceSearchMaximumSizeExceededException {
@@ -7,8 +7,10 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -44,8 +46,12 @@ import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceDatabase;
 import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.exceptions.WorkspaceCommunicationException;
 import us.kbase.workspace.database.exceptions.WorkspaceDBException;
 import us.kbase.workspace.database.mongo.BlobStore;
+import us.kbase.workspace.database.mongo.CachingBlobStore;
+import us.kbase.workspace.database.mongo.ChangeFeed;
+import us.kbase.workspace.database.mongo.ListenerOutbox;
 import us.kbase.workspace.database.mongo.GridFSBlobStore;
 import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
 import us.kbase.workspace.database.mongo.S3BlobStore;
@@ -73,6 +79,8 @@ public class InitWorkspaceServer {
 	
 	private static final int ADMIN_CACHE_MAX_SIZE = 100; // seems like more than enough admins
 	private static final int ADMIN_CACHE_EXP_TIME_MS = 5 * 60 * 1000; // cache admin role for 5m
+	// not prefixed with ws. so the temp file manager doesn't try to delete it
+	private static final String BLOB_CACHE_DIR = "blobcache";
 	
 	private static int maxUniqueIdCountPerCall = 100000;
 
@@ -177,7 +185,18 @@ public class InitWorkspaceServer {
 			wsdeps = getDependencies(cfg, tfm, auth);
 			ws = new Workspace(
 					wsdeps.mongoWS,
-					new ResourceUsageConfigurationBuilder().build(),
+					new ResourceUsageConfigurationBuilder()
+							.withValidationParallelism(cfg.getValidationParallelism())
+							.withSortParallelism(cfg.getSortParallelism())
+							.withModificationDateWindowMS(cfg.getModDateWindowMS())
+							.withWorkspaceCacheSize(cfg.getWorkspaceCacheSize())
+							.withWorkspaceCachePollMS(cfg.getWorkspaceCachePollMS())
+							.withPermissionCacheSize(cfg.getPermissionCacheSize())
+							.withPermissionCacheTTLMS(cfg.getPermissionCacheTTLMS())
+							.withVersionCacheSize(cfg.getVersionCacheSize())
+							.withReferenceIndexPollMS(cfg.getReferenceIndexPollMS())
+							.withReferenceIndexPollOverlapMS(cfg.getReferenceIndexPollOverlapMS())
+							.build(),
 					wsdeps.validator,
 					wsdeps.listeners);
 			ah = getAdminHandler(cfg, ws);
@@ -197,7 +216,7 @@ public class InitWorkspaceServer {
 		WorkspaceServerMethods wsmeth = new WorkspaceServerMethods(
 				ws, types, builder, cfg.getHandleServiceURL(), auth);
 		WorkspaceAdministration wsadmin = new WorkspaceAdministration(
-				ws, wsmeth, types, ah,
+				ws, wsmeth, types, ah, wsdeps.changeFeed, wsdeps.outbox,
 				ADMIN_CACHE_MAX_SIZE, ADMIN_CACHE_EXP_TIME_MS);
 		final String mem = String.format(
 				"Started workspace server instance %s. Free mem: %s Total mem: %s, Max mem: %s",
@@ -244,6 +263,8 @@ public class InitWorkspaceServer {
 		public WorkspaceDatabase mongoWS;
 		public ShockFactoryBits shockFac;
 		public List<WorkspaceEventListener> listeners;
+		public ChangeFeed changeFeed = null;
+		public ListenerOutbox outbox = null;
 	}
 	
 	private static WorkspaceDependencies getDependencies(
@@ -256,7 +277,7 @@ public class InitWorkspaceServer {
 		//TODO CODE update to new mongo APIs
 		final DB db = buildMongo(cfg, cfg.getDBname()).getDB(cfg.getDBname());
 		
-		final BlobStore bs = setupBlobStore(db, cfg, auth);
+		final BlobStore bs = setupBlobCache(setupBlobStore(db, cfg, auth), cfg, tfm);
 		
 		// see https://jira.mongodb.org/browse/JAVA-2656
 		final DB typeDB = buildMongo(cfg, cfg.getTypeDBName()).getDB(cfg.getTypeDBName());
@@ -277,7 +298,30 @@ public class InitWorkspaceServer {
 		}
 		deps.shockFac = getShockIdHandlerFactory(cfg, auth);
 		
-		deps.listeners = loadListeners(cfg);
+		deps.listeners = new LinkedList<>();
+		final Map<String, WorkspaceEventListener> listeners = loadListeners(cfg);
+		if (cfg.getListenerOutboxPollMS() > 0) {
+			try {
+				deps.outbox = new ListenerOutbox(db, listeners, cfg.getListenerOutboxPollMS(),
+						cfg.getListenerOutboxMaxAttempts(), cfg.getListenerOutboxRetryMS());
+			} catch (WorkspaceCommunicationException | IllegalArgumentException e) {
+				throw new WorkspaceInitException(
+						"Error initializing the listener outbox: " + e.getLocalizedMessage(), e);
+			}
+			deps.listeners.add(deps.outbox);
+		} else {
+			deps.listeners.addAll(listeners.values());
+		}
+		// the change feed is already written to the database, so it doesn't use the outbox
+		if (cfg.getChangeFeedRetentionHours() > 0) {
+			try {
+				deps.changeFeed = new ChangeFeed(db, cfg.getChangeFeedRetentionHours());
+			} catch (WorkspaceCommunicationException e) {
+				throw new WorkspaceInitException(
+						"Error initializing the change feed: " + e.getLocalizedMessage(), e);
+			}
+			deps.listeners.add(deps.changeFeed);
+		}
 		return deps;
 	}
 	
@@ -343,13 +387,17 @@ public class InitWorkspaceServer {
 		}
 	}
 	
-	private static List<WorkspaceEventListener> loadListeners(final KBaseWorkspaceConfig cfg)
+	private static Map<String, WorkspaceEventListener> loadListeners(
+			final KBaseWorkspaceConfig cfg)
 			throws WorkspaceInitException {
-		final List<WorkspaceEventListener> wels = new LinkedList<>();
+		final Map<String, WorkspaceEventListener> wels = new LinkedHashMap<>();
 		for (final ListenerConfig lc: cfg.getListenerConfigs()) {
+			if (wels.containsKey(lc.getName())) {
+				throw new WorkspaceInitException("Duplicate listener name: " + lc.getName());
+			}
 			final WorkspaceEventListenerFactory fac = loadFac(lc.getListenerClass());
 			try {
-				wels.add(fac.configure(lc.getConfig()));
+				wels.put(lc.getName(), fac.configure(lc.getConfig()));
 			} catch (ListenerInitializationException e) {
 				throw new WorkspaceInitException(String.format(
 						"Error initializing listener %s: %s",
@@ -454,7 +502,8 @@ public class InitWorkspaceServer {
 				return new S3BlobStore(
 						db.getCollection(COL_S3_OBJECTS),
 						cli,
-						cfg.getBackendContainer());
+						cfg.getBackendContainer(),
+						cfg.getBackendMaxConcurrency());
 			} catch (URISyntaxException e) {
 				throw new WorkspaceInitException("S3 url is not a valid URI: " +
 						e.getMessage(), e);
@@ -468,6 +517,29 @@ public class InitWorkspaceServer {
 		throw new WorkspaceInitException("Unknown backend type: " + cfg.getBackendType().name());
 	}
 
+	private static BlobStore setupBlobCache(
+			final BlobStore blobStore,
+			final KBaseWorkspaceConfig cfg,
+			final TempFilesManager tfm)
+			throws WorkspaceInitException {
+		if (cfg.getBlobCacheMemoryMB() < 1 && cfg.getBlobCacheDiskMB() < 1) {
+			return blobStore;
+		}
+		final CachingBlobStore.Builder b = CachingBlobStore.getBuilder(blobStore)
+				.withMaxMemorySize(cfg.getBlobCacheMemoryMB() * KBaseWorkspaceConfig.BYTES_PER_MB)
+				.withMinimumRequests(cfg.getBlobCacheMinRequests());
+		if (cfg.getBlobCacheDiskMB() > 0) {
+			b.withDiskCache(new File(tfm.getTempDir(), BLOB_CACHE_DIR),
+					cfg.getBlobCacheDiskMB() * KBaseWorkspaceConfig.BYTES_PER_MB);
+		}
+		try {
+			return b.build();
+		} catch (IOException e) {
+			throw new WorkspaceInitException("Couldn't create the blob cache directory: " +
+					e.getMessage(), e);
+		}
+	}
+
 	private static TempFilesManager initTempFilesManager(
 			final String tempDir,
 			final InitReporter rep) {
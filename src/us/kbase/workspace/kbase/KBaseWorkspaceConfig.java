@@ -32,6 +32,12 @@ public class KBaseWorkspaceConfig {
 	
 	//TODO JAVADOCS
 	
+	/** The number of bytes in a megabyte for all the *-mb parameters. This is the value the
+	 * server previously used for the request spooling threshold, so the default threshold is
+	 * unchanged at 100,000,000 bytes.
+	 */
+	public static final long BYTES_PER_MB = 1000 * 1000;
+	
 	//required deploy parameters
 	private static final String HOST = "mongodb-host";
 	private static final String DB = "mongodb-database";
@@ -45,6 +51,8 @@ public class KBaseWorkspaceConfig {
 	private static final String BACKEND_URL = "backend-url";
 	private static final String BACKEND_REGION = "backend-region";
 	private static final String BACKEND_CONTAINER = "backend-container";
+	private static final String BACKEND_MAX_CONCURRENCY = "backend-max-concurrency";
+	private static final long DEFAULT_BACKEND_MAX_CONCURRENCY = 20;
 	//mongo db auth params:
 	private static final String MONGO_USER = "mongodb-user";
 	private static final String MONGO_PWD = "mongodb-pwd";
@@ -78,6 +86,53 @@ public class KBaseWorkspaceConfig {
 	//directory for temp files
 	private static final String TEMP_DIR = "temp-dir";
 	
+	// incoming request handling
+	private static final String RPC_MEMORY_CACHE_MB = "rpc-memory-cache-mb";
+	private static final long DEFAULT_RPC_MEMORY_CACHE_MB = 100;
+	
+	// shared blob data cache
+	private static final String BLOB_CACHE_MEMORY_MB = "blob-cache-memory-mb";
+	private static final String BLOB_CACHE_DISK_MB = "blob-cache-disk-mb";
+	private static final String BLOB_CACHE_MIN_REQUESTS = "blob-cache-min-requests";
+	private static final long DEFAULT_BLOB_CACHE_MIN_REQUESTS = 2;
+	
+	// object validation and sorting
+	private static final String VALIDATION_PARALLELISM = "validation-parallelism";
+	private static final long DEFAULT_VALIDATION_PARALLELISM = 1;
+	private static final String SORT_PARALLELISM = "sort-parallelism";
+	private static final long DEFAULT_SORT_PARALLELISM = 1;
+	
+	// workspace document update batching
+	private static final String MODDATE_WINDOW_MS = "moddate-window-ms";
+	
+	// workspace resolution cache
+	private static final String WS_CACHE_SIZE = "ws-cache-size";
+	private static final String WS_CACHE_POLL_MS = "ws-cache-poll-ms";
+	private static final long DEFAULT_WS_CACHE_POLL_MS = 1000;
+	
+	// permission set cache
+	private static final String PERM_CACHE_SIZE = "permission-cache-size";
+	private static final String PERM_CACHE_TTL_MS = "permission-cache-ttl-ms";
+	private static final long DEFAULT_PERM_CACHE_TTL_MS = 10000;
+	
+	// version type and reference cache
+	private static final String VER_CACHE_SIZE = "version-cache-size";
+	
+	// incoming reference index
+	private static final String REF_INDEX_POLL_MS = "ref-index-poll-ms";
+	private static final String REF_INDEX_POLL_OVERLAP_MS = "ref-index-poll-overlap-ms";
+	private static final long DEFAULT_REF_INDEX_POLL_OVERLAP_MS = 60000;
+	
+	// change feed
+	private static final String CHANGE_FEED_RETENTION_HOURS = "change-feed-retention-hours";
+	
+	// listener outbox
+	private static final String LISTENER_OUTBOX_POLL_MS = "listener-outbox-poll-ms";
+	private static final String LISTENER_OUTBOX_MAX_ATTEMPTS = "listener-outbox-max-attempts";
+	private static final String LISTENER_OUTBOX_RETRY_MS = "listener-outbox-retry-ms";
+	private static final long DEFAULT_LISTENER_OUTBOX_MAX_ATTEMPTS = 10;
+	private static final long DEFAULT_LISTENER_OUTBOX_RETRY_MS = 60000;
+	
 	// the auth2 urls are checked when getting the url
 	private static final List<String> REQUIRED_PARAMS = Arrays.asList(
 			HOST, DB, TYPE_DB, TEMP_DIR, BACKEND_TYPE);
@@ -97,7 +152,26 @@ public class KBaseWorkspaceConfig {
 	private final URL backendURL;
 	private final String backendUser;
 	private final String backendToken;
+	private final int backendMaxConcurrency;
 	private final String tempDir;
+	private final long rpcMemoryCacheMB;
+	private final long blobCacheMemoryMB;
+	private final long blobCacheDiskMB;
+	private final int blobCacheMinRequests;
+	private final int validationParallelism;
+	private final int sortParallelism;
+	private final int modDateWindowMS;
+	private final int wsCacheSize;
+	private final int wsCachePollMS;
+	private final int permCacheSize;
+	private final int permCacheTTLMS;
+	private final int verCacheSize;
+	private final int refIndexPollMS;
+	private final int refIndexPollOverlapMS;
+	private final int changeFeedRetentionHours;
+	private final int listenerOutboxPollMS;
+	private final int listenerOutboxMaxAttempts;
+	private final int listenerOutboxRetryMS;
 	private final URL bytestreamURL;
 	private final String bytestreamUser;
 	private final String bytestreamToken;
@@ -118,16 +192,23 @@ public class KBaseWorkspaceConfig {
 	
 	public static class ListenerConfig {
 		
+		private final String name;
 		private final String listenerClass;
 		private final Map<String, String> config;
 		
 		public ListenerConfig(
+				final String name,
 				final String listenerClass,
 				final Map<String, String> config) {
 			requireNonNull(config, "config");
+			this.name = checkString(name, "name");
 			this.listenerClass = checkString(listenerClass, "listenerClass");
 			this.config = Collections.unmodifiableMap(new HashMap<>(config));
 		}
+		
+		public String getName() {
+			return name;
+		}
 
 		public String getListenerClass() {
 			return listenerClass;
@@ -143,6 +224,7 @@ public class KBaseWorkspaceConfig {
 			int result = 1;
 			result = prime * result + ((config == null) ? 0 : config.hashCode());
 			result = prime * result + ((listenerClass == null) ? 0 : listenerClass.hashCode());
+			result = prime * result + ((name == null) ? 0 : name.hashCode());
 			return result;
 		}
 
@@ -172,6 +254,13 @@ public class KBaseWorkspaceConfig {
 			} else if (!listenerClass.equals(other.listenerClass)) {
 				return false;
 			}
+			if (name == null) {
+				if (other.name != null) {
+					return false;
+				}
+			} else if (!name.equals(other.name)) {
+				return false;
+			}
 			return true;
 		}
 	}
@@ -196,6 +285,34 @@ public class KBaseWorkspaceConfig {
 					DB, TYPE_DB, db));
 		}
 		tempDir = nullIfEmpty(config.get(TEMP_DIR));
+		rpcMemoryCacheMB = getLong(config, RPC_MEMORY_CACHE_MB, DEFAULT_RPC_MEMORY_CACHE_MB, 1,
+				paramErrors);
+		blobCacheMemoryMB = getLong(config, BLOB_CACHE_MEMORY_MB, 0, 0, paramErrors);
+		blobCacheDiskMB = getLong(config, BLOB_CACHE_DISK_MB, 0, 0, paramErrors);
+		blobCacheMinRequests = (int) getLong(config, BLOB_CACHE_MIN_REQUESTS,
+				DEFAULT_BLOB_CACHE_MIN_REQUESTS, 1, paramErrors);
+		validationParallelism = (int) getLong(config, VALIDATION_PARALLELISM,
+				DEFAULT_VALIDATION_PARALLELISM, 1, paramErrors);
+		sortParallelism = (int) getLong(config, SORT_PARALLELISM,
+				DEFAULT_SORT_PARALLELISM, 1, paramErrors);
+		modDateWindowMS = (int) getLong(config, MODDATE_WINDOW_MS, 0, 0, paramErrors);
+		wsCacheSize = (int) getLong(config, WS_CACHE_SIZE, 0, 0, paramErrors);
+		wsCachePollMS = (int) getLong(config, WS_CACHE_POLL_MS, DEFAULT_WS_CACHE_POLL_MS, 1,
+				paramErrors);
+		permCacheSize = (int) getLong(config, PERM_CACHE_SIZE, 0, 0, paramErrors);
+		permCacheTTLMS = (int) getLong(config, PERM_CACHE_TTL_MS, DEFAULT_PERM_CACHE_TTL_MS, 1,
+				paramErrors);
+		verCacheSize = (int) getLong(config, VER_CACHE_SIZE, 0, 0, paramErrors);
+		refIndexPollMS = (int) getLong(config, REF_INDEX_POLL_MS, 0, 0, paramErrors);
+		refIndexPollOverlapMS = (int) getLong(config, REF_INDEX_POLL_OVERLAP_MS,
+				DEFAULT_REF_INDEX_POLL_OVERLAP_MS, 0, paramErrors);
+		changeFeedRetentionHours = (int) getLong(config, CHANGE_FEED_RETENTION_HOURS, 0, 0,
+				paramErrors);
+		listenerOutboxPollMS = (int) getLong(config, LISTENER_OUTBOX_POLL_MS, 0, 0, paramErrors);
+		listenerOutboxMaxAttempts = (int) getLong(config, LISTENER_OUTBOX_MAX_ATTEMPTS,
+				DEFAULT_LISTENER_OUTBOX_MAX_ATTEMPTS, 0, paramErrors);
+		listenerOutboxRetryMS = (int) getLong(config, LISTENER_OUTBOX_RETRY_MS,
+				DEFAULT_LISTENER_OUTBOX_RETRY_MS, 1, paramErrors);
 		
 		authURL = getUrl(config, KBASE_AUTH_URL, paramErrors, true);
 		auth2URL = getUrl(config, KBASE_AUTH2_URL, paramErrors, true);
@@ -228,6 +345,8 @@ public class KBaseWorkspaceConfig {
 			backendContainer = nullIfEmpty(config.get(BACKEND_CONTAINER));
 			backendRegion = getRegion(config, BACKEND_REGION, paramErrors);
 		}
+		backendMaxConcurrency = (int) getLong(config, BACKEND_MAX_CONCURRENCY,
+				DEFAULT_BACKEND_MAX_CONCURRENCY, 1, paramErrors);
 
 		bytestreamURL = getUrl(config, BYTESTREAM_URL, paramErrors, false);
 		if (bytestreamURL == null) {
@@ -321,7 +440,7 @@ public class KBaseWorkspaceConfig {
 				final Map<String, String> cfg = getListenerConfig(
 						config, listenerStart + LISTENER_CONFIG, paramErrors);
 				if (cfg != null) {
-					ret.add(new ListenerConfig(classStr, cfg));
+					ret.add(new ListenerConfig(name, classStr, cfg));
 				}
 			}
 		}
@@ -366,7 +485,15 @@ public class KBaseWorkspaceConfig {
 				Arrays.asList(HOST, DB, TYPE_DB, MONGO_USER, KBASE_AUTH_URL, KBASE_AUTH2_URL,
 						KBASE_AUTH_ADMIN_READ_ONLY_ROLES, KBASE_AUTH_ADMIN_FULL_ROLES,
 						BACKEND_TYPE, BACKEND_URL, BACKEND_USER, BACKEND_REGION,
-						BACKEND_CONTAINER));
+						BACKEND_CONTAINER, BACKEND_MAX_CONCURRENCY, RPC_MEMORY_CACHE_MB,
+						BLOB_CACHE_MEMORY_MB,
+						BLOB_CACHE_DISK_MB,
+						BLOB_CACHE_MIN_REQUESTS, VALIDATION_PARALLELISM, SORT_PARALLELISM,
+						MODDATE_WINDOW_MS, WS_CACHE_SIZE, WS_CACHE_POLL_MS,
+						PERM_CACHE_SIZE, PERM_CACHE_TTL_MS, VER_CACHE_SIZE, REF_INDEX_POLL_MS,
+						REF_INDEX_POLL_OVERLAP_MS, CHANGE_FEED_RETENTION_HOURS,
+						LISTENER_OUTBOX_POLL_MS, LISTENER_OUTBOX_MAX_ATTEMPTS,
+						LISTENER_OUTBOX_RETRY_MS));
 		if (!ignoreHandleService) {
 			paramSet.addAll(Arrays.asList(HANDLE_SERVICE_URL));
 		}
@@ -409,6 +536,29 @@ public class KBaseWorkspaceConfig {
 		return null;
 	}
 	
+	private static long getLong(
+			final Map<String, String> wsConfig,
+			final String configKey,
+			final long defaultValue,
+			final long minimum,
+			final List<String> errors) {
+		final String longStr = wsConfig.get(configKey);
+		if (nullOrEmpty(longStr)) {
+			return defaultValue;
+		}
+		try {
+			final long ret = Long.parseLong(longStr.trim());
+			if (ret >= minimum && ret <= Integer.MAX_VALUE) {
+				return ret;
+			}
+		} catch (NumberFormatException e) {
+			// fall through
+		}
+		errors.add(String.format("Parameter %s must be an integer from %s to %s: %s",
+				configKey, minimum, Integer.MAX_VALUE, longStr.trim()));
+		return defaultValue;
+	}
+	
 	// assume optional for now
 	private static Region getRegion(
 			final Map<String, String> wsConfig,
@@ -472,10 +622,86 @@ public class KBaseWorkspaceConfig {
 	public Region getBackendRegion() {
 		return backendRegion;
 	}
+	
+	public int getBackendMaxConcurrency() {
+		return backendMaxConcurrency;
+	}
 
 	public String getTempDir() {
 		return tempDir;
 	}
+	
+	public long getRpcMemoryCacheMB() {
+		return rpcMemoryCacheMB;
+	}
+
+	public long getBlobCacheMemoryMB() {
+		return blobCacheMemoryMB;
+	}
+	
+	public long getBlobCacheDiskMB() {
+		return blobCacheDiskMB;
+	}
+	
+	public int getBlobCacheMinRequests() {
+		return blobCacheMinRequests;
+	}
+	
+	public int getValidationParallelism() {
+		return validationParallelism;
+	}
+	
+	public int getSortParallelism() {
+		return sortParallelism;
+	}
+	
+	public int getModDateWindowMS() {
+		return modDateWindowMS;
+	}
+	
+	public int getWorkspaceCacheSize() {
+		return wsCacheSize;
+	}
+	
+	public int getWorkspaceCachePollMS() {
+		return wsCachePollMS;
+	}
+	
+	public int getPermissionCacheSize() {
+		return permCacheSize;
+	}
+	
+	public int getPermissionCacheTTLMS() {
+		return permCacheTTLMS;
+	}
+	
+	public int getVersionCacheSize() {
+		return verCacheSize;
+	}
+	
+	public int getReferenceIndexPollMS() {
+		return refIndexPollMS;
+	}
+	
+	public int getReferenceIndexPollOverlapMS() {
+		return refIndexPollOverlapMS;
+	}
+	
+	public int getChangeFeedRetentionHours() {
+		return changeFeedRetentionHours;
+	}
+	
+	public int getListenerOutboxPollMS() {
+		return listenerOutboxPollMS;
+	}
+	
+	public int getListenerOutboxMaxAttempts() {
+		return listenerOutboxMaxAttempts;
+	}
+	
+	public int getListenerOutboxRetryMS() {
+		return listenerOutboxRetryMS;
+	}
 
 	public URL getBytestreamURL() {
 		return bytestreamURL;
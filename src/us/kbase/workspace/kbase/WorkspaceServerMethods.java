@@ -52,6 +52,8 @@ import us.kbase.workspace.GetObjects2Params;
 import us.kbase.workspace.GetObjects2Results;
 import us.kbase.workspace.GrantModuleOwnershipParams;
 import us.kbase.workspace.ListObjectsParams;
+import us.kbase.workspace.ListRecentObjectsParams;
+import us.kbase.workspace.ListRecentObjectsResults;
 import us.kbase.workspace.ListWorkspaceIDsParams;
 import us.kbase.workspace.ListWorkspaceIDsResults;
 import us.kbase.workspace.ListWorkspaceInfoParams;
@@ -71,6 +73,9 @@ import us.kbase.workspace.database.ObjectIdentifier;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.Provenance;
+import us.kbase.workspace.database.RecentObjectPosition;
+import us.kbase.workspace.database.RecentObjects;
+import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.User;
 import us.kbase.workspace.database.UserWorkspaceIDs;
@@ -613,6 +618,8 @@ public class WorkspaceServerMethods {
 			.withBefore(before)
 			.withMinObjectID(checkLong(params.getMinObjectID(), -1))
 			.withMaxObjectID(checkLong(params.getMaxObjectID(), -1))
+			.withStartAfter(params.getStartafter() == null ?
+					null : new Reference(params.getStartafter()))
 			.withShowHidden(longToBoolean(params.getShowHidden()))
 			.withShowDeleted(longToBoolean(params.getShowDeleted()))
 			.withShowOnlyDeleted(longToBoolean(params.getShowOnlyDeleted()))
@@ -624,6 +631,32 @@ public class WorkspaceServerMethods {
 		return objInfoToTuple(ws.listObjects(lop), false);
 	}
 
+	/** List the most recently modified objects in the workspaces a user can read.
+	 * @param params the parameters for the listing.
+	 * @param user the user listing the objects, or null for an anonymous user.
+	 * @return the objects and the position at which the next page starts.
+	 * @throws CorruptWorkspaceDBException if corrupt data was found in the storage system.
+	 * @throws WorkspaceCommunicationException if a communication error occurred with the storage
+	 * system.
+	 */
+	public ListRecentObjectsResults listRecentObjects(
+			final ListRecentObjectsParams params,
+			final WorkspaceUser user)
+			throws CorruptWorkspaceDBException, WorkspaceCommunicationException {
+		checkAddlArgs(params.getAdditionalProperties(), params.getClass());
+		final RecentObjects recent = ws.listRecentObjects(
+				user,
+				longToBoolean(params.getExcludeGlobal()),
+				longToBoolean(params.getIncludeMetadata()),
+				longToInt(params.getLimit(), "Limit", -1),
+				params.getStartafter() == null ?
+						null : RecentObjectPosition.fromToken(params.getStartafter()));
+		return new ListRecentObjectsResults()
+				.withObjects(objInfoToTuple(recent.getObjects(), false))
+				.withNext(recent.getNext().isPresent() ?
+						recent.getNext().get().toToken() : null);
+	}
+
 	private ListObjectsParameters getListObjectParameters(
 			final WorkspaceUser user,
 			final boolean asAdmin,
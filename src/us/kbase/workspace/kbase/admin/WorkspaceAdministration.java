@@ -6,12 +6,14 @@ import static us.kbase.workspace.kbase.IdentifierUtils.processWorkspaceIdentifie
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -46,12 +48,17 @@ import us.kbase.workspace.SetPermissionsParams;
 import us.kbase.workspace.SetWorkspaceDescriptionParams;
 import us.kbase.workspace.WorkspaceIdentity;
 import us.kbase.workspace.WorkspacePermissions;
+import us.kbase.workspace.database.ChangeEvent;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
 import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
 import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.mongo.ChangeFeed;
+import us.kbase.workspace.database.mongo.ListenerOutbox;
+import us.kbase.workspace.database.mongo.ListenerOutbox.ListenerStatus;
+import us.kbase.workspace.kbase.KBasePermissions;
 import us.kbase.workspace.kbase.WorkspaceServerMethods;
 
 /** A workspace administration mediator. Administration calls should be routed to this class,
@@ -98,6 +105,10 @@ public class WorkspaceAdministration {
 	private static final String CREATE_WORKSPACE = "createWorkspace";
 	private static final String DELETE_WS = "deleteWorkspace";
 	private static final String UNDELETE_WS = "undeleteWorkspace";
+	private static final String GET_CHANGES = "getChanges";
+	private static final String GET_LISTENER_STATUS = "getListenerStatus";
+	
+	private static final int DEFAULT_CHANGES_LIMIT = 1000;
 
 	private final static ObjectMapper MAPPER = new ObjectMapper()
 			.registerModule(new JacksonTupleModule());
@@ -106,6 +117,8 @@ public class WorkspaceAdministration {
 	private final WorkspaceServerMethods wsmeth;
 	private final Types types;
 	private final AdministratorHandler admin;
+	private final Optional<ChangeFeed> changeFeed;
+	private final Optional<ListenerOutbox> outbox;
 	private final Cache<String, AdminRole> adminCache;
 	
 	/** Create the workspace administration instance.
@@ -113,6 +126,8 @@ public class WorkspaceAdministration {
 	 * @param wsmeth a workspace methods instance.
 	 * @param types a workspace types instance.
 	 * @param admin an administrator handler.
+	 * @param changeFeed the workspace change feed, or null if the change feed is disabled.
+	 * @param outbox the listener outbox, or null if events are delivered to listeners directly.
 	 * @param maxCacheSize the maximum number of {@link AdminRole}s to cache.
 	 * @param cacheTimeInMS the maximum time an {@link AdminRole} will be cached in milliseconds.
 	 */
@@ -121,9 +136,12 @@ public class WorkspaceAdministration {
 			final WorkspaceServerMethods wsmeth,
 			final Types types,
 			final AdministratorHandler admin,
+			final ChangeFeed changeFeed,
+			final ListenerOutbox outbox,
 			final int maxCacheSize,
 			final int cacheTimeInMS) {
-		this(ws, wsmeth, types, admin, maxCacheSize, cacheTimeInMS, Ticker.systemTicker());
+		this(ws, wsmeth, types, admin, changeFeed, outbox, maxCacheSize, cacheTimeInMS,
+				Ticker.systemTicker());
 	}
 	
 	/** This constructor should only be used for tests. */
@@ -132,6 +150,8 @@ public class WorkspaceAdministration {
 			final WorkspaceServerMethods wsmeth,
 			final Types types,
 			final AdministratorHandler admin,
+			final ChangeFeed changeFeed,
+			final ListenerOutbox outbox,
 			final int maxCacheSize,
 			final int cacheTimeInMS,
 			final Ticker ticker) {
@@ -139,6 +159,8 @@ public class WorkspaceAdministration {
 		this.types = types;
 		this.wsmeth = wsmeth;
 		this.admin = admin;
+		this.changeFeed = Optional.fromNullable(changeFeed);
+		this.outbox = Optional.fromNullable(outbox);
 		adminCache = CacheBuilder.newBuilder()
 				.maximumSize(maxCacheSize)
 				.expireAfterWrite(cacheTimeInMS, TimeUnit.MILLISECONDS)
@@ -406,11 +428,64 @@ public class WorkspaceAdministration {
 			wsmeth.removeModuleOwnership(params, null, true);
 			return null;
 		}
+		if (GET_CHANGES.equals(fn)) {
+			if (!changeFeed.isPresent()) {
+				throw new IllegalArgumentException("The change feed is not enabled");
+			}
+			final GetChangesParams params = getParams(cmd, GetChangesParams.class);
+			final long after = params.after == null ? 0 : params.after;
+			final List<ChangeEvent> changes = changeFeed.get().getChanges(
+					after, params.limit == null ? DEFAULT_CHANGES_LIMIT : params.limit);
+			getLogger().info(GET_CHANGES + " " + after + " " + changes.size());
+			final Map<String, Object> ret = new HashMap<>();
+			ret.put("changes", changes.stream().map(c -> toMap(c))
+					.collect(Collectors.toList()));
+			ret.put("next", changes.isEmpty() ? after :
+					changes.get(changes.size() - 1).getSequence());
+			return ret;
+		}
+		if (GET_LISTENER_STATUS.equals(fn)) {
+			if (!outbox.isPresent()) {
+				throw new IllegalArgumentException("The listener outbox is not enabled");
+			}
+			getLogger().info(GET_LISTENER_STATUS);
+			return outbox.get().getStatus().stream().map(s -> toMap(s))
+					.collect(Collectors.toList());
+		}
 		throw new IllegalArgumentException(
 				"I don't know how to process the command: " + fn);
 	}
+	
+	// same fields as the Kafka notifier plus the sequence number
+	private Map<String, Object> toMap(final ChangeEvent change) {
+		final Map<String, Object> ret = new HashMap<>();
+		ret.put("seq", change.getSequence());
+		ret.put("user", change.getUser().isPresent() ? change.getUser().get().getUser() : null);
+		ret.put("wsid", change.getWorkspaceID());
+		ret.put("objid", change.getObjectID().orNull());
+		ret.put("ver", change.getVersion().orNull());
+		ret.put("time", change.getTime().toEpochMilli());
+		ret.put("evtype", change.getType());
+		ret.put("objtype", change.getObjectType().orNull());
+		ret.put("perm", change.getPermission().isPresent() ?
+				KBasePermissions.translatePermission(change.getPermission().get()) : null);
+		ret.put("permusers", usersToStrings(change.getPermissionUsers()));
+		return ret;
+	}
 
-	private List<String> usersToStrings(final Set<WorkspaceUser> users) {
+	private Map<String, Object> toMap(final ListenerStatus status) {
+		final Map<String, Object> ret = new HashMap<>();
+		ret.put("name", status.getName());
+		ret.put("pending", status.getPending());
+		ret.put("lagms", status.getLagMS().orNull());
+		ret.put("delivered", status.getDelivered());
+		ret.put("failed", status.getFailed());
+		ret.put("dropped", status.getDropped());
+		ret.put("lasterr", status.getLastError().orNull());
+		return ret;
+	}
+
+	private List<String> usersToStrings(final Collection<WorkspaceUser> users) {
 		final List<String> ret = new ArrayList<String>();
 		for (final WorkspaceUser u: users) {
 			ret.add(u.getUser());
@@ -448,6 +523,14 @@ public class WorkspaceAdministration {
 		public SetWorkspaceOwnerParams() {}; //for jackson
 	}
 	
+	private static class GetChangesParams {
+		public Long after;
+		public Integer limit;
+		
+		@SuppressWarnings("unused")
+		public GetChangesParams() {}; //for jackson
+	}
+	
 	private <T> T getParams(final AdminCommand input, final Class<T> clazz)
 			throws IOException {
 		final UObject p = input.getParams();
@@ -172,4 +172,16 @@ public interface WorkspaceEventListener {
 	 * @param isPublic true if the object is in a public workspace, false otherwise.
 	 */
 	void saveObject(ObjectInformation object, boolean isPublic);
+	
+	/** Notification that objects have been saved in a single save operation. Listeners that
+	 * can process events more efficiently in batches should override this method. The default
+	 * implementation calls {@link #saveObject(ObjectInformation, boolean)} for each object.
+	 * @param objects information about the objects, in the order they were saved.
+	 * @param isPublic true if the objects are in a public workspace, false otherwise.
+	 */
+	default void saveObjects(final List<ObjectInformation> objects, final boolean isPublic) {
+		for (final ObjectInformation o: objects) {
+			saveObject(o, isPublic);
+		}
+	}
 }
@@ -4,14 +4,18 @@ import static java.util.Objects.requireNonNull;
 import static us.kbase.workspace.database.Util.checkString;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -22,6 +26,7 @@ import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -64,7 +69,14 @@ import us.kbase.workspace.listener.WorkspaceEventListenerFactory;
  * 
  * The listener is configured to require a full write to all the replicates before a call
  * to Kafka returns, and if a write fails, an exception is thrown in the thread that called
- * the listener.
+ * the listener. The objects from a save are sent together and the listener waits once for all
+ * of them.
+ * 
+ * Optional configuration arguments:
+ * linger.ms, batch.size, compression.type - identical to the Kafka producer configuration items.
+ * fire-and-forget - if true, the listener does not wait for Kafka to acknowledge events, and
+ * failed writes are logged rather than thrown. The total number of events sent and failed are
+ * included in the log entry.
  * 
  * @author gaprice@lbl.gov
  *
@@ -77,7 +89,8 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 		 * reliability and user messaging:
 		 * 1) Require full write to replicates before Kafka returns
 		 * 2) Wait for the return and check it worked. If not, throw an exception *in the calling
-		 * thread*. Thus the user is notified if something goes wrong.
+		 * thread*. Thus the user is notified if something goes wrong. Fire and forget mode skips
+		 * this step for deployments where latency matters more than notifying the user.
 		 * 
 		 * If this turns out to be a bad plan, we may need to relax those requirements.
 		 * 
@@ -89,6 +102,16 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 		// may want to split events into different topics
 		private static final String TOPIC = "topic";
 		private static final String KAFKA_WS_TOPIC = KAFKA + " " + TOPIC;
+		private static final String KCFG_LINGER_MS = "linger.ms";
+		private static final String KCFG_BATCH_SIZE = "batch.size";
+		private static final String KCFG_COMPRESSION_TYPE = "compression.type";
+		private static final String FIRE_AND_FORGET = "fire-and-forget";
+		private static final Set<String> COMPRESSION_TYPES = new HashSet<>(Arrays.asList(
+				"none", "gzip", "snappy", "lz4", "zstd"));
+		
+		private static final int DELIVERY_TIMEOUT_MS = 30000;
+		// wait a little longer than the delivery timeout so Kafka reports the failure
+		private static final int ACK_WAIT_PADDING_MS = 5000;
 		
 		/** The event type sent by the
 		 * {@link WorkspaceEventListener#saveObject(ObjectInformation, boolean)},
@@ -153,11 +176,60 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 		kcfg.put(KCFG_BOOSTRAP_SERVERS, bootstrapServers);
 		kcfg.put("acks", "all");
 		kcfg.put("enable.idempotence", true);
-		kcfg.put("delivery.timeout.ms", 30000);
+		final int lingerMS = getInt(cfg, KCFG_LINGER_MS, 0);
+		kcfg.put(KCFG_LINGER_MS, lingerMS);
+		kcfg.put(KCFG_BATCH_SIZE, getInt(cfg, KCFG_BATCH_SIZE, 16384));
+		final String compression = cfg.get(KCFG_COMPRESSION_TYPE);
+		if (compression != null && !compression.trim().isEmpty()) {
+			if (!COMPRESSION_TYPES.contains(compression.trim())) {
+				throw new ListenerInitializationException(String.format(
+						"%s %s must be one of %s: %s", KAFKA, KCFG_COMPRESSION_TYPE,
+						COMPRESSION_TYPES.stream().sorted().collect(Collectors.toList()),
+						compression.trim()));
+			}
+			kcfg.put(KCFG_COMPRESSION_TYPE, compression.trim());
+		}
+		final String fireAndForget = cfg.get(FIRE_AND_FORGET) == null ?
+				"false" : cfg.get(FIRE_AND_FORGET).trim();
+		if (!"true".equals(fireAndForget) && !"false".equals(fireAndForget)) {
+			throw new ListenerInitializationException(String.format(
+					"%s %s must be true or false: %s", KAFKA, FIRE_AND_FORGET, fireAndForget));
+		}
+		// Kafka requires the delivery timeout to be at least the linger time plus the
+		// request timeout
+		final int deliveryTimeoutMS = DELIVERY_TIMEOUT_MS + lingerMS;
+		kcfg.put("delivery.timeout.ms", deliveryTimeoutMS);
+		final KafkaProducer<String, Map<String, Object>> client;
+		try {
+			client = new KafkaProducer<>(kcfg, new StringSerializer(), new MapSerializer());
+		} catch (KafkaException e) {
+			throw new ListenerInitializationException(
+					"Invalid Kafka configuration: " + e.getMessage(), e);
+		}
 		return new KafkaNotifier(
 				topic,
 				bootstrapServers,
-				new KafkaProducer<>(kcfg, new StringSerializer(), new MapSerializer()));
+				client,
+				"true".equals(fireAndForget),
+				deliveryTimeoutMS + ACK_WAIT_PADDING_MS);
+	}
+	
+	private int getInt(final Map<String, String> cfg, final String key, final int default_)
+			throws ListenerInitializationException {
+		final String value = cfg.get(key);
+		if (value == null || value.trim().isEmpty()) {
+			return default_;
+		}
+		try {
+			final int ret = Integer.parseInt(value.trim());
+			if (ret >= 0) {
+				return ret;
+			}
+		} catch (NumberFormatException e) {
+			// fall through
+		}
+		throw new ListenerInitializationException(String.format(
+				"%s %s must be an integer >= 0: %s", KAFKA, key, value.trim()));
 	}
 
 	/** A Kafka JSON serializer for arbitrary maps. Requires no configuration. The topic
@@ -197,12 +269,19 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 		
 		private final String topic;
 		private final KafkaProducer<String, Map<String, Object>> client;
+		private final boolean fireAndForget;
+		private final int ackWaitMS;
+		// only used in fire and forget mode
+		private final AtomicLong sent = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
 		
 		// constructor is here to allow for unit tests
 		private KafkaNotifier(
 				final String topic,
 				final String bootstrapServers,
-				final KafkaProducer<String, Map<String, Object>> client)
+				final KafkaProducer<String, Map<String, Object>> client,
+				final boolean fireAndForget,
+				final int ackWaitMS)
 				throws ListenerInitializationException {
 			this.topic = checkString(topic, KAFKA_WS_TOPIC, 249);
 			final Matcher m = INVALID_TOPIC_CHARS.matcher(this.topic);
@@ -212,6 +291,8 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 						KAFKA_WS_TOPIC, this.topic, m.group()));
 			}
 			this.client = requireNonNull(client, "client");
+			this.fireAndForget = fireAndForget;
+			this.ackWaitMS = ackWaitMS;
 			try {
 				client.partitionsFor(this.topic); // check kafka is up
 			} catch (KafkaException e) {
@@ -225,9 +306,40 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 		}
 		
 		private void post(final Map<String, Object> message) {
-			final Future<RecordMetadata> res = client.send(new ProducerRecord<>(topic, message));
+			post(Arrays.asList(message));
+		}
+		
+		private void post(final List<Map<String, Object>> messages) {
+			if (fireAndForget) {
+				for (final Map<String, Object> m: messages) {
+					sent.incrementAndGet();
+					try {
+						client.send(new ProducerRecord<>(topic, m), (md, e) -> {
+							if (e != null) {
+								logFailure(e);
+							}
+						});
+					} catch (RuntimeException e) {
+						logFailure(e);
+					}
+				}
+				return;
+			}
+			// send everything before waiting so the producer can batch the messages
+			final List<Future<RecordMetadata>> res = messages.stream()
+					.map(m -> client.send(new ProducerRecord<>(topic, m)))
+					.collect(Collectors.toList());
 			try {
-				res.get(35000, TimeUnit.MILLISECONDS);
+				if (res.size() == 1) {
+					res.get(0).get(ackWaitMS, TimeUnit.MILLISECONDS);
+				} else {
+					// all the messages share one wait period
+					final long deadline = System.nanoTime() +
+							TimeUnit.MILLISECONDS.toNanos(ackWaitMS);
+					for (final Future<RecordMetadata> r: res) {
+						r.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					}
+				}
 			} catch (InterruptedException | TimeoutException e) {
 				throw new RuntimeException("Failed sending notification to Kafka: " +
 						e.getMessage(), e);
@@ -236,6 +348,13 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 						e.getCause().getMessage(), e.getCause());
 			}
 		}
+		
+		private void logFailure(final Exception e) {
+			final long f = failed.incrementAndGet();
+			LoggerFactory.getLogger(getClass()).error(String.format(
+					"Failed sending notification to Kafka (%s of %s notifications failed): %s",
+					f, sent.get(), e.getMessage()), e);
+		}
 
 		@Override
 		public void createWorkspace(WorkspaceUser user, long id, Instant time) {
@@ -361,9 +480,20 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 
 		@Override
 		public void saveObject(final ObjectInformation oi, final boolean isPublic) {
-			newEvent(oi.getSavedBy().getUser(), oi.getWorkspaceId(), oi.getObjectId(),
+			post(toVersionEvent(oi));
+		}
+		
+		@Override
+		public void saveObjects(final List<ObjectInformation> objects, final boolean isPublic) {
+			if (!objects.isEmpty()) {
+				post(objects.stream().map(o -> toVersionEvent(o)).collect(Collectors.toList()));
+			}
+		}
+		
+		private Map<String, Object> toVersionEvent(final ObjectInformation oi) {
+			return toEvent(oi.getSavedBy().getUser(), oi.getWorkspaceId(), oi.getObjectId(),
 					oi.getVersion(), oi.getTypeString(), NEW_VERSION,
-					oi.getSavedDate().toInstant());
+					oi.getSavedDate().toInstant(), null, Collections.emptyList());
 		}
 		
 		private void newEvent(
@@ -388,7 +518,20 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 				final Instant time,
 				final Permission permission,
 				final List<WorkspaceUser> usersWithNewPermission) {
-			
+			post(toEvent(user, workspaceId, objectId, version, type, eventType, time, permission,
+					usersWithNewPermission));
+		}
+		
+		private Map<String, Object> toEvent(
+				final String user,
+				final long workspaceId,
+				final Long objectId,
+				final Integer version,
+				final String type,
+				final String eventType,
+				final Instant time,
+				final Permission permission,
+				final List<WorkspaceUser> usersWithNewPermission) {
 			final Map<String, Object> dobj = new HashMap<>();
 			dobj.put("user", user);
 			dobj.put("wsid", workspaceId);
@@ -401,7 +544,7 @@ public class KafkaNotifierFactory implements WorkspaceEventListenerFactory {
 				KBasePermissions.translatePermission(permission));
 			dobj.put("permusers", usersWithNewPermission.stream().map(u -> u.getUser())
 					.collect(Collectors.toList()));
-			post(dobj);
+			return dobj;
 		}
 		
 	}
@@ -0,0 +1,293 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static us.kbase.common.test.TestCommon.set;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.typedobj.core.MD5;
+import us.kbase.workspace.database.ByteArrayFileCacheManager;
+import us.kbase.workspace.database.ByteArrayFileCacheManager.ByteArrayFileCache;
+import us.kbase.workspace.database.DependencyStatus;
+import us.kbase.workspace.database.mongo.BlobStore;
+import us.kbase.workspace.database.mongo.CachingBlobStore;
+import us.kbase.workspace.database.mongo.CachingBlobStore.CacheStatistics;
+
+public class CachingBlobStoreTest {
+
+	private static final MD5 MD5_1 = new MD5("1234567890abcdef1234567890abcdef");
+	private static final MD5 MD5_2 = new MD5("1234567890abcdef1234567890abcdee");
+	private static final String DATA_1 = "\"some data\"";
+	private static final String DATA_2 = "\"some other data\"";
+
+	private static Path TEMP_DIR;
+
+	@BeforeClass
+	public static void beforeClass() throws Exception {
+		TEMP_DIR = Files.createTempDirectory(
+				Files.createDirectories(Paths.get(TestCommon.getTempDir())),
+				CachingBlobStoreTest.class.getSimpleName());
+	}
+
+	@AfterClass
+	public static void afterClass() throws Exception {
+		if (TEMP_DIR != null && TestCommon.getDeleteTempFiles()) {
+			FileUtils.deleteQuietly(TEMP_DIR.toFile());
+		}
+	}
+
+	private void mockGet(
+			final BlobStore bs,
+			final MD5 md5,
+			final ByteArrayFileCacheManager bafcMan,
+			final String data,
+			final boolean sorted)
+			throws Exception {
+		when(bs.getBlob(md5, bafcMan)).thenAnswer(inv -> bafcMan.createBAFC(
+				new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), true, sorted));
+	}
+
+	private void assertDataCorrect(
+			final ByteArrayFileCache bafc,
+			final String expected,
+			final boolean sorted)
+			throws Exception {
+		assertThat("incorrect data", bafc.getUObject().asClassInstance(String.class),
+				is(expected.substring(1, expected.length() - 1)));
+		assertThat("incorrect sorted", bafc.isSorted(), is(sorted));
+		assertThat("incorrect size", bafc.getSize(), is((long) expected.length()));
+	}
+
+	private void assertStatsCorrect(
+			final CachingBlobStore cbs,
+			final long memoryHits,
+			final long diskHits,
+			final long misses,
+			final long memoryEntries,
+			final long diskEntries) {
+		final CacheStatistics s = cbs.getStatistics();
+		assertThat("incorrect mem hits", s.getMemoryHits(), is(memoryHits));
+		assertThat("incorrect disk hits", s.getDiskHits(), is(diskHits));
+		assertThat("incorrect misses", s.getMisses(), is(misses));
+		assertThat("incorrect mem entries", s.getMemoryEntries(), is(memoryEntries));
+		assertThat("incorrect disk entries", s.getDiskEntries(), is(diskEntries));
+	}
+
+	@Test
+	public void buildDefaults() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs).build();
+
+		assertThat("incorrect store", cbs.getWrappedBlobStore(), is(bs));
+		assertThat("incorrect mem size", cbs.getMaxMemorySize(), is(0L));
+		assertThat("incorrect disk size", cbs.getMaxDiskSize(), is(0L));
+		assertThat("incorrect min req", cbs.getMinimumRequests(), is(2));
+		assertStatsCorrect(cbs, 0, 0, 0, 0, 0);
+	}
+
+	@Test
+	public void buildFail() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		try {
+			CachingBlobStore.getBuilder(null);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("blobStore"));
+		}
+		try {
+			CachingBlobStore.getBuilder(bs).withMaxMemorySize(-1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("maxSize must be >= 0"));
+		}
+		try {
+			CachingBlobStore.getBuilder(bs).withDiskCache(null, 1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new NullPointerException("directory"));
+		}
+		try {
+			CachingBlobStore.getBuilder(bs).withDiskCache(TEMP_DIR.toFile(), -1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("maxSize must be >= 0"));
+		}
+		try {
+			CachingBlobStore.getBuilder(bs).withMinimumRequests(0);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("minRequests must be > 0"));
+		}
+	}
+
+	@Test
+	public void memoryCacheAfterMinimumRequests() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withMaxMemorySize(10000).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertStatsCorrect(cbs, 0, 0, 1, 0, 0);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertStatsCorrect(cbs, 0, 0, 2, 1, 0);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertStatsCorrect(cbs, 2, 0, 2, 1, 0);
+
+		verify(bs, times(2)).getBlob(MD5_1, bafcMan);
+		// cached data still counts against the request limits
+		assertThat("incorrect mem used", bafcMan.getSizeInMem(), is(4 * DATA_1.length()));
+	}
+
+	@Test
+	public void memoryCacheUnsortedAndClear() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withMaxMemorySize(10000).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, false);
+		mockGet(bs, MD5_2, bafcMan, DATA_2, true);
+
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, false);
+		assertDataCorrect(cbs.getBlob(MD5_2, bafcMan), DATA_2, true);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, false);
+		assertDataCorrect(cbs.getBlob(MD5_2, bafcMan), DATA_2, true);
+		assertStatsCorrect(cbs, 2, 0, 2, 2, 0);
+
+		cbs.clear();
+		assertStatsCorrect(cbs, 2, 0, 2, 0, 0);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, false);
+		verify(bs, times(2)).getBlob(MD5_1, bafcMan);
+	}
+
+	@Test
+	public void status() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withMaxMemorySize(10000).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+		when(bs.status()).thenReturn(Arrays.asList(
+				new DependencyStatus(true, "OK", "GridFS", "4.0.0")));
+
+		assertThat("incorrect status", cbs.status(), is(Arrays.asList(
+				new DependencyStatus(true, "OK", "GridFS", "4.0.0"),
+				new DependencyStatus(true, "OK - hit rate 0%, memory hits 0, disk hits 0, " +
+						"misses 0, evictions 0, memory entries 0, disk entries 0",
+						"Blob cache", "Unknown"))));
+
+		cbs.getBlob(MD5_1, bafcMan);
+		cbs.getBlob(MD5_1, bafcMan);
+		cbs.getBlob(MD5_1, bafcMan);
+		assertThat("incorrect status", cbs.status().get(1), is(
+				new DependencyStatus(true, "OK - hit rate 66%, memory hits 2, disk hits 0, " +
+						"misses 1, evictions 0, memory entries 1, disk entries 0",
+						"Blob cache", "Unknown")));
+	}
+
+	@Test
+	public void noCacheForLargeBlob() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		// max blob size is 1/16th of the cache size
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withMaxMemorySize(16 * DATA_1.length() - 1).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertStatsCorrect(cbs, 0, 0, 2, 0, 0);
+		verify(bs, times(2)).getBlob(MD5_1, bafcMan);
+	}
+
+	@Test
+	public void diskCache() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final File dir = TEMP_DIR.resolve("diskCache").toFile();
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withDiskCache(dir, 10000).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+
+		assertThat("incorrect disk size", cbs.getMaxDiskSize(), is(10000L));
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertDataCorrect(cbs.getBlob(MD5_1, bafcMan), DATA_1, true);
+		assertStatsCorrect(cbs, 0, 1, 1, 0, 1);
+		assertThat("incorrect file count", dir.listFiles().length, is(1));
+		verify(bs).getBlob(MD5_1, bafcMan);
+
+		cbs.clear();
+		assertThat("incorrect file count", dir.listFiles().length, is(0));
+	}
+
+	@Test
+	public void getBlobs() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withMaxMemorySize(10000).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+		cbs.getBlob(MD5_1, bafcMan);
+		
+		when(bs.getBlobs(set(MD5_2), bafcMan)).thenAnswer(inv -> ImmutableMap.of(
+				MD5_2, bafcMan.createBAFC(new ByteArrayInputStream(
+						DATA_2.getBytes(StandardCharsets.UTF_8)), true, false)));
+		
+		final Map<MD5, ByteArrayFileCache> got = cbs.getBlobs(set(MD5_1, MD5_2), bafcMan);
+		assertThat("incorrect keys", got.keySet(), is(set(MD5_1, MD5_2)));
+		assertDataCorrect(got.get(MD5_1), DATA_1, true);
+		assertDataCorrect(got.get(MD5_2), DATA_2, false);
+		assertStatsCorrect(cbs, 1, 0, 2, 2, 0);
+		
+		// both now cached
+		final Map<MD5, ByteArrayFileCache> got2 = cbs.getBlobs(set(MD5_1, MD5_2), bafcMan);
+		assertDataCorrect(got2.get(MD5_1), DATA_1, true);
+		assertDataCorrect(got2.get(MD5_2), DATA_2, false);
+		assertStatsCorrect(cbs, 3, 0, 2, 2, 0);
+		verify(bs).getBlobs(set(MD5_2), bafcMan);
+	}
+
+	@Test
+	public void removeBlob() throws Exception {
+		final BlobStore bs = mock(BlobStore.class);
+		final File dir = TEMP_DIR.resolve("removeBlob").toFile();
+		final CachingBlobStore cbs = CachingBlobStore.getBuilder(bs)
+				.withDiskCache(dir, 10000).withMinimumRequests(1).build();
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(1000, 0, null);
+		mockGet(bs, MD5_1, bafcMan, DATA_1, true);
+
+		cbs.getBlob(MD5_1, bafcMan);
+		assertStatsCorrect(cbs, 0, 0, 1, 0, 1);
+
+		cbs.removeBlob(MD5_1);
+		verify(bs).removeBlob(MD5_1);
+		assertStatsCorrect(cbs, 0, 0, 1, 0, 0);
+		assertThat("incorrect file count", dir.listFiles().length, is(0));
+	}
+}
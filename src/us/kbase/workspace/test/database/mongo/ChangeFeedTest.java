@@ -0,0 +1,233 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static us.kbase.common.test.TestCommon.inst;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.workspace.database.ChangeEvent;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.UncheckedUserMetadata;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.WorkspaceUserMetadata;
+import us.kbase.workspace.database.mongo.ChangeFeed;
+
+public class ChangeFeedTest {
+
+	private static MongoController mongo;
+	private static DB db;
+
+	private static final WorkspaceUser U1 = new WorkspaceUser("user1");
+	private static final WorkspaceUser U2 = new WorkspaceUser("user2");
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " + mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		final MongoClient mongoClient = new MongoClient("localhost:" + mongo.getServerPort());
+		db = mongoClient.getDB("ChangeFeedTest");
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+	}
+
+	@Before
+	public void clearDB() throws Exception {
+		TestCommon.destroyDB(db);
+	}
+
+	private static ObjectInformation objInfo(final long wsid, final long objid, final int ver) {
+		return new ObjectInformation(
+				objid,
+				"foo",
+				"Foo.Bar-2.1",
+				new Date(10000),
+				ver,
+				U1,
+				new ResolvedWorkspaceID(wsid, "bar", false, false),
+				"chksum",
+				30L,
+				new UncheckedUserMetadata((WorkspaceUserMetadata) null));
+	}
+
+	private static ChangeEvent event(
+			final long seq,
+			final String type,
+			final long time,
+			final WorkspaceUser user,
+			final long wsid,
+			final Long objid) {
+		return new ChangeEvent(seq, type, inst(time), user, wsid, objid, null, null, null,
+				Collections.emptyList());
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		failConstruct(null, 1, new NullPointerException("db"));
+		failConstruct(db, 0, new IllegalArgumentException("retentionHours must be > 0"));
+	}
+
+	private void failConstruct(final DB db, final int hours, final Exception expected) {
+		try {
+			new ChangeFeed(db, hours);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void retentionIndex() throws Exception {
+		new ChangeFeed(db, 24);
+		assertThat("incorrect ttl", getTTL(), is(Optional.of(24 * 3600L)));
+
+		// restart with a different retention period
+		new ChangeFeed(db, 1);
+		assertThat("incorrect ttl", getTTL(), is(Optional.of(3600L)));
+	}
+
+	private Optional<Long> getTTL() {
+		for (final DBObject index: db.getCollection("changeFeed").getIndexInfo()) {
+			if (index.get("key").equals(new BasicDBObject("rec", 1))) {
+				return Optional.of(((Number) index.get("expireAfterSeconds")).longValue());
+			}
+		}
+		return Optional.absent();
+	}
+
+	@Test
+	public void recordAndRead() throws Exception {
+		final ChangeFeed feed = new ChangeFeed(db, 1);
+
+		feed.createWorkspace(U1, 1, inst(1000)); // ignored
+		feed.saveObject(objInfo(1, 2, 3), false);
+		feed.copyObject(objInfo(4, 5, 6), true);
+		feed.revertObject(objInfo(7, 8, 9), false);
+		feed.copyObject(U2, 10, 11, 12, inst(2000), false);
+		feed.cloneWorkspace(U1, 13, false, inst(3000));
+		feed.renameObject(U2, 14, 15, "newname", inst(4000));
+		feed.setObjectDeleted(U1, 16, 17, true, inst(5000));
+		feed.setWorkspaceDeleted(null, 18, false, 20, inst(6000));
+		feed.setGlobalPermission(U2, 19, Permission.READ, inst(7000));
+		feed.setPermissions(null, 20, Permission.ADMIN, Arrays.asList(U1, U2), inst(8000));
+		feed.renameWorkspace(U1, 21, "foo", inst(9000)); // ignored
+
+		final List<ChangeEvent> expected = Arrays.asList(
+				new ChangeEvent(1, "NEW_VERSION", inst(10000), U1, 1, 2L, 3, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				new ChangeEvent(2, "NEW_VERSION", inst(10000), U1, 4, 5L, 6, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				new ChangeEvent(3, "NEW_VERSION", inst(10000), U1, 7, 8L, 9, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				new ChangeEvent(4, "COPY_OBJECT", inst(2000), U2, 10, 11L, 12, null,
+						null, Collections.emptyList()),
+				event(5, "CLONE_WORKSPACE", 3000, U1, 13, null),
+				event(6, "RENAME_OBJECT", 4000, U2, 14, 15L),
+				event(7, "OBJECT_DELETE_STATE_CHANGE", 5000, U1, 16, 17L),
+				event(8, "WORKSPACE_DELETE_STATE_CHANGE", 6000, null, 18, null),
+				new ChangeEvent(9, "SET_GLOBAL_PERMISSION", inst(7000), U2, 19, null, null, null,
+						Permission.READ, Collections.emptyList()),
+				new ChangeEvent(10, "SET_PERMISSION", inst(8000), null, 20, null, null, null,
+						Permission.ADMIN, Arrays.asList(U1, U2)));
+
+		assertThat("incorrect changes", feed.getChanges(0, 10000), is(expected));
+		assertThat("incorrect changes", feed.getChanges(0, 3), is(expected.subList(0, 3)));
+		assertThat("incorrect changes", feed.getChanges(3, 3), is(expected.subList(3, 6)));
+		assertThat("incorrect changes", feed.getChanges(9, 3), is(expected.subList(9, 10)));
+		assertThat("incorrect changes", feed.getChanges(10, 3), is(Collections.emptyList()));
+	}
+
+	@Test
+	public void saveObjects() throws Exception {
+		final ChangeFeed feed = new ChangeFeed(db, 1);
+		feed.renameObject(U1, 1, 1, "foo", inst(1000));
+		feed.saveObjects(Collections.emptyList(), false); // ignored
+		feed.saveObjects(Arrays.asList(objInfo(2, 3, 4), objInfo(5, 6, 7), objInfo(8, 9, 10)),
+				true);
+		feed.renameObject(U2, 1, 2, "bar", inst(2000));
+
+		assertThat("incorrect changes", feed.getChanges(0, 10), is(Arrays.asList(
+				event(1, "RENAME_OBJECT", 1000, U1, 1, 1L),
+				new ChangeEvent(2, "NEW_VERSION", inst(10000), U1, 2, 3L, 4, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				new ChangeEvent(3, "NEW_VERSION", inst(10000), U1, 5, 6L, 7, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				new ChangeEvent(4, "NEW_VERSION", inst(10000), U1, 8, 9L, 10, "Foo.Bar-2.1",
+						null, Collections.emptyList()),
+				event(5, "RENAME_OBJECT", 2000, U2, 1, 2L))));
+	}
+
+	@Test
+	public void sequenceGap() throws Exception {
+		final ChangeFeed feed = new ChangeFeed(db, 1);
+		feed.renameObject(U1, 1, 1, "foo", inst(1000));
+		// simulate a server that took a sequence number and hasn't yet written the event
+		db.getCollection("workspaceCounter").update(new BasicDBObject("id", "changefeed"),
+				new BasicDBObject("$inc", new BasicDBObject("num", 1L)));
+		feed.renameObject(U1, 1, 2, "foo", inst(2000));
+
+		assertThat("incorrect changes", feed.getChanges(0, 10), is(Arrays.asList(
+				event(1, "RENAME_OBJECT", 1000, U1, 1, 1L))));
+		assertThat("incorrect changes", feed.getChanges(1, 10), is(Collections.emptyList()));
+
+		// the gap is older than the wait period, so the missing event was never written
+		final ChangeFeed nowait = new ChangeFeed(db, 1, 0);
+		Thread.sleep(10);
+		assertThat("incorrect changes", nowait.getChanges(0, 10), is(Arrays.asList(
+				event(1, "RENAME_OBJECT", 1000, U1, 1, 1L),
+				event(3, "RENAME_OBJECT", 2000, U1, 1, 2L))));
+		assertThat("incorrect changes", nowait.getChanges(1, 10), is(Arrays.asList(
+				event(3, "RENAME_OBJECT", 2000, U1, 1, 2L))));
+	}
+
+	@Test
+	public void getChangesFail() throws Exception {
+		final ChangeFeed feed = new ChangeFeed(db, 1);
+		failGetChanges(feed, -1, 1, new IllegalArgumentException("after must be >= 0"));
+		failGetChanges(feed, 0, 0, new IllegalArgumentException(
+				"limit must be between 1 and 10000"));
+		failGetChanges(feed, 0, 10001, new IllegalArgumentException(
+				"limit must be between 1 and 10000"));
+	}
+
+	private void failGetChanges(
+			final ChangeFeed feed,
+			final long after,
+			final int limit,
+			final Exception expected) {
+		try {
+			feed.getChanges(after, limit);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
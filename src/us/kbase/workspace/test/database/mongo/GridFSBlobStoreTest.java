@@ -5,13 +5,16 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static us.kbase.common.test.TestCommon.set;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.AfterClass;
@@ -19,6 +22,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.github.zafarkhaja.semver.Version;
+import com.google.common.collect.ImmutableMap;
 import com.mongodb.DB;
 import com.mongodb.MongoClient;
 import com.mongodb.gridfs.GridFS;
@@ -35,6 +39,7 @@ import us.kbase.workspace.database.DependencyStatus;
 import us.kbase.workspace.database.mongo.GridFSBlobStore;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreCommunicationException;
 import us.kbase.workspace.database.mongo.exceptions.BlobStoreException;
+import us.kbase.workspace.database.mongo.exceptions.NoSuchBlobException;
 
 public class GridFSBlobStoreTest {
 	
@@ -149,6 +154,37 @@ public class GridFSBlobStoreTest {
 		gfsb.removeBlob(md2);
 	}
 	
+	@Test
+	public void saveAndGetBlobs() throws Exception {
+		final MD5 md1 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa3");
+		final MD5 md2 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa4");
+		gfsb.saveBlob(md1, new StringRestreamable("blob 1"), true);
+		gfsb.saveBlob(md2, new StringRestreamable("blob 2"), false);
+		
+		final Map<MD5, ByteArrayFileCache> d = gfsb.getBlobs(set(md1, md2),
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+		assertThat("incorrect keys", d.keySet(), is(set(md1, md2)));
+		assertThat("incorrect data", IOUtils.toString(d.get(md1).getJSON()), is("blob 1"));
+		assertThat("incorrect sorted", d.get(md1).isSorted(), is(true));
+		assertThat("incorrect data", IOUtils.toString(d.get(md2).getJSON()), is("blob 2"));
+		assertThat("incorrect sorted", d.get(md2).isSorted(), is(false));
+		
+		assertThat("incorrect empty get", gfsb.getBlobs(set(),
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm)).isEmpty(), is(true));
+		
+		try {
+			gfsb.getBlobs(set(md1, new MD5(a32)),
+					new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+			fail("expected exception");
+		} catch (NoSuchBlobException got) {
+			TestCommon.assertExceptionCorrect(got, new NoSuchBlobException(
+					"Attempt to retrieve non-existant blob with chksum " + a32));
+			assertThat("incorrect md5", got.getMD5(), is(new MD5(a32)));
+		}
+		gfsb.removeBlob(md1);
+		gfsb.removeBlob(md2);
+	}
+	
 	private class FailOnCloseInputStream extends InputStream {
 		
 		private final InputStream wrapped;
@@ -168,6 +204,29 @@ public class GridFSBlobStoreTest {
 		}
 	}
 	
+	@Test
+	public void saveBlobs() throws Exception {
+		final MD5 md1 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa5");
+		final MD5 md2 = new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa6");
+		gfsb.saveBlob(md1, new StringRestreamable("blob 1"), true);
+		
+		// md1 already exists and should not be overwritten
+		gfsb.saveBlobs(ImmutableMap.of(
+				md1, new StringRestreamable("blob 1 again"),
+				md2, new StringRestreamable("blob 2")),
+				false);
+		gfsb.saveBlobs(Collections.emptyMap(), true);
+		
+		final Map<MD5, ByteArrayFileCache> d = gfsb.getBlobs(set(md1, md2),
+				new ByteArrayFileCacheManager(16000000, 2000000000L, tfm));
+		assertThat("incorrect data", IOUtils.toString(d.get(md1).getJSON()), is("blob 1"));
+		assertThat("incorrect sorted", d.get(md1).isSorted(), is(true));
+		assertThat("incorrect data", IOUtils.toString(d.get(md2).getJSON()), is("blob 2"));
+		assertThat("incorrect sorted", d.get(md2).isSorted(), is(false));
+		gfsb.removeBlob(md1);
+		gfsb.removeBlob(md2);
+	}
+	
 	@Test
 	public void saveFailIOOnClose() throws Exception {
 		// throwing a IOError on reading from a stream makes gridfs throw
@@ -0,0 +1,502 @@
+package us.kbase.workspace.test.database.mongo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static us.kbase.common.test.TestCommon.inst;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import com.mongodb.MongoClient;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.controllers.mongo.MongoController;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.UncheckedUserMetadata;
+import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.mongo.ListenerOutbox;
+import us.kbase.workspace.database.mongo.ListenerOutbox.ListenerStatus;
+import us.kbase.workspace.listener.WorkspaceEventListener;
+
+public class ListenerOutboxTest {
+
+	private static MongoController mongo;
+	private static DB db;
+
+	private static final WorkspaceUser U1 = new WorkspaceUser("user1");
+	private static final WorkspaceUser U2 = new WorkspaceUser("user2");
+
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		mongo = new MongoController(TestCommon.getMongoExe(),
+				Paths.get(TestCommon.getTempDir()),
+				TestCommon.useWiredTigerEngine());
+		System.out.println("Using Mongo temp dir " + mongo.getTempDir());
+		TestCommon.stfuLoggers();
+		final MongoClient mongoClient = new MongoClient("localhost:" + mongo.getServerPort());
+		db = mongoClient.getDB("ListenerOutboxTest");
+	}
+
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		if (mongo != null) {
+			mongo.destroy(TestCommon.getDeleteTempFiles());
+		}
+	}
+
+	@Before
+	public void clearDB() throws Exception {
+		TestCommon.destroyDB(db);
+	}
+
+	private static ObjectInformation objInfo(final long objid, final Map<String, String> meta) {
+		return new ObjectInformation(
+				objid,
+				"foo" + objid,
+				"Foo.Bar-2.1",
+				new Date(10000),
+				3,
+				U1,
+				new ResolvedWorkspaceID(7, "bar", false, false),
+				"chksum",
+				30L,
+				new UncheckedUserMetadata(meta));
+	}
+
+	private static ObjectInformation objInfo(final long objid) {
+		return objInfo(objid, Collections.emptyMap());
+	}
+
+	private static ListenerOutbox outbox(final Map<String, WorkspaceEventListener> listeners)
+			throws Exception {
+		return new ListenerOutbox(db, listeners, 0, 60000, 10, 60000);
+	}
+
+	private long outboxSize() {
+		return db.getCollection("listenerOutbox").count();
+	}
+
+	@Test
+	public void constructFail() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final Map<String, WorkspaceEventListener> nulllistener = new HashMap<>();
+		nulllistener.put("foo", null);
+		final Map<String, WorkspaceEventListener> nullname = new HashMap<>();
+		nullname.put(null, l);
+
+		failConstruct(null, ImmutableMap.of("a", l), 1, 1, new NullPointerException("db"));
+		failConstruct(db, null, 1, 1, new NullPointerException("listeners"));
+		failConstruct(db, Collections.emptyMap(), 1, 1,
+				new IllegalArgumentException("At least one listener is required"));
+		failConstruct(db, nulllistener, 1, 1, new NullPointerException("listener foo"));
+		failConstruct(db, nullname, 1, 1,
+				new IllegalArgumentException("Illegal listener name: null"));
+		failConstruct(db, ImmutableMap.of("a.b", l), 1, 1,
+				new IllegalArgumentException("Illegal listener name: a.b"));
+		failConstruct(db, ImmutableMap.of("a", l), 1, -1,
+				new IllegalArgumentException("maxAttempts must be >= 0"));
+		failConstruct(db, ImmutableMap.of("a", l), 0, 1, 1,
+				new IllegalArgumentException("pollMS must be > 0"));
+		failConstruct(db, ImmutableMap.of("a", l), 1, 1, 0,
+				new IllegalArgumentException("retryMS must be > 0"));
+
+		try {
+			new ListenerOutbox(db, ImmutableMap.of("a", l), 0);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("pollMS must be > 0"));
+		}
+		try {
+			new ListenerOutbox(db, ImmutableMap.of("a", l), 0, 60000, 1, -1);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("retryMS must be >= 0"));
+		}
+	}
+
+	private void failConstruct(
+			final DB db,
+			final Map<String, WorkspaceEventListener> listeners,
+			final int pollMS,
+			final int maxAttempts,
+			final Exception expected) {
+		failConstruct(db, listeners, pollMS, maxAttempts, 60000, expected);
+	}
+
+	private void failConstruct(
+			final DB db,
+			final Map<String, WorkspaceEventListener> listeners,
+			final int pollMS,
+			final int maxAttempts,
+			final long retryMS,
+			final Exception expected) {
+		try {
+			new ListenerOutbox(db, listeners, pollMS, maxAttempts, retryMS);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
+	@Test
+	public void deliverAllEvents() throws Exception {
+		final WorkspaceEventListener l1 = mock(WorkspaceEventListener.class);
+		final WorkspaceEventListener l2 = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = outbox(ImmutableMap.of("l1", l1, "l-2", l2));
+		assertThat("incorrect names", ob.getListenerNames(), is(Arrays.asList("l1", "l-2")));
+
+		// metadata keys that are not legal mongo field names
+		final ObjectInformation meta = objInfo(1, ImmutableMap.of("a.b", "c", "$d", "e"));
+
+		ob.createWorkspace(U1, 1, inst(1000));
+		ob.cloneWorkspace(U1, 2, true, inst(2000));
+		ob.setWorkspaceMetadata(U2, 3, inst(3000));
+		ob.lockWorkspace(U1, 4, inst(4000));
+		ob.renameWorkspace(U1, 5, "name", inst(5000));
+		ob.setGlobalPermission(U2, 6, Permission.READ, inst(6000));
+		ob.setPermissions(null, 7, Permission.WRITE, Arrays.asList(U1, U2), inst(7000));
+		ob.setWorkspaceDescription(U1, 8, inst(8000));
+		ob.setWorkspaceOwner(null, 9, U2, Optional.of("user2:ws"), inst(9000));
+		ob.setWorkspaceOwner(U1, 10, U2, Optional.absent(), inst(10000));
+		ob.setWorkspaceDeleted(U1, 11, true, 42, inst(11000));
+		ob.renameObject(U1, 12, 3, "oname", inst(12000));
+		ob.revertObject(meta, false);
+		ob.setObjectDeleted(U2, 13, 4, false, inst(13000));
+		ob.copyObject(objInfo(2), true);
+		ob.copyObject(U1, 14, 5, 6, inst(14000), false);
+		ob.saveObject(objInfo(3), false);
+
+		assertThat("incorrect delivered", ob.deliver("l1"), is(17));
+		assertThat("incorrect delivered", ob.deliver("l1"), is(0));
+
+		final InOrder o = inOrder(l1);
+		o.verify(l1).createWorkspace(U1, 1, inst(1000));
+		o.verify(l1).cloneWorkspace(U1, 2, true, inst(2000));
+		o.verify(l1).setWorkspaceMetadata(U2, 3, inst(3000));
+		o.verify(l1).lockWorkspace(U1, 4, inst(4000));
+		o.verify(l1).renameWorkspace(U1, 5, "name", inst(5000));
+		o.verify(l1).setGlobalPermission(U2, 6, Permission.READ, inst(6000));
+		o.verify(l1).setPermissions(null, 7, Permission.WRITE, Arrays.asList(U1, U2),
+				inst(7000));
+		o.verify(l1).setWorkspaceDescription(U1, 8, inst(8000));
+		o.verify(l1).setWorkspaceOwner(null, 9, U2, Optional.of("user2:ws"), inst(9000));
+		o.verify(l1).setWorkspaceOwner(U1, 10, U2, Optional.absent(), inst(10000));
+		o.verify(l1).setWorkspaceDeleted(U1, 11, true, 42, inst(11000));
+		o.verify(l1).renameObject(U1, 12, 3, "oname", inst(12000));
+		o.verify(l1).revertObject(meta, false);
+		o.verify(l1).setObjectDeleted(U2, 13, 4, false, inst(13000));
+		o.verify(l1).copyObject(objInfo(2), true);
+		o.verify(l1).copyObject(U1, 14, 5, 6, inst(14000), false);
+		o.verify(l1).saveObjects(Arrays.asList(objInfo(3)), false);
+		verifyNoMoreInteractions(l1);
+		verifyZeroInteractions(l2);
+		assertThat("incorrect outbox size", outboxSize(), is(17L));
+
+		assertThat("incorrect delivered", ob.deliver("l-2"), is(17));
+		verify(l2).setWorkspaceOwner(null, 9, U2, Optional.of("user2:ws"), inst(9000));
+		assertThat("incorrect outbox size", outboxSize(), is(0L));
+
+		final List<ListenerStatus> status = ob.getStatus();
+		assertStatus(status.get(0), "l1", 0, false, 17, 0, 0, null);
+		assertStatus(status.get(1), "l-2", 0, false, 17, 0, 0, null);
+	}
+
+	@Test
+	public void batchSaves() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = outbox(ImmutableMap.of("l", l));
+
+		ob.saveObject(objInfo(1), false);
+		ob.saveObjects(Arrays.asList(objInfo(2), objInfo(3)), false);
+		ob.saveObjects(Collections.emptyList(), false); // ignored
+		ob.saveObjects(Arrays.asList(objInfo(4)), true);
+		ob.renameObject(U1, 7, 4, "foo", inst(1000));
+		ob.saveObjects(Arrays.asList(objInfo(5)), true);
+		for (int i = 6; i < 106; i++) {
+			ob.saveObject(objInfo(i), true);
+		}
+
+		assertThat("incorrect delivered", ob.deliver("l"), is(ListenerOutbox.BATCH_SIZE));
+		assertThat("incorrect delivered", ob.deliver("l"), is(6));
+
+		final InOrder o = inOrder(l);
+		o.verify(l).saveObjects(Arrays.asList(objInfo(1), objInfo(2), objInfo(3)), false);
+		o.verify(l).saveObjects(Arrays.asList(objInfo(4)), true);
+		o.verify(l).renameObject(U1, 7, 4, "foo", inst(1000));
+		o.verify(l).saveObjects(objInfos(5, 100), true);
+		o.verify(l).saveObjects(objInfos(100, 106), true);
+		verifyNoMoreInteractions(l);
+	}
+
+	private List<ObjectInformation> objInfos(final int start, final int end) {
+		final ObjectInformation[] ret = new ObjectInformation[end - start];
+		for (int i = start; i < end; i++) {
+			ret[i - start] = objInfo(i);
+		}
+		return Arrays.asList(ret);
+	}
+
+	@Test
+	public void retryAndDrop() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		// failed events are retried on the next delivery
+		final ListenerOutbox ob = new ListenerOutbox(
+				db, ImmutableMap.of("l", l), 0, 60000, 2, 0);
+
+		doThrow(new RuntimeException("oh no")).doNothing().doThrow(new RuntimeException("argh"))
+				.when(l).renameObject(U1, 1, 1, "foo", inst(1000));
+		doThrow(new RuntimeException("whoops")).when(l).renameObject(U1, 1, 2, "foo", inst(1000));
+
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.renameObject(U1, 1, 2, "foo", inst(1000));
+		ob.renameObject(U1, 1, 3, "foo", inst(1000));
+
+		assertThat("incorrect claimed", ob.deliver("l"), is(3));
+		assertStatus(ob.getStatus().get(0), "l", 3, true, 0, 1, 0,
+				"java.lang.RuntimeException: oh no");
+
+		// the first event succeeds on the second attempt, and the second is dropped after
+		// failing twice
+		assertThat("incorrect claimed", ob.deliver("l"), is(3));
+		assertStatus(ob.getStatus().get(0), "l", 2, true, 1, 2, 0,
+				"java.lang.RuntimeException: whoops");
+		assertThat("incorrect claimed", ob.deliver("l"), is(2));
+		assertStatus(ob.getStatus().get(0), "l", 1, true, 1, 3, 1,
+				"java.lang.RuntimeException: whoops");
+		assertThat("incorrect claimed", ob.deliver("l"), is(1));
+		assertStatus(ob.getStatus().get(0), "l", 0, false, 2, 3, 1,
+				"java.lang.RuntimeException: whoops");
+		// the dropped event is kept in the outbox
+		assertThat("incorrect outbox size", outboxSize(), is(1L));
+		final DBObject dropped = db.getCollection("listenerOutbox").findOne();
+		assertThat("incorrect dropped event", ((DBObject) dropped.get("args")).get("obj"),
+				is(2L));
+		assertThat("incorrect dropped", dropped.get("drop"), is(Arrays.asList("l")));
+		assertThat("incorrect pending", dropped.get("pend"), is(Collections.emptyList()));
+
+		// the count of dropped events is shared between servers
+		final ListenerOutbox ob2 = outbox(ImmutableMap.of("l", l));
+		assertStatus(ob2.getStatus().get(0), "l", 0, false, 0, 0, 1, null);
+	}
+
+	@Test
+	public void retryWithoutDropping() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = new ListenerOutbox(
+				db, ImmutableMap.of("l", l), 0, 60000, 0, 0);
+
+		doThrow(new RuntimeException("oh no")).when(l).renameObject(U1, 1, 1, "foo", inst(1000));
+
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+		for (int i = 0; i < 20; i++) {
+			assertThat("incorrect claimed", ob.deliver("l"), is(1));
+		}
+		assertStatus(ob.getStatus().get(0), "l", 1, true, 0, 20, 0,
+				"java.lang.RuntimeException: oh no");
+	}
+
+	@Test
+	public void retryBackoff() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = new ListenerOutbox(
+				db, ImmutableMap.of("l", l), 0, 60000, 0, 1000);
+
+		doThrow(new RuntimeException("oh no")).when(l).renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+
+		// the delay doubles with each failure up to the maximum
+		final long[] expected = {1000, 2000, 4000, 8000};
+		for (int i = 0; i < expected.length; i++) {
+			final long start = System.currentTimeMillis();
+			assertThat("incorrect claimed", ob.deliver("l"), is(1));
+			assertRetryDelay(start, expected[i]);
+			expireLeases();
+		}
+		setTries("l", 40);
+		final long start = System.currentTimeMillis();
+		assertThat("incorrect claimed", ob.deliver("l"), is(1));
+		assertRetryDelay(start, ListenerOutbox.MAX_RETRY_DELAY_MS);
+	}
+
+	private void assertRetryDelay(final long start, final long expected) {
+		final DBObject o = db.getCollection("listenerOutbox").findOne();
+		final long retry = ((Date) ((DBObject) o.get("lease")).get("l")).getTime();
+		assertThat("incorrect retry delay " + (retry - start),
+				retry - start >= expected && retry - start < expected + 1000, is(true));
+	}
+
+	private void expireLeases() {
+		db.getCollection("listenerOutbox").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("lease.l", new Date(0))),
+				false,
+				true);
+	}
+
+	private void setTries(final String name, final int tries) {
+		db.getCollection("listenerOutbox").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("tries." + name, tries)),
+				false,
+				true);
+		expireLeases();
+	}
+
+	@Test
+	public void failureBlocksUntilLeaseExpires() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = outbox(ImmutableMap.of("l", l));
+
+		doThrow(new RuntimeException("oh no")).when(l).renameObject(U1, 1, 1, "foo", inst(1000));
+
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.renameObject(U1, 1, 2, "foo", inst(1000));
+
+		assertThat("incorrect claimed", ob.deliver("l"), is(2));
+		// the failed event is leased, and the next event must wait for it
+		assertThat("incorrect claimed", ob.deliver("l"), is(0));
+
+		verify(l).renameObject(U1, 1, 1, "foo", inst(1000));
+		verifyNoMoreInteractions(l);
+		assertStatus(ob.getStatus().get(0), "l", 2, true, 0, 1, 0,
+				"java.lang.RuntimeException: oh no");
+	}
+
+	@Test
+	public void leaseHidesEventsFromOtherServers() throws Exception {
+		final WorkspaceEventListener l1 = mock(WorkspaceEventListener.class);
+		final WorkspaceEventListener l2 = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob1 = outbox(ImmutableMap.of("l", l1));
+		final ListenerOutbox ob2 = outbox(ImmutableMap.of("l", l2));
+
+		ob1.renameObject(U1, 1, 1, "foo", inst(1000));
+		// simulate a server that claimed the event and failed before delivering it
+		db.getCollection("listenerOutbox").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("lease.l",
+						new Date(System.currentTimeMillis() + 60000))));
+
+		assertThat("incorrect claimed", ob2.deliver("l"), is(0));
+		verifyZeroInteractions(l2);
+
+		db.getCollection("listenerOutbox").update(new BasicDBObject(),
+				new BasicDBObject("$set", new BasicDBObject("lease.l", new Date(0))));
+		assertThat("incorrect claimed", ob2.deliver("l"), is(1));
+		verify(l2).renameObject(U1, 1, 1, "foo", inst(1000));
+		verifyZeroInteractions(l1);
+	}
+
+	@Test
+	public void removedListenerKeepsEvents() throws Exception {
+		final WorkspaceEventListener l1 = mock(WorkspaceEventListener.class);
+		final WorkspaceEventListener l2 = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = outbox(ImmutableMap.of("l1", l1, "l2", l2));
+
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.renameObject(U1, 1, 2, "foo", inst(1000));
+		ob.deliver("l1");
+		assertThat("incorrect outbox size", outboxSize(), is(2L));
+
+		// l2 is not configured on this server, but may be configured on another server
+		final ListenerOutbox restart = outbox(ImmutableMap.of("l1", l1));
+		assertThat("incorrect outbox size", outboxSize(), is(2L));
+		assertThat("incorrect status size", restart.getStatus().size(), is(1));
+		verifyZeroInteractions(l2);
+
+		final ListenerOutbox other = outbox(ImmutableMap.of("l2", l2));
+		assertThat("incorrect claimed", other.deliver("l2"), is(2));
+		verify(l2).renameObject(U1, 1, 1, "foo", inst(1000));
+		verify(l2).renameObject(U1, 1, 2, "foo", inst(1000));
+		assertThat("incorrect outbox size", outboxSize(), is(0L));
+	}
+
+	@Test
+	public void removedListenerKeepsDroppedEvents() throws Exception {
+		final WorkspaceEventListener l1 = mock(WorkspaceEventListener.class);
+		final WorkspaceEventListener l2 = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = new ListenerOutbox(
+				db, ImmutableMap.of("l1", l1, "l2", l2), 0, 60000, 1, 0);
+
+		doThrow(new RuntimeException("oh no")).when(l2).renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.renameObject(U1, 1, 1, "foo", inst(1000));
+		ob.deliver("l1");
+		ob.deliver("l2");
+		assertThat("incorrect outbox size", outboxSize(), is(1L));
+		assertStatus(ob.getStatus().get(1), "l2", 0, false, 0, 1, 1,
+				"java.lang.RuntimeException: oh no");
+
+		// dropped events are kept until they are removed manually
+		final ListenerOutbox restart = outbox(ImmutableMap.of("l1", l1));
+		assertThat("incorrect outbox size", outboxSize(), is(1L));
+		assertThat("incorrect status size", restart.getStatus().size(), is(1));
+	}
+
+	@Test
+	public void deliverFail() throws Exception {
+		final ListenerOutbox ob = outbox(ImmutableMap.of(
+				"l", mock(WorkspaceEventListener.class)));
+		try {
+			ob.deliver("m");
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got,
+					new IllegalArgumentException("No such listener: m"));
+		}
+	}
+
+	@Test
+	public void backgroundDelivery() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		final ListenerOutbox ob = new ListenerOutbox(db, ImmutableMap.of("l", l), 50);
+		try {
+			ob.saveObjects(Arrays.asList(objInfo(1), objInfo(2)), true);
+			Thread.sleep(500);
+			verify(l).saveObjects(Arrays.asList(objInfo(1), objInfo(2)), true);
+			assertStatus(ob.getStatus().get(0), "l", 0, false, 2, 0, 0, null);
+		} finally {
+			ob.stop();
+		}
+	}
+
+	private void assertStatus(
+			final ListenerStatus status,
+			final String name,
+			final long pending,
+			final boolean hasLag,
+			final long delivered,
+			final long failed,
+			final long dropped,
+			final String lastError) {
+		assertThat("incorrect name", status.getName(), is(name));
+		assertThat("incorrect pending", status.getPending(), is(pending));
+		assertThat("incorrect lag", status.getLagMS().isPresent(), is(hasLag));
+		assertThat("incorrect delivered", status.getDelivered(), is(delivered));
+		assertThat("incorrect failed", status.getFailed(), is(failed));
+		assertThat("incorrect dropped", status.getDropped(), is(dropped));
+		assertThat("incorrect error", status.getLastError(), is(Optional.fromNullable(lastError)));
+	}
+}
@@ -23,6 +23,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -57,9 +61,12 @@ import us.kbase.workspace.database.ObjectIDWithRefPath;
 import us.kbase.workspace.database.ObjectIdentifier;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
+import us.kbase.workspace.database.PermissionSet;
 import us.kbase.workspace.database.Provenance;
 import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedSaveObject;
+import us.kbase.workspace.database.RecentObjectPosition;
+import us.kbase.workspace.database.RecentObjects;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
 import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
 import us.kbase.workspace.database.Types;
@@ -84,8 +91,10 @@ import us.kbase.workspace.test.WorkspaceTestCommon;
 import us.kbase.workspace.test.workspace.WorkspaceTester;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
@@ -581,6 +590,9 @@ public class MongoInternalsTest {
 				is("config"));
 		assertThat("not in update", (Boolean)cd.get("inupdate"), is(false));
 		assertThat("schema v1", (Integer)cd.get("schemaver"), is(1));
+		assertThat("latest versions backfilled", (Boolean)cd.get("lverfilled"), is(true));
+		assertThat("type fields backfilled", (Boolean)cd.get("tyfilled"), is(true));
+		assertThat("metadata index backfilled", (Boolean)cd.get("metaidxfilled"), is(true));
 		
 		//check startup works with the config object in place
 		MongoWorkspaceDB m = new MongoWorkspaceDB(
@@ -1198,4 +1210,348 @@ public class MongoInternalsTest {
 		int onemin = 1000 * 60;
 		assertTrue("date is recent", now.getTime() - orig.getTime() < onemin);
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void latestVersionBackfill() throws Exception {
+		// objects saved before the latest version copies existed are backfilled on startup
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("latest");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		final Map<String, Object> data = new HashMap<String, Object>();
+		final Provenance p = new Provenance(user);
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("b"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		final DBCollection objs = db.getCollection("workspaceObjects");
+		objs.update(new BasicDBObject(), new BasicDBObject(
+				"$unset", new BasicDBObject("lver", "")), false, true);
+		db.getCollection("config").update(new BasicDBObject("config", "config"),
+				new BasicDBObject("$unset", new BasicDBObject("lverfilled", "")));
+		
+		final MongoWorkspaceDB m = new MongoWorkspaceDB(db, new GridFSBlobStore(db),
+				new TempFilesManager(new File(TestCommon.getTempDir())));
+		for (int i = 0; i < 100 && !m.isLatestVersionViewReady(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat("view not ready", m.isLatestVersionViewReady(), is(true));
+		assertThat("backfill not recorded", db.getCollection("config").findOne()
+				.get("lverfilled"), is(true));
+		final DBObject latest = (DBObject) objs.findOne(new BasicDBObject("name", "a"))
+				.get("lver");
+		assertThat("incorrect version", latest.get("ver"), is(2));
+		assertThat("incorrect type", latest.get("type"), is("SomeModule.AType-0.1"));
+		assertThat("incorrect saver", latest.get("savedby"), is("u"));
+		
+		// hiding and renaming are read from the object document
+		ws.setObjectsHidden(user, Arrays.asList(new ObjectIdentifier(wsi, "b")), true);
+		ws.renameObject(user, new ObjectIdentifier(wsi, "a"), "c");
+		final List<ObjectInformation> objects = ws.listObjects(
+				new ListObjectsParameters(user, Arrays.asList(wsi)));
+		assertThat("incorrect object count", objects.size(), is(1));
+		assertThat("incorrect name", objects.get(0).getObjectName(), is("c"));
+		assertThat("incorrect version", objects.get(0).getVersion(), is(2));
+	}
+	
+	@Test
+	public void latestVersionRepair() throws Exception {
+		// simulates a save where updating the latest version copy failed after the versions
+		// were saved
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("latestrepair");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		final Map<String, Object> data = new HashMap<String, Object>();
+		final Provenance p = new Provenance(user);
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		final long wsid = ws.getWorkspaceInformation(user, wsi).getId();
+		final DBCollection objs = db.getCollection("workspaceObjects");
+		final DBObject q = new BasicDBObject("ws", wsid).append("name", "a");
+		final DBObject stale = (DBObject) objs.findOne(q).get("lver");
+		assertThat("object marked", objs.findOne(q).containsField("lverpend"), is(false));
+		
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		objs.update(q, new BasicDBObject("$set", new BasicDBObject("lver", stale)
+				.append("lverpend", true)));
+		
+		final List<ObjectInformation> objects = ws.listObjects(
+				new ListObjectsParameters(user, Arrays.asList(wsi)));
+		assertThat("incorrect object count", objects.size(), is(1));
+		assertThat("incorrect version", objects.get(0).getVersion(), is(2));
+		
+		final DBObject repaired = objs.findOne(q);
+		assertThat("incorrect version", ((DBObject) repaired.get("lver")).get("ver"), is(2));
+		assertThat("object still marked", repaired.containsField("lverpend"), is(false));
+		
+		// the version count is ahead of the saved versions
+		objs.update(q, new BasicDBObject("$inc", new BasicDBObject("numver", 1))
+				.append("$set", new BasicDBObject("lverpend", true)));
+		assertThat("incorrect object count", ws.listObjects(
+				new ListObjectsParameters(user, Arrays.asList(wsi))).size(), is(0));
+		final DBObject failed = objs.findOne(q);
+		assertThat("incorrect version", ((DBObject) failed.get("lver")).get("ver"), is(2));
+		assertThat("object not marked", failed.get("lverpend"), is(true));
+	}
+	
+	@Test
+	public void typeFieldsBackfill() throws Exception {
+		// versions saved before the type fields existed are backfilled on startup
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("typefields");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		final Map<String, Object> data = new HashMap<String, Object>();
+		final Provenance p = new Provenance(user);
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		final long wsid = ws.getWorkspaceInformation(user, wsi).getId();
+		final DBObject typeFields = new BasicDBObject("tymod", "").append("tyname", "")
+				.append("tymaj", "");
+		final DBCollection vers = db.getCollection("workspaceObjVersions");
+		vers.update(new BasicDBObject("ws", wsid), new BasicDBObject("$unset", typeFields),
+				false, true);
+		final DBCollection objs = db.getCollection("workspaceObjects");
+		objs.update(new BasicDBObject("ws", wsid), new BasicDBObject("$unset",
+				new BasicDBObject("lver.tymod", "").append("lver.tyname", "")
+						.append("lver.tymaj", "")), false, true);
+		db.getCollection("config").update(new BasicDBObject("config", "config"),
+				new BasicDBObject("$unset", new BasicDBObject("tyfilled", "")));
+		
+		final MongoWorkspaceDB m = new MongoWorkspaceDB(db, new GridFSBlobStore(db),
+				new TempFilesManager(new File(TestCommon.getTempDir())));
+		for (int i = 0; i < 100 && !m.isTypeFieldsReady(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat("fields not ready", m.isTypeFieldsReady(), is(true));
+		assertThat("backfill not recorded", db.getCollection("config").findOne()
+				.get("tyfilled"), is(true));
+		final DBObject ver = vers.findOne(new BasicDBObject("ws", wsid));
+		assertThat("incorrect module", ver.get("tymod"), is("SomeModule"));
+		assertThat("incorrect name", ver.get("tyname"), is("AType"));
+		assertThat("incorrect major version", ver.get("tymaj"), is(0));
+		final DBObject latest = (DBObject) objs.findOne(new BasicDBObject("ws", wsid))
+				.get("lver");
+		assertThat("incorrect module", latest.get("tymod"), is("SomeModule"));
+		assertThat("incorrect name", latest.get("tyname"), is("AType"));
+		assertThat("incorrect major version", latest.get("tymaj"), is(0));
+		
+		for (final TypeDefId type: Arrays.asList(new TypeDefId("SomeModule.AType"),
+				new TypeDefId("SomeModule.AType", "0"), SAFE_TYPE)) {
+			final List<ObjectInformation> objects = ws.listObjects(
+					new ListObjectsParameters(user, Arrays.asList(wsi), type));
+			assertThat("incorrect object count", objects.size(), is(1));
+		}
+		assertThat("incorrect object count", ws.listObjects(new ListObjectsParameters(
+				user, Arrays.asList(wsi), new TypeDefId("SomeModule.AType", "1"))).size(),
+				is(0));
+	}
+	
+	@Test
+	public void metadataIndexBackfill() throws Exception {
+		// metadata saved before the metadata index existed is indexed on startup
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("metaindex");
+		final Map<String, String> meta = new HashMap<String, String>();
+		meta.put("a", "1");
+		meta.put("b", "2");
+		ws.createWorkspace(user, wsi.getName(), false, null, new WorkspaceUserMetadata(meta));
+		final Map<String, Object> data = new HashMap<String, Object>();
+		final Provenance p = new Provenance(user);
+		final Map<String, String> onlya = new HashMap<String, String>();
+		onlya.put("a", "1");
+		ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o1"), new UObject(data),
+						SAFE_TYPE, new WorkspaceUserMetadata(meta), p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o2"), new UObject(data),
+						SAFE_TYPE, new WorkspaceUserMetadata(onlya), p, false)),
+				fac);
+		final long wsid = ws.getWorkspaceInformation(user, wsi).getId();
+		db.getCollection("workspaceMetaIndex").drop();
+		db.getCollection("objectMetaIndex").drop();
+		db.getCollection("config").update(new BasicDBObject("config", "config"),
+				new BasicDBObject("$unset", new BasicDBObject("metaidxfilled", "")));
+		
+		final MongoWorkspaceDB m = new MongoWorkspaceDB(db, new GridFSBlobStore(db),
+				new TempFilesManager(new File(TestCommon.getTempDir())));
+		for (int i = 0; i < 100 && !m.isMetadataIndexReady(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat("index not ready", m.isMetadataIndexReady(), is(true));
+		assertThat("backfill not recorded", db.getCollection("config").findOne()
+				.get("metaidxfilled"), is(true));
+		assertThat("incorrect workspace entries", db.getCollection("workspaceMetaIndex")
+				.count(new BasicDBObject("ws", wsid)), is(2L));
+		assertThat("incorrect object entries", db.getCollection("objectMetaIndex")
+				.count(new BasicDBObject("ws", wsid)), is(3L));
+		final DBObject entry = db.getCollection("objectMetaIndex").findOne(
+				new BasicDBObject("ws", wsid).append("k", "b"));
+		assertThat("incorrect value", entry.get("v"), is("2"));
+		assertThat("incorrect object id", entry.get("id"), is(1L));
+		assertThat("incorrect version", entry.get("ver"), is(1));
+		
+		final WorkspaceUserMetadata wsmeta = new WorkspaceUserMetadata(meta);
+		final List<WorkspaceInformation> wsis = ws.listWorkspaces(
+				user, null, null, wsmeta, null, null, false, false, false);
+		assertThat("incorrect workspace count", wsis.size(), is(1));
+		assertThat("incorrect workspace", wsis.get(0).getId(), is(wsid));
+		final List<ObjectInformation> objects = ws.listObjects(
+				new ListObjectsParameters(user, Arrays.asList(wsi)).withMetadata(wsmeta));
+		assertThat("incorrect object count", objects.size(), is(1));
+		assertThat("incorrect object", objects.get(0).getObjectName(), is("o1"));
+		assertThat("incorrect object count", ws.listObjects(
+				new ListObjectsParameters(user, Arrays.asList(wsi))
+						.withMetadata(new WorkspaceUserMetadata(onlya))).size(), is(2));
+	}
+	
+	@Test
+	public void metadataIndexConcurrentUpdates() throws Exception {
+		/* Concurrently set and remove a workspace metadata key, and check that the index always
+		 * contains the value that ends up in the workspace record. Each round interleaves
+		 * several updates of the key with a removal of the key.
+		 */
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("metaconcurrent");
+		final long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		final int threads = 4;
+		final ExecutorService exe = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 20; round++) {
+				final CountDownLatch start = new CountDownLatch(1);
+				final List<Future<?>> futures = new LinkedList<>();
+				for (int t = 0; t < threads; t++) {
+					final WorkspaceUserMetadata meta = t == 0 ? null :
+							new WorkspaceUserMetadata(ImmutableMap.of("k", round + "-" + t));
+					final List<String> remove = t == 0 ? Arrays.asList("k") : null;
+					futures.add(exe.submit(() -> {
+						start.await();
+						ws.setWorkspaceMetadata(user, wsi, meta, remove);
+						return null;
+					}));
+				}
+				start.countDown();
+				for (final Future<?> f: futures) {
+					f.get();
+				}
+				final String value = ws.getWorkspaceInformation(user, wsi).getUserMeta()
+						.getMetadata().get("k");
+				if (value != null) {
+					assertThat("missing index entry for " + value,
+							db.getCollection("workspaceMetaIndex").count(new BasicDBObject(
+									"ws", wsid).append("k", "k").append("v", value)), is(1L));
+					assertThat("incorrect workspaces for " + value, ws.listWorkspaces(
+							user, null, null,
+							new WorkspaceUserMetadata(ImmutableMap.of("k", value)),
+							null, null, false, false, false).size(), is(1));
+				}
+			}
+		} finally {
+			exe.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void metadataIndexRemovesStaleEntries() throws Exception {
+		// stale workspace index entries are only removed by queries once they're old enough
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("metastale");
+		final long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+		ws.setWorkspaceMetadata(user, wsi,
+				new WorkspaceUserMetadata(ImmutableMap.of("a", "1", "b", "1")), null);
+		ws.setWorkspaceMetadata(user, wsi,
+				new WorkspaceUserMetadata(ImmutableMap.of("a", "2")), Arrays.asList("b"));
+		final DBCollection idx = db.getCollection("workspaceMetaIndex");
+		assertThat("incorrect entries", idx.count(new BasicDBObject("ws", wsid)), is(3L));
+		assertThat("missing entry time", idx.count(new BasicDBObject("ws", wsid)
+				.append("time", new BasicDBObject("$exists", true))), is(3L));
+		
+		// recent entries are kept
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "a", "1"), is(0));
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "b", "1"), is(0));
+		assertThat("incorrect entries", idx.count(new BasicDBObject("ws", wsid)), is(3L));
+		
+		idx.update(new BasicDBObject("ws", wsid), new BasicDBObject("$set",
+				new BasicDBObject("time", new Date(0))), false, true);
+		
+		// only the stale entries that a query finds are removed
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "a", "1"), is(0));
+		assertThat("incorrect entries", idx.count(new BasicDBObject("ws", wsid)), is(2L));
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "b", "1"), is(0));
+		assertThat("incorrect entries", idx.count(new BasicDBObject("ws", wsid)), is(1L));
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "a", "2"), is(1));
+		assertThat("incorrect entries", idx.count(new BasicDBObject("ws", wsid)
+				.append("k", "a").append("v", "2")), is(1L));
+		
+		// setting a value again refreshes the entry
+		ws.setWorkspaceMetadata(user, wsi,
+				new WorkspaceUserMetadata(ImmutableMap.of("b", "1")), null);
+		assertThat("incorrect workspaces", listWorkspacesWithMeta(user, "b", "1"), is(1));
+	}
+	
+	private int listWorkspacesWithMeta(
+			final WorkspaceUser user,
+			final String key,
+			final String value)
+			throws Exception {
+		return ws.listWorkspaces(user, null, null,
+				new WorkspaceUserMetadata(ImmutableMap.of(key, value)),
+				null, null, false, false, false).size();
+	}
+	
+	@Test
+	public void recentObjectsScanLimit() throws Exception {
+		// objects the user can't read count towards the scan limit
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceUser other = new WorkspaceUser("other");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("recent");
+		final WorkspaceIdentifier otherwsi = new WorkspaceIdentifier("recentother");
+		ws.createWorkspace(user, wsi.getName(), false, null, null);
+		ws.createWorkspace(other, otherwsi.getName(), false, null, null);
+		final Map<String, Object> data = new HashMap<String, Object>();
+		final ObjectInformation a = ws.saveObjects(user, wsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("a"), new UObject(data),
+						SAFE_TYPE, null, new Provenance(user), false)),
+				fac).get(0);
+		Thread.sleep(5);
+		final Provenance p = new Provenance(other);
+		ws.saveObjects(other, otherwsi, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o1"), new UObject(data),
+						SAFE_TYPE, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("o2"), new UObject(data),
+						SAFE_TYPE, null, p, false)),
+				fac);
+		final long otherid = ws.getWorkspaceInformation(other, otherwsi).getId();
+		final PermissionSet pset = mwdb.getPermissions(user, Permission.READ, false);
+		
+		RecentObjects r = mwdb.getRecentObjects(pset, false, 10, 2, null);
+		assertThat("incorrect objects", r.getObjects().size(), is(0));
+		assertThat("incorrect next", r.getNext().get(), is(new RecentObjectPosition(
+				((Date) db.getCollection("workspaceObjects").findOne(
+						new BasicDBObject("ws", otherid).append("id", 2L)).get("moddate"))
+						.toInstant(),
+				otherid, 2)));
+		r = mwdb.getRecentObjects(pset, false, 10, 2, r.getNext().get());
+		assertThat("incorrect objects", r.getObjects().size(), is(1));
+		assertThat("incorrect object", r.getObjects().get(0).getObjectName(), is("a"));
+		assertThat("incorrect version", r.getObjects().get(0).getVersion(), is(a.getVersion()));
+		assertThat("incorrect next", r.getNext(), is(Optional.absent()));
+		
+		// without the latest version copies the versions are read instead
+		db.getCollection("workspaceObjects").update(new BasicDBObject(),
+				new BasicDBObject("$unset", new BasicDBObject("lver", "")), false, true);
+		r = mwdb.getRecentObjects(pset, true, 10, 10, null);
+		assertThat("incorrect objects", r.getObjects().size(), is(1));
+		assertThat("incorrect object", r.getObjects().get(0).getObjectName(), is("a"));
+		assertThat("incorrect meta", r.getObjects().get(0).getUserMetaData().getMetadata(),
+				is(new HashMap<String, String>()));
+	}
+}
@@ -3,6 +3,10 @@ package us.kbase.workspace.test.database.mongo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static us.kbase.common.test.TestCommon.set;
@@ -11,7 +15,14 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bson.types.ObjectId;
 import org.junit.AfterClass;
@@ -19,9 +30,12 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.MongoClient;
 
@@ -36,15 +50,26 @@ import us.kbase.typedobj.core.TempFilesManager;
 import us.kbase.typedobj.core.TypeDefId;
 import us.kbase.typedobj.core.TypeDefName;
 import us.kbase.typedobj.core.ValidatedTypedObject;
+import us.kbase.workspace.database.DependencyStatus;
 import us.kbase.workspace.database.ObjectIDNoWSNoVer;
 import us.kbase.workspace.database.ObjectIDResolvedWS;
+import us.kbase.workspace.database.ObjectInformation;
+import us.kbase.workspace.database.ObjectReferenceSet;
+import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.Provenance;
 import us.kbase.workspace.database.Provenance.ProvenanceAction;
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.ResolvedSaveObject;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
+import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
+import us.kbase.workspace.database.ResourceUsageConfigurationBuilder.ResourceUsageConfiguration;
 import us.kbase.workspace.database.WorkspaceObjectData;
 import us.kbase.workspace.database.WorkspaceSaveObject;
+import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceUser;
 import us.kbase.workspace.database.WorkspaceUserMetadata;
+import us.kbase.workspace.database.exceptions.DeletedObjectException;
+import us.kbase.workspace.database.exceptions.NoSuchWorkspaceException;
 import us.kbase.workspace.database.mongo.BlobStore;
 import us.kbase.workspace.database.mongo.Fields;
 import us.kbase.workspace.database.mongo.MongoWorkspaceDB;
@@ -210,4 +235,401 @@ public class MongoWorkspaceDBTest {
 		assertThat("incorrect data", wod.getSerializedData(), nullValue());
 		assertThat("incorrect ext ids", wod.getExtractedIds(), is(Collections.emptyMap()));
 	}
+	
+	@Test
+	public void saveObjectsNameRace() throws Exception {
+		// check that a name claimed by another save after name resolution is saved to the
+		// other save's object
+		final BlobStore bs = mock(BlobStore.class);
+		final TempFilesManager tfm = mock(TempFilesManager.class);
+		final ValidatedTypedObject vto = mock(ValidatedTypedObject.class);
+		
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(MONGO_DB, bs, tfm);
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		
+		final Provenance p = new Provenance(new WorkspaceUser("u"), new Date(10000));
+		p.setWorkspaceID(1L);
+		
+		when(vto.getValidationTypeDefId())
+				.thenReturn(new AbsoluteTypeDefId(new TypeDefName("Mod.Type"), 5, 1));
+		when(vto.extractMetadata(16000)).thenReturn(new ExtractedMetadata(Collections.emptyMap()));
+		when(vto.getMD5()).thenReturn(new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+		when(vto.getRelabeledSize()).thenReturn(22L);
+		
+		// the blobs are saved after the names are resolved but before the objects are created
+		doAnswer(inv -> {
+			MONGO_DB.getCollection("workspaceObjects").insert(new BasicDBObject(
+					Fields.OBJ_WS_ID, 1L)
+					.append(Fields.OBJ_ID, 5L)
+					.append(Fields.OBJ_VCNT, 1)
+					.append(Fields.OBJ_REFCOUNTS, Arrays.asList(0))
+					.append(Fields.OBJ_NAME, "racer")
+					.append(Fields.OBJ_MODDATE, new Date())
+					.append(Fields.OBJ_LATEST, null)
+					.append(Fields.OBJ_DEL, false)
+					.append(Fields.OBJ_HIDE, false));
+			return null;
+		}).when(bs).saveBlobs(any(), eq(true));
+		
+		final ResolvedWorkspaceID wsid = new ResolvedWorkspaceID(1, "ws", false, false);
+		final List<ObjectInformation> res = db.saveObjects(new WorkspaceUser("u"), wsid,
+				Arrays.asList(
+						saveObject("racer", p, vto),
+						saveObject("other", p, vto),
+						saveObject("racer", p, vto)));
+		
+		assertThat("incorrect id", res.get(0).getObjectId(), is(5L));
+		assertThat("incorrect name", res.get(0).getObjectName(), is("racer"));
+		assertThat("incorrect version", res.get(0).getVersion(), is(2));
+		assertThat("incorrect id", res.get(1).getObjectId(), is(2L));
+		assertThat("incorrect name", res.get(1).getObjectName(), is("other"));
+		assertThat("incorrect version", res.get(1).getVersion(), is(1));
+		assertThat("incorrect id", res.get(2).getObjectId(), is(5L));
+		assertThat("incorrect version", res.get(2).getVersion(), is(3));
+		
+		final DBCollection objs = MONGO_DB.getCollection("workspaceObjects");
+		assertThat("incorrect object count", objs.count(), is(2L));
+		final DBObject racer = objs.findOne(new BasicDBObject(Fields.OBJ_ID, 5L));
+		assertThat("incorrect version count", racer.get(Fields.OBJ_VCNT), is(3));
+		assertThat("incorrect ref counts", racer.get(Fields.OBJ_REFCOUNTS),
+				is(Arrays.asList(0, 0, 0)));
+		final DBObject other = objs.findOne(new BasicDBObject(Fields.OBJ_ID, 2L));
+		assertThat("incorrect version count", other.get(Fields.OBJ_VCNT), is(1));
+		assertThat("incorrect name", other.get(Fields.OBJ_NAME), is("other"));
+		
+		assertThat("incorrect version docs", MONGO_DB.getCollection("workspaceObjVersions")
+				.count(new BasicDBObject(Fields.VER_ID, 5L)), is(2L));
+	}
+	
+	private ValidatedTypedObject mockValidatedObject() throws Exception {
+		final ValidatedTypedObject vto = mock(ValidatedTypedObject.class);
+		when(vto.getValidationTypeDefId())
+				.thenReturn(new AbsoluteTypeDefId(new TypeDefName("Mod.Type"), 5, 1));
+		when(vto.extractMetadata(16000)).thenReturn(new ExtractedMetadata(Collections.emptyMap()));
+		when(vto.getMD5()).thenReturn(new MD5("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"));
+		when(vto.getRelabeledSize()).thenReturn(22L);
+		return vto;
+	}
+	
+	@Test
+	public void saveObjectsConcurrently() throws Exception {
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		// simulates a second server
+		final MongoWorkspaceDB db2 = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID wsid = new ResolvedWorkspaceID(1, "ws", false, false);
+		final Provenance p = new Provenance(new WorkspaceUser("u"), new Date(10000));
+		final ValidatedTypedObject vto = mockValidatedObject();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		
+		final ExecutorService exe = Executors.newFixedThreadPool(8);
+		final List<Future<List<ObjectInformation>>> saves = new LinkedList<>();
+		for (int i = 0; i < 20; i++) {
+			final MongoWorkspaceDB target = i % 2 == 0 ? db : db2;
+			final List<ResolvedSaveObject> objs = new LinkedList<>();
+			for (int j = 0; j <= i % 3; j++) {
+				objs.add(saveObject("o" + i + "_" + j, p, vto));
+			}
+			saves.add(exe.submit(() -> target.saveObjects(u, wsid, objs)));
+		}
+		exe.shutdown();
+		
+		final Set<Long> ids = new HashSet<>();
+		for (final Future<List<ObjectInformation>> save: saves) {
+			final List<ObjectInformation> res = save.get();
+			final long first = res.get(0).getObjectId();
+			for (int i = 0; i < res.size(); i++) {
+				// each save gets a contiguous range of IDs
+				assertThat("incorrect id", res.get(i).getObjectId(), is(first + i));
+				ids.add(res.get(i).getObjectId());
+			}
+		}
+		// 7 saves of 1 object, 7 saves of 2 objects, 6 saves of 3 objects
+		final Set<Long> expected = new HashSet<>();
+		for (long i = 1; i <= 39; i++) {
+			expected.add(i);
+		}
+		assertThat("incorrect ids", ids, is(expected));
+		assertThat("incorrect max id", MONGO_DB.getCollection("workspaces").findOne(
+				new BasicDBObject(Fields.WS_ID, 1L)).get(Fields.WS_NUMOBJ), is(39L));
+	}
+	
+	@Test
+	public void getTypesAndReferencesWithCache() throws Exception {
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db.setResourceUsageConfiguration(new ResourceUsageConfigurationBuilder()
+				.withVersionCacheSize(10).build());
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID wsid = new ResolvedWorkspaceID(1, "ws", false, false);
+		final Provenance p = new Provenance(new WorkspaceUser("u"), new Date(10000));
+		final WorkspaceUser u = new WorkspaceUser("u");
+		db.saveObjects(u, wsid, Arrays.asList(saveObject("a", p, mockValidatedObject())));
+		final ObjectIDResolvedWS oid = new ObjectIDResolvedWS(wsid, 1, 1);
+		final AbsoluteTypeDefId type = new AbsoluteTypeDefId(new TypeDefName("Mod.Type"), 5, 1);
+		
+		assertThat("incorrect type", db.getObjectType(set(oid), false).get(oid).getType(),
+				is(type));
+		
+		// versions are immutable, so changes behind the cache's back are not seen
+		MONGO_DB.getCollection("workspaceObjVersions").update(
+				new BasicDBObject(Fields.VER_ID, 1L),
+				new BasicDBObject("$set", new BasicDBObject(Fields.VER_TYPE, "Mod.Other-1.0")
+						.append(Fields.VER_REF, Arrays.asList("1/2/3"))));
+		assertThat("incorrect type", db.getObjectType(set(oid), false).get(oid).getType(),
+				is(type));
+		final ObjectReferenceSet refs = db.getObjectOutgoingReferences(
+				set(oid), true, false, true).get(oid);
+		assertThat("incorrect ref", refs.getObjectReference(), is(new Reference(1, 1, 1)));
+		assertThat("incorrect refs", refs.getReferenceSet(), is(set()));
+		
+		// deletion is still checked
+		db.setObjectsDeleted(set(oid), true);
+		try {
+			db.getObjectType(set(oid), false);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new DeletedObjectException(
+					"Object 1 (name a) in workspace 1 (name ws) has been deleted", oid));
+		}
+		assertThat("incorrect type", db.getObjectType(set(oid), true).get(oid).getType(),
+				is(type));
+	}
+	
+	@Test
+	public void getIncomingReferencesWithIndex() throws Exception {
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID wsid = new ResolvedWorkspaceID(1, "ws", false, false);
+		final Provenance p = new Provenance(new WorkspaceUser("u"), new Date(10000));
+		final ValidatedTypedObject vto = mockValidatedObject();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final Reference target = new Reference(1, 1, 1);
+		db.saveObjects(u, wsid, Arrays.asList(
+				saveObject("a", p, vto),
+				saveObject("b", p, vto, set(target), Collections.emptyList())));
+		
+		// loaded from the database
+		assertThat("index enabled", db.isReferenceIndexWarm(), is(false));
+		db.setResourceUsageConfiguration(new ResourceUsageConfigurationBuilder()
+				.withReferenceIndexPollMS(50).build());
+		for (int i = 0; i < 100 && !db.isReferenceIndexWarm(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat("index not warm", db.isReferenceIndexWarm(), is(true));
+		final List<DependencyStatus> status = db.status();
+		assertThat("incorrect status", status.get(status.size() - 1), is(new DependencyStatus(
+				true, "OK", "Reference index", "Unknown")));
+		assertThat("incorrect refs", db.getObjectIncomingReferences(set(target)).get(target)
+				.getReferenceSet(), is(set(new Reference(1, 2, 1))));
+		
+		// saved locally
+		db.saveObjects(u, wsid, Arrays.asList(
+				saveObject("c", p, vto, set(), Arrays.asList(target))));
+		assertThat("incorrect refs", db.getObjectIncomingReferences(set(target)).get(target)
+				.getReferenceSet(), is(set(new Reference(1, 2, 1), new Reference(1, 3, 1))));
+		
+		// saved by another server
+		final DBCollection vers = MONGO_DB.getCollection("workspaceObjVersions");
+		final DBObject remote = new BasicDBObject(Fields.VER_WS_ID, 1L)
+				.append(Fields.VER_ID, 4L)
+				.append(Fields.VER_VER, 1)
+				.append(Fields.VER_REF, Arrays.asList("1/1/1"))
+				.append(Fields.VER_PROVREF, Collections.emptyList())
+				.append(Fields.VER_SAVEDATE, new Date());
+		vers.insert(remote);
+		Thread.sleep(500);
+		// versions never change, so the index doesn't need to see the removal
+		vers.remove(new BasicDBObject(Fields.VER_ID, 4L));
+		assertThat("incorrect refs", db.getObjectIncomingReferences(set(target)).get(target)
+				.getReferenceSet(), is(set(new Reference(1, 2, 1), new Reference(1, 3, 1),
+						new Reference(1, 4, 1))));
+		assertThat("incorrect refs", db.getObjectIncomingReferences(
+				set(new Reference(1, 2, 1))).get(new Reference(1, 2, 1)).getReferenceSet(),
+				is(set()));
+	}
+	
+	@Test
+	public void saveObjectsCoalesceModDate() throws Exception {
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db.setResourceUsageConfiguration(new ResourceUsageConfigurationBuilder()
+				.withModificationDateWindowMS(500).build());
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID wsid = new ResolvedWorkspaceID(1, "ws", false, false);
+		final Provenance p = new Provenance(new WorkspaceUser("u"), new Date(10000));
+		final ValidatedTypedObject vto = mockValidatedObject();
+		final WorkspaceUser u = new WorkspaceUser("u");
+		final DBCollection ws = MONGO_DB.getCollection("workspaces");
+		final BasicDBObject q = new BasicDBObject(Fields.WS_ID, 1L);
+		
+		final Date created = (Date) ws.findOne(q).get(Fields.WS_MODDATE);
+		Thread.sleep(10);
+		db.saveObjects(u, wsid, Arrays.asList(saveObject("a", p, vto)));
+		final Date first = (Date) ws.findOne(q).get(Fields.WS_MODDATE);
+		assertThat("date not written immediately", first.after(created), is(true));
+		
+		Thread.sleep(10);
+		db.saveObjects(u, wsid, Arrays.asList(saveObject("b", p, vto)));
+		assertThat("date not held", ws.findOne(q).get(Fields.WS_MODDATE), is(first));
+		
+		Thread.sleep(1000);
+		final Date last = (Date) ws.findOne(q).get(Fields.WS_MODDATE);
+		assertThat("held date not written", last.after(first), is(true));
+	}
+	
+	@Test
+	public void resolveWorkspacesWithCache() throws Exception {
+		final ResourceUsageConfiguration cfg = new ResourceUsageConfigurationBuilder()
+				.withWorkspaceCacheSize(10).withWorkspaceCachePollMS(50).build();
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db.setResourceUsageConfiguration(cfg);
+		// simulates a second server
+		final MongoWorkspaceDB db2 = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db2.setResourceUsageConfiguration(cfg);
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final WorkspaceIdentifier byName = new WorkspaceIdentifier("ws");
+		final WorkspaceIdentifier byID = new WorkspaceIdentifier(1);
+		final ResolvedWorkspaceID rwsi = new ResolvedWorkspaceID(1, "ws", false, false);
+		
+		assertThat("incorrect ws", db.resolveWorkspace(byName), is(rwsi));
+		assertThat("incorrect ws", db2.resolveWorkspace(byName), is(rwsi));
+		assertThat("incorrect ws", db2.resolveWorkspace(byID), is(rwsi));
+		
+		// local changes are visible immediately
+		db.renameWorkspace(rwsi, "ws2");
+		db.lockWorkspace(rwsi);
+		final ResolvedWorkspaceID renamed = new ResolvedWorkspaceID(1, "ws2", true, false);
+		assertThat("incorrect ws", db.resolveWorkspace(byID), is(renamed));
+		failResolveWorkspace(db, byName, new NoSuchWorkspaceException(
+				"No workspace with name ws exists", byName));
+		
+		// remote changes are visible after the next poll
+		Thread.sleep(500);
+		assertThat("incorrect ws", db2.resolveWorkspace(byID), is(renamed));
+		assertThat("incorrect ws", db2.resolveWorkspace(new WorkspaceIdentifier("ws2")),
+				is(renamed));
+		failResolveWorkspace(db2, byName, new NoSuchWorkspaceException(
+				"No workspace with name ws exists", byName));
+		
+		db2.setWorkspaceDeleted(renamed, true);
+		failResolveWorkspace(db2, byID, new NoSuchWorkspaceException(
+				"Workspace 1 is deleted", byID));
+		Thread.sleep(500);
+		failResolveWorkspace(db, byID, new NoSuchWorkspaceException(
+				"Workspace 1 is deleted", byID));
+	}
+	
+	@Test
+	public void resolveWorkspacesWithCacheAppliesInvalidationsOnce() throws Exception {
+		final ResourceUsageConfiguration cfg = new ResourceUsageConfigurationBuilder()
+				.withWorkspaceCacheSize(10).withWorkspaceCachePollMS(50).build();
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db.setResourceUsageConfiguration(cfg);
+		final MongoWorkspaceDB db2 = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		db2.setResourceUsageConfiguration(cfg);
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final WorkspaceIdentifier byID = new WorkspaceIdentifier(1);
+		final ResolvedWorkspaceID rwsi = new ResolvedWorkspaceID(1, "ws", false, false);
+		db.renameWorkspace(rwsi, "ws2");
+		Thread.sleep(500);
+		final ResolvedWorkspaceID renamed = new ResolvedWorkspaceID(1, "ws2", false, false);
+		assertThat("incorrect ws", db2.resolveWorkspace(byID), is(renamed));
+		
+		/* change the workspace without recording an invalidation. The invalidation record for
+		 * the rename is re-read by the following polls, but isn't applied again, so the cached
+		 * workspace is still returned.
+		 */
+		MONGO_DB.getCollection("workspaces").update(new BasicDBObject("ws", 1),
+				new BasicDBObject("$set", new BasicDBObject("name", "ws3")));
+		Thread.sleep(500);
+		assertThat("incorrect ws", db2.resolveWorkspace(byID), is(renamed));
+	}
+	
+	@Test
+	public void getPermissionsWithCache() throws Exception {
+		final MongoWorkspaceDB db = new MongoWorkspaceDB(
+				MONGO_DB, mock(BlobStore.class), mock(TempFilesManager.class));
+		assertThat("incorrect stats", db.getPermissionCacheStats(), is(Optional.absent()));
+		db.setResourceUsageConfiguration(new ResourceUsageConfigurationBuilder()
+				.withPermissionCacheSize(10).build());
+		
+		db.createWorkspace(new WorkspaceUser("u"), "ws", false, null, new WorkspaceUserMetadata());
+		final ResolvedWorkspaceID rwsi = new ResolvedWorkspaceID(1, "ws", false, false);
+		final WorkspaceUser v = new WorkspaceUser("v");
+		final WorkspaceUser w = new WorkspaceUser("w");
+		
+		assertThat("incorrect perms", db.getPermissions(v, Permission.READ, false)
+				.getWorkspaces(), is(set()));
+		assertThat("incorrect perms", db.getPermissions(v, Permission.READ, false)
+				.getWorkspaces(), is(set()));
+		
+		db.setPermissions(rwsi, Arrays.asList(v), Permission.READ);
+		assertThat("incorrect perms", db.getPermissions(v, Permission.READ, false)
+				.getWorkspaces(), is(set(rwsi)));
+		
+		assertThat("incorrect perms", db.getPermissions(w, Permission.READ, false)
+				.getWorkspaces(), is(set()));
+		db.setGlobalPermission(rwsi, Permission.READ);
+		assertThat("incorrect perms", db.getPermissions(w, Permission.READ, false)
+				.getWorkspaces(), is(set(rwsi)));
+		
+		final CacheStats stats = db.getPermissionCacheStats().get();
+		assertThat("incorrect hits", stats.hitCount(), is(1L));
+		assertThat("incorrect misses", stats.missCount(), is(4L));
+		final List<DependencyStatus> status = db.status();
+		assertThat("incorrect status", status.get(status.size() - 1), is(new DependencyStatus(
+				true, "OK - hit rate 20%, hits 1, misses 4, evictions 0",
+				"Permission cache", "Unknown")));
+	}
+	
+	private void failResolveWorkspace(
+			final MongoWorkspaceDB db,
+			final WorkspaceIdentifier wsi,
+			final Exception expected) {
+		try {
+			db.resolveWorkspace(wsi);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
+	private ResolvedSaveObject saveObject(
+			final String name,
+			final Provenance p,
+			final ValidatedTypedObject vto)
+			throws Exception {
+		return saveObject(name, p, vto, set(), Collections.emptyList());
+	}
+	
+	private ResolvedSaveObject saveObject(
+			final String name,
+			final Provenance p,
+			final ValidatedTypedObject vto,
+			final Set<Reference> refs,
+			final List<Reference> provrefs)
+			throws Exception {
+		return new WorkspaceSaveObject(
+				new ObjectIDNoWSNoVer(name),
+				new UObject(ImmutableMap.of("foo", "bar")),
+				new TypeDefId("Mod.Type", "5.1"),
+				null,
+				p,
+				false)
+				.resolve(vto, refs, provrefs, Collections.emptyMap());
+	}
 }
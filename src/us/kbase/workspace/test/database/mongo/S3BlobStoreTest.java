@@ -5,27 +5,42 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static us.kbase.common.test.TestCommon.assertLogEventsCorrect;
+import static us.kbase.common.test.TestCommon.set;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableMap;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 import com.mongodb.MongoException;
 
 import ch.qos.logback.classic.Level;
@@ -148,6 +163,20 @@ public class S3BlobStoreTest {
 				"Failed to initialize S3 bucket: whoopsie"));
 	}
 	
+	@Test
+	public void constructFailBadMaxConcurrency() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final DBCollection col = mock(DBCollection.class);
+		
+		try {
+			new S3BlobStore(col, cli, "foo", 0);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+					"maxConcurrency must be at least 1"));
+		}
+	}
+	
 	private void constructFail(
 			final DBCollection col,
 			final S3ClientWithPresign cli,
@@ -421,6 +450,175 @@ public class S3BlobStoreTest {
 		}
 	}
 
+	@Test
+	public void saveBlobs() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		final UUIDGen uuidGen = mock(UUIDGen.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s3 = new S3BlobStore(col, cli, "foo", 2, uuidGen);
+		final MD5 m1 = new MD5("1fc5a11811de5142af444f5d482cd748");
+		final MD5 m2 = new MD5("1fc5a11811de5142af444f5d482cd749");
+		final MD5 m3 = new MD5("1fc5a11811de5142af444f5d482cd74a");
+		final Restreamable r1 = new TestRestreamable("exists");
+		final Restreamable r2 = new TestRestreamable("f");
+		final Restreamable r3 = new TestRestreamable("yay");
+		final Map<MD5, Restreamable> data = new LinkedHashMap<>();
+		data.put(m1, r1);
+		data.put(m2, r2);
+		data.put(m3, r3);
+		
+		when(col.find(
+				new BasicDBObject("chksum", new BasicDBObject("$in", Arrays.asList(
+						m1.getMD5(), m2.getMD5(), m3.getMD5()))),
+				new BasicDBObject("chksum", 1)))
+			.thenReturn(cur);
+		when(cur.hasNext()).thenReturn(true, false);
+		when(cur.next()).thenReturn(new BasicDBObject("chksum", m1.getMD5()));
+		
+		when(uuidGen.randomUUID()).thenReturn(
+				UUID.fromString("68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9"),
+				UUID.fromString("68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da"));
+		
+		// the uploads run concurrently, so the key assigned to each blob isn't deterministic
+		final Map<Restreamable, MD5> dataToMD5 = ImmutableMap.of(r2, m2, r3, m3);
+		final Map<String, MD5> keyToMD5 = new ConcurrentHashMap<>();
+		doAnswer(inv -> keyToMD5.put(inv.getArgument(1), dataToMD5.get(inv.getArgument(2))))
+			.when(cli).presignAndPutObject(eq("foo"), any(), any());
+		when(s3cli.headObject(any(HeadObjectRequest.class))).thenAnswer(inv -> 
+				HeadObjectResponse.builder().eTag("\"" + keyToMD5.get(
+						((HeadObjectRequest) inv.getArgument(0)).key()).getMD5() + "\"")
+				.build());
+		
+		s3.saveBlobs(data, true);
+		
+		assertThat("incorrect keys", new HashSet<>(keyToMD5.values()), is(set(m2, m3)));
+		for (final Entry<String, MD5> e: keyToMD5.entrySet()) {
+			verify(col).update(new BasicDBObject("chksum", e.getValue().getMD5()),
+					new BasicDBObject("chksum", e.getValue().getMD5())
+							.append("key", e.getKey())
+							.append("sorted", true),
+					true, false);
+		}
+		verify(cli, never()).presignAndPutObject(any(), any(), eq(r1));
+		verify(col, never()).update(eq(new BasicDBObject("chksum", m1.getMD5())), any(),
+				anyBoolean(), anyBoolean());
+		verify(cur).close();
+	}
+	
+	@Test
+	public void saveBlobsAllExist() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s3 = new S3BlobStore(col, cli, "foo");
+		final MD5 m1 = new MD5("1fc5a11811de5142af444f5d482cd748");
+		
+		when(col.find(any(DBObject.class), any(DBObject.class))).thenReturn(cur);
+		when(cur.hasNext()).thenReturn(true, false);
+		when(cur.next()).thenReturn(new BasicDBObject("chksum", m1.getMD5()));
+		
+		s3.saveBlobs(ImmutableMap.of(m1, new TestRestreamable("f")), true);
+		
+		verify(cli, never()).presignAndPutObject(any(), any(), any());
+		verify(col, never()).update(any(), any(), anyBoolean(), anyBoolean());
+	}
+	
+	@Test
+	public void saveBlobsEmpty() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s3 = new S3BlobStore(col, cli, "foo");
+		
+		s3.saveBlobs(Collections.emptyMap(), true);
+		
+		verify(col, never()).find(any(DBObject.class), any(DBObject.class));
+		verify(cli, never()).presignAndPutObject(any(), any(), any());
+	}
+	
+	@Test
+	public void saveBlobsFailBadInput() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final MD5 m = new MD5("1fc5a11811de5142af444f5d482cd748");
+		final Map<MD5, Restreamable> nullkey = new HashMap<>();
+		nullkey.put(null, new TestRestreamable("f"));
+		final Map<MD5, Restreamable> nullval = new HashMap<>();
+		nullval.put(m, null);
+		
+		saveBlobsFail(s, null, new NullPointerException("data"));
+		saveBlobsFail(s, nullkey, new NullPointerException("null key in data"));
+		saveBlobsFail(s, nullval, new NullPointerException("null value in data"));
+	}
+	
+	@Test
+	public void saveBlobsFailMongoExceptionOnFind() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final MD5 m = new MD5("1fc5a11811de5142af444f5d482cd748");
+		
+		when(col.find(any(DBObject.class), any(DBObject.class)))
+			.thenThrow(new MongoException("ugh"));
+		
+		saveBlobsFail(s, ImmutableMap.of(m, new TestRestreamable("f")),
+				new BlobStoreCommunicationException("Could not read from the mongo database"));
+	}
+	
+	@Test
+	public void saveBlobsFailOnPresign() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		final UUIDGen uuidGen = mock(UUIDGen.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo", uuidGen);
+		
+		when(col.find(any(DBObject.class), any(DBObject.class))).thenReturn(cur);
+		when(cur.hasNext()).thenReturn(false);
+		when(uuidGen.randomUUID()).thenReturn(
+				UUID.fromString("68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9"),
+				UUID.fromString("68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da"));
+		doThrow(new IOException("poopsie")).when(cli).presignAndPutObject(
+				any(), any(), any());
+		
+		saveBlobsFail(s, ImmutableMap.of(
+				new MD5("1fc5a11811de5142af444f5d482cd748"), new TestRestreamable("f"),
+				new MD5("1fc5a11811de5142af444f5d482cd749"), new TestRestreamable("yay")),
+				new BlobStoreCommunicationException("S3 error: poopsie"));
+		verify(col, never()).update(any(), any(), anyBoolean(), anyBoolean());
+	}
+	
+	private void saveBlobsFail(
+			final S3BlobStore s3,
+			final Map<MD5, Restreamable> data,
+			final Exception expected) {
+		try {
+			s3.saveBlobs(data, true);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+
 	@Test
 	public void getBlob() throws Exception {
 		getBlob(true);
@@ -458,6 +656,178 @@ public class S3BlobStoreTest {
 		assertThat("incorrect is trusted json", ba.containsTrustedJson(), is(true));
 	}
 	
+	@Test
+	public void getBlobs() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final MD5 m1 = new MD5("1fc5a11811de5142af444f5d482cd748");
+		final MD5 m2 = new MD5("1fc5a11811de5142af444f5d482cd749");
+		
+		when(col.find(any(DBObject.class))).thenReturn(cur);
+		when(cur.hasNext()).thenReturn(true, true, false);
+		when(cur.next()).thenReturn(
+				new BasicDBObject("chksum", "1fc5a11811de5142af444f5d482cd748")
+						.append("key", "68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9")
+						.append("sorted", true),
+				new BasicDBObject("chksum", "1fc5a11811de5142af444f5d482cd749")
+						.append("key", "68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da")
+						.append("sorted", false));
+		
+		when(s3cli.getObject(GetObjectRequest.builder().bucket("foo")
+				.key("68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9").build()))
+			.thenReturn(new ResponseInputStream<GetObjectResponse>(
+					GetObjectResponse.builder().build(),
+					AbortableInputStream.create(
+							new ByteArrayInputStream("\"input 1\"".getBytes()))));
+		when(s3cli.getObject(GetObjectRequest.builder().bucket("foo")
+				.key("68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da").build()))
+			.thenReturn(new ResponseInputStream<GetObjectResponse>(
+					GetObjectResponse.builder().build(),
+					AbortableInputStream.create(
+							new ByteArrayInputStream("\"input 2\"".getBytes()))));
+		
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(30, 40, null);
+		
+		final Map<MD5, ByteArrayFileCache> ba = s.getBlobs(set(m1, m2), bafcMan);
+		
+		assertThat("incorrect keys", ba.keySet(), is(set(m1, m2)));
+		assertThat("incorrect data", ba.get(m1).getUObject().asClassInstance(String.class),
+				is("input 1"));
+		assertThat("incorrect sorted", ba.get(m1).isSorted(), is(true));
+		assertThat("incorrect data", ba.get(m2).getUObject().asClassInstance(String.class),
+				is("input 2"));
+		assertThat("incorrect sorted", ba.get(m2).isSorted(), is(false));
+		assertThat("incorrect mem used", bafcMan.getSizeInMem(), is(18));
+		verify(cur).close();
+	}
+	
+	@Test
+	public void getBlobsFailNoBlob() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final MD5 m1 = new MD5("1fc5a11811de5142af444f5d482cd748");
+		final MD5 m2 = new MD5("1fc5a11811de5142af444f5d482cd749");
+		
+		when(col.find(any(DBObject.class))).thenReturn(cur);
+		when(cur.hasNext()).thenReturn(true, false);
+		when(cur.next()).thenReturn(
+				new BasicDBObject("chksum", "1fc5a11811de5142af444f5d482cd748")
+						.append("key", "68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9")
+						.append("sorted", true));
+		
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(30, 40, null);
+		try {
+			s.getBlobs(set(m1, m2), bafcMan);
+			fail("expected exception");
+		} catch (NoSuchBlobException got) {
+			TestCommon.assertExceptionCorrect(got, new NoSuchBlobException(
+					"No blob saved with chksum 1fc5a11811de5142af444f5d482cd749"));
+			assertThat("incorrect md5", got.getMD5(), is(m2));
+		}
+		verify(s3cli, never()).getObject(any(GetObjectRequest.class));
+	}
+	
+	@Test
+	public void getBlobsFailGetObject() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		final DBCursor cur = mock(DBCursor.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final MD5 m1 = new MD5("1fc5a11811de5142af444f5d482cd748");
+		final MD5 m2 = new MD5("1fc5a11811de5142af444f5d482cd749");
+		
+		when(col.find(any(DBObject.class))).thenReturn(cur);
+		when(cur.hasNext()).thenReturn(true, true, false);
+		when(cur.next()).thenReturn(
+				new BasicDBObject("chksum", "1fc5a11811de5142af444f5d482cd748")
+						.append("key", "68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9")
+						.append("sorted", true),
+				new BasicDBObject("chksum", "1fc5a11811de5142af444f5d482cd749")
+						.append("key", "68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da")
+						.append("sorted", false));
+		
+		when(s3cli.getObject(GetObjectRequest.builder().bucket("foo")
+				.key("68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6d9").build()))
+			.thenReturn(new ResponseInputStream<GetObjectResponse>(
+					GetObjectResponse.builder().build(),
+					AbortableInputStream.create(
+							new ByteArrayInputStream("\"input 1\"".getBytes()))));
+		when(s3cli.getObject(GetObjectRequest.builder().bucket("foo")
+				.key("68/47/1b/68471ba8-c6b3-4ab7-9fc1-3c9ff304d6da").build()))
+			.thenThrow(SdkException.builder().message("ok doody butt").build());
+		
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(30, 40, null);
+		try {
+			s.getBlobs(set(m1, m2), bafcMan);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new BlobStoreCommunicationException(
+					"Error getting S3 object: ok doody butt"));
+		}
+	}
+	
+	@Test
+	public void getBlobsFailMongoException() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		when(col.find(any(DBObject.class))).thenThrow(new MongoException("heck"));
+		
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(30, 40, null);
+		try {
+			s.getBlobs(set(new MD5("1fc5a11811de5142af444f5d482cd748")), bafcMan);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new BlobStoreCommunicationException(
+					"Could not read from the mongo database"));
+		}
+	}
+	
+	@Test
+	public void getBlobsFailBadInput() throws Exception {
+		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
+		final S3Client s3cli = mock(S3Client.class);
+		final DBCollection col = mock(DBCollection.class);
+		when(cli.getClient()).thenReturn(s3cli);
+		
+		final S3BlobStore s = new S3BlobStore(col, cli, "foo");
+		final ByteArrayFileCacheManager bafcMan = new ByteArrayFileCacheManager(30, 40, null);
+		final MD5 m = new MD5("1fc5a11811de5142af444f5d482cd748");
+		
+		getBlobsFail(s, null, bafcMan, new NullPointerException("md5s"));
+		getBlobsFail(s, set(m, null), bafcMan, new NullPointerException("null item in md5s"));
+		getBlobsFail(s, set(m), null, new NullPointerException("bafcMan"));
+	}
+	
+	private void getBlobsFail(
+			final S3BlobStore s,
+			final Set<MD5> md5s,
+			final ByteArrayFileCacheManager man,
+			final Exception expected) {
+		try {
+			s.getBlobs(md5s, man);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+	
 	@Test
 	public void getBlobFailBadInput() throws Exception {
 		final S3ClientWithPresign cli = mock(S3ClientWithPresign.class);
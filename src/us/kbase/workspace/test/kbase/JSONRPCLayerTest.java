@@ -54,6 +54,8 @@ import us.kbase.workspace.ListAllTypesParams;
 import us.kbase.workspace.ListModuleVersionsParams;
 import us.kbase.workspace.ListModulesParams;
 import us.kbase.workspace.ListObjectsParams;
+import us.kbase.workspace.ListRecentObjectsParams;
+import us.kbase.workspace.ListRecentObjectsResults;
 import us.kbase.workspace.ListWorkspaceIDsParams;
 import us.kbase.workspace.ListWorkspaceIDsResults;
 import us.kbase.workspace.ListWorkspaceInfoParams;
@@ -2604,9 +2606,19 @@ public class JSONRPCLayerTest extends JSONRPCLayerTester {
 				"At least one filter must be specified.");
 		failListObjects(Arrays.asList("listObjs1"), Arrays.asList(1L), null, "x", null, 1L, 1L, 1L, 1L,
 				"No such permission: x");
-		meta.put("this should", "force a fail");
+		try {
+			CLIENT1.listObjects(new ListObjectsParams().withWorkspaces(Arrays.asList("listObjs1"))
+					.withStartafter("1/foo/1"));
+			fail("listed objects with bad params");
+		} catch (ServerException se) {
+			assertThat("correct excep message", se.getLocalizedMessage(),
+					is("ref 1/foo/1 is not an absolute reference"));
+		}
+		for (int i = 0; i < 10; i++) {
+			meta.put("this should" + i, "force a fail");
+		}
 		failListObjects(Arrays.asList("listObjs1"), Arrays.asList(1L), null, null, meta, 1L, 1L, 1L, 1L,
-				"Only one metadata spec allowed");
+				"At most 10 metadata specs allowed");
 
 		compareObjectInfo(CLIENT1.getObjectHistory(
 				new ObjectIdentity().withRef("listObjs1/std")),
@@ -2622,6 +2634,37 @@ public class JSONRPCLayerTest extends JSONRPCLayerTester {
 					is("Illegal number of separators / in object reference listObjs1/hidden/1/3"));
 		}
 	}
+	
+	@Test
+	public void listRecentObjects() throws Exception {
+		CLIENT1.createWorkspace(new CreateWorkspaceParams().withWorkspace("listRecent"));
+		final Map<String, String> data = new HashMap<String, String>();
+		final Tuple11<Long, String, String, String, Long, String, Long, String, String, Long,
+				Map<String, String>> info = CLIENT1.saveObjects(new SaveObjectsParams()
+						.withWorkspace("listRecent").withObjects(Arrays.asList(
+								new ObjectSaveData().withData(new UObject(data))
+										.withName("recent").withType(SAFE_TYPE)))).get(0);
+		final ListRecentObjectsResults res = CLIENT1.listRecentObjects(
+				new ListRecentObjectsParams().withExcludeGlobal(1L).withIncludeMetadata(1L)
+						.withLimit(1L));
+		compareObjectInfo(res.getObjects(), Arrays.asList(info));
+		assertThat("incorrect next", res.getNext(), notNullValue());
+		
+		try {
+			CLIENT1.listRecentObjects(new ListRecentObjectsParams().withStartafter("1:foo:1"));
+			fail("listed recent objects with bad params");
+		} catch (ServerException se) {
+			assertThat("correct excep message", se.getLocalizedMessage(),
+					is("Illegal position token: 1:foo:1"));
+		}
+		try {
+			CLIENT1.listRecentObjects(new ListRecentObjectsParams().withLimit(1001L));
+			fail("listed recent objects with bad params");
+		} catch (ServerException se) {
+			assertThat("correct excep message", se.getLocalizedMessage(),
+					is("limit cannot be greater than 1000"));
+		}
+	}
 
 	@Test
 	public void listObjectsLimit() throws Exception {
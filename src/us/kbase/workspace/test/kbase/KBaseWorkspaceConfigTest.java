@@ -42,8 +42,10 @@ public class KBaseWorkspaceConfigTest {
 	
 	@Test
 	public void listenerConfig() throws Exception {
-		final ListenerConfig lc = new ListenerConfig("class", ImmutableMap.of("foo", "bar"));
+		final ListenerConfig lc = new ListenerConfig(
+				"name", "class", ImmutableMap.of("foo", "bar"));
 		
+		assertThat("incorrect name", lc.getName(), is("name"));
 		assertThat("incorrect class", lc.getListenerClass(), is("class"));
 		assertThat("incorrect config", lc.getConfig(), is(ImmutableMap.of("foo", "bar")));
 	}
@@ -52,7 +54,7 @@ public class KBaseWorkspaceConfigTest {
 	public void listenerConfigImmutable() throws Exception {
 		final Map<String, String> cfg = new HashMap<>();
 		cfg.put("foo", "bar");
-		final ListenerConfig lc = new ListenerConfig("class", cfg);
+		final ListenerConfig lc = new ListenerConfig("name", "class", cfg);
 		
 		try {
 			lc.getConfig().put("baz", "bat");
@@ -69,20 +71,25 @@ public class KBaseWorkspaceConfigTest {
 	public void listenerConstructFailBadArgs() throws Exception {
 		final Map<String, String> mt = Collections.emptyMap();
 		
-		listenerConstructFail(null, mt, new IllegalArgumentException(
+		listenerConstructFail(null, "c", mt, new IllegalArgumentException(
+				"name cannot be null or whitespace only"));
+		listenerConstructFail("    \t    ", "c", mt, new IllegalArgumentException(
+				"name cannot be null or whitespace only"));
+		listenerConstructFail("n", null, mt, new IllegalArgumentException(
 				"listenerClass cannot be null or whitespace only"));
-		listenerConstructFail("    \t    ", mt, new IllegalArgumentException(
+		listenerConstructFail("n", "    \t    ", mt, new IllegalArgumentException(
 				"listenerClass cannot be null or whitespace only"));
 		
-		listenerConstructFail("l", null, new NullPointerException("config"));
+		listenerConstructFail("n", "l", null, new NullPointerException("config"));
 	}
 	
 	private void listenerConstructFail(
+			final String name,
 			final String clazz,
 			final Map<String, String> config,
 			final Exception expected) {
 		try {
-			new ListenerConfig(clazz, config);
+			new ListenerConfig(name, clazz, config);
 			fail("expected exception");
 		} catch (Exception got) {
 			TestCommon.assertExceptionCorrect(got, expected);
@@ -213,9 +220,10 @@ public class KBaseWorkspaceConfigTest {
 		assertThat("incorrect host", kwc.getHost(), is("somehost"));
 		assertThat("incorrect info msgs", kwc.getInfoMessages(), is(Collections.emptyList()));
 		assertThat("incorrect listeners", kwc.getListenerConfigs(), is(Arrays.asList(
-				new ListenerConfig("us.kbase.MyListener",
+				new ListenerConfig("listener1", "us.kbase.MyListener",
 						ImmutableMap.of("key1", "value1", "key2", "value2")),
-				new ListenerConfig("us.kbase.MyListener2", ImmutableMap.of("key1", "value3")))));
+				new ListenerConfig("listener2", "us.kbase.MyListener2",
+						ImmutableMap.of("key1", "value3")))));
 		assertThat("incorrect mongo pwd", kwc.getMongoPassword(), is("mpwd"));
 		assertThat("incorrect mongo user", kwc.getMongoUser(), is("muser"));
 		assertThat("incorrect param report", kwc.getParamReport(), is(paramReport));
@@ -307,9 +315,10 @@ public class KBaseWorkspaceConfigTest {
 		assertThat("incorrect host", kwc.getHost(), is("somehost"));
 		assertThat("incorrect info msgs", kwc.getInfoMessages(), is(Collections.emptyList()));
 		assertThat("incorrect listeners", kwc.getListenerConfigs(), is(Arrays.asList(
-				new ListenerConfig("us.kbase.MyListener",
+				new ListenerConfig("listener1", "us.kbase.MyListener",
 						ImmutableMap.of("key1", "value1", "key2", "value2")),
-				new ListenerConfig("us.kbase.MyListener2", ImmutableMap.of("key1", "value3")))));
+				new ListenerConfig("listener2", "us.kbase.MyListener2",
+						ImmutableMap.of("key1", "value3")))));
 		assertThat("incorrect mongo pwd", kwc.getMongoPassword(), is("mpwd"));
 		assertThat("incorrect mongo user", kwc.getMongoUser(), is("muser"));
 		assertThat("incorrect param report", kwc.getParamReport(), is(paramReport));
@@ -441,7 +450,7 @@ public class KBaseWorkspaceConfigTest {
 		}
 		
 		try {
-			kwc.getListenerConfigs().add(new ListenerConfig("c", Collections.emptyMap()));
+			kwc.getListenerConfigs().add(new ListenerConfig("n", "c", Collections.emptyMap()));
 			fail("expected exception");
 		} catch (UnsupportedOperationException e) {
 			// test passed
@@ -937,4 +946,424 @@ public class KBaseWorkspaceConfigTest {
 		assertThat("incorrect has err", kwc.hasErrors(), is(true));
 		assertThat("incorrect ignore hs", kwc.ignoreHandleService(), is(true));
 	}
+	
+	private static MapBuilder<String, String> getMinimalConfig() {
+		return MapBuilder.<String, String>newHashMap()
+				.with("mongodb-host", "somehost")
+				.with("mongodb-database", "somedb")
+				.with("mongodb-type-database", "typedb")
+				.with("backend-type", "GridFS")
+				.with("temp-dir", "temp")
+				.with("auth-service-url", AUTH_LEGACY_URL)
+				.with("auth2-service-url", CI_SERV + "auth")
+				.with("ignore-handle-service", "true");
+	}
+	
+	private static final String MINIMAL_PARAM_REPORT =
+			"mongodb-host=somehost\n" +
+			"mongodb-database=somedb\n" +
+			"mongodb-type-database=typedb\n" +
+			"auth-service-url=" + AUTH_LEGACY_URL + "\n" +
+			"auth2-service-url=" + CI_SERV + "auth\n" +
+			"backend-type=GridFS\n";
+	
+	@Test
+	public void configBlobCacheDefaults() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig().build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect cache mem", kwc.getBlobCacheMemoryMB(), is(0L));
+		assertThat("incorrect cache disk", kwc.getBlobCacheDiskMB(), is(0L));
+		assertThat("incorrect cache min req", kwc.getBlobCacheMinRequests(), is(2));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT));
+	}
+	
+	@Test
+	public void configBlobCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("blob-cache-memory-mb", "   1000   ")
+				.with("blob-cache-disk-mb", "  50000  ")
+				.with("blob-cache-min-requests", "  1  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect cache mem", kwc.getBlobCacheMemoryMB(), is(1000L));
+		assertThat("incorrect cache disk", kwc.getBlobCacheDiskMB(), is(50000L));
+		assertThat("incorrect cache min req", kwc.getBlobCacheMinRequests(), is(1));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"blob-cache-memory-mb=1000\n" +
+				"blob-cache-disk-mb=50000\n" +
+				"blob-cache-min-requests=1\n"));
+	}
+	
+	@Test
+	public void configFailBlobCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("blob-cache-memory-mb", "-1")
+				.with("blob-cache-disk-mb", "lots")
+				.with("blob-cache-min-requests", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter blob-cache-memory-mb must be an integer from 0 to 2147483647: -1",
+				"Parameter blob-cache-disk-mb must be an integer from 0 to 2147483647: lots",
+				"Parameter blob-cache-min-requests must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect cache mem", kwc.getBlobCacheMemoryMB(), is(0L));
+		assertThat("incorrect cache disk", kwc.getBlobCacheDiskMB(), is(0L));
+		assertThat("incorrect cache min req", kwc.getBlobCacheMinRequests(), is(2));
+	}
+	
+	@Test
+	public void configBackendMaxConcurrency() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect concurrency", defaults.getBackendMaxConcurrency(), is(20));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("backend-max-concurrency", "   5  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect concurrency", kwc.getBackendMaxConcurrency(), is(5));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"backend-max-concurrency=5\n"));
+	}
+	
+	@Test
+	public void configFailBackendMaxConcurrency() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("backend-max-concurrency", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter backend-max-concurrency must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect concurrency", kwc.getBackendMaxConcurrency(), is(20));
+	}
+	
+	@Test
+	public void configValidationParallelism() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect parallelism", defaults.getValidationParallelism(), is(1));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("validation-parallelism", "   4  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect parallelism", kwc.getValidationParallelism(), is(4));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"validation-parallelism=4\n"));
+	}
+	
+	@Test
+	public void configFailValidationParallelism() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("validation-parallelism", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter validation-parallelism must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect parallelism", kwc.getValidationParallelism(), is(1));
+	}
+	
+	@Test
+	public void configSortParallelism() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect parallelism", defaults.getSortParallelism(), is(1));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("sort-parallelism", "   6  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect parallelism", kwc.getSortParallelism(), is(6));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"sort-parallelism=6\n"));
+	}
+	
+	@Test
+	public void configFailSortParallelism() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("sort-parallelism", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter sort-parallelism must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect parallelism", kwc.getSortParallelism(), is(1));
+	}
+	
+	@Test
+	public void configRpcMemoryCache() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect cache", defaults.getRpcMemoryCacheMB(), is(100L));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("rpc-memory-cache-mb", "   10  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect cache", kwc.getRpcMemoryCacheMB(), is(10L));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"rpc-memory-cache-mb=10\n"));
+	}
+	
+	@Test
+	public void configFailRpcMemoryCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("rpc-memory-cache-mb", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter rpc-memory-cache-mb must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect cache", kwc.getRpcMemoryCacheMB(), is(100L));
+	}
+	
+	@Test
+	public void configModDateWindow() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect window", defaults.getModDateWindowMS(), is(0));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("moddate-window-ms", "   500  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect window", kwc.getModDateWindowMS(), is(500));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"moddate-window-ms=500\n"));
+	}
+	
+	@Test
+	public void configFailModDateWindow() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("moddate-window-ms", "-1")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter moddate-window-ms must be an integer from 0 to 2147483647: -1")));
+		assertThat("incorrect window", kwc.getModDateWindowMS(), is(0));
+	}
+	
+	@Test
+	public void configWorkspaceCache() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect size", defaults.getWorkspaceCacheSize(), is(0));
+		assertThat("incorrect poll", defaults.getWorkspaceCachePollMS(), is(1000));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("ws-cache-size", "   10000  ")
+				.with("ws-cache-poll-ms", "   200  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect size", kwc.getWorkspaceCacheSize(), is(10000));
+		assertThat("incorrect poll", kwc.getWorkspaceCachePollMS(), is(200));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"ws-cache-size=10000\nws-cache-poll-ms=200\n"));
+	}
+	
+	@Test
+	public void configFailWorkspaceCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("ws-cache-size", "-1")
+				.with("ws-cache-poll-ms", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter ws-cache-size must be an integer from 0 to 2147483647: -1",
+				"Parameter ws-cache-poll-ms must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect size", kwc.getWorkspaceCacheSize(), is(0));
+		assertThat("incorrect poll", kwc.getWorkspaceCachePollMS(), is(1000));
+	}
+	
+	@Test
+	public void configPermissionCache() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect size", defaults.getPermissionCacheSize(), is(0));
+		assertThat("incorrect ttl", defaults.getPermissionCacheTTLMS(), is(10000));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("permission-cache-size", "   5000  ")
+				.with("permission-cache-ttl-ms", "   3000  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect size", kwc.getPermissionCacheSize(), is(5000));
+		assertThat("incorrect ttl", kwc.getPermissionCacheTTLMS(), is(3000));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"permission-cache-size=5000\npermission-cache-ttl-ms=3000\n"));
+	}
+	
+	@Test
+	public void configFailPermissionCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("permission-cache-size", "-1")
+				.with("permission-cache-ttl-ms", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter permission-cache-size must be an integer from 0 to 2147483647: -1",
+				"Parameter permission-cache-ttl-ms must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect size", kwc.getPermissionCacheSize(), is(0));
+		assertThat("incorrect ttl", kwc.getPermissionCacheTTLMS(), is(10000));
+	}
+	
+	@Test
+	public void configVersionCache() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect size", defaults.getVersionCacheSize(), is(0));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("version-cache-size", "   100000  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect size", kwc.getVersionCacheSize(), is(100000));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"version-cache-size=100000\n"));
+	}
+	
+	@Test
+	public void configFailVersionCache() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("version-cache-size", "-1")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter version-cache-size must be an integer from 0 to 2147483647: -1")));
+		assertThat("incorrect size", kwc.getVersionCacheSize(), is(0));
+	}
+	
+	@Test
+	public void configReferenceIndex() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect poll", defaults.getReferenceIndexPollMS(), is(0));
+		assertThat("incorrect overlap", defaults.getReferenceIndexPollOverlapMS(), is(60000));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("ref-index-poll-ms", "   5000  ")
+				.with("ref-index-poll-overlap-ms", "   0  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect poll", kwc.getReferenceIndexPollMS(), is(5000));
+		assertThat("incorrect overlap", kwc.getReferenceIndexPollOverlapMS(), is(0));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"ref-index-poll-ms=5000\nref-index-poll-overlap-ms=0\n"));
+	}
+	
+	@Test
+	public void configFailReferenceIndex() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("ref-index-poll-ms", "-1")
+				.with("ref-index-poll-overlap-ms", "2147483648")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter ref-index-poll-ms must be an integer from 0 to 2147483647: -1",
+				"Parameter ref-index-poll-overlap-ms must be an integer from 0 to 2147483647: " +
+						"2147483648")));
+		assertThat("incorrect poll", kwc.getReferenceIndexPollMS(), is(0));
+		assertThat("incorrect overlap", kwc.getReferenceIndexPollOverlapMS(), is(60000));
+	}
+	
+	@Test
+	public void configChangeFeed() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect retention", defaults.getChangeFeedRetentionHours(), is(0));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("change-feed-retention-hours", "   168  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect retention", kwc.getChangeFeedRetentionHours(), is(168));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"change-feed-retention-hours=168\n"));
+	}
+	
+	@Test
+	public void configFailChangeFeed() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("change-feed-retention-hours", "-1")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter change-feed-retention-hours must be an integer from 0 to " +
+						"2147483647: -1")));
+		assertThat("incorrect retention", kwc.getChangeFeedRetentionHours(), is(0));
+	}
+	
+	@Test
+	public void configListenerOutbox() throws Exception {
+		final KBaseWorkspaceConfig defaults = new KBaseWorkspaceConfig(
+				getMinimalConfig().build());
+		
+		assertThat("incorrect errors", defaults.getErrors(), is(MT));
+		assertThat("incorrect poll", defaults.getListenerOutboxPollMS(), is(0));
+		assertThat("incorrect attempts", defaults.getListenerOutboxMaxAttempts(), is(10));
+		assertThat("incorrect retry", defaults.getListenerOutboxRetryMS(), is(60000));
+		
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("listener-outbox-poll-ms", "   500  ")
+				.with("listener-outbox-max-attempts", "   5  ")
+				.with("listener-outbox-retry-ms", "   1000  ")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(MT));
+		assertThat("incorrect poll", kwc.getListenerOutboxPollMS(), is(500));
+		assertThat("incorrect attempts", kwc.getListenerOutboxMaxAttempts(), is(5));
+		assertThat("incorrect retry", kwc.getListenerOutboxRetryMS(), is(1000));
+		assertThat("incorrect param report", kwc.getParamReport(), is(MINIMAL_PARAM_REPORT +
+				"listener-outbox-poll-ms=500\n" +
+				"listener-outbox-max-attempts=5\n" +
+				"listener-outbox-retry-ms=1000\n"));
+	}
+	
+	@Test
+	public void configFailListenerOutbox() throws Exception {
+		final KBaseWorkspaceConfig kwc = new KBaseWorkspaceConfig(getMinimalConfig()
+				.with("listener-outbox-poll-ms", "-1")
+				.with("listener-outbox-max-attempts", "-1")
+				.with("listener-outbox-retry-ms", "0")
+				.build());
+		
+		assertThat("incorrect errors", kwc.getErrors(), is(Arrays.asList(
+				"Parameter listener-outbox-poll-ms must be an integer from 0 to 2147483647: -1",
+				"Parameter listener-outbox-max-attempts must be an integer from 0 to " +
+						"2147483647: -1",
+				"Parameter listener-outbox-retry-ms must be an integer from 1 to 2147483647: 0")));
+		assertThat("incorrect poll", kwc.getListenerOutboxPollMS(), is(0));
+		assertThat("incorrect attempts", kwc.getListenerOutboxMaxAttempts(), is(10));
+		assertThat("incorrect retry", kwc.getListenerOutboxRetryMS(), is(60000));
+	}
 }
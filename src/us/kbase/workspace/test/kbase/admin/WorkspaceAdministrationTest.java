@@ -70,6 +70,7 @@ import us.kbase.workspace.SetGlobalPermissionsParams;
 import us.kbase.workspace.SetPermissionsParams;
 import us.kbase.workspace.WorkspaceIdentity;
 import us.kbase.workspace.WorkspacePermissions;
+import us.kbase.workspace.database.ChangeEvent;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.Types;
 import us.kbase.workspace.database.Workspace;
@@ -77,6 +78,9 @@ import us.kbase.workspace.database.WorkspaceIdentifier;
 import us.kbase.workspace.database.WorkspaceInformation;
 import us.kbase.workspace.database.WorkspaceObjectData;
 import us.kbase.workspace.database.WorkspaceUser;
+import us.kbase.workspace.database.mongo.ChangeFeed;
+import us.kbase.workspace.database.mongo.ListenerOutbox;
+import us.kbase.workspace.database.mongo.ListenerOutbox.ListenerStatus;
 import us.kbase.workspace.kbase.WorkspaceServerMethods;
 import us.kbase.workspace.kbase.admin.AdminRole;
 import us.kbase.workspace.kbase.admin.AdministratorHandler;
@@ -121,6 +125,8 @@ public class WorkspaceAdministrationTest {
 		private final WorkspaceServerMethods wsmeth;
 		private final Types types;
 		private final AdministratorHandler ah;
+		private final ChangeFeed changeFeed;
+		private final ListenerOutbox outbox;
 		private final FakeTicker ticker;
 		private final WorkspaceAdministration admin;
 		
@@ -129,12 +135,16 @@ public class WorkspaceAdministrationTest {
 				final WorkspaceServerMethods wsmeth,
 				final Types types,
 				final AdministratorHandler ah,
+				final ChangeFeed changeFeed,
+				final ListenerOutbox outbox,
 				final FakeTicker ticker,
 				final WorkspaceAdministration admin) {
 			this.ws = ws;
 			this.wsmeth = wsmeth;
 			this.types = types;
 			this.ah = ah;
+			this.changeFeed = changeFeed;
+			this.outbox = outbox;
 			this.ticker = ticker;
 			this.admin = admin;
 		}
@@ -145,9 +155,11 @@ public class WorkspaceAdministrationTest {
 		final WorkspaceServerMethods wsmeth = mock(WorkspaceServerMethods.class);
 		final Types types = mock(Types.class);
 		final AdministratorHandler ah = mock(AdministratorHandler.class);
+		final ChangeFeed changeFeed = mock(ChangeFeed.class);
+		final ListenerOutbox outbox = mock(ListenerOutbox.class);
 		final WorkspaceAdministration admin = new WorkspaceAdministration(
-				ws, wsmeth, types, ah, 0, 0);
-		return new TestMocks(ws, wsmeth, types, ah, null, admin);
+				ws, wsmeth, types, ah, changeFeed, outbox, 0, 0);
+		return new TestMocks(ws, wsmeth, types, ah, changeFeed, outbox, null, admin);
 	}
 	
 	private TestMocks initTestMocks(final int cacheSize, final int cacheTimeMS) {
@@ -157,8 +169,8 @@ public class WorkspaceAdministrationTest {
 		final AdministratorHandler ah = mock(AdministratorHandler.class);
 		final FakeTicker ticker = new FakeTicker();
 		final WorkspaceAdministration admin = new WorkspaceAdministration(
-				ws, wsmeth, types, ah, cacheSize, cacheTimeMS, ticker);
-		return new TestMocks(ws, wsmeth, types, ah, ticker, admin);
+				ws, wsmeth, types, ah, null, null, cacheSize, cacheTimeMS, ticker);
+		return new TestMocks(ws, wsmeth, types, ah, null, null, ticker, admin);
 	}
 	
 	private void runCommandFail(
@@ -338,6 +350,7 @@ public class WorkspaceAdministrationTest {
 		commandToClass.put("undeleteWorkspace", "WorkspaceIdentity");
 		commandToClass.put("grantModuleOwnership", "GrantModuleOwnershipParams");
 		commandToClass.put("removeModuleOwnership", "RemoveModuleOwnershipParams");
+		commandToClass.put("getChanges", "GetChangesParams");
 		
 		for (final String commandStr: commandToClass.keySet()) {
 			final UObject command = new UObject(ImmutableMap.of("command", commandStr,
@@ -399,6 +412,7 @@ public class WorkspaceAdministrationTest {
 				new MapErr("GrantModuleOwnershipParams", "with_grant_option", "foo"));
 		commandToClass.put("removeModuleOwnership",
 				new MapErr("RemoveModuleOwnershipParams", "mod", set("foo", "bar")));
+		commandToClass.put("getChanges", new MapErr("GetChangesParams", "after", "foo"));
 		
 		when(mocks.ah.getAdminRole(new AuthToken("tok", "usah")))
 				.thenReturn(AdminRole.ADMIN);
@@ -1713,6 +1727,144 @@ public class WorkspaceAdministrationTest {
 				"removeModuleOwnership ModName owner", WorkspaceAdministration.class));
 	}
 	
+	@Test
+	public void getChanges() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		
+		final UObject command = new UObject(ImmutableMap.of("command", "getChanges",
+				"params", ImmutableMap.of("after", 41, "limit", 2)));
+		
+		when(mocks.ah.getAdminRole(new AuthToken("tok", "fake"))).thenReturn(AdminRole.READ_ONLY);
+		when(mocks.changeFeed.getChanges(41, 2)).thenReturn(Arrays.asList(
+				new ChangeEvent(42, "NEW_VERSION", inst(10000), new WorkspaceUser("u1"), 3, 1L,
+						2, "Mod.Type-1.0", null, Collections.emptyList()),
+				new ChangeEvent(43, "SET_PERMISSION", inst(20000), null, 3, null, null, null,
+						Permission.WRITE, Arrays.asList(new WorkspaceUser("u2")))));
+		
+		final Map<String, Object> ret = UObject.transformObjectToObject(
+				mocks.admin.runCommand(new AuthToken("tok", "fake"), command, null),
+				new TypeReference<Map<String, Object>>() {});
+		
+		final Map<String, Object> c1 = new HashMap<>();
+		c1.put("seq", 42);
+		c1.put("user", "u1");
+		c1.put("wsid", 3);
+		c1.put("objid", 1);
+		c1.put("ver", 2);
+		c1.put("time", 10000);
+		c1.put("evtype", "NEW_VERSION");
+		c1.put("objtype", "Mod.Type-1.0");
+		c1.put("perm", null);
+		c1.put("permusers", Collections.emptyList());
+		final Map<String, Object> c2 = new HashMap<>();
+		c2.put("seq", 43);
+		c2.put("user", null);
+		c2.put("wsid", 3);
+		c2.put("objid", null);
+		c2.put("ver", null);
+		c2.put("time", 20000);
+		c2.put("evtype", "SET_PERMISSION");
+		c2.put("objtype", null);
+		c2.put("perm", "w");
+		c2.put("permusers", Arrays.asList("u2"));
+		
+		assertThat("incorrect changes", ret, is(ImmutableMap.of(
+				"changes", Arrays.asList(c1, c2), "next", 43)));
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(Level.INFO,
+				"getChanges 41 2", WorkspaceAdministration.class));
+	}
+	
+	@Test
+	public void getChangesDefaults() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		
+		final UObject command = new UObject(ImmutableMap.of("command", "getChanges",
+				"params", Collections.emptyMap()));
+		
+		when(mocks.ah.getAdminRole(new AuthToken("tok", "fake"))).thenReturn(AdminRole.READ_ONLY);
+		when(mocks.changeFeed.getChanges(0, 1000)).thenReturn(Collections.emptyList());
+		
+		final Map<String, Object> ret = UObject.transformObjectToObject(
+				mocks.admin.runCommand(new AuthToken("tok", "fake"), command, null),
+				new TypeReference<Map<String, Object>>() {});
+		
+		assertThat("incorrect changes", ret, is(ImmutableMap.of(
+				"changes", Collections.emptyList(), "next", 0)));
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(Level.INFO,
+				"getChanges 0 0", WorkspaceAdministration.class));
+	}
+	
+	@Test
+	public void getChangesFailDisabled() throws Exception {
+		final AdministratorHandler ah = mock(AdministratorHandler.class);
+		final WorkspaceAdministration admin = new WorkspaceAdministration(
+				mock(Workspace.class), mock(WorkspaceServerMethods.class), mock(Types.class), ah,
+				null, null, 0, 0);
+		
+		final UObject command = new UObject(ImmutableMap.of("command", "getChanges",
+				"params", Collections.emptyMap()));
+		
+		when(ah.getAdminRole(new AuthToken("tok", "fake"))).thenReturn(AdminRole.READ_ONLY);
+		
+		runCommandFail(admin, new AuthToken("tok", "fake"), command,
+				new IllegalArgumentException("The change feed is not enabled"));
+	}
+	
+	@Test
+	public void getListenerStatus() throws Exception {
+		final TestMocks mocks = initTestMocks();
+		
+		final UObject command = new UObject(ImmutableMap.of("command", "getListenerStatus"));
+		
+		when(mocks.ah.getAdminRole(new AuthToken("tok", "fake"))).thenReturn(AdminRole.READ_ONLY);
+		when(mocks.outbox.getStatus()).thenReturn(Arrays.asList(
+				new ListenerStatus("kafka", 12, 3400L, 100, 2, 1, "oh no"),
+				new ListenerStatus("other", 0, null, 0, 0, 0, null)));
+		
+		final List<Map<String, Object>> ret = UObject.transformObjectToObject(
+				mocks.admin.runCommand(new AuthToken("tok", "fake"), command, null),
+				new TypeReference<List<Map<String, Object>>>() {});
+		
+		final Map<String, Object> s1 = new HashMap<>();
+		s1.put("name", "kafka");
+		s1.put("pending", 12);
+		s1.put("lagms", 3400);
+		s1.put("delivered", 100);
+		s1.put("failed", 2);
+		s1.put("dropped", 1);
+		s1.put("lasterr", "oh no");
+		final Map<String, Object> s2 = new HashMap<>();
+		s2.put("name", "other");
+		s2.put("pending", 0);
+		s2.put("lagms", null);
+		s2.put("delivered", 0);
+		s2.put("failed", 0);
+		s2.put("dropped", 0);
+		s2.put("lasterr", null);
+		
+		assertThat("incorrect status", ret, is(Arrays.asList(s1, s2)));
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(Level.INFO,
+				"getListenerStatus", WorkspaceAdministration.class));
+	}
+	
+	@Test
+	public void getListenerStatusFailDisabled() throws Exception {
+		final AdministratorHandler ah = mock(AdministratorHandler.class);
+		final WorkspaceAdministration admin = new WorkspaceAdministration(
+				mock(Workspace.class), mock(WorkspaceServerMethods.class), mock(Types.class), ah,
+				null, null, 0, 0);
+		
+		final UObject command = new UObject(ImmutableMap.of("command", "getListenerStatus"));
+		
+		when(ah.getAdminRole(new AuthToken("tok", "fake"))).thenReturn(AdminRole.READ_ONLY);
+		
+		runCommandFail(admin, new AuthToken("tok", "fake"), command,
+				new IllegalArgumentException("The listener outbox is not enabled"));
+	}
+	
 	/* *****************************************
 	 * Cache related tests
 	 * *****************************************
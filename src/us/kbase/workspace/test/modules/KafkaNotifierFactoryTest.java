@@ -4,10 +4,14 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static us.kbase.common.test.TestCommon.assertLogEventsCorrect;
 
 import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Constructor;
@@ -17,23 +21,32 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.KafkaException;
+import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
 import us.kbase.common.test.MapBuilder;
 import us.kbase.common.test.TestCommon;
+import us.kbase.common.test.TestCommon.LogEvent;
 import us.kbase.workspace.database.ObjectInformation;
 import us.kbase.workspace.database.Permission;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
@@ -46,11 +59,35 @@ import us.kbase.workspace.modules.KafkaNotifierFactory;
 
 public class KafkaNotifierFactoryTest {
 	
+	private static final String NOTIFIER_CLASS =
+			KafkaNotifierFactory.class.getName() + "$KafkaNotifier";
+	
+	private static List<ILoggingEvent> logEvents;
+	
+	@BeforeClass
+	public static void beforeClass() {
+		logEvents = TestCommon.setUpSLF4JTestLoggerAppender("us.kbase.workspace");
+	}
+	
+	@Before
+	public void before() {
+		logEvents.clear();
+	}
+	
 	private static TestMocks initTestMocks(final String topic, final String bootstrapServers)
 			throws Exception {
+		return initTestMocks(topic, bootstrapServers, false);
+	}
+	
+	private static TestMocks initTestMocks(
+			final String topic,
+			final String bootstrapServers,
+			final boolean fireAndForget)
+			throws Exception {
 		@SuppressWarnings("unchecked")
 		final KafkaProducer<String, Map<String, Object>> client = mock(KafkaProducer.class);
-		final WorkspaceEventListener notis = getKafkaNotifier(topic, bootstrapServers, client);
+		final WorkspaceEventListener notis = getKafkaNotifier(
+				topic, bootstrapServers, client, fireAndForget);
 		return new TestMocks(client, notis);
 	}
 
@@ -59,12 +96,21 @@ public class KafkaNotifierFactoryTest {
 			final String bootstrapServers,
 			final KafkaProducer<String, Map<String, Object>> client)
 			throws Exception {
-		final Class<?> inner = KafkaNotifierFactory.class.getDeclaredClasses()[0];
+		return getKafkaNotifier(topic, bootstrapServers, client, false);
+	}
+	
+	private static WorkspaceEventListener getKafkaNotifier(
+			final String topic,
+			final String bootstrapServers,
+			final KafkaProducer<String, Map<String, Object>> client,
+			final boolean fireAndForget)
+			throws Exception {
+		final Class<?> inner = Class.forName(NOTIFIER_CLASS);
 		final Constructor<?> con = inner.getDeclaredConstructor(
-				String.class, String.class, KafkaProducer.class);
+				String.class, String.class, KafkaProducer.class, boolean.class, int.class);
 		con.setAccessible(true);
 		final WorkspaceEventListener notis = (WorkspaceEventListener) con.newInstance(
-				topic, bootstrapServers, client);
+				topic, bootstrapServers, client, fireAndForget, 35000);
 		return notis;
 	}
 	
@@ -513,6 +559,125 @@ public class KafkaNotifierFactoryTest {
 		verify(fut).get(35000, TimeUnit.MILLISECONDS);
 	}
 	
+	private static ProducerRecord<String, Map<String, Object>> versionRecord(final int ver) {
+		return new ProducerRecord<String, Map<String,Object>>("mytopic",
+				MapBuilder.<String, Object>newHashMap()
+						.with("user", "user1")
+						.with("wsid", 22L)
+						.with("objid", 6L)
+						.with("ver", ver)
+						.with("evtype", "NEW_VERSION")
+						.with("objtype", "Foo.Bar-2.1")
+						.with("time", 10000L)
+						.with("perm", null)
+						.with("permusers", Collections.emptyList())
+						.build());
+	}
+	
+	private static ObjectInformation objInfo(final int ver) {
+		return new ObjectInformation(
+				6L,
+				"foo",
+				"Foo.Bar-2.1",
+				new Date(10000),
+				ver,
+				new WorkspaceUser("user1"),
+				new ResolvedWorkspaceID(22L, "bar", false, false),
+				"chksum",
+				30L,
+				new UncheckedUserMetadata((WorkspaceUserMetadata) null));
+	}
+	
+	@Test
+	public void saveObjects() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081");
+		
+		@SuppressWarnings("unchecked")
+		final Future<RecordMetadata> fut1 = mock(Future.class);
+		@SuppressWarnings("unchecked")
+		final Future<RecordMetadata> fut2 = mock(Future.class);
+		
+		when(mocks.client.send(versionRecord(1))).thenReturn(fut1);
+		when(mocks.client.send(versionRecord(2))).thenReturn(fut2);
+		
+		mocks.listener.saveObjects(Arrays.asList(objInfo(1), objInfo(2)), true);
+		
+		// all the messages are sent before waiting
+		final InOrder o = inOrder(mocks.client, fut1, fut2);
+		o.verify(mocks.client).send(versionRecord(1));
+		o.verify(mocks.client).send(versionRecord(2));
+		o.verify(fut1).get(anyLong(), eq(TimeUnit.NANOSECONDS));
+		o.verify(fut2).get(anyLong(), eq(TimeUnit.NANOSECONDS));
+	}
+	
+	@Test
+	public void saveObjectsEmpty() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081");
+		
+		mocks.listener.saveObjects(Collections.emptyList(), true);
+		
+		verify(mocks.client, never()).send(any());
+	}
+	
+	@Test
+	public void saveObjectsFail() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081");
+		
+		@SuppressWarnings("unchecked")
+		final Future<RecordMetadata> fut1 = mock(Future.class);
+		@SuppressWarnings("unchecked")
+		final Future<RecordMetadata> fut2 = mock(Future.class);
+		
+		when(mocks.client.send(versionRecord(1))).thenReturn(fut1);
+		when(mocks.client.send(versionRecord(2))).thenReturn(fut2);
+		when(fut2.get(anyLong(), eq(TimeUnit.NANOSECONDS))).thenThrow(
+				new ExecutionException("not this one", new IllegalStateException("this one")));
+		
+		try {
+			mocks.listener.saveObjects(Arrays.asList(objInfo(1), objInfo(2)), true);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, new RuntimeException(
+					"Failed sending notification to Kafka: this one"));
+		}
+	}
+	
+	@Test
+	public void fireAndForget() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081", true);
+		
+		mocks.listener.saveObjects(Arrays.asList(objInfo(1), objInfo(2)), true);
+		mocks.listener.saveObject(objInfo(3), false);
+		
+		final ArgumentCaptor<Callback> cb = ArgumentCaptor.forClass(Callback.class);
+		verify(mocks.client).send(eq(versionRecord(1)), cb.capture());
+		verify(mocks.client).send(eq(versionRecord(2)), cb.capture());
+		verify(mocks.client).send(eq(versionRecord(3)), cb.capture());
+		verify(mocks.client, never()).send(any());
+		
+		cb.getAllValues().get(0).onCompletion(null, null);
+		cb.getAllValues().get(1).onCompletion(null, new KafkaException("oh no"));
+		cb.getAllValues().get(2).onCompletion(null, null);
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(Level.ERROR,
+				"Failed sending notification to Kafka (1 of 3 notifications failed): oh no",
+				NOTIFIER_CLASS, new KafkaException("oh no")));
+	}
+	
+	@Test
+	public void fireAndForgetSendFail() throws Exception {
+		final TestMocks mocks = initTestMocks("mytopic", "localhost:9081", true);
+		
+		when(mocks.client.send(eq(versionRecord(1)), any(Callback.class)))
+				.thenThrow(new KafkaException("buffer full"));
+		
+		mocks.listener.revertObject(objInfo(1), true);
+		
+		assertLogEventsCorrect(logEvents, new LogEvent(Level.ERROR,
+				"Failed sending notification to Kafka (1 of 1 notifications failed): " +
+				"buffer full", NOTIFIER_CLASS, new KafkaException("buffer full")));
+	}
+	
 	/* The post method is the same for all the notification calls, so we don't repeat each
 	 * post failure test for each call.
 	 * We do test with different methods for each failure mode though.
@@ -760,6 +925,30 @@ public class KafkaNotifierFactoryTest {
 				"Kafka bootstrap.servers cannot be null or whitespace only"));
 	}
 	
+	@Test
+	public void getNotifierFailBadProducerConfig() throws Exception {
+		final Map<String, String> c = new HashMap<>();
+		c.put("bootstrap.servers", "localhost:9081");
+		c.put("linger.ms", "-1");
+		getNotifierFail(c, new ListenerInitializationException(
+				"Kafka linger.ms must be an integer >= 0: -1"));
+		c.put("linger.ms", "  foo  ");
+		getNotifierFail(c, new ListenerInitializationException(
+				"Kafka linger.ms must be an integer >= 0: foo"));
+		c.put("linger.ms", "5");
+		c.put("batch.size", "1.5");
+		getNotifierFail(c, new ListenerInitializationException(
+				"Kafka batch.size must be an integer >= 0: 1.5"));
+		c.put("batch.size", "   ");
+		c.put("compression.type", "brotli");
+		getNotifierFail(c, new ListenerInitializationException(
+				"Kafka compression.type must be one of [gzip, lz4, none, snappy, zstd]: brotli"));
+		c.put("compression.type", " lz4 ");
+		c.put("fire-and-forget", "yes");
+		getNotifierFail(c, new ListenerInitializationException(
+				"Kafka fire-and-forget must be true or false: yes"));
+	}
+	
 	private void getNotifierFail(final Map<String, String> config, final Exception expected) {
 		try {
 			new KafkaNotifierFactory().configure(config);
@@ -0,0 +1,58 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import us.kbase.workspace.database.refsearch.LongHashSet;
+
+public class LongHashSetTest {
+
+	@Test
+	public void empty() {
+		final LongHashSet s = new LongHashSet();
+		assertThat("incorrect size", s.size(), is(0));
+		assertThat("incorrect empty", s.isEmpty(), is(true));
+		assertThat("incorrect contains", s.contains(0), is(false));
+		assertThat("incorrect contains", s.contains(1), is(false));
+		assertThat("incorrect values", s.toArray(), is(new long[0]));
+	}
+	
+	@Test
+	public void addAndGrow() {
+		final LongHashSet s = new LongHashSet(2);
+		for (long i = -1000; i <= 1000; i++) {
+			assertThat("incorrect add", s.add(i * 31), is(true));
+		}
+		assertThat("incorrect add", s.add(0), is(false));
+		assertThat("incorrect add", s.add(62), is(false));
+		assertThat("incorrect size", s.size(), is(2001));
+		assertThat("incorrect empty", s.isEmpty(), is(false));
+		for (long i = -31000; i <= 31000; i++) {
+			assertThat("incorrect contains " + i, s.contains(i), is(i % 31 == 0));
+		}
+		final long[] values = s.toArray();
+		Arrays.sort(values);
+		assertThat("incorrect length", values.length, is(2001));
+		for (int i = 0; i < values.length; i++) {
+			assertThat("incorrect value", values[i], is((i - 1000) * 31L));
+		}
+	}
+	
+	@Test
+	public void extremes() {
+		final LongHashSet s = new LongHashSet();
+		s.add(Long.MIN_VALUE);
+		s.add(Long.MAX_VALUE);
+		s.add(-1);
+		assertThat("incorrect contains", s.contains(Long.MIN_VALUE), is(true));
+		assertThat("incorrect contains", s.contains(Long.MAX_VALUE), is(true));
+		assertThat("incorrect contains", s.contains(-1), is(true));
+		assertThat("incorrect contains", s.contains(0), is(false));
+		assertThat("incorrect string", s.toString(),
+				is("LongHashSet [-9223372036854775808, -1, 9223372036854775807]"));
+	}
+}
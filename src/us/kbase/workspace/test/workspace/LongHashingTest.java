@@ -0,0 +1,36 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import us.kbase.workspace.database.refsearch.LongHashing;
+
+public class LongHashingTest {
+
+	@Test
+	public void capacity() {
+		assertThat("incorrect capacity", LongHashing.capacity(0), is(16));
+		assertThat("incorrect capacity", LongHashing.capacity(8), is(16));
+		assertThat("incorrect capacity", LongHashing.capacity(9), is(32));
+		assertThat("incorrect capacity", LongHashing.capacity(1000), is(2048));
+		assertThat("incorrect capacity", LongHashing.capacity(1 << 29), is(1 << 30));
+		assertThat("incorrect capacity", LongHashing.capacity(Integer.MAX_VALUE), is(1 << 30));
+	}
+
+	@Test
+	public void findSlot() {
+		final long[] table = new long[16];
+		for (long k = 1; k <= 8; k++) {
+			final int i = LongHashing.findSlot(table, k * 16);
+			assertThat("incorrect empty slot", table[i], is(0L));
+			table[i] = k * 16;
+		}
+		for (long k = 1; k <= 8; k++) {
+			final int i = LongHashing.findSlot(table, k * 16);
+			assertThat("incorrect slot", table[i], is(k * 16));
+		}
+		assertThat("incorrect missing slot", table[LongHashing.findSlot(table, 17)], is(0L));
+	}
+}
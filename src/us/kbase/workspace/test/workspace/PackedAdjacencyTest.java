@@ -0,0 +1,55 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import us.kbase.workspace.database.refsearch.PackedAdjacency;
+import us.kbase.workspace.database.refsearch.PackedReference;
+
+public class PackedAdjacencyTest {
+
+	private static final long[] NONE = new long[0];
+
+	@Test
+	public void getAdjacent() throws Exception {
+		final long r1 = PackedReference.pack(4, 3, 10);
+		final long r2 = PackedReference.pack(2, 4, 6);
+		final long r3 = PackedReference.pack(1, 1, 1);
+		final PackedAdjacency adj = new PackedAdjacency(2);
+		adj.put(r1, new long[] {r2, r3}, new boolean[] {false, true});
+		adj.put(r2, NONE, new boolean[0]);
+
+		assertThat("incorrect adjacent", adj.getAdjacent(r1), is(new long[] {r2, r3}));
+		assertThat("incorrect terminal", adj.isTerminal(r1, 0), is(false));
+		assertThat("incorrect terminal", adj.isTerminal(r1, 1), is(true));
+		assertThat("incorrect adjacent", adj.getAdjacent(r2), is(NONE));
+		assertThat("incorrect adjacent", adj.getAdjacent(r3), is(NONE));
+	}
+
+	@Test
+	public void negativeReferences() throws Exception {
+		// unpackable references are given negative codes during a search
+		final PackedAdjacency adj = new PackedAdjacency(1);
+		adj.put(-2, new long[] {-3}, new boolean[] {true});
+
+		assertThat("incorrect adjacent", adj.getAdjacent(-2), is(new long[] {-3}));
+		assertThat("incorrect terminal", adj.isTerminal(-2, 0), is(true));
+		assertThat("incorrect adjacent", adj.getAdjacent(-3), is(NONE));
+	}
+
+	@Test
+	public void manyReferences() throws Exception {
+		// keys that only differ above the low 20 bits, exercising the hash mixing and probing
+		final PackedAdjacency adj = new PackedAdjacency(100);
+		for (long i = 1; i <= 100; i++) {
+			adj.put(i << 20, new long[] {i}, new boolean[] {i % 2 == 0});
+		}
+		for (long i = 1; i <= 100; i++) {
+			assertThat("incorrect adjacent", adj.getAdjacent(i << 20), is(new long[] {i}));
+			assertThat("incorrect terminal", adj.isTerminal(i << 20, 0), is(i % 2 == 0));
+		}
+		assertThat("incorrect adjacent", adj.getAdjacent(101L << 20), is(NONE));
+	}
+}
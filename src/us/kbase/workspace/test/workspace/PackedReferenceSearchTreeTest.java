@@ -0,0 +1,250 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import us.kbase.workspace.database.refsearch.PackedAdjacency;
+import us.kbase.workspace.database.refsearch.PackedReference;
+import us.kbase.workspace.database.refsearch.PackedReferenceSearchTree;
+
+public class PackedReferenceSearchTreeTest {
+
+	private static final long[] NONE = new long[0];
+
+	private static long ref(final long ws, final long obj, final int ver) {
+		return PackedReference.pack(ws, obj, ver);
+	}
+
+	private static long[] refs(final long... refs) {
+		return refs;
+	}
+
+	private static boolean[] term(final boolean... terminal) {
+		return terminal;
+	}
+
+	@Test
+	public void construct() throws Exception {
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(ref(3, 5, 7));
+		assertThat("incorrect tree root", tree.getRoot(), is(ref(3, 5, 7)));
+		assertThat("complete with no search", tree.isComplete(), is(false));
+		assertThat("path with no search", tree.isPathFound(), is(false));
+		try {
+			tree.getPath();
+			fail("got path from tree without search");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Search is not complete or failed"));
+		}
+	}
+
+	@Test
+	public void successfulSearch() throws Exception {
+		final long root = ref(2, 5, 4);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		// first round of updates
+		final long r1 = ref(1, 1, 1);
+		final long r2 = ref(2, 2, 2);
+		final long r3 = ref(3, 3, 3); // dead branch
+		PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, refs(r1, r2, r3), term(false, false, false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r1, r2, r3)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// 2nd round. Need a third round to exercise dead leaf skipping
+		final long r12 = ref(1, 2, 1);
+		final long r13 = ref(1, 3, 1);
+		final long r22 = ref(2, 2, 1);
+		nr = new PackedAdjacency(2);
+		nr.put(r1, refs(r12, r13), term(false, false));
+		nr.put(r2, refs(r22), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr),
+				is(refs(r12, r13, r22)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// 3rd round
+		final long r122 = ref(1, 2, 2);
+		final long r132 = ref(1, 3, 2);
+		final long r222 = ref(2, 2, 3);
+		nr = new PackedAdjacency(3);
+		nr.put(r12, refs(r122), term(false));
+		nr.put(r13, refs(r132), term(true));
+		nr.put(r22, refs(r222), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+
+		assertThat("bad root", tree.getRoot(), is(root));
+		assertThat("incomplete search", tree.isComplete(), is(true));
+		assertThat("path not found", tree.isPathFound(), is(true));
+		assertThat("incorrect path", tree.getPath(), is(refs(r132, r13, r1, root)));
+
+		failUpdateTreeOnCompletedSearch(tree);
+	}
+
+	@Test
+	public void terminalAdjacentToRoot() throws Exception {
+		final long root = ref(2, 5, 4);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		final long r1 = ref(1, 1, 1);
+		final PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, refs(ref(1, 2, 1), r1), term(false, true));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+
+		assertThat("incomplete search", tree.isComplete(), is(true));
+		assertThat("path not found", tree.isPathFound(), is(true));
+		assertThat("incorrect path", tree.getPath(), is(refs(r1, root)));
+
+		failUpdateTreeOnCompletedSearch(tree);
+	}
+
+	@Test
+	public void failSearch() throws Exception {
+		final long root = ref(2, 5, 4);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		// first round of updates
+		final long r1 = ref(1, 1, 1);
+		final long r2 = ref(2, 2, 2);
+		final long r3 = ref(3, 3, 3); // dead branch
+		PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, refs(r1, r2, r3), term(false, false, false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r1, r2, r3)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// 2nd round
+		final long r12 = ref(1, 2, 1);
+		final long r13 = ref(1, 3, 1);
+		final long r22 = ref(2, 2, 1);
+		nr = new PackedAdjacency(2);
+		nr.put(r1, refs(r12, r13), term(false, false));
+		nr.put(r2, refs(r22), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr),
+				is(refs(r12, r13, r22)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// 3rd round. The terminal reference is adjacent to a reference that isn't a leaf
+		final long r10 = ref(10, 1, 1);
+		nr = new PackedAdjacency(2);
+		nr.put(r10, refs(ref(1, 2, 10)), term(true));
+		nr.put(r12, NONE, term());
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+
+		assertThat("bad root", tree.getRoot(), is(root));
+		assertThat("incomplete search", tree.isComplete(), is(true));
+		assertThat("path found when no path exists", tree.isPathFound(), is(false));
+		try {
+			tree.getPath();
+			fail("got path from failed search");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception message", e.getMessage(),
+					is("Search is not complete or failed"));
+		}
+
+		failUpdateTreeOnCompletedSearch(tree);
+	}
+
+	private void failUpdateTreeOnCompletedSearch(final PackedReferenceSearchTree tree) {
+		try {
+			tree.updateTree(new PackedAdjacency(0));
+			fail("updated tree after search complete");
+		} catch (IllegalStateException e) {
+			assertThat("incorrect exception message", e.getMessage(), is("Search is complete"));
+		}
+	}
+
+	@Test
+	public void cycle() throws Exception {
+		final long root = ref(2, 5, 4);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		// first round of updates
+		final long r1 = ref(1, 1, 1);
+		PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, refs(r1), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r1)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// second round of updates
+		final long r2 = ref(2, 1, 1);
+		nr = new PackedAdjacency(1);
+		nr.put(r1, refs(r2), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r2)));
+		assertThat("early complete", tree.isComplete(), is(false));
+		assertThat("early path found", tree.isPathFound(), is(false));
+
+		// third round of updates. The cycle back to r1 and the root is ignored, even though
+		// both are marked as terminal
+		nr = new PackedAdjacency(1);
+		nr.put(r2, refs(r1, root), term(true, true));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+
+		assertThat("bad root", tree.getRoot(), is(root));
+		assertThat("incomplete search", tree.isComplete(), is(true));
+		assertThat("path found when no path exists", tree.isPathFound(), is(false));
+
+		failUpdateTreeOnCompletedSearch(tree);
+	}
+
+	@Test
+	public void diamond() throws Exception {
+		final long root = ref(2, 5, 4);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		// root -> r1 -> r3 -> r4 and root -> r2 -> r3, so r3 is reachable by two paths
+		final long r1 = ref(1, 1, 1);
+		final long r2 = ref(1, 2, 1);
+		PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, refs(r1, r2), term(false, false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r1, r2)));
+
+		final long r3 = ref(1, 3, 1);
+		nr = new PackedAdjacency(2);
+		nr.put(r1, refs(r3), term(false));
+		nr.put(r2, refs(r3), term(false));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(refs(r3)));
+		assertThat("early complete", tree.isComplete(), is(false));
+
+		final long r4 = ref(1, 4, 1);
+		nr = new PackedAdjacency(1);
+		nr.put(r3, refs(r4), term(true));
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+
+		assertThat("incomplete search", tree.isComplete(), is(true));
+		assertThat("path not found", tree.isPathFound(), is(true));
+		// r3 was added to the tree via the first leaf to reach it
+		assertThat("incorrect path", tree.getPath(), is(refs(r4, r3, r1, root)));
+	}
+
+	@Test
+	public void manyLeaves() throws Exception {
+		// exercises growth of the node and leaf arrays
+		final long root = ref(1, 1, 1);
+		final PackedReferenceSearchTree tree = new PackedReferenceSearchTree(root);
+
+		final long[] level1 = new long[100];
+		for (int i = 0; i < level1.length; i++) {
+			level1[i] = ref(2, i + 1, 1);
+		}
+		PackedAdjacency nr = new PackedAdjacency(1);
+		nr.put(root, level1, new boolean[level1.length]);
+		assertThat("incorrect returned references", tree.updateTree(nr), is(level1));
+
+		final long target = ref(3, 1, 1);
+		nr = new PackedAdjacency(level1.length);
+		for (int i = 0; i < level1.length; i++) {
+			final boolean last = i == level1.length - 1;
+			nr.put(level1[i], last ? refs(target) : NONE, last ? term(true) : term());
+		}
+		assertThat("incorrect returned references", tree.updateTree(nr), is(NONE));
+		assertThat("incorrect path", tree.getPath(), is(refs(target, level1[99], root)));
+	}
+}
@@ -0,0 +1,71 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.database.Reference;
+import us.kbase.workspace.database.refsearch.PackedReference;
+
+public class PackedReferenceTest {
+
+	private static final long MAX_WS = (1L << 23) - 1;
+	private static final long MAX_OBJ = (1L << 26) - 1;
+	private static final int MAX_VER = (1 << 14) - 1;
+	
+	@Test
+	public void pack() throws Exception {
+		final long p = PackedReference.pack(new Reference(1, 2, 3));
+		assertThat("incorrect ws", PackedReference.getWorkspaceID(p), is(1L));
+		assertThat("incorrect obj", PackedReference.getObjectID(p), is(2L));
+		assertThat("incorrect ver", PackedReference.getVersion(p), is(3));
+		assertThat("incorrect ref", PackedReference.toReference(p), is(new Reference(1, 2, 3)));
+		assertThat("incorrect parse", PackedReference.parse("1/2/3"), is(p));
+		
+		final long max = PackedReference.pack(MAX_WS, MAX_OBJ, MAX_VER);
+		assertThat("incorrect sign", max > 0, is(true));
+		assertThat("incorrect ref", PackedReference.toReference(max),
+				is(new Reference(MAX_WS, MAX_OBJ, MAX_VER)));
+		assertThat("incorrect parse", PackedReference.parse(
+				MAX_WS + "/" + MAX_OBJ + "/" + MAX_VER), is(max));
+	}
+	
+	@Test
+	public void unpackable() throws Exception {
+		assertThat("incorrect pack", PackedReference.pack(MAX_WS + 1, 1, 1), is(-1L));
+		assertThat("incorrect pack", PackedReference.pack(1, MAX_OBJ + 1, 1), is(-1L));
+		assertThat("incorrect pack", PackedReference.pack(1, 1, MAX_VER + 1), is(-1L));
+		assertThat("incorrect pack", PackedReference.pack(0, 1, 1), is(-1L));
+		assertThat("incorrect pack", PackedReference.pack(1, 0, 1), is(-1L));
+		assertThat("incorrect pack", PackedReference.pack(1, 1, 0), is(-1L));
+		
+		assertThat("incorrect parse", PackedReference.parse((MAX_WS + 1) + "/1/1"), is(-1L));
+		assertThat("incorrect parse", PackedReference.parse("1/" + (MAX_OBJ + 1) + "/1"),
+				is(-1L));
+		assertThat("incorrect parse", PackedReference.parse("1/1/" + (MAX_VER + 1)), is(-1L));
+		assertThat("incorrect parse", PackedReference.parse("1/1/2147483647"), is(-1L));
+		assertThat("incorrect parse", PackedReference.parse(
+				"9223372036854775807/1/1"), is(-1L));
+	}
+	
+	@Test
+	public void parseFail() throws Exception {
+		failParse("1/2", new IllegalArgumentException("ref 1/2 is not an absolute reference"));
+		failParse("1/foo/2", new IllegalArgumentException(
+				"ref 1/foo/2 is not an absolute reference"));
+		failParse("1//2", new IllegalArgumentException(
+				"ref 1//2 is not an absolute reference"));
+	}
+	
+	private void failParse(final String ref, final Exception expected) {
+		try {
+			PackedReference.parse(ref);
+			fail("expected exception");
+		} catch (Exception got) {
+			TestCommon.assertExceptionCorrect(got, expected);
+		}
+	}
+}
@@ -200,6 +200,26 @@ public class PermissionsSetTest {
 		assertThat("incorrect has ws", p.hasWorkspace(RWSID5), is(true));
 	}
 	
+	@Test
+	public void workspaceIDs() {
+		final PermissionSet p = PermissionSet.getBuilder(
+				new WorkspaceUser("foo"), new AllUsers('*'))
+				.withUnreadableWorkspace(RWSID1)
+				.withWorkspace(RWSID2, Permission.NONE, Permission.READ)
+				.withWorkspace(new ResolvedWorkspaceID(3, "deleted", false, true),
+						Permission.READ, Permission.NONE)
+				.withWorkspace(RWSID4, Permission.WRITE, Permission.NONE)
+				.build();
+		
+		assertThat("incorrect ids", p.getWorkspaceIDs().toArray(), is(new long[] {1, 2, 3, 4}));
+		assertThat("incorrect readable ids", p.getReadableWorkspaceIDs().toArray(),
+				is(new long[] {2, 4}));
+		assertThat("incorrect contains", p.getReadableWorkspaceIDs().contains(1), is(false));
+		assertThat("incorrect contains", p.getReadableWorkspaceIDs().contains(2), is(true));
+		assertThat("incorrect contains", p.getReadableWorkspaceIDs().contains(3), is(false));
+		assertThat("incorrect contains", p.getReadableWorkspaceIDs().contains(4), is(true));
+	}
+	
 	@Test
 	public void buildFailStart() {
 		try {
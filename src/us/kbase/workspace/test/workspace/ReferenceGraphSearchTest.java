@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -102,4 +103,36 @@ public class ReferenceGraphSearchTest {
 			assertThat("incorrect exception message", e.getMessage(), is("No path for ref 1/1/1"));
 		}
 	}
+	
+	@Test
+	public void searchWithLargeIDs() throws Exception {
+		// IDs that are too large to be packed into a long are handled separately
+		final Reference root1 = new Reference(1, 1, 1);
+		final Reference root2 = new Reference(9999999999L, 1, 1);
+		final Reference big = new Reference(8888888888L, 2, 2);
+		final List<Map<Reference, Map<Reference, Boolean>>> responses = new LinkedList<>();
+		responses.add(new HashMap<Reference, Map<Reference, Boolean>>());
+		responses.add(new HashMap<Reference, Map<Reference, Boolean>>());
+		responses.get(0).put(root1, new HashMap<Reference, Boolean>());
+		responses.get(0).get(root1).put(new Reference(2, 1, 1), false);
+		responses.get(0).get(root1).put(new Reference(3, 1, 1), false);
+		responses.get(0).put(root2, new HashMap<Reference, Boolean>());
+		responses.get(0).get(root2).put(new Reference(4, 1, 1), false);
+		responses.get(1).put(new Reference(2, 1, 1), new HashMap<Reference, Boolean>());
+		// diamond, should be ignored
+		responses.get(1).get(new Reference(2, 1, 1)).put(new Reference(3, 1, 1), true);
+		responses.get(1).get(new Reference(2, 1, 1)).put(new Reference(5, 1, 1), true);
+		responses.get(1).put(new Reference(3, 1, 1), new HashMap<Reference, Boolean>());
+		responses.get(1).put(new Reference(4, 1, 1), new HashMap<Reference, Boolean>());
+		responses.get(1).get(new Reference(4, 1, 1)).put(big, true);
+		final ReferenceGraphSearch graph = new ReferenceGraphSearch(Sets.newHashSet(root1, root2),
+				new TestReferenceGraphTopologyProvider(responses), 20, true);
+		
+		assertThat("path not found", graph.isPathFound(root1), is(true));
+		assertThat("incorrect path", graph.getPath(root1), is(Arrays.asList(
+				new Reference(5, 1, 1), new Reference(2, 1, 1), root1)));
+		assertThat("path not found", graph.isPathFound(root2), is(true));
+		assertThat("incorrect path", graph.getPath(root2), is(Arrays.asList(
+				big, new Reference(4, 1, 1), root2)));
+	}
 }
@@ -0,0 +1,79 @@
+package us.kbase.workspace.test.workspace;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import us.kbase.common.test.TestCommon;
+import us.kbase.workspace.database.WorkspaceIDSet;
+
+public class WorkspaceIDSetTest {
+
+	@Test
+	public void empty() {
+		final WorkspaceIDSet s = WorkspaceIDSet.getBuilder().build();
+		
+		assertThat("incorrect set", s, is(WorkspaceIDSet.EMPTY));
+		assertThat("incorrect size", s.size(), is(0));
+		assertThat("incorrect empty", s.isEmpty(), is(true));
+		assertThat("incorrect contains", s.contains(1), is(false));
+		assertThat("incorrect ids", s.toArray(), is(new long[0]));
+	}
+	
+	@Test
+	public void sparse() {
+		final WorkspaceIDSet s = WorkspaceIDSet.getBuilder()
+				.withID(70000).withID(3).withID(1).withID(3).withID(Long.MAX_VALUE).build();
+		
+		assertThat("incorrect size", s.size(), is(4));
+		assertThat("incorrect empty", s.isEmpty(), is(false));
+		assertThat("incorrect ids", s.toArray(), is(new long[] {1, 3, 70000, Long.MAX_VALUE}));
+		for (final long id: new long[] {1, 3, 70000, Long.MAX_VALUE}) {
+			assertThat("incorrect contains " + id, s.contains(id), is(true));
+		}
+		for (final long id: new long[] {-1, 0, 2, 4, 65536 + 3, 69999, Long.MAX_VALUE - 1}) {
+			assertThat("incorrect contains " + id, s.contains(id), is(false));
+		}
+		assertThat("incorrect equals", s, is(WorkspaceIDSet.getBuilder()
+				.withID(1).withID(3).withID(70000).withID(Long.MAX_VALUE).build()));
+	}
+	
+	@Test
+	public void dense() {
+		// the first partition is stored as a bitmap, the second as an array
+		final WorkspaceIDSet.Builder b = WorkspaceIDSet.getBuilder();
+		for (long id = 10000; id > 0; id -= 2) {
+			b.withID(id);
+		}
+		b.withID(65536 + 5);
+		final WorkspaceIDSet s = b.build();
+		
+		assertThat("incorrect size", s.size(), is(5001));
+		final long[] ids = s.toArray();
+		assertThat("incorrect length", ids.length, is(5001));
+		for (int i = 0; i < 5000; i++) {
+			assertThat("incorrect id", ids[i], is(2L * (i + 1)));
+		}
+		assertThat("incorrect id", ids[5000], is(65536L + 5));
+		for (long id = 1; id < 10003; id++) {
+			assertThat("incorrect contains " + id, s.contains(id), is(id % 2 == 0 && id <= 10000));
+		}
+		assertThat("incorrect contains", s.contains(65536 + 5), is(true));
+		assertThat("incorrect contains", s.contains(65536 + 4), is(false));
+	}
+	
+	@Test
+	public void buildFail() {
+		for (final long id: new long[] {0, -1, Long.MIN_VALUE}) {
+			try {
+				WorkspaceIDSet.getBuilder().withID(id);
+				fail("expected exception");
+			} catch (Exception got) {
+				TestCommon.assertExceptionCorrect(got, new IllegalArgumentException(
+						"Workspace IDs must be > 0"));
+			}
+		}
+	}
+}
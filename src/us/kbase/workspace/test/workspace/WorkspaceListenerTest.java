@@ -1,10 +1,13 @@
 package us.kbase.workspace.test.workspace;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.argThat;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -21,6 +24,7 @@ import java.util.List;
 
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
@@ -1076,15 +1080,6 @@ public class WorkspaceListenerTest {
 				76, "foo2", "foo.baz-1.0", new Date(70000), 1, new WorkspaceUser("foo"),
 				rwsi, "chcksum2", 22, null);
 		
-		final WorkspaceInformation wsinfo = WorkspaceInformation.getBuilder()
-				.withID(24)
-				.withName("ugh")
-				.withMaximumObjectID(2)
-				.withModificationDate(Instant.now())
-				.withOwner(new WorkspaceUser("foo"))
-				.withUserPermission(Permission.WRITE)
-				.build();
-		
 		when(db.resolveWorkspaces(set(wsi))).thenReturn(ImmutableMap.of(wsi, rwsi));
 		when(db.getPermissions(user, set(rwsi))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1099,7 +1094,9 @@ public class WorkspaceListenerTest {
 		when(vto1.getRelabeledSize()).thenReturn(6L);
 		when(vto2.getRelabeledSize()).thenReturn(7L);
 		
-		when(db.getWorkspaceInformation(user, rwsi)).thenReturn(wsinfo);
+		when(db.getPermissions(user, rwsi)).thenReturn(
+				PermissionSet.getBuilder(user, new AllUsers('*'))
+						.withWorkspace(rwsi, Permission.OWNER, Permission.NONE).build());
 		when(db.saveObjects(eq(user), eq(rwsi),
 				argThat(new SaveObjectsAnswerMatcher(Arrays.asList(rso1, rso2)))))
 				.thenReturn(Arrays.asList(oi1, oi2));
@@ -1108,8 +1105,7 @@ public class WorkspaceListenerTest {
 		
 		ws.saveObjects(user, wsi, Arrays.asList(wso1, wso2), fac);
 		
-		verify(l).saveObject(oi1, false);
-		verify(l).saveObject(oi2, false);
+		verify(l).saveObjects(Arrays.asList(oi1, oi2), false);
 	}
 	
 	@Test
@@ -1149,16 +1145,6 @@ public class WorkspaceListenerTest {
 				76, "foo2", "foo.baz-1.0", new Date(70000), 1, new WorkspaceUser("foo"),
 				rwsi, "chcksum2", 22, null);
 		
-		final WorkspaceInformation wsinfo = WorkspaceInformation.getBuilder()
-				.withID(24)
-				.withName("ugh")
-				.withMaximumObjectID(2)
-				.withModificationDate(Instant.now())
-				.withOwner(new WorkspaceUser("foo"))
-				.withUserPermission(Permission.WRITE)
-				.withGlobalRead(true)
-				.build();
-		
 		when(db.resolveWorkspaces(set(wsi))).thenReturn(ImmutableMap.of(wsi, rwsi));
 		when(db.getPermissions(user, set(rwsi))).thenReturn(
 				PermissionSet.getBuilder(user, new AllUsers('*'))
@@ -1173,7 +1159,9 @@ public class WorkspaceListenerTest {
 		when(vto1.getRelabeledSize()).thenReturn(6L);
 		when(vto2.getRelabeledSize()).thenReturn(7L);
 		
-		when(db.getWorkspaceInformation(user, rwsi)).thenReturn(wsinfo);
+		when(db.getPermissions(user, rwsi)).thenReturn(
+				PermissionSet.getBuilder(user, new AllUsers('*'))
+						.withWorkspace(rwsi, Permission.OWNER, Permission.READ).build());
 		when(db.saveObjects(eq(user), eq(rwsi),
 				argThat(new SaveObjectsAnswerMatcher(Arrays.asList(rso1, rso2)))))
 				.thenReturn(Arrays.asList(oi1, oi2));
@@ -1182,10 +1170,24 @@ public class WorkspaceListenerTest {
 		
 		ws.saveObjects(user, wsi, Arrays.asList(wso1, wso2), fac);
 		
-		verify(l1).saveObject(oi1, true);
-		verify(l1).saveObject(oi2, true);
-		verify(l2).saveObject(oi1, true);
-		verify(l2).saveObject(oi2, true);
+		verify(l1).saveObjects(Arrays.asList(oi1, oi2), true);
+		verify(l2).saveObjects(Arrays.asList(oi1, oi2), true);
+	}
+	
+	@Test
+	public void saveObjectsDefault() throws Exception {
+		final WorkspaceEventListener l = mock(WorkspaceEventListener.class);
+		doCallRealMethod().when(l).saveObjects(any(), anyBoolean());
+		
+		final ObjectInformation oi2 = new ObjectInformation(
+				76, "foo2", "foo.baz-1.0", new Date(70000), 1, new WorkspaceUser("foo"),
+				new ResolvedWorkspaceID(24, "ugh", false, false), "chcksum2", 22, null);
+		
+		l.saveObjects(Arrays.asList(OBJ_INFO, oi2), true);
+		
+		final InOrder inOrder = inOrder(l);
+		inOrder.verify(l).saveObject(OBJ_INFO, true);
+		inOrder.verify(l).saveObject(oi2, true);
 	}
 }
 
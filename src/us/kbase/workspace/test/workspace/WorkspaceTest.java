@@ -28,6 +28,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
@@ -74,6 +75,8 @@ import us.kbase.workspace.database.Provenance;
 import us.kbase.workspace.database.Provenance.ExternalData;
 import us.kbase.workspace.database.Provenance.ProvenanceAction;
 import us.kbase.workspace.database.Provenance.SubAction;
+import us.kbase.workspace.database.RecentObjectPosition;
+import us.kbase.workspace.database.RecentObjects;
 import us.kbase.workspace.database.Reference;
 import us.kbase.workspace.database.ResolvedWorkspaceID;
 import us.kbase.workspace.database.ResourceUsageConfigurationBuilder;
@@ -2877,6 +2880,72 @@ public class WorkspaceTest extends WorkspaceTester {
 		
 	}
 	
+	@Test
+	public void validateConcurrently() throws Exception {
+		final ResourceUsageConfiguration oldcfg = ws.getResourceConfig();
+		ws.setResourceConfig(new ResourceUsageConfigurationBuilder(oldcfg)
+				.withValidationParallelism(3).build());
+		try {
+			final WorkspaceUser user = new WorkspaceUser("user1");
+			final WorkspaceIdentifier wsi = new WorkspaceIdentifier("validateConcurrently");
+			final long wsid = ws.createWorkspace(user, wsi.getName(), false, null, null).getId();
+			final Provenance mtprov = new Provenance(user);
+			ws.saveObjects(user, wsi, Arrays.asList(
+					new WorkspaceSaveObject(new ObjectIDNoWSNoVer("t1"), MT_MAP, SAFE_TYPE1,
+							null, mtprov, false),
+					new WorkspaceSaveObject(new ObjectIDNoWSNoVer("t2"), MT_MAP, SAFE_TYPE1,
+							null, mtprov, false)),
+					getIdFactory());
+			
+			final Provenance p = new Provenance(user).addAction(new ProvenanceAction()
+					.withWorkspaceObjects(Arrays.asList("validateConcurrently/t2")));
+			final List<WorkspaceSaveObject> objs = new ArrayList<>();
+			for (int i = 0; i < 7; i++) {
+				objs.add(new WorkspaceSaveObject(new ObjectIDNoWSNoVer("r" + i),
+						ImmutableMap.of("refs", Arrays.asList(
+								"validateConcurrently/t" + (i % 2 + 1))),
+						REF_TYPE, null, i == 3 ? p : mtprov, false));
+			}
+			final List<ObjectInformation> res = ws.saveObjects(user, wsi, objs, getIdFactory());
+			
+			for (int i = 0; i < 7; i++) {
+				assertThat("incorrect name", res.get(i).getObjectName(), is("r" + i));
+				final WorkspaceObjectData wod = ws.getObjects(user, Arrays.asList(
+						new ObjectIdentifier(wsi, "r" + i)), true).get(0);
+				assertThat("incorrect refs", wod.getReferences(),
+						is(Arrays.asList(wsid + "/" + (i % 2 + 1) + "/1")));
+			}
+			final WorkspaceObjectData wod = ws.getObjects(user, Arrays.asList(
+					new ObjectIdentifier(wsi, "r3")), true).get(0);
+			assertThat("incorrect prov refs",
+					wod.getProvenance().getActions().get(0).getResolvedObjects(),
+					is(Arrays.asList(wsid + "/2/1")));
+			
+			// errors from ID processing are attributed to the correct object
+			objs.set(2, new WorkspaceSaveObject(new ObjectIDNoWSNoVer("r2"),
+					ImmutableMap.of("refs", Arrays.asList("validateConcurrently/t3")),
+					REF_TYPE, null, mtprov, false));
+			failSave(user, wsi, objs, new TypedObjectValidationException(String.format(
+					"Object #3, r2 has invalid reference: There is no object with id " +
+					"validateConcurrently/t3: No object with name t3 exists in workspace %s " +
+					"(name validateConcurrently) at /refs/0", wsid)));
+			
+			// the first failing object's error is reported
+			final Provenance nullprov = new Provenance(user).addAction(new ProvenanceAction()
+					.withWorkspaceObjects(Arrays.asList((String) null)));
+			objs.set(6, new WorkspaceSaveObject(new ObjectIDNoWSNoVer("r6"),
+					ImmutableMap.of("refs", Arrays.asList("validateConcurrently/t1")),
+					REF_TYPE, null, nullprov, false));
+			objs.set(4, new WorkspaceSaveObject(new ObjectIDNoWSNoVer("r4"),
+					ImmutableMap.of("refs", Arrays.asList("validateConcurrently/t1")),
+					REF_TYPE, null, nullprov, false));
+			failSave(user, wsi, objs, new TypedObjectValidationException(
+					"Object #5, r4 has a null provenance reference"));
+		} finally {
+			ws.setResourceConfig(oldcfg);
+		}
+	}
+	
 	@Test
 	public void genericIdExtraction() throws Exception {
 		
@@ -5742,12 +5811,25 @@ public class WorkspaceTest extends WorkspaceTester {
 				new WorkspaceUserMetadata(querymeta), null, null, false,
 				false, false), expected);
 		
+		// all of the key/value pairs must match
+		checkWSInfoList(ws.listWorkspaces(user, null, null, meta1, null, null, false,
+				false, false), expected);
+		querymeta.put("suckmaster", "burstingfoam");
+		checkWSInfoList(ws.listWorkspaces(user, null, null,
+				new WorkspaceUserMetadata(querymeta), null, null, false,
+				false, false), new HashMap<WorkspaceInformation, Boolean>());
+		
+		final Map<String, String> toomuchmeta = new HashMap<>();
+		for (int i = 0; i < 11; i++) {
+			toomuchmeta.put("k" + i, "v");
+		}
 		try {
-			ws.listWorkspaces(user, null, null, meta1, null, null, false, false, false);
+			ws.listWorkspaces(user, null, null, new WorkspaceUserMetadata(toomuchmeta), null,
+					null, false, false, false);
 			fail("listed ws with bad meta");
 		} catch (IllegalArgumentException exp) {
 			assertThat("correct exception", exp.getLocalizedMessage(),
-					is("Only one metadata spec allowed"));
+					is("At most 10 metadata specs allowed"));
 		}
 		
 		ws.setGlobalPermission(user2, new WorkspaceIdentifier("globalreadable"), Permission.NONE);
@@ -6175,6 +6257,11 @@ public class WorkspaceTest extends WorkspaceTester {
 				Arrays.asList(stdws2));
 		compareObjectInfo(ws.listObjects(lop.withMetadata(meta2)),
 				Arrays.asList(objstack2, hidden, deleted));
+		compareObjectInfo(ws.listObjects(lop.withMetadata(meta32)),
+				Arrays.asList(deleted));
+		compareObjectInfo(ws.listObjects(lop.withMetadata(meta32).withShowAllVersions(true)),
+				Arrays.asList(type2_3, deleted));
+		lop.withShowAllVersions(false);
 		
 		//type filtering
 		compareObjectInfo(ws.listObjects(new ListObjectsParameters(user, Arrays.asList(wsi), allType1)
@@ -6300,8 +6387,12 @@ public class WorkspaceTest extends WorkspaceTester {
 				new WorkspaceAuthorizationException("Anonymous users may not read workspace listObj1"));
 		failListObjects(user, Arrays.asList(writeable, new WorkspaceIdentifier("listfake")), null,
 				new NoSuchWorkspaceException("No workspace with name listfake exists", wsi));
-		failListObjects(user, Arrays.asList(wsi, writeable), meta32.getMetadata(),
-				new IllegalArgumentException("Only one metadata spec allowed"));
+		final Map<String, String> toomuchmeta = new HashMap<>();
+		for (int i = 0; i < 11; i++) {
+			toomuchmeta.put("k" + i, "v");
+		}
+		failListObjects(user, Arrays.asList(wsi, writeable), toomuchmeta,
+				new IllegalArgumentException("At most 10 metadata specs allowed"));
 		
 		ws.createWorkspace(user, "listdel", false, null, null);
 		ws.setWorkspaceDeleted(user, new WorkspaceIdentifier("listdel"), true);
@@ -6429,18 +6520,11 @@ public class WorkspaceTest extends WorkspaceTester {
 			int limit,
 			List<List<String>> results)
 			throws Exception {
-		List<Set<String>> exp = new LinkedList<Set<String>>();
-		for (List<String> r: results) {
-			exp.add(new HashSet<String>(r));
-		}
-		List<Set<String>> got = new LinkedList<Set<String>>();
+		// names are sorted within each workspace
 		List<List<String>> ret = ws.getNamesByPrefix(
 				user, wsis, prefix, includeHidden, limit);
-		for (List<String> r: ret) {
-			got.add(new HashSet<String>(r));
-		}
 		
-		assertThat("correct returned names", got, is(exp));
+		assertThat("correct returned names", ret, is(results));
 	}
 	
 	@Test
@@ -6523,6 +6607,122 @@ public class WorkspaceTest extends WorkspaceTester {
 				Arrays.asList("aaa", "aba", "abc"), wsi2n));
 	}
 	
+	@Test
+	public void getNamesByPrefixSortedLimit() throws Exception {
+		WorkspaceUser u = new WorkspaceUser("getNamesByPrefix");
+		WorkspaceIdentifier wsi1 = new WorkspaceIdentifier("getNamesByPrefix1");
+		WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("getNamesByPrefix2");
+		for (WorkspaceIdentifier wi: Arrays.asList(wsi1, wsi2)) {
+			ws.createWorkspace(u, wi.getName(), false, null, null);
+		}
+		Map<String, String> mt = new HashMap<String, String>();
+		Provenance p = new Provenance(u);
+		
+		ws.saveObjects(u, wsi2, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("ab"), mt,
+						SAFE_TYPE1, null, p, false)), getIdFactory());
+		ws.saveObjects(u, wsi1, Arrays.asList(
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("abz"), mt,
+						SAFE_TYPE1, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("ab"), mt,
+						SAFE_TYPE1, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("abb"), mt,
+						SAFE_TYPE1, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("ac"), mt,
+						SAFE_TYPE1, null, p, false),
+				new WorkspaceSaveObject(new ObjectIDNoWSNoVer("aa"), mt,
+						SAFE_TYPE1, null, p, false)
+				), getIdFactory());
+		List<String> mtList = new LinkedList<String>();
+		
+		// the limit applies to names in order of workspace ID and then name
+		checkGetByPrefix(u, Arrays.asList(wsi2, wsi1), "ab", false, 10, Arrays.asList(
+				Arrays.asList("ab"), Arrays.asList("ab", "abb", "abz")));
+		checkGetByPrefix(u, Arrays.asList(wsi2, wsi1), "ab", false, 2, Arrays.asList(
+				mtList, Arrays.asList("ab", "abb")));
+		checkGetByPrefix(u, Arrays.asList(wsi1), "", false, 3, Arrays.asList(
+				Arrays.asList("aa", "ab", "abb")));
+		checkGetByPrefix(u, Arrays.asList(wsi1), "abz", false, 3, Arrays.asList(
+				Arrays.asList("abz")));
+		// non-ASCII characters can't occur in names
+		checkGetByPrefix(u, Arrays.asList(wsi1), "ab\u00e9", false, 3, Arrays.asList(mtList));
+	}
+	
+	@Test
+	public void listRecentObjects() throws Exception {
+		WorkspaceUser u1 = new WorkspaceUser("listRecent1");
+		WorkspaceUser u2 = new WorkspaceUser("listRecent2");
+		WorkspaceIdentifier wsi1 = new WorkspaceIdentifier("listRecent1");
+		WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("listRecent2");
+		WorkspaceIdentifier priv = new WorkspaceIdentifier("listRecentPriv");
+		WorkspaceIdentifier pub = new WorkspaceIdentifier("listRecentPub");
+		ws.createWorkspace(u1, wsi1.getName(), false, null, null);
+		ws.createWorkspace(u1, wsi2.getName(), false, null, null);
+		ws.createWorkspace(u2, priv.getName(), false, null, null);
+		ws.createWorkspace(u2, pub.getName(), true, null, null);
+		Map<String, String> meta = new HashMap<String, String>();
+		meta.put("foo", "bar");
+		Map<String, Object> data = new HashMap<String, Object>();
+		Provenance p1 = new Provenance(u1);
+		Provenance p2 = new Provenance(u2);
+		
+		// sleep between saves so the modification dates differ
+		saveObject(u1, wsi1, meta, data, SAFE_TYPE1, "a", p1);
+		Thread.sleep(5);
+		ObjectInformation b = saveObject(u1, wsi2, meta, data, SAFE_TYPE1, "b", p1);
+		Thread.sleep(5);
+		saveObject(u2, priv, meta, data, SAFE_TYPE1, "priv", p2);
+		Thread.sleep(5);
+		ObjectInformation pubobj = saveObject(u2, pub, meta, data, SAFE_TYPE1, "pub", p2);
+		Thread.sleep(5);
+		saveObject(u1, wsi1, meta, data, SAFE_TYPE1, "hidden", p1, true);
+		saveObject(u1, wsi1, meta, data, SAFE_TYPE1, "deleted", p1);
+		ws.setObjectsDeleted(u1, Arrays.asList(new ObjectIdentifier(wsi1, "deleted")), true);
+		Thread.sleep(5);
+		// a new version moves the object to the front
+		ObjectInformation a2 = saveObject(u1, wsi1, meta, data, SAFE_TYPE1, "a", p1);
+		
+		RecentObjects r = ws.listRecentObjects(u1, false, true, 0, null);
+		assertThat("incorrect objects", r.getObjects(), is(Arrays.asList(a2, pubobj, b)));
+		assertThat("incorrect next", r.getNext(), is(Optional.absent()));
+		
+		r = ws.listRecentObjects(u1, true, true, 0, null);
+		assertThat("incorrect objects", r.getObjects(), is(Arrays.asList(a2, b)));
+		
+		r = ws.listRecentObjects(null, false, true, 0, null);
+		assertThat("incorrect objects", r.getObjects(), is(Arrays.asList(pubobj)));
+		
+		// page through the objects
+		r = ws.listRecentObjects(u1, false, true, 2, null);
+		assertThat("incorrect objects", r.getObjects(), is(Arrays.asList(a2, pubobj)));
+		RecentObjectPosition next = RecentObjectPosition.fromToken(r.getNext().get().toToken());
+		assertThat("incorrect next", next, is(r.getNext().get()));
+		assertThat("incorrect next", next.getWorkspaceID(), is(pubobj.getWorkspaceId()));
+		assertThat("incorrect next", next.getObjectID(), is(pubobj.getObjectId()));
+		r = ws.listRecentObjects(u1, false, true, 2, next);
+		assertThat("incorrect objects", r.getObjects(), is(Arrays.asList(b)));
+		assertThat("incorrect next", r.getNext(), is(Optional.absent()));
+		
+		r = ws.listRecentObjects(u1, false, false, 1, null);
+		assertThat("incorrect object", r.getObjects().get(0).getObjectName(), is("a"));
+		assertThat("incorrect meta", r.getObjects().get(0).getUserMetaData(), is(nullValue()));
+		
+		try {
+			ws.listRecentObjects(u1, false, true, 1001, null);
+			fail("listed recent objects with bad limit");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception", e.getLocalizedMessage(),
+					is("limit cannot be greater than 1000"));
+		}
+		try {
+			RecentObjectPosition.fromToken("1:2");
+			fail("parsed bad token");
+		} catch (IllegalArgumentException e) {
+			assertThat("incorrect exception", e.getLocalizedMessage(),
+					is("Illegal position token: 1:2"));
+		}
+	}
+	
 	private void checkGetByPrefixLimit(
 			WorkspaceUser u,
 			List<WorkspaceIdentifier> wsis,
@@ -6812,8 +7012,7 @@ public class WorkspaceTest extends WorkspaceTester {
 	
 	@Test
 	public void listObjectsSort() throws Exception {
-		/* Currently list objects will sort the results if no other filters than the object ID
-		 * filters are active. Test that this is true.
+		/* List objects always sorts the results so that they can be paged with startAfter.
 		 * Sort is wsid asc, objid asc, ver desc.
 		 */
 		WorkspaceUser user = new WorkspaceUser("u");
@@ -6851,30 +7050,142 @@ public class WorkspaceTest extends WorkspaceTester {
 		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
 				.withMaxObjectID(6L).withMinObjectID(1L), true);
 		
-		/* 19/2/13: This is really difficult to test on mongo 3+. There will always be a list
-		 * of workspaces in an $in clause, and so the query optimizer is now good enough to always
-		 * use the ws/obj/ver index to sort, at least for smaller data sets. It's still potentially
-		 * dangerous to add the sort, since that forces the optimizer to use the ws/obj/ver index
-		 * (which could return a huge number of results and really slow down the query).
+		// sorted with startAfter and other filters
+		assertOrderedAfterFirst(new ListObjectsParameters(Arrays.asList(wsi1, wsi2)));
+		assertOrderedAfterFirst(
+				new ListObjectsParameters(Arrays.asList(wsi1, wsi2), SAFE_TYPE1));
+		assertOrderedAfterFirst(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withAfter(Date.from(Instant.now().minusSeconds(100))));
+		assertOrderedAfterFirst(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withBefore(Date.from(Instant.now())));
+		assertOrderedAfterFirst(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withSavers(Arrays.asList(user)));
+		assertOrderedAfterFirst(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withMetadata(new WorkspaceUserMetadata(meta)));
+		
+		// sorted with other filters
+		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2), SAFE_TYPE1), true);
+		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withAfter(Date.from(Instant.now().minusSeconds(100))), true);
+		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withBefore(Date.from(Instant.now())), true);
+		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withSavers(Arrays.asList(user)), true);
+		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
+				.withMetadata(new WorkspaceUserMetadata(meta)), true);
+	}
+	
+	@Test
+	public void listObjectsStartAfter() throws Exception {
+		/* test paging through list objects results with startAfter */
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi1 = new WorkspaceIdentifier("startafter1");
+		final long wsid1 = ws.createWorkspace(user, wsi1.getName(), false, null, null).getId();
+		final WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("startafter2");
+		final long wsid2 = ws.createWorkspace(user, wsi2.getName(), false, null, null).getId();
+		final Provenance p = new Provenance(user);
+		final Map<String, String> meta = ImmutableMap.of("foo", "bar");
+		
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o1", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o2", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o1", p);
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE1, "w2o1", p);
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE1, "w2o2", p);
+		
+		final List<WorkspaceIdentifier> wsis = Arrays.asList(wsi1, wsi2);
+		
+		// latest versions
+		List<ObjectInformation> objs = ws.listObjects(new ListObjectsParameters(user, wsis)
+				.withLimit(2));
+		assertThat("incorrect objects", toRefs(objs), is(Arrays.asList(
+				new Reference(wsid1, 1, 2), new Reference(wsid1, 2, 1))));
+		objs = ws.listObjects(new ListObjectsParameters(user, wsis).withLimit(2)
+				.withStartAfter(new Reference(wsid1, 2, 1)));
+		assertThat("incorrect objects", toRefs(objs), is(Arrays.asList(
+				new Reference(wsid2, 1, 1), new Reference(wsid2, 2, 1))));
+		objs = ws.listObjects(new ListObjectsParameters(user, wsis).withLimit(2)
+				.withStartAfter(new Reference(wsid2, 2, 1)));
+		assertThat("incorrect objects", objs, is(Collections.emptyList()));
+		
+		// all versions, with the page boundary between versions of one object
+		objs = ws.listObjects(new ListObjectsParameters(user, wsis).withShowAllVersions(true)
+				.withStartAfter(new Reference(wsid1, 1, 2)).withLimit(3));
+		assertThat("incorrect objects", toRefs(objs), is(Arrays.asList(
+				new Reference(wsid1, 1, 1), new Reference(wsid1, 2, 1),
+				new Reference(wsid2, 1, 1))));
+		
+		// with other filters
+		objs = ws.listObjects(new ListObjectsParameters(user, wsis, SAFE_TYPE1)
+				.withStartAfter(new Reference(wsid1, 1, 1)));
+		assertThat("incorrect objects", toRefs(objs), is(Arrays.asList(
+				new Reference(wsid1, 2, 1), new Reference(wsid2, 1, 1),
+				new Reference(wsid2, 2, 1))));
+	}
+	
+	@Test
+	public void listObjectsStartAfterTypeFilterAllVersions() throws Exception {
+		/* page through all versions of objects of one type, starting from a first page
+		 * without startAfter
 		 */
+		final WorkspaceUser user = new WorkspaceUser("u");
+		final WorkspaceIdentifier wsi1 = new WorkspaceIdentifier("startaftertype1");
+		final long wsid1 = ws.createWorkspace(user, wsi1.getName(), false, null, null).getId();
+		final WorkspaceIdentifier wsi2 = new WorkspaceIdentifier("startaftertype2");
+		final long wsid2 = ws.createWorkspace(user, wsi2.getName(), false, null, null).getId();
+		final Provenance p = new Provenance(user);
+		final Map<String, String> meta = ImmutableMap.of("foo", "bar");
+		
+		// versions of the other type are interleaved with the versions being listed
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE1, "w2o1", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o1", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE2, "w1o2", p);
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE2, "w2o1", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o2", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o1", p);
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE1, "w2o1", p);
+		saveObject(user, wsi2, meta, MT_MAP, SAFE_TYPE1, "w2o2", p);
+		saveObject(user, wsi1, meta, MT_MAP, SAFE_TYPE1, "w1o1", p);
 		
-		//unsorted (at least with descending versions)
-		// type filter
-//		assertOrdered(new ListObjectsParameters(user, SAFE_TYPE1), false);
-		// after date filter
-//		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
-//				.withAfter(Date.from(Instant.now().minusSeconds(100))), false);
-		// before date filter
-//		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
-//				.withBefore(Date.from(Instant.now())), false);
-		// user filter
-//		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
-//				.withSavers(Arrays.asList(user)), false);
-		// meta filter
-//		assertOrdered(new ListObjectsParameters(Arrays.asList(wsi1, wsi2))
-//				.withMetadata(new WorkspaceUserMetadata(meta)), false);
+		final List<Reference> expected = Arrays.asList(
+				new Reference(wsid1, 1, 3), new Reference(wsid1, 1, 2),
+				new Reference(wsid1, 1, 1), new Reference(wsid1, 2, 2),
+				new Reference(wsid2, 1, 3), new Reference(wsid2, 1, 1),
+				new Reference(wsid2, 2, 1));
+		final List<Reference> paged = new LinkedList<>();
+		Reference last = null;
+		List<ObjectInformation> objs;
+		do {
+			objs = ws.listObjects(new ListObjectsParameters(
+					user, Arrays.asList(wsi2, wsi1), SAFE_TYPE1)
+					.withShowAllVersions(true).withStartAfter(last).withLimit(2));
+			paged.addAll(toRefs(objs));
+			if (!objs.isEmpty()) {
+				last = paged.get(paged.size() - 1);
+			}
+		} while (!objs.isEmpty());
+		assertThat("incorrect objects", paged, is(expected));
+	}
+	
+	private List<Reference> toRefs(final List<ObjectInformation> objs) {
+		return objs.stream().map(o -> new Reference(o.getWorkspaceId(), o.getObjectId(),
+				o.getVersion())).collect(Collectors.toList());
 	}
 
+	private void assertOrderedAfterFirst(final ListObjectsParameters params) throws Exception {
+		final List<Reference> expected = new LinkedList<>();
+		for (int ws = 1; ws < 3; ws++) {
+			for (int obj = 1; obj < 4; obj++) {
+				for (int ver = 3; ver > 0; ver--) {
+					expected.add(new Reference(ws, obj, ver));
+				}
+			}
+		}
+		expected.remove(0);
+		final List<ObjectInformation> objs = ws.listObjects(params.withShowAllVersions(true)
+				.withStartAfter(new Reference(1, 1, 3)));
+		assertThat("incorrect order", toRefs(objs), is(expected));
+	}
+	
 	private void assertOrdered(final ListObjectsParameters params, final boolean expectOrdered)
 			throws Exception {
 		final List<ObjectInformation> objs = ws.listObjects(params.withShowAllVersions(true));
@@ -8811,9 +9122,9 @@ public class WorkspaceTest extends WorkspaceTester {
 		objs.set(1, renameWSO(objs.get(1), "bar"));
 		objs.set(2, renameWSO(objs.get(2), "baz"));
 		ws.saveObjects(user, wsi, objs, getIdFactory());
-		// two files per data - 1 for relabeling, 1 for sort
-		// except for sorted file, then just 1 for relabeling
-		assertThat("created temp files on save", filesCreated[0], is(5));
+		// the first two objects fit in memory, so only the last object goes to disk.
+		// relabeling and sorting happen in a single pass, so only one file is created
+		assertThat("created temp files on save", filesCreated[0], is(1));
 		TestCommon.assertNoTempFilesExist(ws.getTempFilesManager());
 		
 		filesCreated[0] = 0;
@@ -8933,4 +9244,54 @@ public class WorkspaceTest extends WorkspaceTester {
 		}
 		ws.setResourceConfig(oldcfg);
 	}
+	
+	@Test
+	public void sortConcurrently() throws Exception {
+		final WorkspaceUser user = new WorkspaceUser("sortConcurrently");
+		final WorkspaceIdentifier wsi = new WorkspaceIdentifier("sortconcurrently");
+		ws.createWorkspace(user, wsi.getIdentifierString(), false, null, null);
+		final Provenance p = new Provenance(user);
+		final List<WorkspaceSaveObject> objs = new ArrayList<WorkspaceSaveObject>();
+		
+		objs.add(new WorkspaceSaveObject(getRandomName(), new JsonTokenStream("{\"z\":\"a\"}"),
+				SAFE_TYPE1, null, p, false));
+		for (int i = 0; i < 5; i++) {
+			objs.add(new WorkspaceSaveObject(getRandomName(),
+					new JsonTokenStream("{\"z\":\"a\",\"b\":\"" + i + "\"}"),
+					SAFE_TYPE1, null, p, false));
+		}
+		
+		final ResourceUsageConfiguration oldcfg = ws.getResourceConfig();
+		final ResourceUsageConfigurationBuilder build =
+				new ResourceUsageConfigurationBuilder(oldcfg).withSortParallelism(3);
+		try {
+			ws.setResourceConfig(build.build());
+			ws.saveObjects(user, wsi, objs, getIdFactory());
+			for (int i = 0; i < 5; i++) {
+				final WorkspaceObjectData o = ws.getObjects(user, Arrays.asList(
+						new ObjectIdentifier(wsi, i + 2))).get(0);
+				try {
+					assertThat("data is sorted", IOUtils.toString(
+							o.getSerializedData().getJSON()),
+							is("{\"b\":\"" + i + "\",\"z\":\"a\"}"));
+				} finally {
+					destroyGetObjectsResources(Arrays.asList(o));
+				}
+			}
+			
+			// objects in files with exactly enough memory to sort one object at a time
+			build.withMaxIncomingDataMemoryUsage(1);
+			final int maxmem = 8 + 64 + 8 + 64;
+			ws.setResourceConfig(build.withMaxRelabelAndSortMemoryUsage(maxmem).build());
+			ws.saveObjects(user, wsi, objs, getIdFactory());
+			
+			ws.setResourceConfig(build.withMaxRelabelAndSortMemoryUsage(maxmem - 1).build());
+			final WorkspaceSaveObject second = objs.get(1);
+			failSave(user, wsi, objs, new TypedObjectValidationException(String.format(
+					"Object #2, %s: Memory necessary for sorting map keys exceeds the limit " + 
+					"%s bytes at /", second.getObjectIdentifier().getName().get(), maxmem - 1)));
+		} finally {
+			ws.setResourceConfig(oldcfg);
+		}
+	}
 }
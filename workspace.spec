@@ -1203,10 +1203,9 @@ module Workspace {
 		permission perm - filter workspaces by minimum permission level. 'None'
 			and 'readable' are ignored.
 		list<username> owners - filter workspaces by owner.
-		usermeta meta - filter workspaces by the user supplied metadata. NOTE:
-			only one key/value pair is supported at this time. A full map
-			is provided as input for the possibility for expansion in the
-			future.
+		usermeta meta - filter workspaces by the user supplied metadata.
+			All of the key/value pairs must match. At most 10 pairs are
+			allowed.
 		timestamp after - only return workspaces that were modified after this
 			date.
 		timestamp before - only return workspaces that were modified before
@@ -1335,10 +1334,9 @@ module Workspace {
 			and 'readable' are ignored.
 		list<username> savedby - filter objects by the user that saved or
 			copied the object.
-		usermeta meta - filter objects by the user supplied metadata. NOTE:
-			only one key/value pair is supported at this time. A full map
-			is provided as input for the possibility for expansion in the
-			future.
+		usermeta meta - filter objects by the user supplied metadata.
+			All of the key/value pairs must match. At most 10 pairs are
+			allowed.
 		timestamp after - only return objects that were created after this
 			date.
 		timestamp before - only return objects that were created before this
@@ -1351,6 +1349,12 @@ module Workspace {
 			equal to this value.
 		obj_id maxObjectID - only return objects with an object id less than or
 			equal to this value.
+		obj_ref startafter - only return objects after this object. Results are
+			sorted by workspace ID, object ID, and descending version, so
+			passing the reference of the last object returned from a call
+			retrieves the next page of results. Must be an absolute reference
+			of the form X/Y/Z, where X, Y, and Z are the numerical IDs of the
+			workspace, object, and version.
 		boolean showDeleted - show deleted objects in workspaces to which the
 			user has write access.
 		boolean showOnlyDeleted - only show deleted objects in workspaces to
@@ -1380,6 +1384,7 @@ module Workspace {
 		epoch before_epoch;
 		obj_id minObjectID;
 		obj_id maxObjectID;
+		obj_ref startafter;
 		boolean showDeleted;
 		boolean showOnlyDeleted;
 		boolean showHidden;
@@ -1395,6 +1400,53 @@ module Workspace {
 	funcdef list_objects(ListObjectsParams params)
 		returns(list<object_info> objinfo) authentication optional;
 	
+	/* Parameters for the 'list_recent_objects' function.
+	
+		Optional arguments:
+		string startafter - only return objects after this position. Pass the
+			next value from the results of the previous call to retrieve the
+			next page of results.
+		boolean includeMetadata - include the user provided metadata in the
+			returned object_info. If false (0 or null), the default, the
+			metadata will be null.
+		boolean excludeGlobal - exclude objects in global workspaces.
+		int limit - limit the output to X objects. Default and maximum value
+			is 1000. Limit values < 1 are treated as 1000, the default.
+	*/
+	typedef structure {
+		string startafter;
+		boolean includeMetadata;
+		boolean excludeGlobal;
+		int limit;
+	} ListRecentObjectsParams;
+	
+	/* Results of the 'list_recent_objects' function.
+	
+		list<object_info> objects - the objects, sorted by descending
+			modification date, then workspace ID, and then object ID.
+		string next - the position at which the next page of results starts.
+			Null if there are no more results.
+	*/
+	typedef structure {
+		list<object_info> objects;
+		string next;
+	} ListRecentObjectsResults;
+	
+	/*
+		List the most recently modified objects in the workspaces the user can
+		read, newest first. Saving, copying, reverting, renaming, deleting, or
+		undeleting an object changes its modification date. Deleted and hidden
+		objects are not listed.
+		
+		At most 10000 objects are examined per call, so a page may contain
+		fewer objects than the limit, or none, even when more objects are
+		available. Continue calling with the next value until it is null to
+		see all the objects. An object that is modified while paging may be
+		listed twice.
+	*/
+	funcdef list_recent_objects(ListRecentObjectsParams params)
+		returns(ListRecentObjectsResults results) authentication optional;
+	
 	/* Input parameters for the "get_objectmeta" function.
 	
 		Required arguments:
@@ -1601,8 +1653,9 @@ module Workspace {
 	
 	/*
 		Get object names matching a prefix. At most 1000 names are returned.
-		No particular ordering is guaranteed, nor is which names will be
-		returned if more than 1000 are found.
+		Names are sorted within each workspace. If more names are found than
+		the limit, the first names in order of workspace ID and then name are
+		returned.
 		
 		This function is intended for use as an autocomplete helper function.
 	*/